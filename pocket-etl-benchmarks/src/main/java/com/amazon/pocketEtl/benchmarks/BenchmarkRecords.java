@@ -0,0 +1,113 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record types and generators shared by the benchmarks.
+ */
+final class BenchmarkRecords {
+    private BenchmarkRecords() {
+    }
+
+    /**
+     * A plain bean that only contains simple value types, which EtlStreamObject can project without going through a
+     * map.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Order {
+        private String orderId;
+        private String customerId;
+        private String description;
+        private int quantity;
+        private long priceInCents;
+    }
+
+    /**
+     * A narrower view of an Order.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderSummary {
+        private String orderId;
+        private int quantity;
+    }
+
+    /**
+     * A bean with a date property, which forces EtlStreamObject to convert through a map.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DatedOrder {
+        private String orderId;
+        private String customerId;
+        private String description;
+        private int quantity;
+        private long priceInCents;
+        private DateTime orderDate;
+    }
+
+    /**
+     * A narrower view of a DatedOrder.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DatedOrderSummary {
+        private String orderId;
+        private DateTime orderDate;
+    }
+
+    static Order newOrder(int index, int descriptionSize) {
+        return new Order("order-" + index, "customer-" + (index % 1000), description(index, descriptionSize), index % 10,
+                index * 100L);
+    }
+
+    static DatedOrder newDatedOrder(int index, int descriptionSize) {
+        return new DatedOrder("order-" + index, "customer-" + (index % 1000), description(index, descriptionSize),
+                index % 10, index * 100L, new DateTime(1500000000000L + index));
+    }
+
+    static List<Order> newOrders(int count, int descriptionSize) {
+        List<Order> orders = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            orders.add(newOrder(i, descriptionSize));
+        }
+
+        return orders;
+    }
+
+    private static String description(int index, int size) {
+        StringBuilder builder = new StringBuilder(size);
+
+        while (builder.length() < size) {
+            builder.append((char)('a' + (index + builder.length()) % 26));
+        }
+
+        return builder.toString();
+    }
+}
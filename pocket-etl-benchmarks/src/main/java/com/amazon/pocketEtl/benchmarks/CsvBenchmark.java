@@ -0,0 +1,88 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import com.amazon.pocketEtl.extractor.CsvInputStreamMapper;
+import com.amazon.pocketEtl.loader.CsvStringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of CSV serialization (CsvStringSerializer) and CSV parsing (CsvInputStreamMapper) in records per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvBenchmark {
+    private static final int RECORDS_PER_INVOCATION = 10_000;
+
+    @Param({"16", "1024"})
+    public int recordSize;
+
+    private List<BenchmarkRecords.Order> orders;
+    private CsvStringSerializer<BenchmarkRecords.Order> serializer;
+    private CsvInputStreamMapper<BenchmarkRecords.Order> mapper;
+    private byte[] csvBytes;
+
+    @Setup
+    public void createRecords() {
+        orders = BenchmarkRecords.newOrders(RECORDS_PER_INVOCATION, recordSize);
+        serializer = CsvStringSerializer.of(BenchmarkRecords.Order.class);
+        mapper = CsvInputStreamMapper.of(BenchmarkRecords.Order.class);
+
+        StringBuilder csv = new StringBuilder();
+        CsvStringSerializer<BenchmarkRecords.Order> setupSerializer = CsvStringSerializer.of(BenchmarkRecords.Order.class);
+        orders.forEach(order -> csv.append(setupSerializer.apply(order)));
+        csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void serialize(Blackhole blackhole) {
+        for (BenchmarkRecords.Order order : orders) {
+            blackhole.consume(serializer.apply(order));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void parse(Blackhole blackhole) {
+        Iterator<BenchmarkRecords.Order> iterator = mapper.apply(new ByteArrayInputStream(csvBytes));
+
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import com.amazon.pocketEtl.EtlStream;
+import com.amazon.pocketEtl.Loader;
+import com.amazon.pocketEtl.extractor.IterableExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.amazon.pocketEtl.EtlConsumerStage.load;
+import static com.amazon.pocketEtl.EtlConsumerStage.transform;
+import static com.amazon.pocketEtl.EtlProducerStage.extract;
+
+/**
+ * End-to-end throughput of an extract -> transform -> load stream. Each invocation runs a complete stream over a
+ * fixed number of records, so the score is records per second including stream start-up and shut-down.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EtlStreamBenchmark {
+    private static final int RECORDS_PER_INVOCATION = 100_000;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"16", "1024"})
+    public int recordSize;
+
+    private List<BenchmarkRecords.Order> orders;
+
+    @Setup
+    public void createRecords() {
+        orders = BenchmarkRecords.newOrders(RECORDS_PER_INVOCATION, recordSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public long extractTransformLoad() throws Exception {
+        LongAdder loadedRecords = new LongAdder();
+        Loader<BenchmarkRecords.OrderSummary> loader = summary -> loadedRecords.increment();
+
+        EtlStream.from(extract(IterableExtractor.of(orders)))
+                .then(transform(BenchmarkRecords.Order.class, order -> Collections.singletonList(
+                        new BenchmarkRecords.OrderSummary(order.getOrderId(), order.getQuantity())))
+                        .withThreads(threads))
+                .then(load(BenchmarkRecords.OrderSummary.class, loader).withThreads(threads))
+                .run();
+
+        return loadedRecords.sum();
+    }
+}
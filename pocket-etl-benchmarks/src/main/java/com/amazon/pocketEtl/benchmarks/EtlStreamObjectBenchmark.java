@@ -0,0 +1,94 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import com.amazon.pocketEtl.core.EtlStreamObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costs of the EtlStreamObject operations performed for every record as it moves between stages. The 'plain'
+ * benchmarks use beans that EtlStreamObject can project between directly; the 'dated' benchmarks use beans with a
+ * date property, which forces the conversion through a map, so the two can be compared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EtlStreamObjectBenchmark {
+    @Param({"16", "1024"})
+    public int recordSize;
+
+    private BenchmarkRecords.Order order;
+    private BenchmarkRecords.DatedOrder datedOrder;
+    private BenchmarkRecords.OrderSummary orderSummary;
+    private BenchmarkRecords.DatedOrderSummary datedOrderSummary;
+
+    @Setup
+    public void createRecords() {
+        order = BenchmarkRecords.newOrder(1, recordSize);
+        datedOrder = BenchmarkRecords.newDatedOrder(1, recordSize);
+        orderSummary = new BenchmarkRecords.OrderSummary("order-2", 7);
+        datedOrderSummary = new BenchmarkRecords.DatedOrderSummary("order-2", datedOrder.getOrderDate());
+    }
+
+    @Benchmark
+    public Object getSameClassPlain() {
+        return EtlStreamObject.of(order).get(BenchmarkRecords.Order.class);
+    }
+
+    @Benchmark
+    public Object getProjectionPlain() {
+        return EtlStreamObject.of(order).get(BenchmarkRecords.OrderSummary.class);
+    }
+
+    @Benchmark
+    public Object getProjectionDated() {
+        return EtlStreamObject.of(datedOrder).get(BenchmarkRecords.DatedOrderSummary.class);
+    }
+
+    @Benchmark
+    public Object withPartialViewPlain() {
+        return EtlStreamObject.of(order).with(orderSummary).get(BenchmarkRecords.Order.class);
+    }
+
+    @Benchmark
+    public Object withPartialViewDated() {
+        return EtlStreamObject.of(datedOrder).with(datedOrderSummary).get(BenchmarkRecords.DatedOrder.class);
+    }
+
+    @Benchmark
+    public Object createCopyPlain() {
+        return EtlStreamObject.of(order).createCopy();
+    }
+
+    @Benchmark
+    public Object createCopyDated() {
+        return EtlStreamObject.of(datedOrder).createCopy();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import com.amazon.pocketEtl.Loader;
+import com.amazon.pocketEtl.core.EtlStreamObject;
+import com.amazon.pocketEtl.core.consumer.EtlConsumer;
+import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * Cost of handing records from a producing thread to the worker threads of a consumer stage through the standard
+ * consumer chain (Smart -> MetricsEmission -> Executor -> Loader) with a loader that does no work, in records per
+ * second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutorHandOffBenchmark {
+    private static final int RECORDS_PER_INVOCATION = 100_000;
+    private static final String STAGE_NAME = "benchmark";
+
+    @Param({"1", "4", "16"})
+    public int threads;
+
+    @Param({"1000"})
+    public int queueSize;
+
+    @Param({"ARRAY_BLOCKING", "LINKED_BLOCKING", "RING_BUFFER"})
+    public WorkQueueStrategy queueStrategy;
+
+    private final EtlExecutorFactory etlExecutorFactory = new EtlExecutorFactory();
+    private final EtlConsumerFactory etlConsumerFactory = new EtlConsumerFactory(etlExecutorFactory);
+    private final Loader<BenchmarkRecords.Order> loader = order -> { };
+
+    private List<EtlStreamObject> streamObjects;
+    private EtlConsumer errorConsumer;
+
+    @Setup
+    public void createRecords() {
+        streamObjects = new ArrayList<>(RECORDS_PER_INVOCATION);
+        BenchmarkRecords.newOrders(RECORDS_PER_INVOCATION, 16).forEach(order -> streamObjects.add(EtlStreamObject.of(order)));
+        errorConsumer = etlConsumerFactory.newLogAsErrorConsumer(STAGE_NAME, getLogger(STAGE_NAME), BenchmarkRecords.Order.class,
+                Object::toString);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void handOff() throws Exception {
+        EtlConsumer consumer = etlConsumerFactory.newLoader(STAGE_NAME, loader, BenchmarkRecords.Order.class,
+                errorConsumer, etlExecutorFactory.newBlockingFixedThreadsEtlExecutor(threads, queueSize,
+                        queueStrategy));
+
+        consumer.open(null);
+        streamObjects.forEach(consumer::consume);
+        consumer.close();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.benchmarks;
+
+import com.amazon.pocketEtl.loader.CsvStringSerializer;
+import com.amazon.pocketEtl.loader.S3FastLoader;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of S3FastLoader buffering and part file hand-off in records per second, writing to a fake S3 client
+ * that simply drains the uploaded stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class S3FastLoaderBenchmark {
+    private static final int RECORDS_PER_INVOCATION = 10_000;
+
+    @Param({"16", "1024"})
+    public int recordSize;
+
+    @Param({"65536", "16777216"})
+    public int maxPartFileSizeInBytes;
+
+    private List<BenchmarkRecords.Order> orders;
+    private S3FastLoader.S3FastLoaderSupplier<BenchmarkRecords.Order> loaderSupplier;
+
+    @Setup
+    public void createRecords() {
+        orders = BenchmarkRecords.newOrders(RECORDS_PER_INVOCATION, recordSize);
+        loaderSupplier = S3FastLoader.supplierOf("benchmark-bucket", () -> CsvStringSerializer.of(BenchmarkRecords.Order.class))
+                .withClient(new DrainingAmazonS3())
+                .withMaxPartFileSizeInBytes(maxPartFileSizeInBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void load() throws Exception {
+        try (S3FastLoader<BenchmarkRecords.Order> loader = loaderSupplier.get()) {
+            loader.open(null);
+            orders.forEach(loader::load);
+        }
+    }
+
+    /**
+     * Fake S3 client that reads and discards the content of every object put to it.
+     */
+    private static class DrainingAmazonS3 extends AbstractAmazonS3 {
+        private final byte[] drain = new byte[64 * 1024];
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest putObjectRequest) {
+            try (InputStream inputStream = putObjectRequest.getInputStream()) {
+                while (inputStream.read(drain) != -1) {
+                    // discard
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return new PutObjectResult();
+        }
+    }
+}
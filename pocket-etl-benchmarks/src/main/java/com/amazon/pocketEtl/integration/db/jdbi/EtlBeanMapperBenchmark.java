@@ -0,0 +1,161 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.amazon.pocketEtl.integration.db.jdbi;
+
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Throughput in rows per second of mapping ResultSet rows to beans with EtlBeanMapper, compared with
+ * ReflectiveEtlBeanMapper, the reflective implementation it replaced. A new mapper is created for every ResultSet, as
+ * JDBI does for every query, so a small number of rows per ResultSet shows the cost of creating a mapper and a large
+ * number shows the cost of mapping each row.
+ *
+ * EtlBeanMapper is package-private, so this benchmark is in its package. The rows are served from memory by a proxy
+ * ResultSet so that the benchmark measures the mapping rather than a JDBC driver.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EtlBeanMapperBenchmark {
+    private static final int ROWS_PER_INVOCATION = 10_000;
+    private static final String[] COLUMN_LABELS = { "orderId", "customerId", "description", "quantity",
+            "priceInCents" };
+
+    @Param({"1", "1000"})
+    public int rowsPerResultSet;
+
+    private InMemoryRows rows;
+    private ResultSet resultSet;
+
+    /**
+     * The bean every row is mapped to.
+     */
+    @Data
+    public static class Order {
+        private String orderId;
+        private String customerId;
+        private String description;
+        private int quantity;
+        private long priceInCents;
+    }
+
+    @Setup
+    public void createRows() {
+        Object[][] values = new Object[rowsPerResultSet][];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Object[] { "order-" + i, "customer-" + i % 100, "description of order " + i, i % 10,
+                    i * 100L };
+        }
+
+        rows = new InMemoryRows(values);
+        resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, rows);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void compiledMapper(Blackhole blackhole) throws SQLException {
+        mapRows(() -> new EtlBeanMapper<>(Order.class, null), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void reflectiveMapper(Blackhole blackhole) throws SQLException {
+        mapRows(() -> new ReflectiveEtlBeanMapper<>(Order.class, null), blackhole);
+    }
+
+    private void mapRows(Supplier<ResultSetMapper<Order>> mapperSupplier, Blackhole blackhole) throws SQLException {
+        for (int mapped = 0; mapped < ROWS_PER_INVOCATION; mapped += rowsPerResultSet) {
+            ResultSetMapper<Order> mapper = mapperSupplier.get();
+
+            for (int row = 0; row < rowsPerResultSet; row++) {
+                rows.currentRow = row;
+                blackhole.consume(mapper.map(row, resultSet, null));
+            }
+        }
+    }
+
+    // Serves the ResultSet and ResultSetMetaData methods the mappers call from an array of rows
+    private static class InMemoryRows implements InvocationHandler {
+        private final Object[][] values;
+        private final ResultSetMetaData metadata;
+        private int currentRow = 0;
+        private boolean wasNull = false;
+
+        private InMemoryRows(Object[][] values) {
+            this.values = values;
+            this.metadata = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                    new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnCount":
+                                return COLUMN_LABELS.length;
+                            case "getColumnLabel":
+                                return COLUMN_LABELS[(Integer) args[0] - 1];
+                            case "getColumnType":
+                                return Types.VARCHAR;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metadata;
+                case "wasNull":
+                    return wasNull;
+                case "getString":
+                case "getInt":
+                case "getLong":
+                case "getObject":
+                    Object value = values[currentRow][(Integer) args[0] - 1];
+                    wasNull = value == null;
+                    return value;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
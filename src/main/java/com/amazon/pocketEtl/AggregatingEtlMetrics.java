@@ -0,0 +1,248 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An EtlMetrics implementation that makes profiling high-volume streams cheap by aggregating counters and timers in
+ * memory and periodically flushing the aggregates to another EtlMetrics object.
+ * <p>
+ * Every profiling scope in a stream normally creates and closes a child EtlMetrics object, which for a stream with
+ * several stages means multiple allocations and roll-ups per record. This implementation instead hands out a single
+ * shared child that records straight into striped accumulators (LongAdder/DoubleAdder) keyed by metric name, so
+ * recording a metric from many threads at once neither allocates nor contends on a lock.
+ * <p>
+ * Counters are always recorded exactly. Timers can optionally be sampled so that only a fraction of scopes report
+ * their time; because timers are flushed as the mean time per scope over the flush interval, sampling does not bias
+ * the reported value.
+ * <p>
+ * The aggregates are flushed to the wrapped EtlMetrics object by whichever thread records the first metric after the
+ * flush interval elapses, and again when this object is closed. Counters are flushed as the total added since the
+ * last flush and timers as the mean of the times recorded since the last flush. Calls to the wrapped EtlMetrics
+ * object are never made concurrently, so it does not need to be threadsafe.
+ * <p>
+ * Example usage:
+ * {@code
+ * try (EtlMetrics metrics = AggregatingEtlMetrics.of(myMetrics).withTimerSamplingRate(0.01)) {
+ *     etlStream.run(metrics);
+ * }
+ * }
+ */
+public class AggregatingEtlMetrics implements EtlMetrics {
+    private final static long DEFAULT_FLUSH_INTERVAL_MILLIS = 60_000;
+    private final static double DEFAULT_TIMER_SAMPLING_RATE = 1.0;
+
+    private final EtlMetrics wrappedMetrics;
+    private final double timerSamplingRate;
+    private final long flushIntervalMillis;
+
+    // THREAD-SAFE OBJECTS: they are shared by and modified by concurrent threads
+    private final ConcurrentMap<String, Accumulator> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Accumulator> timers = new ConcurrentHashMap<>();
+    private final AtomicLong nextFlushNanos;
+    private final EtlMetrics sampledChildMetrics = new ChildMetrics(true);
+    private final EtlMetrics unsampledChildMetrics = new ChildMetrics(false);
+    // END THREAD-SAFE
+
+    /**
+     * Create a new AggregatingEtlMetrics object that wraps another EtlMetrics object. By default every timer is
+     * recorded and aggregates are flushed once a minute.
+     * @param wrappedMetrics The EtlMetrics object the aggregated counters and timers will be flushed to.
+     * @return A new AggregatingEtlMetrics object.
+     */
+    public static AggregatingEtlMetrics of(EtlMetrics wrappedMetrics) {
+        return new AggregatingEtlMetrics(wrappedMetrics, DEFAULT_TIMER_SAMPLING_RATE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Sets the fraction of profiling scopes that will record their time. Counters are unaffected by sampling.
+     * @param timerSamplingRate A value between 0.0 (never record timers) and 1.0 (always record timers).
+     * @return A new copy of this object with its behavior modified.
+     */
+    public AggregatingEtlMetrics withTimerSamplingRate(double timerSamplingRate) {
+        if (timerSamplingRate < 0.0 || timerSamplingRate > 1.0) {
+            throw new IllegalArgumentException("Timer sampling rate must be between 0.0 and 1.0");
+        }
+
+        return new AggregatingEtlMetrics(wrappedMetrics, timerSamplingRate, flushIntervalMillis);
+    }
+
+    /**
+     * Sets how often the aggregated metrics will be flushed to the wrapped EtlMetrics object.
+     * @param flushIntervalMillis Flush interval in milliseconds. A value of zero means the metrics will only be
+     *                            flushed when this object is closed or flush() is called.
+     * @return A new copy of this object with its behavior modified.
+     */
+    public AggregatingEtlMetrics withFlushIntervalMillis(long flushIntervalMillis) {
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("Flush interval cannot be negative");
+        }
+
+        return new AggregatingEtlMetrics(wrappedMetrics, timerSamplingRate, flushIntervalMillis);
+    }
+
+    private AggregatingEtlMetrics(EtlMetrics wrappedMetrics, double timerSamplingRate, long flushIntervalMillis) {
+        this.wrappedMetrics = wrappedMetrics;
+        this.timerSamplingRate = timerSamplingRate;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.nextFlushNanos = new AtomicLong(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+    }
+
+    /**
+     * Returns a child metrics object that records directly into the aggregates held by this object. The returned
+     * object is shared and is not allocated per call; closing it has no effect.
+     * @return A child EtlMetrics object.
+     */
+    @Override
+    public EtlMetrics createChildMetrics() {
+        if (timerSamplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < timerSamplingRate) {
+            return sampledChildMetrics;
+        }
+
+        return unsampledChildMetrics;
+    }
+
+    @Override
+    public void addCount(String keyName, double valueInUnits) {
+        record(counters, keyName, valueInUnits);
+    }
+
+    @Override
+    public void addTime(String keyName, double valueInMilliSeconds) {
+        record(timers, keyName, valueInMilliSeconds);
+    }
+
+    /**
+     * Flushes all the counters and timers that have been recorded since the last flush to the wrapped EtlMetrics
+     * object.
+     */
+    public synchronized void flush() {
+        for (Map.Entry<String, Accumulator> entry : counters.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+
+            if (accumulator.advance()) {
+                wrappedMetrics.addCount(entry.getKey(), accumulator.flushedDeltaTotal);
+            }
+        }
+
+        for (Map.Entry<String, Accumulator> entry : timers.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+
+            if (accumulator.advance()) {
+                wrappedMetrics.addTime(entry.getKey(), accumulator.flushedDeltaTotal / accumulator.flushedDeltaSamples);
+            }
+        }
+    }
+
+    /**
+     * Flushes any remaining metrics and then closes the wrapped EtlMetrics object.
+     */
+    @Override
+    public void close() {
+        flush();
+        wrappedMetrics.close();
+    }
+
+    private void record(ConcurrentMap<String, Accumulator> accumulators, String keyName, double value) {
+        Accumulator accumulator = accumulators.get(keyName);
+
+        if (accumulator == null) {
+            accumulator = accumulators.computeIfAbsent(keyName, ignored -> new Accumulator());
+        }
+
+        accumulator.total.add(value);
+        accumulator.samples.increment();
+
+        if (flushIntervalMillis > 0) {
+            long now = System.nanoTime();
+            long nextFlush = nextFlushNanos.get();
+
+            if (now - nextFlush >= 0 &&
+                    nextFlushNanos.compareAndSet(nextFlush, now + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis))) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Running totals are never reset, instead each flush remembers how much it has already reported and reports the
+     * difference. This means values recorded concurrently with a flush are never lost, just reported in the next one.
+     */
+    private static final class Accumulator {
+        private final DoubleAdder total = new DoubleAdder();
+        private final LongAdder samples = new LongAdder();
+
+        // Only accessed by flush() which is synchronized
+        private double flushedTotal = 0;
+        private long flushedSamples = 0;
+        private double flushedDeltaTotal = 0;
+        private long flushedDeltaSamples = 0;
+
+        private boolean advance() {
+            long currentSamples = samples.sum();
+            double currentTotal = total.sum();
+
+            flushedDeltaSamples = currentSamples - flushedSamples;
+            flushedDeltaTotal = currentTotal - flushedTotal;
+
+            if (flushedDeltaSamples <= 0) {
+                return false;
+            }
+
+            flushedSamples = currentSamples;
+            flushedTotal = currentTotal;
+            return true;
+        }
+    }
+
+    private final class ChildMetrics implements EtlMetrics {
+        private final boolean recordsTimers;
+
+        private ChildMetrics(boolean recordsTimers) {
+            this.recordsTimers = recordsTimers;
+        }
+
+        @Override
+        public EtlMetrics createChildMetrics() {
+            return AggregatingEtlMetrics.this.createChildMetrics();
+        }
+
+        @Override
+        public void addCount(String keyName, double valueInUnits) {
+            AggregatingEtlMetrics.this.addCount(keyName, valueInUnits);
+        }
+
+        @Override
+        public void addTime(String keyName, double valueInMilliSeconds) {
+            if (recordsTimers) {
+                AggregatingEtlMetrics.this.addTime(keyName, valueInMilliSeconds);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op: everything has already been recorded in the parent
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+/**
+ * Interface for a Loader that can write many objects to its final destination in a single operation. Loaders for
+ * sinks that have a per-request overhead (network round trips, transactions etc) should implement this interface so
+ * that a load stage configured with a batch size will hand them groups of records instead of individual records.
+ *
+ * Records that could not be loaded are returned to the caller so that they can be routed to the error handler of the
+ * stage individually without failing the rest of the batch.
+ *
+ * @param <T> Type of object this loader loads.
+ */
+@FunctionalInterface
+public interface BatchLoader<T> extends Loader<T> {
+    /**
+     * Load a batch of objects to the destination store/service.
+     *
+     * @param objectsToLoad The objects to be loaded. This list should not be retained or modified by the loader.
+     * @return A list of the objects from the batch that could not be loaded, or an empty list if all objects were
+     * loaded successfully. If a RuntimeException is thrown instead, every object in the batch is treated as failed.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     * detected and the stream needs to be aborted.
+     */
+    List<T> loadBatch(List<T> objectsToLoad) throws UnrecoverableStreamFailureException;
+
+    /**
+     * Load a single object to the destination store/service by passing it to loadBatch() as a batch of one. This is
+     * what a load stage calls when it has not been configured with a batch size greater than 1. Any exception thrown
+     * by loadBatch() is propagated unchanged.
+     *
+     * @param objectToLoad The object to be loaded.
+     * @throws RuntimeException If loadBatch() returns the object as failed, so that the load stage routes it to its
+     * error handler in the same way as any other failed load.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     * detected and the stream needs to be aborted.
+     */
+    @Override
+    default void load(T objectToLoad) throws UnrecoverableStreamFailureException {
+        List<T> failedObjects = loadBatch(Collections.singletonList(objectToLoad));
+
+        if (failedObjects != null && !failedObjects.isEmpty()) {
+            throw new RuntimeException("Object was returned as failed by loadBatch()");
+        }
+    }
+}
@@ -19,8 +19,10 @@ import java.util.Collection;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
 import com.amazon.pocketEtl.core.producer.EtlProducer;
 
 import lombok.AccessLevel;
@@ -53,9 +55,10 @@ class EtlCombineStage extends EtlProducerStage {
     }
 
     @Override
-    Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer) {
+    Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer,
+                                                       @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
         return getStageChains().stream()
-                .map(stageChain -> stageChain.constructComponentProducers(downstreamConsumer))
+                .map(stageChain -> stageChain.constructComponentProducers(downstreamConsumer, threadBudgetScheduler))
                 .flatMap(Collection::stream)
                 .collect(Collectors.toList());
         }
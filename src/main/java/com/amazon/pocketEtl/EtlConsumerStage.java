@@ -17,9 +17,16 @@ package com.amazon.pocketEtl;
 
 import com.amazon.pocketEtl.core.DefaultLoggingStrategy;
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
+import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.consumer.TokenBucketRateLimiter;
+import com.amazon.pocketEtl.core.executor.EtlExecutor;
+import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
 import lombok.Getter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.function.Function;
 
 /**
@@ -48,9 +55,9 @@ public abstract class EtlConsumerStage<T> {
      * @param classForStage The class that represents a view of the data to be operated on in the stream for this stage.
      * @param loader A loader that loads data from the stream to a final destination.
      * @param <T> Inferred type for the stage based on the classForStage.
-     * @return An EtlConsumerStage that can be used as a component for an EtlStream.
+     * @return An EtlLoadStage that can be used as a component for an EtlStream.
      */
-    public static <T> EtlConsumerStage<T> load(@Nonnull Class<T> classForStage,
+    public static <T> EtlLoadStage<T> load(@Nonnull Class<T> classForStage,
                                            @Nonnull Loader<T> loader) {
         return EtlLoadStage.of(classForStage, loader);
     }
@@ -79,15 +86,101 @@ public abstract class EtlConsumerStage<T> {
      */
     public abstract EtlConsumerStage<T> withThreads(@Nonnull Integer threads);
 
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param queueSize The maximum number of records that can be waiting for a worker of this stage. Once the queue is
+     *                  full, the upstream stage will block until there is room. The default is 1000.
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withQueueSize(@Nonnull Integer queueSize);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param queueStrategy The type of queue that holds records waiting for a worker of this stage. Stages that are
+     *                      fed by many threads and have many workers of their own may see less lock contention with
+     *                      a strategy other than the default of ARRAY_BLOCKING.
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withQueueStrategy(@Nonnull WorkQueueStrategy queueStrategy);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param concurrency Instead of a fixed number of worker threads, run every record on its own virtual thread and
+     *                    limit the number of records being worked on at once to this value. This suits stages that
+     *                    spend most of their time waiting on remote services and need a high level of concurrency.
+     *                    On JDKs without virtual threads platform threads are used instead. When set this overrides
+     *                    any value given to withThreads(), and the wrapped transformation or load must be threadsafe.
+     *                    This cannot be combined with withWorkStealing() or withMaxThreads().
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withConcurrency(@Nonnull Integer concurrency);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param workStealing Instead of a dedicated pool of worker threads, run this stage on a work-stealing pool that
+     *                     is sized to the number of available processors and shared by every stage that sets this
+     *                     option. This suits CPU-bound stages; a stream made of several such stages will only ever use
+     *                     as many threads as there are processors. When set this overrides any value given to
+     *                     withThreads(), and the wrapped transformation or load must be threadsafe. This cannot
+     *                     be combined with withConcurrency() or withMaxThreads().
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withWorkStealing(@Nonnull Boolean workStealing);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param maxThreads Allow the number of worker threads for this stage to be adjusted automatically while the stream
+     *                   is running. The stage will never have fewer threads than the value given to withThreads() or
+     *                   more threads than this value, and in between the number of threads will be adjusted to
+     *                   maximize the number of records processed per second. The wrapped transformation or load must be
+     *                   threadsafe. This cannot be combined with withConcurrency() or withWorkStealing(), or used in a
+     *                   stream that has a thread budget unless it is no greater than the number of threads.
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withMaxThreads(@Nonnull Integer maxThreads);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param permitsPerSecond The maximum number of records per second that this stage will process, shared between
+     *                         all of its workers. Use this to keep a stage that calls an external service within the
+     *                         rate that service can sustain; workers wait for their turn rather than being throttled.
+     *                         By default the rate is not limited.
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withRateLimit(double permitsPerSecond);
+
+    /**
+     * Construct a new EtlConsumerStage object that is the copy of an existing one but with a new specific value.
+     * @param permitsPerSecond The maximum number of records per second that this stage will process, shared between
+     *                         all of its workers. By default the rate is not limited.
+     * @param burstCapacity The number of records that can be processed at once without waiting after the stage has
+     *                      been idle. The default of 1 means records are always spaced evenly.
+     * @return A new EtlConsumerStage object.
+     */
+    public abstract EtlConsumerStage<T> withRateLimit(double permitsPerSecond, int burstCapacity);
+
     /****************************************************************************************************************/
 
     private final static int DEFAULT_QUEUE_SIZE = 1000;
     private final static int DEFAULT_NUMBER_OF_WORKERS = 1;
+    private final static WorkQueueStrategy DEFAULT_QUEUE_STRATEGY = WorkQueueStrategy.ARRAY_BLOCKING;
+    private final static int DEFAULT_CONCURRENCY = 0;
+    private final static boolean DEFAULT_WORK_STEALING = false;
+    private final static int DEFAULT_MAX_THREADS = 0;
+    private final static double DEFAULT_RATE_LIMIT = 0;
+    private final static int DEFAULT_RATE_LIMIT_BURST = 1;
 
     private final String stageName;
     private final Integer numberOfThreads;
     private final Class<T> classForStage;
     private final Function<T, String> objectLogger;
+    private final Integer queueSize;
+    private final WorkQueueStrategy queueStrategy;
+    private final Integer concurrency;
+    private final Boolean workStealing;
+    private final Integer maxThreads;
+    private final Double rateLimit;
+    private final Integer rateLimitBurst;
 
     static int getDefaultQueueSize() {
         return DEFAULT_QUEUE_SIZE;
@@ -97,6 +190,50 @@ public abstract class EtlConsumerStage<T> {
         return DEFAULT_NUMBER_OF_WORKERS;
     }
 
+    static WorkQueueStrategy getDefaultQueueStrategy() {
+        return DEFAULT_QUEUE_STRATEGY;
+    }
+
+    static int getDefaultConcurrency() {
+        return DEFAULT_CONCURRENCY;
+    }
+
+    static boolean getDefaultWorkStealing() {
+        return DEFAULT_WORK_STEALING;
+    }
+
+    static int getDefaultMaxThreads() {
+        return DEFAULT_MAX_THREADS;
+    }
+
+    static double getDefaultRateLimit() {
+        return DEFAULT_RATE_LIMIT;
+    }
+
+    static int getDefaultRateLimitBurst() {
+        return DEFAULT_RATE_LIMIT_BURST;
+    }
+
+    static void validateRateLimit(double permitsPerSecond, int burstCapacity) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Rate limit must be greater than zero");
+        }
+
+        if (burstCapacity < 1) {
+            throw new IllegalArgumentException("Rate limit burst capacity must be at least 1");
+        }
+    }
+
+    // Each of these options selects a different kind of executor for the stage, so at most one of them may be set
+    static void validateExecutorOptions(int concurrency, boolean workStealing, int maxThreads) {
+        int optionsSet = (concurrency > 0 ? 1 : 0) + (workStealing ? 1 : 0) + (maxThreads > 0 ? 1 : 0);
+
+        if (optionsSet > 1) {
+            throw new IllegalArgumentException("Only one of concurrency, work stealing and maximum threads can be " +
+                    "set on a stage");
+        }
+    }
+
     static <T> Function<T, String> getDefaultObjectLogger() {
         return new DefaultLoggingStrategy<>();
     }
@@ -104,14 +241,70 @@ public abstract class EtlConsumerStage<T> {
     EtlConsumerStage(@Nonnull Class<T> classForStage,
                      @Nonnull String stageName,
                      @Nonnull Integer numberOfThreads,
-                     @Nonnull Function<T, String> objectLogger) {
+                     @Nonnull Function<T, String> objectLogger,
+                     @Nonnull Integer queueSize,
+                     @Nonnull WorkQueueStrategy queueStrategy,
+                     @Nonnull Integer concurrency,
+                     @Nonnull Boolean workStealing,
+                     @Nonnull Integer maxThreads,
+                     @Nonnull Double rateLimit,
+                     @Nonnull Integer rateLimitBurst) {
         this.stageName = stageName;
         this.numberOfThreads = numberOfThreads;
         this.classForStage = classForStage;
         this.objectLogger = objectLogger;
+        this.queueSize = queueSize;
+        this.queueStrategy = queueStrategy;
+        this.concurrency = concurrency;
+        this.workStealing = workStealing;
+        this.maxThreads = maxThreads;
+        this.rateLimit = rateLimit;
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    EtlExecutor constructExecutorForStage(EtlExecutorFactory etlExecutorFactory,
+                                          @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
+        if (getConcurrency() > 0) {
+            return etlExecutorFactory.newVirtualThreadEtlExecutor(getConcurrency());
+        }
+
+        if (getWorkStealing()) {
+            return etlExecutorFactory.newSharedWorkStealingEtlExecutor(getQueueSize());
+        }
+
+        if (threadBudgetScheduler != null) {
+            return threadBudgetScheduler.newEtlExecutor(getNumberOfThreads(), getQueueSize(), getQueueStrategy());
+        }
+
+        if (isAutoScaling()) {
+            return etlExecutorFactory.newAutoScalingEtlExecutor(getStageName(), getNumberOfThreads(), getMaxThreads(),
+                    getQueueSize(), getQueueStrategy());
+        }
+
+        return etlExecutorFactory.newBlockingFixedThreadsEtlExecutor(getNumberOfThreads(), getQueueSize(),
+                getQueueStrategy());
+    }
+
+    // A maximum that does not exceed the number of threads leaves nothing to scale, so the stage runs fixed threads
+    boolean isAutoScaling() {
+        return getMaxThreads() > getNumberOfThreads();
+    }
+
+    @Nullable
+    TokenBucketRateLimiter constructRateLimiterForStage(EtlConsumerFactory etlConsumerFactory) {
+        if (getRateLimit() > 0) {
+            return etlConsumerFactory.newTokenBucketRateLimiter(getRateLimit(), getRateLimitBurst());
+        }
+
+        return null;
+    }
+
+    EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer) {
+        return constructConsumerForStage(downstreamConsumer, null);
     }
 
-    abstract EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer);
+    abstract EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer,
+                                                   @Nullable ThreadBudgetScheduler threadBudgetScheduler);
     abstract boolean isTerminal();
 
 
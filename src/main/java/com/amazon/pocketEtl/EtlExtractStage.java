@@ -20,9 +20,11 @@ import java.util.Collections;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
 import com.amazon.pocketEtl.core.producer.EtlProducer;
 import com.amazon.pocketEtl.core.producer.EtlProducerFactory;
 
@@ -65,7 +67,8 @@ class EtlExtractStage extends EtlProducerStage {
     }
 
     @Override
-    Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer) {
+    Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer,
+                                                       @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
         return extractors.stream().map(extractor ->
                 getEtlProducerFactory().newExtractorProducer(getStageName(), extractor, downstreamConsumer))
                 .collect(Collectors.toList());
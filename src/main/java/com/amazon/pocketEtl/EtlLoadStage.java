@@ -20,23 +20,36 @@ import static org.apache.logging.log4j.LogManager.getLogger;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.consumer.TokenBucketRateLimiter;
 import com.amazon.pocketEtl.core.executor.EtlExecutor;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
 
 import lombok.AccessLevel;
 import lombok.Getter;
 
+/**
+ * A consumer stage in an EtlStream that loads data to a final destination and terminates the stream. In addition to
+ * the options common to all consumer stages, a load stage can hand records to a BatchLoader in groups.
+ * @param <T> The type of the data being loaded by this stage.
+ */
 @Getter(AccessLevel.PACKAGE)
-class EtlLoadStage<T> extends EtlConsumerStage<T> {
+public class EtlLoadStage<T> extends EtlConsumerStage<T> {
     private final static String DEFAULT_LOAD_STAGE_NAME = "EtlStream.Load";
+    private final static int DEFAULT_BATCH_SIZE = 1;
+    private final static int DEFAULT_LINGER_MILLIS = 0;
 
     private final static EtlExecutorFactory defaultExecutorFactory = new EtlExecutorFactory();
     private final static EtlConsumerFactory defaultConsumerFactory = new EtlConsumerFactory(defaultExecutorFactory);
 
     private final Loader<T> loader;
+    private final Integer batchSize;
+    private final Integer lingerMillis;
     private final EtlExecutorFactory etlExecutorFactory;
     private final EtlConsumerFactory etlConsumerFactory;
 
@@ -45,10 +58,23 @@ class EtlLoadStage<T> extends EtlConsumerStage<T> {
                          @Nonnull String stageName,
                          @Nonnull Integer numberOfThreads,
                          @Nonnull Function<T, String> objectLogger,
+                         @Nonnull Integer queueSize,
+                         @Nonnull WorkQueueStrategy queueStrategy,
+                         @Nonnull Integer concurrency,
+                         @Nonnull Boolean workStealing,
+                         @Nonnull Integer maxThreads,
+                         @Nonnull Double rateLimit,
+                         @Nonnull Integer rateLimitBurst,
+                         @Nonnull Integer batchSize,
+                         @Nonnull Integer lingerMillis,
                          @Nonnull EtlExecutorFactory etlExecutorFactory,
                          @Nonnull EtlConsumerFactory etlConsumerFactory) {
-        super(classForStage, stageName, numberOfThreads, objectLogger);
+        super(classForStage, stageName, numberOfThreads, objectLogger, queueSize, queueStrategy, concurrency,
+                workStealing, maxThreads, rateLimit,
+                rateLimitBurst);
         this.loader = loader;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
         this.etlExecutorFactory = etlExecutorFactory;
         this.etlConsumerFactory = etlConsumerFactory;
     }
@@ -56,34 +82,177 @@ class EtlLoadStage<T> extends EtlConsumerStage<T> {
     @Override
     public EtlLoadStage<T> withObjectLogger(@Nonnull Function<T, String> objectLogger) {
         return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(), objectLogger,
-                getEtlExecutorFactory(), getEtlConsumerFactory());
+                getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
     }
 
     @Override
     public EtlLoadStage<T> withName(@Nonnull String stageName) {
         return new EtlLoadStage<>(getClassForStage(), getLoader(), stageName, getNumberOfThreads(), getObjectLogger(),
-                getEtlExecutorFactory(), getEtlConsumerFactory());
+                getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
     }
 
     @Override
     public EtlLoadStage<T> withThreads(@Nonnull Integer threads) {
         return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), threads, getObjectLogger(),
+                getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlLoadStage<T> withQueueSize(@Nonnull Integer queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Queue size must be at least 1");
+        }
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), queueSize, getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlLoadStage<T> withQueueStrategy(@Nonnull WorkQueueStrategy queueStrategy) {
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), queueStrategy, getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    /**
+     * Construct a new EtlLoadStage object that is the copy of an existing one but with a new specific value. Batching
+     * accumulates records per worker thread, so it cannot be combined with concurrency where every record gets its
+     * own thread.
+     * @param concurrency Maximum number of records being loaded at once.
+     * @return A new EtlLoadStage object.
+     */
+    @Override
+    public EtlLoadStage<T> withConcurrency(@Nonnull Integer concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+
+        validateExecutorOptions(concurrency, getWorkStealing(), getMaxThreads());
+
+        if (getBatchSize() > 1) {
+            throw new IllegalArgumentException("Concurrency cannot be used with a batch size greater than 1");
+        }
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), concurrency, getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    /**
+     * Construct a new EtlLoadStage object that is the copy of an existing one but with a new specific value.
+     * @param batchSize The maximum number of records that will be passed to the loader in a single call to
+     *                  loadBatch(). Each worker thread accumulates its own batch. The default value of 1 disables
+     *                  batching; any larger value requires the loader to implement BatchLoader.
+     * @return A new EtlLoadStage object.
+     */
+    public EtlLoadStage<T> withBatchSize(@Nonnull Integer batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+
+        if (batchSize > 1 && !(getLoader() instanceof BatchLoader)) {
+            throw new IllegalArgumentException("Batching requires a loader that implements BatchLoader");
+        }
+
+        if (batchSize > 1 && getConcurrency() > 0) {
+            throw new IllegalArgumentException("Batching cannot be used with concurrency");
+        }
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(),
+                getMaxThreads(), getRateLimit(), getRateLimitBurst(), batchSize, getLingerMillis(),
+                getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    /**
+     * Construct a new EtlLoadStage object that is the copy of an existing one but with a new specific value.
+     * @param lingerMillis The maximum time in milliseconds that a partially filled batch will be held before it is
+     *                     passed to the loader. The default value of 0 means partial batches are only passed to the
+     *                     loader when the stream is closed.
+     * @return A new EtlLoadStage object.
+     */
+    public EtlLoadStage<T> withLinger(@Nonnull Integer lingerMillis) {
+        if (lingerMillis < 0) {
+            throw new IllegalArgumentException("Linger time cannot be negative");
+        }
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(),
+                getMaxThreads(), getRateLimit(), getRateLimitBurst(), getBatchSize(), lingerMillis,
+                getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlLoadStage<T> withWorkStealing(@Nonnull Boolean workStealing) {
+        validateExecutorOptions(getConcurrency(), workStealing, getMaxThreads());
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), workStealing, getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlLoadStage<T> withMaxThreads(@Nonnull Integer maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Maximum threads must be at least 1");
+        }
+
+        validateExecutorOptions(getConcurrency(), getWorkStealing(), maxThreads);
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), maxThreads,
+                getRateLimit(), getRateLimitBurst(), getBatchSize(), getLingerMillis(), getEtlExecutorFactory(),
+                getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlLoadStage<T> withRateLimit(double permitsPerSecond) {
+        return withRateLimit(permitsPerSecond, getRateLimitBurst());
+    }
+
+    @Override
+    public EtlLoadStage<T> withRateLimit(double permitsPerSecond, int burstCapacity) {
+        validateRateLimit(permitsPerSecond, burstCapacity);
+
+        return new EtlLoadStage<>(getClassForStage(), getLoader(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(),
+                getMaxThreads(), permitsPerSecond, burstCapacity, getBatchSize(), getLingerMillis(),
                 getEtlExecutorFactory(), getEtlConsumerFactory());
     }
 
     static <T> EtlLoadStage<T> of(@Nonnull Class<T> classForStage, @Nonnull Loader<T> loader) {
         return new EtlLoadStage<>(classForStage, loader, DEFAULT_LOAD_STAGE_NAME, getDefaultNumberOfWorkers(),
-                getDefaultObjectLogger(), defaultExecutorFactory, defaultConsumerFactory);
+                getDefaultObjectLogger(), getDefaultQueueSize(), getDefaultQueueStrategy(), getDefaultConcurrency(),
+                getDefaultWorkStealing(), getDefaultMaxThreads(), getDefaultRateLimit(), getDefaultRateLimitBurst(),
+                DEFAULT_BATCH_SIZE, DEFAULT_LINGER_MILLIS, defaultExecutorFactory, defaultConsumerFactory);
     }
 
     @Override
-    EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer) {
-        EtlExecutor stageExecutor = getEtlExecutorFactory().newBlockingFixedThreadsEtlExecutor(getNumberOfThreads(),
-                getDefaultQueueSize());
+    EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer,
+                                          @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
+        EtlExecutor stageExecutor = constructExecutorForStage(getEtlExecutorFactory(), threadBudgetScheduler);
         EtlConsumer errorConsumer = getEtlConsumerFactory().newLogAsErrorConsumer(getStageName(), getLogger(getStageName()),
                 getClassForStage(), getObjectLogger());
+        TokenBucketRateLimiter rateLimiter = constructRateLimiterForStage(getEtlConsumerFactory());
+
+        if (getBatchSize() > 1) {
+            return getEtlConsumerFactory().newBatchLoader(getStageName(), (BatchLoader<T>) getLoader(),
+                    getClassForStage(), getBatchSize(), getLingerMillis(), errorConsumer, stageExecutor, rateLimiter);
+        }
 
-        return getEtlConsumerFactory().newLoader(getStageName(), getLoader(), getClassForStage(), errorConsumer, stageExecutor);
+        return getEtlConsumerFactory().newLoader(getStageName(), getLoader(), getClassForStage(), errorConsumer, stageExecutor,
+                rateLimiter);
     }
 
     @Override
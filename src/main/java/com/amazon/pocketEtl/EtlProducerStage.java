@@ -19,8 +19,10 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
 import com.amazon.pocketEtl.core.producer.EtlProducer;
 
 import lombok.AccessLevel;
@@ -87,5 +89,10 @@ public abstract class EtlProducerStage {
 
     private final String stageName;
 
-    abstract Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer);
+    Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer) {
+        return constructProducersForStage(downstreamConsumer, null);
+    }
+
+    abstract Collection<EtlProducer> constructProducersForStage(EtlConsumer downstreamConsumer,
+                                                                @Nullable ThreadBudgetScheduler threadBudgetScheduler);
 }
@@ -17,6 +17,7 @@ package com.amazon.pocketEtl;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
 import com.amazon.pocketEtl.core.producer.EtlProducer;
 import com.amazon.pocketEtl.core.producer.EtlProducerFactory;
 import com.google.common.collect.ImmutableList;
@@ -50,25 +51,42 @@ class EtlStageChain {
     }
 
     @Nullable
-    private EtlConsumer constructConsumerChain(@Nullable EtlConsumer downstreamConsumer) {
+    private EtlConsumer constructConsumerChain(@Nullable EtlConsumer downstreamConsumer,
+                                               @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
         // Although forEachRemaining in this context is guaranteed to execute in series, java 8 will not allow
         // overwriting a non-final variable from within a closure so a final AtomicReference is used to wrap the dynamic
         // value.
         AtomicReference<EtlConsumer> consumerChainHead = new AtomicReference<>(downstreamConsumer);
 
         getConsumerStagesStack().iterator().forEachRemaining(stage ->
-                consumerChainHead.set(stage.constructConsumerForStage(consumerChainHead.get())));
+                consumerChainHead.set(stage.constructConsumerForStage(consumerChainHead.get(), threadBudgetScheduler)));
 
         return consumerChainHead.get();
     }
 
+    boolean hasAutoScalingStage() {
+        if (getConsumerStagesStack().stream().anyMatch(EtlConsumerStage::isAutoScaling)) {
+            return true;
+        }
+
+        return getHeadStage() instanceof EtlCombineStage &&
+                ((EtlCombineStage) getHeadStage()).getStageChains().stream()
+                        .anyMatch(EtlStageChain::hasAutoScalingStage);
+    }
+
     EtlProducer constructProducer() {
-        Collection<EtlProducer> etlProducers = constructComponentProducers(null);
+        return constructProducer(null);
+    }
+
+    EtlProducer constructProducer(@Nullable ThreadBudgetScheduler threadBudgetScheduler) {
+        Collection<EtlProducer> etlProducers = constructComponentProducers(null, threadBudgetScheduler);
         return etlProducers.size() == 1 ? etlProducers.iterator().next() :
                 etlProducerFactory.combineProducers(DEFAULT_COMBINE_STAGE_NAME, etlProducers, etlProducers.size());
     }
 
-    Collection<EtlProducer> constructComponentProducers(@Nullable EtlConsumer downstreamConsumer) {
-        return getHeadStage().constructProducersForStage(constructConsumerChain(downstreamConsumer));
+    Collection<EtlProducer> constructComponentProducers(@Nullable EtlConsumer downstreamConsumer,
+                                                        @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
+        return getHeadStage().constructProducersForStage(
+                constructConsumerChain(downstreamConsumer, threadBudgetScheduler), threadBudgetScheduler);
     }
 }
@@ -16,6 +16,7 @@
 package com.amazon.pocketEtl;
 
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
 import com.amazon.pocketEtl.core.producer.EtlProducer;
 import com.amazon.pocketEtl.core.producer.EtlProducerFactory;
 import lombok.AccessLevel;
@@ -194,9 +195,51 @@ public class EtlStream {
     @Nonnull
     public EtlStream then(@Nonnull EtlConsumerStage etlStage) {
         checkTermination();
+
+        if (getThreadBudget() != NO_THREAD_BUDGET && etlStage.isAutoScaling()) {
+            throw new IllegalArgumentException("Stages that set maximum threads cannot be used with a thread budget");
+        }
+
         return new EtlStream(this, etlStage);
     }
 
+    /**
+     * Creates a new stream that is a copy of the current stream but limits the total number of threads used by its
+     * consumer stages, including those of any streams that were combined to make it. Rather than each stage having its
+     * own threads, the stages share the budgeted threads which are continually moved to the stage with the deepest
+     * backlog of work. The number of threads set for a stage becomes the most threads from the budget that the stage
+     * may use at once, so it remains safe to have single-threaded stages that are not threadsafe. Stages that have been
+     * configured with withConcurrency() or withWorkStealing() do not use the budget, and stages configured with
+     * withMaxThreads() above their number of threads cannot be used with a budget as the budget already decides how
+     * many threads they use. The queue size and queue strategy of each stage still apply to its work-queue. Any
+     * thread budget set on a component stream is ignored once it has been combined into another stream. This may be
+     * applied to a terminated stream.
+     *
+     * The budget only covers the worker threads of transform and load stages. It does not count the thread that runs
+     * each extractor, which for a combined stream is one extra thread per component stream started when the producers
+     * are combined, nor the thread that calls run(), nor any threads that loaders or extractors start themselves.
+     *
+     * Example:
+     * EtlStream.combine(customerOrderStream, vendorOrderStream).withThreadBudget(16).run();
+     *
+     * @param maxThreads Total number of threads that may be used by the transform and load stages of the stream.
+     * @return A new stream that is a copy of the old stream with the thread budget applied.
+     * @throws IllegalArgumentException If any stage of the stream has been configured with withMaxThreads() above its
+     * number of threads.
+     */
+    @Nonnull
+    public EtlStream withThreadBudget(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Thread budget must be at least 1");
+        }
+
+        if (getStageChain().hasAutoScalingStage()) {
+            throw new IllegalArgumentException("Thread budget cannot be used with stages that set maximum threads");
+        }
+
+        return new EtlStream(getStageChain(), isTerminated(), maxThreads);
+    }
+
     /**
      * Creates a new stream that is composed of the current stream with the addition of a new transform stage added to
      * the end of it. Note that EtlStream objects are immutable, so the original stream will not be modified. This
@@ -259,6 +302,8 @@ public class EtlStream {
 
     /****************************************************************************************************************/
 
+    private final static int NO_THREAD_BUDGET = 0;
+
     private final static EtlRunner DEFAULT_RUNNER_FUNCTION = (etlProducer, parentMetrics) -> {
         // Java 8 limits try-with-resources to fresh variables (Java 9 will support effectively final variables)
         try (EtlProducer p = etlProducer) {
@@ -273,20 +318,38 @@ public class EtlStream {
     @Getter(AccessLevel.PACKAGE)
     private final EtlStageChain stageChain;
     private boolean isTerminated;
+    private final int threadBudget;
 
     private EtlStream(EtlProducerStage etlStreamStage, boolean isTerminated) {
         stageChain = new EtlStageChain(etlStreamStage);
         this.isTerminated = isTerminated;
+        this.threadBudget = NO_THREAD_BUDGET;
     }
 
     private EtlStream(EtlStream fromEtlStream, EtlConsumerStage newConsumerStage) {
         stageChain = new EtlStageChain(fromEtlStream.getStageChain(), newConsumerStage);
         this.isTerminated = newConsumerStage.isTerminal();
+        this.threadBudget = fromEtlStream.getThreadBudget();
+    }
+
+    private EtlStream(EtlStageChain stageChain, boolean isTerminated, int threadBudget) {
+        this.stageChain = stageChain;
+        this.isTerminated = isTerminated;
+        this.threadBudget = threadBudget;
     }
 
     void run(@Nullable EtlMetrics parentMetrics, @Nonnull EtlRunner runnerFunction) throws Exception {
-        EtlProducer etlJob = getStageChain().constructProducer();
-        runnerFunction.run(etlJob, parentMetrics);
+        ThreadBudgetScheduler threadBudgetScheduler = getThreadBudget() == NO_THREAD_BUDGET ? null :
+                getEtlExecutorFactory().newThreadBudgetScheduler(getThreadBudget());
+
+        try {
+            EtlProducer etlJob = getStageChain().constructProducer(threadBudgetScheduler);
+            runnerFunction.run(etlJob, parentMetrics);
+        } finally {
+            if (threadBudgetScheduler != null) {
+                threadBudgetScheduler.shutdown();
+            }
+        }
     }
 
     private void checkTermination() {
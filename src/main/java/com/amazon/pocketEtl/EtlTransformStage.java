@@ -21,11 +21,15 @@ import static org.apache.logging.log4j.LogManager.getLogger;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.consumer.TokenBucketRateLimiter;
 import com.amazon.pocketEtl.core.executor.EtlExecutor;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -46,9 +50,18 @@ class EtlTransformStage<T> extends EtlConsumerStage<T> {
                               @Nonnull String stageName,
                               @Nonnull Integer numberOfThreads,
                               @Nonnull Function<T, String> objectLogger,
+                              @Nonnull Integer queueSize,
+                              @Nonnull WorkQueueStrategy queueStrategy,
+                              @Nonnull Integer concurrency,
+                              @Nonnull Boolean workStealing,
+                              @Nonnull Integer maxThreads,
+                              @Nonnull Double rateLimit,
+                              @Nonnull Integer rateLimitBurst,
                               @Nonnull EtlExecutorFactory etlExecutorFactory,
                               @Nonnull EtlConsumerFactory etlConsumerFactory) {
-        super(classForStage, stageName, numberOfThreads, objectLogger);
+        super(classForStage, stageName, numberOfThreads, objectLogger, queueSize, queueStrategy, concurrency,
+                workStealing, maxThreads, rateLimit,
+                rateLimitBurst);
         this.transformer = transformer;
         this.etlExecutorFactory = etlExecutorFactory;
         this.etlConsumerFactory = etlConsumerFactory;
@@ -57,39 +70,112 @@ class EtlTransformStage<T> extends EtlConsumerStage<T> {
     @Override
     public EtlTransformStage<T> withObjectLogger(@Nonnull Function<T, String> objectLogger) {
         return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
-                objectLogger, getEtlExecutorFactory(), getEtlConsumerFactory());
+                objectLogger, getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
     }
 
     @Override
     public EtlTransformStage<T> withName(@Nonnull String stageName) {
         return new EtlTransformStage<>(getClassForStage(), getTransformer(), stageName, getNumberOfThreads(),
-                getObjectLogger(), getEtlExecutorFactory(), getEtlConsumerFactory());
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(),
+                getMaxThreads(), getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
     }
 
     @Override
     public EtlTransformStage<T> withThreads(@Nonnull Integer threads) {
         return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), threads, getObjectLogger(),
-                getEtlExecutorFactory(), getEtlConsumerFactory());
+                getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withQueueSize(@Nonnull Integer queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Queue size must be at least 1");
+        }
+
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), queueSize, getQueueStrategy(), getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withQueueStrategy(@Nonnull WorkQueueStrategy queueStrategy) {
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), queueStrategy, getConcurrency(), getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withConcurrency(@Nonnull Integer concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+
+        validateExecutorOptions(concurrency, getWorkStealing(), getMaxThreads());
+
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), concurrency, getWorkStealing(), getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withWorkStealing(@Nonnull Boolean workStealing) {
+        validateExecutorOptions(getConcurrency(), workStealing, getMaxThreads());
+
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), workStealing, getMaxThreads(),
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withMaxThreads(@Nonnull Integer maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Maximum threads must be at least 1");
+        }
+
+        validateExecutorOptions(getConcurrency(), getWorkStealing(), maxThreads);
+
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(), maxThreads,
+                getRateLimit(), getRateLimitBurst(), getEtlExecutorFactory(), getEtlConsumerFactory());
+    }
+
+    @Override
+    public EtlTransformStage<T> withRateLimit(double permitsPerSecond) {
+        return withRateLimit(permitsPerSecond, getRateLimitBurst());
+    }
+
+    @Override
+    public EtlTransformStage<T> withRateLimit(double permitsPerSecond, int burstCapacity) {
+        validateRateLimit(permitsPerSecond, burstCapacity);
+
+        return new EtlTransformStage<>(getClassForStage(), getTransformer(), getStageName(), getNumberOfThreads(),
+                getObjectLogger(), getQueueSize(), getQueueStrategy(), getConcurrency(), getWorkStealing(),
+                getMaxThreads(), permitsPerSecond, burstCapacity, getEtlExecutorFactory(), getEtlConsumerFactory());
     }
 
     static <T> EtlTransformStage<T> of(@Nonnull Class<T> classForStage, @Nonnull Transformer<T,?> transformer) {
         return new EtlTransformStage<>(classForStage, transformer, DEFAULT_TRANSFORM_STAGE_NAME,
-                getDefaultNumberOfWorkers(), getDefaultObjectLogger(), defaultExecutorFactory, defaultConsumerFactory);
+                getDefaultNumberOfWorkers(), getDefaultObjectLogger(), getDefaultQueueSize(), getDefaultQueueStrategy(),
+                getDefaultConcurrency(), getDefaultWorkStealing(), getDefaultMaxThreads(), getDefaultRateLimit(),
+                getDefaultRateLimitBurst(), defaultExecutorFactory, defaultConsumerFactory);
     }
 
     @Override
-    EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer) {
+    EtlConsumer constructConsumerForStage(EtlConsumer downstreamConsumer,
+                                          @Nullable ThreadBudgetScheduler threadBudgetScheduler) {
         if (downstreamConsumer == null) {
             throw new IllegalArgumentException("Attempt to construct transform stage with null downstream consumer");
         }
 
-        EtlExecutor stageExecutor = getEtlExecutorFactory().newBlockingFixedThreadsEtlExecutor(getNumberOfThreads(),
-                getDefaultQueueSize());
+        EtlExecutor stageExecutor = constructExecutorForStage(getEtlExecutorFactory(), threadBudgetScheduler);
         EtlConsumer errorConsumer = getEtlConsumerFactory().newLogAsErrorConsumer(getStageName(), getLogger(getStageName()),
                 getClassForStage(), getObjectLogger());
+        TokenBucketRateLimiter rateLimiter = constructRateLimiterForStage(getEtlConsumerFactory());
 
         return getEtlConsumerFactory().newTransformer(getStageName(), getTransformer(), getClassForStage(),
-                downstreamConsumer, errorConsumer, stageExecutor);
+                downstreamConsumer, errorConsumer, stageExecutor, rateLimiter);
     }
 
     @Override
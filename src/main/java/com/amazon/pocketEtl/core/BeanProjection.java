@@ -0,0 +1,351 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotation;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedConstructor;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A compiled, reusable plan for copying the properties of one Java Bean class directly onto a newly constructed
+ * instance of another Java Bean class using MethodHandles. Used by EtlStreamObject to avoid marshalling objects through
+ * an intermediate map when doing so would produce exactly the same result.
+ *
+ * Property discovery is delegated to the same ObjectMapper EtlStreamObject uses, so the names and accessors used here
+ * are the ones Jackson would use. A projection is only 'supported' when copying directly is indistinguishable from a
+ * Jackson round-trip: both classes are plain beans with no Jackson annotations, the target has a default constructor
+ * and every property that is shared between the two classes has an identical immutable value type (primitives, their
+ * boxed equivalents, String, BigDecimal, BigInteger and un-annotated enums). Anything else, such as nested beans,
+ * collections, maps or date types that Jackson would rewrite, must use the map based path.
+ *
+ * Projections are cached per (sourceClass, targetClass) pair and are threadsafe.
+ */
+final class BeanProjection {
+    private final static ClassValue<ConcurrentMap<Class<?>, BeanProjection>> projectionCache =
+            new ClassValue<ConcurrentMap<Class<?>, BeanProjection>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, BeanProjection> computeValue(Class<?> sourceClass) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final static Set<Class<?>> VALUE_TYPES = ImmutableSet.of(
+            boolean.class, Boolean.class, byte.class, Byte.class, short.class, Short.class, int.class, Integer.class,
+            long.class, Long.class, float.class, Float.class, double.class, Double.class, char.class, Character.class,
+            String.class, BigDecimal.class, BigInteger.class);
+
+    private final static MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private final static MethodType COPIER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final static BeanProjection UNSUPPORTED = new BeanProjection(null, new MethodHandle[0], false);
+
+    private final MethodHandle constructor;
+    private final MethodHandle[] propertyCopiers;
+    private final boolean lossless;
+
+    private BeanProjection(MethodHandle constructor, MethodHandle[] propertyCopiers, boolean lossless) {
+        this.constructor = constructor;
+        this.propertyCopiers = propertyCopiers;
+        this.lossless = lossless;
+    }
+
+    /**
+     * Get the projection between two classes, compiling and caching it the first time a pair is seen.
+     * @param sourceClass The class of the object being read from.
+     * @param targetClass The class of the object being constructed or written to.
+     * @param objectMapper The ObjectMapper whose view of the bean properties must be honored.
+     * @return A projection, which may not be supported in which case the map based path must be used instead.
+     */
+    static BeanProjection of(Class<?> sourceClass, Class<?> targetClass, ObjectMapper objectMapper) {
+        return projectionCache.get(sourceClass).computeIfAbsent(targetClass,
+                key -> compile(sourceClass, targetClass, objectMapper));
+    }
+
+    /**
+     * @return true if objects can be directly projected using this object.
+     */
+    boolean isSupported() {
+        return constructor != null;
+    }
+
+    /**
+     * @return true if every property serialized from the source class is both writable and serialized again by the
+     * target class, meaning that a projected target object carries every value of the source object.
+     */
+    boolean isLossless() {
+        return isSupported() && lossless;
+    }
+
+    /**
+     * Construct a new instance of the target class and copy all the shared properties from the source object into it.
+     * @param source The object to copy properties from.
+     * @return A newly constructed object of the target class.
+     */
+    Object project(Object source) {
+        try {
+            Object target = (Object) constructor.invokeExact();
+            copyInto(source, target);
+            return target;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Copy all the shared properties from a source object onto an existing target object, overwriting any values that
+     * were already set on those properties.
+     * @param source The object to copy properties from.
+     * @param target The object to copy properties to.
+     */
+    void copyInto(Object source, Object target) {
+        try {
+            for (MethodHandle propertyCopier : propertyCopiers) {
+                propertyCopier.invokeExact(target, source);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static BeanProjection compile(Class<?> sourceClass, Class<?> targetClass, ObjectMapper objectMapper) {
+        try {
+            if (!isPlainBean(sourceClass, objectMapper) || !isPlainBean(targetClass, objectMapper)) {
+                return UNSUPPORTED;
+            }
+
+            Map<String, AnnotatedMember> sourceAccessors = findAccessors(sourceClass, objectMapper);
+            Set<String> targetAccessorNames = findAccessors(targetClass, objectMapper).keySet();
+            BeanDescription targetDescription =
+                    objectMapper.getDeserializationConfig().introspect(objectMapper.constructType(targetClass));
+            AnnotatedConstructor defaultConstructor = targetDescription.findDefaultConstructor();
+
+            if (defaultConstructor == null) {
+                return UNSUPPORTED;
+            }
+
+            Map<String, AnnotatedMember> targetMutators = new HashMap<>();
+            for (BeanPropertyDefinition property : targetDescription.findProperties()) {
+                AnnotatedMember mutator = property.getNonConstructorMutator();
+
+                if (mutator != null) {
+                    targetMutators.put(property.getName(), mutator);
+                }
+            }
+
+            List<MethodHandle> propertyCopiers = new ArrayList<>();
+            boolean lossless = true;
+
+            for (Map.Entry<String, AnnotatedMember> sourceAccessor : sourceAccessors.entrySet()) {
+                AnnotatedMember targetMutator = targetMutators.get(sourceAccessor.getKey());
+
+                if (targetMutator == null || !targetAccessorNames.contains(sourceAccessor.getKey())) {
+                    lossless = false;
+                }
+
+                if (targetMutator == null) {
+                    continue;
+                }
+
+                Class<?> valueType = getAccessorType(sourceAccessor.getValue());
+
+                if (!isValueType(valueType) || !valueType.equals(getMutatorType(targetMutator))) {
+                    return UNSUPPORTED;
+                }
+
+                propertyCopiers.add(compileCopier(sourceAccessor.getValue(), targetMutator));
+            }
+
+            Constructor<?> constructor = defaultConstructor.getAnnotated();
+            constructor.setAccessible(true);
+            MethodHandle constructorHandle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(CONSTRUCTOR_TYPE);
+
+            return new BeanProjection(constructorHandle, propertyCopiers.toArray(new MethodHandle[0]), lossless);
+        } catch (RuntimeException | ReflectiveOperationException e) {
+            // Anything that cannot be compiled is simply handled by the map based path
+            return UNSUPPORTED;
+        }
+    }
+
+    // Builds a (target, source) -> void handle that reads the property from the source and writes it to the target
+    private static MethodHandle compileCopier(AnnotatedMember accessor, AnnotatedMember mutator)
+            throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle getter;
+        MethodHandle setter;
+
+        if (accessor instanceof AnnotatedMethod) {
+            getter = lookup.unreflect(makeAccessible(((AnnotatedMethod) accessor).getAnnotated()));
+        } else {
+            getter = lookup.unreflectGetter(makeAccessible(((AnnotatedField) accessor).getAnnotated()));
+        }
+
+        if (mutator instanceof AnnotatedMethod) {
+            setter = lookup.unreflect(makeAccessible(((AnnotatedMethod) mutator).getAnnotated()));
+        } else {
+            setter = lookup.unreflectSetter(makeAccessible(((AnnotatedField) mutator).getAnnotated()));
+        }
+
+        getter = getter.asType(getter.type().changeParameterType(0, Object.class));
+        setter = setter.asType(setter.type().changeParameterType(0, Object.class).changeReturnType(void.class));
+
+        return MethodHandles.filterArguments(setter, 1, getter).asType(COPIER_TYPE);
+    }
+
+    private static <T extends AccessibleObject> T makeAccessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    private static Map<String, AnnotatedMember> findAccessors(Class<?> beanClass, ObjectMapper objectMapper) {
+        JavaType beanType = objectMapper.constructType(beanClass);
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(beanType);
+        Map<String, AnnotatedMember> accessors = new HashMap<>();
+
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+
+            if (accessor != null) {
+                accessors.put(property.getName(), accessor);
+            }
+        }
+
+        return accessors;
+    }
+
+    private static Class<?> getAccessorType(AnnotatedMember accessor) {
+        return accessor instanceof AnnotatedMethod ? ((AnnotatedMethod) accessor).getRawReturnType() :
+                accessor.getRawType();
+    }
+
+    private static Class<?> getMutatorType(AnnotatedMember mutator) {
+        return mutator instanceof AnnotatedMethod ? ((AnnotatedMethod) mutator).getRawParameterType(0) :
+                mutator.getRawType();
+    }
+
+    private static boolean isValueType(Class<?> type) {
+        return VALUE_TYPES.contains(type) || (type.isEnum() && !hasJacksonAnnotations(type));
+    }
+
+    // Only classes that Jackson would serialize with a vanilla BeanSerializer and that do not carry any Jackson
+    // annotations are considered; this rules out anything with custom serialization or naming behavior.
+    private static boolean isPlainBean(Class<?> beanClass, ObjectMapper objectMapper) {
+        if (beanClass.isInterface() || beanClass.isArray() || beanClass.isEnum() || beanClass.isPrimitive() ||
+                Collection.class.isAssignableFrom(beanClass) || Map.class.isAssignableFrom(beanClass) ||
+                hasJacksonAnnotations(beanClass)) {
+            return false;
+        }
+
+        try {
+            return objectMapper.getSerializerProviderInstance().findValueSerializer(beanClass).getClass()
+                    .equals(BeanSerializer.class);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean hasJacksonAnnotations(Class<?> type) {
+        Deque<Class<?>> typesToScan = new ArrayDeque<>();
+        Set<Class<?>> scannedTypes = new HashSet<>();
+        typesToScan.add(type);
+
+        while (!typesToScan.isEmpty()) {
+            Class<?> c = typesToScan.remove();
+
+            if (c == Object.class || !scannedTypes.add(c)) {
+                continue;
+            }
+
+            if (isJacksonAnnotated(c.getDeclaredAnnotations())) {
+                return true;
+            }
+
+            for (Field field : c.getDeclaredFields()) {
+                if (isJacksonAnnotated(field.getDeclaredAnnotations())) {
+                    return true;
+                }
+            }
+
+            for (Method method : c.getDeclaredMethods()) {
+                if (isJacksonAnnotated(method.getDeclaredAnnotations())) {
+                    return true;
+                }
+            }
+
+            for (Constructor<?> constructor : c.getDeclaredConstructors()) {
+                if (isJacksonAnnotated(constructor.getDeclaredAnnotations())) {
+                    return true;
+                }
+            }
+
+            if (c.getSuperclass() != null) {
+                typesToScan.add(c.getSuperclass());
+            }
+
+            typesToScan.addAll(Arrays.asList(c.getInterfaces()));
+        }
+
+        return false;
+    }
+
+    private static boolean isJacksonAnnotated(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            // Property ordering has no effect on how values are converted so it does not preclude a direct copy
+            if (annotation.annotationType().isAnnotationPresent(JacksonAnnotation.class) &&
+                    !annotation.annotationType().equals(JsonPropertyOrder.class)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -35,6 +35,11 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
  *
  * If a get is called using the same Bean class that was used to create the class, there is an optimization where the
  * EtlStreamObject will short-circuit introspection and simply return the original object it was created with.
+ *
+ * Until a value needs to be tunnelled, views on the object are also created by copying the bean properties directly
+ * between classes using a compiled projection (see {@link BeanProjection}) whenever the result would be identical to
+ * marshalling the object through the map. The map is only materialized when it is actually needed to preserve values
+ * that the current object cannot carry.
  */
 public class EtlStreamObject {
     private final static ObjectMapper objectMapper = new ObjectMapper()
@@ -62,8 +67,16 @@ public class EtlStreamObject {
     @SuppressWarnings("unchecked")
     // Explicit check is there but the compiler does not seem to correctly infer that dtoClass is the same class as T
     public <T> T get(Class<T> dtoClass) {
-        if (streamDataMap == null && dtoClass.isAssignableFrom(cachedObject.getClass())) {
-            return (T)cachedObject;
+        if (streamDataMap == null) {
+            if (dtoClass.isAssignableFrom(cachedObject.getClass())) {
+                return (T)cachedObject;
+            }
+
+            BeanProjection projection = BeanProjection.of(cachedObject.getClass(), dtoClass, objectMapper);
+
+            if (projection.isSupported()) {
+                return (T)projection.project(cachedObject);
+            }
         }
 
         initializeStreamDataMap();
@@ -78,6 +91,14 @@ public class EtlStreamObject {
      * @return an independent copy of this object
      */
     public EtlStreamObject createCopy() {
+        if (streamDataMap == null) {
+            BeanProjection projection = BeanProjection.of(cachedObject.getClass(), cachedObject.getClass(), objectMapper);
+
+            if (projection.isLossless()) {
+                return new EtlStreamObject(projection.project(cachedObject));
+            }
+        }
+
         EtlStreamObject newObject = new EtlStreamObject(cachedObject);
         initializeStreamDataMap();
 
@@ -96,9 +117,15 @@ public class EtlStreamObject {
      * @return A copy of itself.
      */
     public EtlStreamObject with(Object dto) {
-        if (streamDataMap == null && cachedObject.getClass().equals(dto.getClass())) {
-            cachedObject = dto;
-            return this;
+        if (streamDataMap == null) {
+            if (cachedObject.getClass().equals(dto.getClass())) {
+                cachedObject = dto;
+                return this;
+            }
+
+            if (mergeWithoutMap(dto)) {
+                return this;
+            }
         }
 
         initializeStreamDataMap();
@@ -106,6 +133,30 @@ public class EtlStreamObject {
         return this;
     }
 
+    // Attempts to merge a bean into the stream without materializing the map. This is possible when either the new
+    // bean carries every value of the current object (so the current object can be discarded), or the current object
+    // can carry every value of the new bean (so a copy of the current object can absorb the new values).
+    private boolean mergeWithoutMap(Object dto) {
+        Class<?> cachedClass = cachedObject.getClass();
+
+        if (BeanProjection.of(cachedClass, dto.getClass(), objectMapper).isLossless()) {
+            cachedObject = dto;
+            return true;
+        }
+
+        BeanProjection dtoProjection = BeanProjection.of(dto.getClass(), cachedClass, objectMapper);
+        BeanProjection copyProjection = BeanProjection.of(cachedClass, cachedClass, objectMapper);
+
+        if (dtoProjection.isLossless() && copyProjection.isLossless()) {
+            Object mergedObject = copyProjection.project(cachedObject);
+            dtoProjection.copyInto(dto, mergedObject);
+            cachedObject = mergedObject;
+            return true;
+        }
+
+        return false;
+    }
+
     private void initializeStreamDataMap() {
         if (streamDataMap == null) {
             streamDataMap = new HashMap<>();
@@ -0,0 +1,310 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.consumer;
+
+import com.amazon.pocketEtl.BatchLoader;
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.core.EtlStreamObject;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+import lombok.EqualsAndHashCode;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * Implementation of Consumer that wraps a BatchLoader and accumulates the objects to be consumed into batches before
+ * passing them to the loader. Each thread that calls consume() fills its own buffer, so parallel workers never contend
+ * with each other while accumulating records. A buffer is flushed when it reaches the batch size, when it has held
+ * records for longer than the linger time (if one is set), or when the consumer is closed.
+ *
+ * Any objects that the loader reports as failed, or every object in the batch if the loader throws, are routed
+ * individually to a consumer designated for handling errors.
+ *
+ * @param <UpstreamType> Type of object to be consumed/loaded.
+ */
+@EqualsAndHashCode(exclude = {"parentMetrics", "activeBuffers", "bufferThreadLocal", "lingerExecutor",
+        "abortStreamException"})
+class BatchingLoaderEtlConsumer<UpstreamType> implements EtlConsumer {
+    private final static Logger logger = getLogger(BatchingLoaderEtlConsumer.class);
+
+    private final String name;
+    private final String consumeScopeName;
+    private final BatchLoader<UpstreamType> loader;
+    private final Class<UpstreamType> loaderTypeClass;
+    private final EtlConsumer errorEtlConsumer;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    private EtlMetrics parentMetrics;
+    private ScheduledExecutorService lingerExecutor;
+
+    // THREAD-SAFE OBJECTS: they are shared by and modified by concurrent threads
+    private final Queue<Buffer> activeBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> bufferThreadLocal = new ThreadLocal<>();
+    private final AtomicReference<UnrecoverableStreamFailureException> abortStreamException = new AtomicReference<>();
+    // END THREAD-SAFE
+
+    /**
+     * Standard constructor.
+     *
+     * @param name             A human readable name for the instance of this class that will be used in logging and metrics.
+     * @param loader           Wrapped batch loader object.
+     * @param loaderTypeClass  Class definition for the objects being loaded by the wrapped loader.
+     * @param batchSize        The maximum number of objects to pass to the loader in a single batch.
+     * @param lingerMillis     The maximum time in milliseconds an object will be buffered before its batch is flushed
+     *                         regardless of size. A value of zero disables time based flushing.
+     * @param errorEtlConsumer Consumer to send objects to that could not be loaded.
+     */
+    BatchingLoaderEtlConsumer(String name, BatchLoader<UpstreamType> loader, Class<UpstreamType> loaderTypeClass,
+                              int batchSize, long lingerMillis, EtlConsumer errorEtlConsumer) {
+        this.name = name;
+        this.consumeScopeName = "BatchingLoaderConsumer." + name + ".consume";
+        this.loader = loader;
+        this.loaderTypeClass = loaderTypeClass;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.errorEtlConsumer = errorEtlConsumer;
+    }
+
+    /**
+     * Adds a single object to the buffer for the current thread, flushing the buffer to the loader if it is full.
+     *
+     * @param objectToLoad The object to be loaded.
+     * @throws IllegalStateException If the consumer is in a state that cannot accept more objects to be loaded.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     *                                             detected and the stream needs to be aborted.
+     */
+    @Override
+    public void consume(EtlStreamObject objectToLoad) throws IllegalStateException, UnrecoverableStreamFailureException {
+        checkForAbortedStream();
+
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
+            UpstreamType typedObject;
+
+            try {
+                typedObject = objectToLoad.get(loaderTypeClass);
+            } catch (RuntimeException e) {
+                logger.warn("Exception thrown converting object for loader: ", e);
+                errorEtlConsumer.consume(objectToLoad);
+                return;
+            }
+
+            Buffer buffer = getBufferForCurrentThread();
+            buffer.lock.lock();
+
+            try {
+                buffer.add(objectToLoad, typedObject);
+
+                if (buffer.size() >= batchSize) {
+                    flush(buffer);
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Signals the loader to prepare to accept work. This will also signal the error consumer attached to this object
+     * and start the background flushing of lingering batches if a linger time has been set.
+     */
+    @Override
+    public void open(EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "BatchingLoaderConsumer." + name + ".open")) {
+            loader.open(parentMetrics);
+            errorEtlConsumer.open(parentMetrics);
+
+            if (lingerMillis > 0) {
+                lingerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "BatchingLoaderConsumer." + name + ".linger");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+                long checkIntervalMillis = Math.max(1, lingerMillis / 2);
+                lingerExecutor.scheduleWithFixedDelay(this::flushLingeringBuffers, checkIntervalMillis,
+                        checkIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Flushes all remaining partial batches to the loader and then signals the loader that the batch is complete and
+     * any buffers should be flushed and finalized. This will also close the error consumer attached to this object.
+     *
+     * @throws Exception If something went wrong closing the loader.
+     */
+    @Override
+    public void close() throws Exception {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "BatchingLoaderConsumer." + name + ".close")) {
+            if (lingerExecutor != null) {
+                lingerExecutor.shutdown();
+                lingerExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+
+            if (abortStreamException.get() == null) {
+                for (Buffer buffer : activeBuffers) {
+                    buffer.lock.lock();
+
+                    try {
+                        flush(buffer);
+                    } finally {
+                        buffer.lock.unlock();
+                    }
+                }
+            }
+
+            try {
+                loader.close();
+            } catch (UnrecoverableStreamFailureException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                logger.warn("Exception thrown closing loader object: ", e);
+            }
+
+            errorEtlConsumer.close();
+        }
+
+        checkForAbortedStream();
+    }
+
+    private void flushLingeringBuffers() {
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        long now = System.nanoTime();
+
+        for (Buffer buffer : activeBuffers) {
+            if (abortStreamException.get() != null) {
+                return;
+            }
+
+            // A buffer that is locked is being filled or flushed by its own thread, so it can be skipped this time.
+            if (buffer.size() > 0 && now - buffer.firstObjectNanoTime >= lingerNanos && buffer.lock.tryLock()) {
+                try {
+                    flush(buffer);
+                } catch (UnrecoverableStreamFailureException e) {
+                    abortStreamException.compareAndSet(null, e);
+                } catch (RuntimeException e) {
+                    logger.error("Exception thrown flushing lingering batch: ", e);
+                } finally {
+                    buffer.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Must be called while holding the lock for the buffer
+    private void flush(Buffer buffer) {
+        if (buffer.size() == 0) {
+            return;
+        }
+
+        List<EtlStreamObject> streamObjects = new ArrayList<>(buffer.streamObjects);
+        List<UpstreamType> typedObjects = new ArrayList<>(buffer.typedObjects);
+        buffer.clear();
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "BatchingLoaderConsumer." + name + ".flush")) {
+            scope.addCounter("BatchingLoaderConsumer." + name + ".batchSize", typedObjects.size());
+            List<UpstreamType> failedObjects;
+
+            try {
+                failedObjects = loader.loadBatch(Collections.unmodifiableList(typedObjects));
+            } catch (UnrecoverableStreamFailureException e) {
+                logger.error("Unrecoverable stream exception thrown in loader object, aborting stream: ", e);
+                throw e;
+            } catch (RuntimeException e) {
+                logger.warn("Exception thrown in loader object: ", e);
+                streamObjects.forEach(errorEtlConsumer::consume);
+                return;
+            }
+
+            if (failedObjects == null || failedObjects.isEmpty()) {
+                return;
+            }
+
+            Set<Object> failedObjectSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedObjectSet.addAll(failedObjects);
+
+            for (int i = 0; i < typedObjects.size(); i++) {
+                if (failedObjectSet.contains(typedObjects.get(i))) {
+                    errorEtlConsumer.consume(streamObjects.get(i));
+                }
+            }
+        }
+    }
+
+    private Buffer getBufferForCurrentThread() {
+        Buffer buffer = bufferThreadLocal.get();
+
+        if (buffer == null) {
+            buffer = new Buffer();
+            bufferThreadLocal.set(buffer);
+            activeBuffers.add(buffer);
+        }
+
+        return buffer;
+    }
+
+    private void checkForAbortedStream() {
+        if (abortStreamException.get() != null) {
+            throw abortStreamException.get();
+        }
+    }
+
+    private final class Buffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<EtlStreamObject> streamObjects = new ArrayList<>(batchSize);
+        private final List<UpstreamType> typedObjects = new ArrayList<>(batchSize);
+        private volatile int size = 0;
+        private volatile long firstObjectNanoTime;
+
+        private void add(EtlStreamObject streamObject, UpstreamType typedObject) {
+            if (size == 0) {
+                firstObjectNanoTime = System.nanoTime();
+            }
+
+            streamObjects.add(streamObject);
+            typedObjects.add(typedObject);
+            size = typedObjects.size();
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void clear() {
+            streamObjects.clear();
+            typedObjects.clear();
+            size = 0;
+        }
+    }
+}
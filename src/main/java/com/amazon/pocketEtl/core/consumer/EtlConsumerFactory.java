@@ -15,6 +15,7 @@
 
 package com.amazon.pocketEtl.core.consumer;
 
+import com.amazon.pocketEtl.BatchLoader;
 import com.amazon.pocketEtl.Loader;
 import com.amazon.pocketEtl.Transformer;
 import com.amazon.pocketEtl.core.executor.EtlExecutor;
@@ -23,6 +24,7 @@ import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.function.Function;
 
 /**
@@ -51,9 +53,71 @@ public class EtlConsumerFactory {
     @Nonnull
     public <T> EtlConsumer newLoader(String stageName, Loader<T> loader, Class<T> loaderTypeClass,
                                             EtlConsumer errorEtlConsumer, EtlExecutor etlExecutor) {
+        return newLoader(stageName, loader, loaderTypeClass, errorEtlConsumer, etlExecutor, null);
+    }
+
+    /**
+     * Constructs a consumer based on a Loader that limits the rate at which objects are loaded.
+     * @param stageName The name of this consumer used in logging and reporting.
+     * @param loader The loader object this consumer will be based on.
+     * @param errorEtlConsumer A consumer to send all records that could not be loaded to.
+     * @param etlExecutor An EtlExecutor object to handle parallelism for this consumer.
+     * @param rateLimiter A rate limiter that every object must acquire a permit from before it is loaded, or null to
+     *                    load without limit.
+     * @param <T> The type of object being loaded.
+     * @return A fully constructed consumer.
+     */
+    @Nonnull
+    public <T> EtlConsumer newLoader(String stageName, Loader<T> loader, Class<T> loaderTypeClass,
+                                     EtlConsumer errorEtlConsumer, EtlExecutor etlExecutor,
+                                     @Nullable TokenBucketRateLimiter rateLimiter) {
         EtlConsumer loaderEtlConsumer = new LoaderEtlConsumer<>(stageName, loader, loaderTypeClass, errorEtlConsumer);
 
-        return newWrappedConsumer(stageName, loaderEtlConsumer, etlExecutor);
+        return newWrappedConsumer(stageName, loaderEtlConsumer, etlExecutor, rateLimiter);
+    }
+
+    /**
+     * Constructs a consumer based on a BatchLoader that accumulates objects into batches before loading them.
+     * @param stageName The name of this consumer used in logging and reporting.
+     * @param loader The batch loader object this consumer will be based on.
+     * @param batchSize The maximum number of objects to pass to the loader in a single batch.
+     * @param lingerMillis The maximum time in milliseconds a partial batch will be held before it is loaded. A value of
+     *                     zero means partial batches are only loaded when the consumer is closed.
+     * @param errorEtlConsumer A consumer to send all records that could not be loaded to.
+     * @param etlExecutor An EtlExecutor object to handle parallelism for this consumer.
+     * @param <T> The type of object being loaded.
+     * @return A fully constructed consumer.
+     */
+    @Nonnull
+    public <T> EtlConsumer newBatchLoader(String stageName, BatchLoader<T> loader, Class<T> loaderTypeClass,
+                                          int batchSize, long lingerMillis, EtlConsumer errorEtlConsumer,
+                                          EtlExecutor etlExecutor) {
+        return newBatchLoader(stageName, loader, loaderTypeClass, batchSize, lingerMillis, errorEtlConsumer,
+                etlExecutor, null);
+    }
+
+    /**
+     * Constructs a consumer based on a BatchLoader that limits the rate at which objects are added to batches.
+     * @param stageName The name of this consumer used in logging and reporting.
+     * @param loader The batch loader object this consumer will be based on.
+     * @param batchSize The maximum number of objects to pass to the loader in a single batch.
+     * @param lingerMillis The maximum time in milliseconds a partial batch will be held before it is loaded. A value of
+     *                     zero means partial batches are only loaded when the consumer is closed.
+     * @param errorEtlConsumer A consumer to send all records that could not be loaded to.
+     * @param etlExecutor An EtlExecutor object to handle parallelism for this consumer.
+     * @param rateLimiter A rate limiter that every object must acquire a permit from before it is added to a batch, or
+     *                    null to load without limit.
+     * @param <T> The type of object being loaded.
+     * @return A fully constructed consumer.
+     */
+    @Nonnull
+    public <T> EtlConsumer newBatchLoader(String stageName, BatchLoader<T> loader, Class<T> loaderTypeClass,
+                                          int batchSize, long lingerMillis, EtlConsumer errorEtlConsumer,
+                                          EtlExecutor etlExecutor, @Nullable TokenBucketRateLimiter rateLimiter) {
+        EtlConsumer loaderEtlConsumer = new BatchingLoaderEtlConsumer<>(stageName, loader, loaderTypeClass, batchSize,
+                lingerMillis, errorEtlConsumer);
+
+        return newWrappedConsumer(stageName, loaderEtlConsumer, etlExecutor, rateLimiter);
     }
 
     /**
@@ -75,12 +139,51 @@ public class EtlConsumerFactory {
             EtlConsumer downstreamEtlConsumer,
             EtlConsumer errorEtlConsumer,
             EtlExecutor etlExecutor
+    ) {
+        return newTransformer(stageName, transformer, transformerUpstreamTypeClass, downstreamEtlConsumer,
+                errorEtlConsumer, etlExecutor, null);
+    }
+
+    /**
+     * Constructs a consumer based on a Transformer that limits the rate at which objects are transformed.
+     * @param stageName The name of this consumer used in logging and reporting.
+     * @param transformer The transformer object this consumer will be based on.
+     * @param downstreamEtlConsumer A consumer to pass in transformed objects to.
+     * @param errorEtlConsumer A consumer to send all records that could not be transformed to.
+     * @param etlExecutor An EtlExecutor object to handle parallelism for this consumer.
+     * @param rateLimiter A rate limiter that every object must acquire a permit from before it is transformed, or null
+     *                    to transform without limit.
+     * @param <Upstream> The type of objects that will be consumed by the transformer.
+     * @param <Downstream> The type of objects that will be produced by the transformer.
+     * @return A fully constructed consumer.
+     */
+    @Nonnull
+    public <Upstream, Downstream> EtlConsumer newTransformer(
+            String stageName,
+            Transformer<Upstream, Downstream> transformer,
+            Class<Upstream> transformerUpstreamTypeClass,
+            EtlConsumer downstreamEtlConsumer,
+            EtlConsumer errorEtlConsumer,
+            EtlExecutor etlExecutor,
+            @Nullable TokenBucketRateLimiter rateLimiter
     ) {
         EtlConsumer transformerEtlConsumer =
                 new TransformerEtlConsumer<>(stageName, downstreamEtlConsumer, errorEtlConsumer, transformer,
                         transformerUpstreamTypeClass);
 
-        return newWrappedConsumer(stageName, transformerEtlConsumer, etlExecutor);
+        return newWrappedConsumer(stageName, transformerEtlConsumer, etlExecutor, rateLimiter);
+    }
+
+    /**
+     * Constructs a rate limiter that can be shared by all the worker threads of a consumer.
+     * @param permitsPerSecond The sustained rate at which permits become available.
+     * @param burstCapacity The number of permits that can be acquired at once without waiting after the rate limiter
+     *                      has been idle.
+     * @return A fully constructed rate limiter.
+     */
+    @Nonnull
+    public TokenBucketRateLimiter newTokenBucketRateLimiter(double permitsPerSecond, int burstCapacity) {
+        return new TokenBucketRateLimiter(permitsPerSecond, burstCapacity);
     }
 
     /**
@@ -95,13 +198,13 @@ public class EtlConsumerFactory {
     @Nonnull
     public <T> EtlConsumer newLogAsErrorConsumer(String stageName, Logger errorLogger, Class<T> dtoClass, Function<T, String> loggingStrategy) {
         return newWrappedConsumer(stageName + ".error", new LogAsErrorEtlConsumer<>(stageName, errorLogger, dtoClass, loggingStrategy),
-                etlExecutorFactory.newImmediateExecutionEtlExecutor());
+                etlExecutorFactory.newImmediateExecutionEtlExecutor(), null);
     }
 
     @Nonnull
     private EtlConsumer newWrappedConsumer(String stageName, EtlConsumer wrappedEtlConsumer,
-                                                  EtlExecutor etlExecutor) {
+                                                  EtlExecutor etlExecutor, @Nullable TokenBucketRateLimiter rateLimiter) {
         return new SmartEtlConsumer(stageName, new MetricsEmissionEtlConsumer(stageName,
-                new ExecutorEtlConsumer(stageName, wrappedEtlConsumer, etlExecutor)));
+                new ExecutorEtlConsumer(stageName, wrappedEtlConsumer, etlExecutor, rateLimiter)));
     }
 }
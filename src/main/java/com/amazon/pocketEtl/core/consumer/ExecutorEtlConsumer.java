@@ -26,6 +26,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
+
 import static org.apache.logging.log4j.LogManager.getLogger;
 
 import java.util.concurrent.atomic.AtomicReference;
@@ -40,11 +42,16 @@ class ExecutorEtlConsumer implements EtlConsumer {
     private final static Logger logger = getLogger(ExecutorEtlConsumer.class);
 
     private final String name;
+    private final String consumeScopeName;
+    private final String rateLimitScopeName;
 
     @Getter(AccessLevel.PACKAGE)
     private final EtlConsumer wrappedEtlConsumer;
 
     private final EtlExecutor etlExecutor;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final TokenBucketRateLimiter rateLimiter;
     private AtomicReference<UnrecoverableStreamFailureException> abortStreamException = new AtomicReference<>();
     private EtlMetrics parentMetrics = null;
 
@@ -56,9 +63,27 @@ class ExecutorEtlConsumer implements EtlConsumer {
      * @param etlExecutor     An EtlExecutor object to facilitate the parallel consumption.
      */
     ExecutorEtlConsumer(String name, EtlConsumer wrappedEtlConsumer, EtlExecutor etlExecutor) {
+        this(name, wrappedEtlConsumer, etlExecutor, null);
+    }
+
+    /**
+     * Constructor for a consumer that limits the rate at which objects are passed to the wrapped consumer. Each worker
+     * thread waits for a permit from the rate limiter before consuming an object, and the time spent waiting is
+     * recorded in metrics.
+     *
+     * @param name            A human readable name for the instance of this class that will be used in logging and metrics.
+     * @param wrappedEtlConsumer Wrapped consumer object. The consume() method of this consumer must be threadsafe.
+     * @param etlExecutor     An EtlExecutor object to facilitate the parallel consumption.
+     * @param rateLimiter     A rate limiter shared by all the worker threads, or null to consume without limit.
+     */
+    ExecutorEtlConsumer(String name, EtlConsumer wrappedEtlConsumer, EtlExecutor etlExecutor,
+                        @Nullable TokenBucketRateLimiter rateLimiter) {
         this.name = name;
+        this.consumeScopeName = "ExecutorConsumer." + name + ".consume";
+        this.rateLimitScopeName = "ExecutorConsumer." + name + ".rateLimitWait";
         this.wrappedEtlConsumer = wrappedEtlConsumer;
         this.etlExecutor = etlExecutor;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -96,12 +121,18 @@ class ExecutorEtlConsumer implements EtlConsumer {
             throw e;
         }
 
-        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "ExecutorConsumer." + name + ".consume")) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
             etlExecutor.submit(() -> {
                     if (abortStreamException.get() != null) {
                         return;
                     }
 
+                    if (rateLimiter != null) {
+                        try (EtlProfilingScope ignoredWaitScope = new EtlProfilingScope(parentMetrics, rateLimitScopeName)) {
+                            rateLimiter.acquire();
+                        }
+                    }
+
                     try {
                         wrappedEtlConsumer.consume(objectToConsume);
                     } catch (UnrecoverableStreamFailureException e) {
@@ -37,6 +37,7 @@ class LoaderEtlConsumer<UpstreamType> implements EtlConsumer {
     private final static Logger logger = getLogger(LoaderEtlConsumer.class);
 
     private final String name;
+    private final String consumeScopeName;
     private final Loader<UpstreamType> loader;
     private final EtlConsumer errorEtlConsumer;
     private final Class<UpstreamType> loaderTypeClass;
@@ -53,6 +54,7 @@ class LoaderEtlConsumer<UpstreamType> implements EtlConsumer {
      */
     LoaderEtlConsumer(String name, Loader<UpstreamType> loader, Class<UpstreamType> loaderTypeClass, EtlConsumer errorEtlConsumer) {
         this.name = name;
+        this.consumeScopeName = "LoaderConsumer." + name + ".consume";
         this.loader = loader;
         this.loaderTypeClass = loaderTypeClass;
         this.errorEtlConsumer = errorEtlConsumer;
@@ -68,7 +70,7 @@ class LoaderEtlConsumer<UpstreamType> implements EtlConsumer {
      */
     @Override
     public void consume(EtlStreamObject objectToLoad) throws IllegalStateException, UnrecoverableStreamFailureException {
-        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "LoaderConsumer." + name + ".consume")) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
             try {
                 loader.load(objectToLoad.get(loaderTypeClass));
             } catch (UnrecoverableStreamFailureException e) {
@@ -33,6 +33,7 @@ import java.util.function.Function;
 @EqualsAndHashCode
 class LogAsErrorEtlConsumer<T> implements EtlConsumer {
     private final String name;
+    private final String consumeScopeName;
     private final Logger errorLogger;
     private EtlMetrics parentMetrics;
     private Class<T> dtoClass;
@@ -48,6 +49,7 @@ class LogAsErrorEtlConsumer<T> implements EtlConsumer {
      */
     LogAsErrorEtlConsumer(String name, Logger errorLogger, @Nonnull Class<T> dtoClass, @Nonnull Function<T, String> loggingStrategy) {
         this.name = name;
+        this.consumeScopeName = "LogAsErrorConsumer." + name + ".consume";
         this.errorLogger = errorLogger;
         this.dtoClass = dtoClass;
         this.loggingStrategy = loggingStrategy;
@@ -61,7 +63,7 @@ class LogAsErrorEtlConsumer<T> implements EtlConsumer {
      */
     @Override
     public void consume(EtlStreamObject objectToConsume) throws IllegalStateException {
-        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "LogAsErrorConsumer." + name + ".consume")) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
             String logMessage = loggingStrategy.apply(objectToConsume.get(dtoClass));
             errorLogger.error("ETL failure for object: " + logMessage);
         } catch (RuntimeException e) {
@@ -30,6 +30,8 @@ import lombok.Getter;
 @EqualsAndHashCode
 class MetricsEmissionEtlConsumer implements EtlConsumer {
     private final String stageName;
+    private final String consumeScopeName;
+    private final String recordsProcessedCounterName;
 
     @Getter(AccessLevel.PACKAGE)
     private final EtlConsumer downstreamEtlConsumer;
@@ -38,13 +40,15 @@ class MetricsEmissionEtlConsumer implements EtlConsumer {
 
     MetricsEmissionEtlConsumer(String stageName, EtlConsumer downstreamEtlConsumer) {
       this.stageName = stageName;
+      this.consumeScopeName = "MetricsEmissionConsumer." + stageName + ".consume";
+      this.recordsProcessedCounterName = stageName + ".recordsProcessed";
       this.downstreamEtlConsumer = downstreamEtlConsumer;
     }
 
     @Override
     public void consume(EtlStreamObject objectToConsume) throws IllegalStateException {
-        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "MetricsEmissionConsumer." + stageName + ".consume")) {
-            scope.addCounter(stageName + ".recordsProcessed", 1);
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
+            scope.addCounter(recordsProcessedCounterName, 1);
             downstreamEtlConsumer.consume(objectToConsume);
         }
     }
@@ -54,7 +58,7 @@ class MetricsEmissionEtlConsumer implements EtlConsumer {
         try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "MetricsEmissionConsumer." +
                                                                             stageName +
                                                                             ".open")) {
-            scope.addCounter(stageName + ".recordsProcessed", 0);
+            scope.addCounter(recordsProcessedCounterName, 0);
             this.parentMetrics = parentMetrics;
             downstreamEtlConsumer.open(parentMetrics);
         }
@@ -42,6 +42,7 @@ class SmartEtlConsumer implements EtlConsumer {
     private final static Logger logger = getLogger(SmartEtlConsumer.class);
 
     private final String name;
+    private final String consumeScopeName;
 
     @Getter(AccessLevel.PACKAGE)
     private final EtlConsumer wrappedEtlConsumer;
@@ -58,6 +59,7 @@ class SmartEtlConsumer implements EtlConsumer {
      */
     SmartEtlConsumer(String name, EtlConsumer wrappedEtlConsumer) {
         this.name = name;
+        this.consumeScopeName = "SmartConsumer." + name + ".consume";
         this.wrappedEtlConsumer = wrappedEtlConsumer;
     }
 
@@ -68,7 +70,7 @@ class SmartEtlConsumer implements EtlConsumer {
      */
     @Override
     public void consume(EtlStreamObject objectToConsume) {
-        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "SmartConsumer." + name + ".consume")) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
             wrappedEtlConsumer.consume(objectToConsume);
         }
     }
@@ -0,0 +1,99 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.consumer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * A threadsafe token bucket that limits the rate at which permits can be acquired. The bucket holds up to a fixed
+ * number of permits that can be acquired in a burst without waiting, and refills continuously at the permitted rate.
+ * Once the bucket is empty each caller waits for its own reserved slot, so the rate is never exceeded no matter how
+ * many threads are acquiring permits.
+ * <p>
+ * Rather than counting tokens, the bucket tracks the time at which the most recently reserved permit becomes
+ * available and reserves permits by advancing that time with a compare-and-set, so acquiring a permit never takes a
+ * lock. This object should not be constructed directly, instead use EtlConsumerFactory.
+ */
+public class TokenBucketRateLimiter {
+    private final static double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long permitIntervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastReservedPermitNanos;
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burstCapacity) {
+        this(permitsPerSecond, burstCapacity, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burstCapacity, LongSupplier nanoClock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Permits per second must be greater than zero");
+        }
+
+        if (burstCapacity < 1) {
+            throw new IllegalArgumentException("Burst capacity must be at least 1");
+        }
+
+        this.permitIntervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / permitsPerSecond));
+        this.burstNanos = permitIntervalNanos * burstCapacity;
+        this.nanoClock = nanoClock;
+
+        // The bucket starts full
+        this.lastReservedPermitNanos = new AtomicLong(nanoClock.getAsLong() - burstNanos);
+    }
+
+    /**
+     * Acquires a single permit, blocking until it is available. If the thread is interrupted while waiting it will
+     * stop waiting and return early with the interrupt flag still set.
+     */
+    public void acquire() {
+        long waitNanos = reserve();
+
+        if (waitNanos == 0) {
+            return;
+        }
+
+        long deadlineNanos = nanoClock.getAsLong() + waitNanos;
+        long remainingNanos = waitNanos;
+
+        while (remainingNanos > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remainingNanos);
+            remainingNanos = deadlineNanos - nanoClock.getAsLong();
+        }
+    }
+
+    /**
+     * Reserves a single permit without waiting for it.
+     * @return The number of nanoseconds the caller must wait before the reserved permit may be used.
+     */
+    long reserve() {
+        long now = nanoClock.getAsLong();
+
+        while (true) {
+            long lastReservedPermit = lastReservedPermitNanos.get();
+            // A bucket that has been idle is capped at its burst capacity
+            long reservedPermit = Math.max(lastReservedPermit, now - burstNanos) + permitIntervalNanos;
+
+            if (lastReservedPermitNanos.compareAndSet(lastReservedPermit, reservedPermit)) {
+                return Math.max(0, reservedPermit - now);
+            }
+        }
+    }
+}
@@ -41,6 +41,7 @@ class TransformerEtlConsumer<UpstreamType, DownstreamType> implements EtlConsume
     private final static Logger logger = getLogger(TransformerEtlConsumer.class);
 
     private final String name;
+    private final String consumeScopeName;
     private final EtlConsumer downstreamEtlConsumer;
     private final EtlConsumer errorEtlConsumer;
     private final Transformer<UpstreamType, DownstreamType> transformer;
@@ -63,6 +64,7 @@ class TransformerEtlConsumer<UpstreamType, DownstreamType> implements EtlConsume
                            Transformer<UpstreamType, DownstreamType> transformer,
                            Class<UpstreamType> transformerUpstreamTypeClass) {
         this.name = name;
+        this.consumeScopeName = "TransformerConsumer." + name + ".consume";
         this.downstreamEtlConsumer = downstreamEtlConsumer;
         this.errorEtlConsumer = errorEtlConsumer;
         this.transformer = transformer;
@@ -82,8 +84,7 @@ class TransformerEtlConsumer<UpstreamType, DownstreamType> implements EtlConsume
     @Override
     public void consume(EtlStreamObject objectToTransform) throws IllegalStateException,
                                                                   UnrecoverableStreamFailureException {
-        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "TransformerConsumer." + name +
-                                                                              ".consume")) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, consumeScopeName)) {
 
             List<DownstreamType> transformedObjects;
 
@@ -0,0 +1,190 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An EtlExecutor implementation that wraps a ThreadPoolExecutor and periodically adjusts its number of threads between
+ * a minimum and a maximum to get the most throughput out of the stage. This object should not be constructed directly,
+ * instead use EtlExecutorFactory.
+ * <p>
+ * Each decision is made by hill-climbing on the number of tasks completed per second:
+ * - If the work-queue is almost empty the stage is being starved by the stages upstream of it, so a thread is removed.
+ * - If the last decision added or removed a thread and throughput improved, the same change is made again.
+ * - If the last decision added or removed a thread and throughput got worse, the change is reversed.
+ * - If the last decision made no change and the work-queue is almost full, a thread is added to see if it helps.
+ * - Otherwise the number of threads stays as it is.
+ * Decisions are made by whichever thread is submitting work when the decision interval elapses, so there is no
+ * additional thread used to monitor the stage. Every decision is reported through the EtlMetrics object that the most
+ * recent work was submitted with.
+ */
+class AutoScalingEtlExecutor extends ExecutorServiceEtlExecutor {
+    private final static long DEFAULT_DECISION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final static double LOW_QUEUE_OCCUPANCY = 0.1;
+    private final static double HIGH_QUEUE_OCCUPANCY = 0.9;
+    private final static double THROUGHPUT_TOLERANCE = 0.05;
+    private final static double NANOS_PER_SECOND = 1_000_000_000.0;
+    private final static double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String submitScopeName;
+    private final String threadsCounterName;
+    private final String throughputCounterName;
+    private final String serviceTimeTimerName;
+    private final ThreadPoolExecutor threadPoolExecutor;
+    @Getter(AccessLevel.PACKAGE)
+    private final int minThreads;
+    @Getter(AccessLevel.PACKAGE)
+    private final int maxThreads;
+    private final long decisionIntervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextDecisionNanos;
+    private final LongAdder serviceTimeNanos = new LongAdder();
+
+    private volatile EtlMetrics parentMetrics = null;
+
+    // Only accessed by the thread that wins the race to make a decision
+    private long lastDecisionNanos;
+    private long lastCompletedTaskCount = 0;
+    private double lastThroughput = 0;
+    private int lastChange = 0;
+
+    AutoScalingEtlExecutor(String name, ThreadPoolExecutor threadPoolExecutor, int minThreads, int maxThreads) {
+        this(name, threadPoolExecutor, minThreads, maxThreads, DEFAULT_DECISION_INTERVAL_NANOS, System::nanoTime);
+    }
+
+    AutoScalingEtlExecutor(String name, ThreadPoolExecutor threadPoolExecutor, int minThreads, int maxThreads,
+                           long decisionIntervalNanos, LongSupplier nanoClock) {
+        super(threadPoolExecutor);
+
+        if (minThreads < 1 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("Thread limits must satisfy 1 <= minThreads <= maxThreads");
+        }
+
+        this.submitScopeName = "AutoScalingEtlExecutor." + name + ".submit";
+        this.threadsCounterName = "AutoScalingEtlExecutor." + name + ".threads";
+        this.throughputCounterName = "AutoScalingEtlExecutor." + name + ".tasksPerSecond";
+        this.serviceTimeTimerName = "AutoScalingEtlExecutor." + name + ".serviceTime";
+        this.threadPoolExecutor = threadPoolExecutor;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.decisionIntervalNanos = decisionIntervalNanos;
+        this.nanoClock = nanoClock;
+        this.lastDecisionNanos = nanoClock.getAsLong();
+        this.nextDecisionNanos = new AtomicLong(lastDecisionNanos + decisionIntervalNanos);
+    }
+
+    /**
+     * Submits a task to the work queue of the Executor, first re-evaluating the number of threads if the decision
+     * interval has elapsed.
+     *
+     * @param task         a runnable wrapping the task to be performed in the future.
+     * @param parentMetrics A parent EtlMetrics object to attach the runnables to.
+     */
+    @Override
+    public void submit(Runnable task, EtlMetrics parentMetrics) {
+        if (parentMetrics != null) {
+            this.parentMetrics = parentMetrics;
+        }
+
+        maybeRescale();
+
+        getExecutorService().submit(() -> {
+            long startNanos = System.nanoTime();
+
+            try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, submitScopeName)) {
+                task.run();
+            } finally {
+                serviceTimeNanos.add(System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    void maybeRescale() {
+        long now = nanoClock.getAsLong();
+        long nextDecision = nextDecisionNanos.get();
+
+        if (now - nextDecision >= 0 && nextDecisionNanos.compareAndSet(nextDecision, now + decisionIntervalNanos)) {
+            rescale(now);
+        }
+    }
+
+    private void rescale(long now) {
+        long completedTaskCount = threadPoolExecutor.getCompletedTaskCount();
+        long completedSinceLastDecision = completedTaskCount - lastCompletedTaskCount;
+        double throughput = completedSinceLastDecision * NANOS_PER_SECOND / Math.max(1, now - lastDecisionNanos);
+        double serviceTimeMillis =
+                serviceTimeNanos.sumThenReset() / NANOS_PER_MILLI / Math.max(1, completedSinceLastDecision);
+        BlockingQueue<Runnable> queue = threadPoolExecutor.getQueue();
+        int queueCapacity = queue.size() + queue.remainingCapacity();
+        double queueOccupancy = queueCapacity == 0 ? 0 : (double) queue.size() / queueCapacity;
+
+        int change;
+
+        if (queueOccupancy < LOW_QUEUE_OCCUPANCY) {
+            change = -1;
+        } else if (lastChange != 0 && throughput > lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+            change = lastChange;
+        } else if (lastChange != 0 && throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+            change = -lastChange;
+        } else if (lastChange == 0 && queueOccupancy > HIGH_QUEUE_OCCUPANCY) {
+            change = 1;
+        } else {
+            change = 0;
+        }
+
+        int currentThreads = threadPoolExecutor.getCorePoolSize();
+        int targetThreads = Math.max(minThreads, Math.min(maxThreads, currentThreads + change));
+        setThreads(currentThreads, targetThreads);
+
+        lastDecisionNanos = now;
+        lastCompletedTaskCount = completedTaskCount;
+        lastThroughput = throughput;
+        lastChange = targetThreads - currentThreads;
+
+        EtlMetrics metrics = parentMetrics;
+
+        if (metrics != null) {
+            metrics.addCount(threadsCounterName, targetThreads);
+            metrics.addCount(throughputCounterName, throughput);
+
+            if (completedSinceLastDecision > 0) {
+                metrics.addTime(serviceTimeTimerName, serviceTimeMillis);
+            }
+        }
+    }
+
+    private void setThreads(int currentThreads, int targetThreads) {
+        // The core size can never be set above the maximum size so the order of these calls matters
+        if (targetThreads > currentThreads) {
+            threadPoolExecutor.setMaximumPoolSize(targetThreads);
+            threadPoolExecutor.setCorePoolSize(targetThreads);
+        } else if (targetThreads < currentThreads) {
+            threadPoolExecutor.setCorePoolSize(targetThreads);
+            threadPoolExecutor.setMaximumPoolSize(targetThreads);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An EtlExecutor implementation that wraps an ExecutorService that starts a new thread for every task, such as one
+ * that runs tasks on virtual threads, and limits how many tasks may be running at once. Submitting a task will block
+ * once the limit has been reached until one of the running tasks completes. This object should not be constructed
+ * directly, instead use EtlExecutorFactory.
+ */
+class ConcurrencyLimitedEtlExecutor extends ExecutorServiceEtlExecutor {
+    private final static String SUBMIT_SCOPE_NAME = "ConcurrencyLimitedEtlExecutor.submit";
+
+    private final Semaphore permits;
+
+    ConcurrencyLimitedEtlExecutor(ExecutorService executorService, int maxConcurrency) {
+        super(executorService);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Submits a task to be run by the wrapped ExecutorService. This request will block until fewer than the maximum
+     * number of tasks are running.
+     *
+     * @param task         a runnable wrapping the task to be performed in the future.
+     * @param parentMetrics A parent EtlMetrics object to attach the runnables to.
+     * @throws RejectedExecutionException If the executor has been shutdown or the thread was interrupted whilst
+     *                                    waiting for a running task to complete.
+     */
+    @Override
+    public void submit(Runnable task, EtlMetrics parentMetrics) {
+        if (isShutdown()) {
+            throw new RejectedExecutionException("ExecutorService was shutdown");
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException ignored) {
+            throw new RejectedExecutionException("Thread was interrupted waiting for a running task to complete");
+        }
+
+        try {
+            getExecutorService().submit(() -> {
+                try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, SUBMIT_SCOPE_NAME)) {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
@@ -15,10 +15,12 @@
 
 package com.amazon.pocketEtl.core.executor;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +29,22 @@ import java.util.concurrent.TimeUnit;
  * you should be constructing EtlExecutor objects of any kind outside of this package.
  */
 public class EtlExecutorFactory {
+    // Resolved reflectively so this library can still be built for and run on JDKs without virtual threads
+    private final static Method newVirtualThreadPerTaskExecutorMethod = findNewVirtualThreadPerTaskExecutorMethod();
+    private final static long AUTO_SCALING_KEEP_ALIVE_SECONDS = 1;
+
+    // Blocks the submitting thread until there is room in the work-queue rather than rejecting the task
+    private final static RejectedExecutionHandler blockingRejectedExecutionHandler = (runnable, threadPoolExecutor) -> {
+        if (threadPoolExecutor.isShutdown()) {
+            throw new RejectedExecutionException("ExecutorService was shutdown");
+        }
+        try {
+            threadPoolExecutor.getQueue().put(runnable);
+        } catch (InterruptedException ignored) {
+            throw new RejectedExecutionException("Thread was interrupted trying to queue new work");
+        }
+    };
+
     /**
      * This multi-threaded EtlExecutor uses a fixed-size work queue that will block on new requests once the queue is
      * full until it drains enough to add the new task.
@@ -35,21 +53,47 @@ public class EtlExecutorFactory {
      * @return A fully constructed EtlExecutor.
      */
     public EtlExecutor newBlockingFixedThreadsEtlExecutor(int numberOfWorkers, int queueSize) {
+        return newBlockingFixedThreadsEtlExecutor(numberOfWorkers, queueSize, WorkQueueStrategy.ARRAY_BLOCKING);
+    }
+
+    /**
+     * This multi-threaded EtlExecutor uses a fixed-size work queue that will block on new requests once the queue is
+     * full until it drains enough to add the new task. The implementation of the work queue is chosen by a strategy.
+     * @param numberOfWorkers Number of threads to run tasks simultaneously.
+     * @param queueSize The maximum size of the work-queue. Submit will block once this hits its size limit.
+     * @param workQueueStrategy The type of queue to use as the work-queue.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newBlockingFixedThreadsEtlExecutor(int numberOfWorkers, int queueSize,
+                                                          WorkQueueStrategy workQueueStrategy) {
         ExecutorService executorService = new ThreadPoolExecutor(numberOfWorkers, numberOfWorkers, Long.MAX_VALUE,
-                TimeUnit.NANOSECONDS, new ArrayBlockingQueue<>(queueSize), (runnable, threadPoolExecutor) -> {
-                    if (threadPoolExecutor.isShutdown()) {
-                        throw new RejectedExecutionException("ExecutorService was shutdown");
-                    }
-                    try {
-                        threadPoolExecutor.getQueue().put(runnable);
-                    } catch (InterruptedException ignored) {
-                        throw new RejectedExecutionException("Thread was interrupted trying to queue new work");
-                    }
-                });
+                TimeUnit.NANOSECONDS, workQueueStrategy.newQueue(queueSize), blockingRejectedExecutionHandler);
 
         return new ExecutorServiceEtlExecutor(executorService);
     }
 
+    /**
+     * This multi-threaded EtlExecutor uses a fixed-size work queue that will block on new requests once the queue is
+     * full, and periodically adjusts its number of threads between a minimum and a maximum to maximize the number of
+     * tasks completed per second. Threads are removed when the work queue is almost empty because the work is being
+     * produced slower than it can be consumed, and added when the work queue is filling up for as long as adding them
+     * improves throughput. Each adjustment is reported through the EtlMetrics object that work was submitted with.
+     * @param name A human readable name for the executor that will be used in metrics.
+     * @param minThreads The fewest threads that will be used to run tasks simultaneously.
+     * @param maxThreads The most threads that will be used to run tasks simultaneously.
+     * @param queueSize The maximum size of the work-queue. Submit will block once this hits its size limit.
+     * @param workQueueStrategy The type of queue to use as the work-queue.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newAutoScalingEtlExecutor(String name, int minThreads, int maxThreads, int queueSize,
+                                                 WorkQueueStrategy workQueueStrategy) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(minThreads, minThreads,
+                AUTO_SCALING_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, workQueueStrategy.newQueue(queueSize),
+                blockingRejectedExecutionHandler);
+
+        return new AutoScalingEtlExecutor(name, threadPoolExecutor, minThreads, maxThreads);
+    }
+
     /**
      * This multi-threaded EtlExecutor uses an unbound queue that will not block on new requests.
      * @param numberOfWorkers Number of threads to run tasks simultaneously.
@@ -59,6 +103,64 @@ public class EtlExecutorFactory {
         return new ExecutorServiceEtlExecutor(Executors.newFixedThreadPool(numberOfWorkers));
     }
 
+    /**
+     * This multi-threaded EtlExecutor starts a new thread for every task and limits the number of tasks that can run
+     * at once, blocking new requests until a running task completes. On JDKs that support virtual threads the tasks
+     * run on virtual threads, which makes high levels of concurrency cheap for stages that spend most of their time
+     * waiting on I/O. On older JDKs it falls back to a pool of platform threads that grows up to the concurrency limit.
+     * @param maxConcurrency Maximum number of tasks to run simultaneously.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newVirtualThreadEtlExecutor(int maxConcurrency) {
+        return new ConcurrencyLimitedEtlExecutor(newThreadPerTaskExecutorService(), maxConcurrency);
+    }
+
+    /**
+     * Queries whether the running JDK supports virtual threads. If it does not, EtlExecutors created by
+     * newVirtualThreadEtlExecutor() will use platform threads instead.
+     * @return 'true' if virtual threads are supported, and 'false' if they are not.
+     */
+    public boolean isVirtualThreadSupported() {
+        return newVirtualThreadPerTaskExecutorMethod != null;
+    }
+
+    /**
+     * This multi-threaded EtlExecutor runs tasks on its own work-stealing ForkJoinPool in async (FIFO) mode. Each worker
+     * thread has its own deque of work and idle workers steal from busy ones, which reduces contention compared to a
+     * single shared work-queue for CPU-bound work. Submit will block once the number of waiting or running tasks hits
+     * the limit.
+     * @param parallelism Number of threads to run tasks simultaneously.
+     * @param maxQueuedTasks The maximum number of tasks that can be waiting or running at once.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newWorkStealingEtlExecutor(int parallelism, int maxQueuedTasks) {
+        return new ForkJoinEtlExecutor(newAsyncForkJoinPool(parallelism), true, maxQueuedTasks);
+    }
+
+    /**
+     * This multi-threaded EtlExecutor runs tasks on a work-stealing ForkJoinPool that is shared by every EtlExecutor
+     * constructed by this method, and is sized to the number of available processors. This allows many CPU-bound
+     * stages to run on one set of threads instead of each stage having its own. Shutting down the returned EtlExecutor
+     * waits for the tasks submitted through it to complete but does not shut down the shared pool. Submit will block
+     * once the number of waiting or running tasks submitted through this EtlExecutor hits the limit.
+     * @param maxQueuedTasks The maximum number of tasks that can be waiting or running at once.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newSharedWorkStealingEtlExecutor(int maxQueuedTasks) {
+        return new ForkJoinEtlExecutor(SharedForkJoinPoolHolder.SHARED_POOL, false, maxQueuedTasks);
+    }
+
+    /**
+     * Constructs a scheduler that owns a fixed number of threads and shares them between the EtlExecutors it creates,
+     * moving threads towards whichever EtlExecutor has the deepest backlog of work. This allows a limit to be put on
+     * the total number of threads used by many stages without fixing how those threads are divided between them.
+     * @param maxThreads Total number of threads owned by the scheduler.
+     * @return A fully constructed ThreadBudgetScheduler.
+     */
+    public ThreadBudgetScheduler newThreadBudgetScheduler(int maxThreads) {
+        return new ThreadBudgetScheduler(maxThreads);
+    }
+
     /**
      * This is a single-threaded EtlExecutor used when you don't want any kind of parallelism, but conceptually will
      * behave like other EtlExecutors. Executions will block until completed by the invoking thread. This should be
@@ -68,4 +170,33 @@ public class EtlExecutorFactory {
     public EtlExecutor newImmediateExecutionEtlExecutor() {
         return new ImmediateExecutionEtlExecutor();
     }
+
+    private static ExecutorService newThreadPerTaskExecutorService() {
+        if (newVirtualThreadPerTaskExecutorMethod != null) {
+            try {
+                return (ExecutorService) newVirtualThreadPerTaskExecutorMethod.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Unable to create a virtual thread executor", e);
+            }
+        }
+
+        return Executors.newCachedThreadPool();
+    }
+
+    private static Method findNewVirtualThreadPerTaskExecutorMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ForkJoinPool newAsyncForkJoinPool(int parallelism) {
+        return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    private static class SharedForkJoinPoolHolder {
+        private final static ForkJoinPool SHARED_POOL =
+                newAsyncForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.exception.GenericEtlException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An EtlExecutor implementation that runs tasks on a work-stealing ForkJoinPool. Tasks submitted from one of the
+ * pool's own threads, which is what happens when one stage running on the pool hands a record to the next stage, are
+ * pushed onto that thread's own deque so they are usually run by the same thread while the data is still in its cache,
+ * and idle threads steal work from busy ones rather than all contending on a single queue.
+ * <p>
+ * The pool may be shared between many executors, for instance every stage of a stream. Shutting down an executor that
+ * does not own its pool only waits for the tasks submitted through that executor to complete and leaves the pool
+ * running. The number of tasks that may be waiting or running at once is bounded; submitting more will block. If the
+ * submitting thread is itself a thread of the pool the pool is told that it is blocked so it can compensate with a
+ * spare thread, which prevents a pipeline of stages sharing one pool from deadlocking. This object should not be
+ * constructed directly, instead use EtlExecutorFactory.
+ */
+class ForkJoinEtlExecutor implements EtlExecutor {
+    private final static String SUBMIT_SCOPE_NAME = "ForkJoinEtlExecutor.submit";
+
+    @Getter(AccessLevel.PACKAGE)
+    private final ForkJoinPool forkJoinPool;
+    private final boolean ownsPool;
+    private final Semaphore permits;
+    private final AtomicLong outstandingTasks = new AtomicLong(0);
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    private final Object completionMonitor = new Object();
+
+    ForkJoinEtlExecutor(ForkJoinPool forkJoinPool, boolean ownsPool, int maxOutstandingTasks) {
+        this.forkJoinPool = forkJoinPool;
+        this.ownsPool = ownsPool;
+        this.permits = new Semaphore(maxOutstandingTasks);
+    }
+
+    /**
+     * Wait for all the tasks submitted through this executor to complete, and then shut down the pool if it is owned by
+     * this executor.
+     *
+     * @throws GenericEtlException If this thread was interrupted whilst waiting for the tasks to complete.
+     */
+    @Override
+    public void shutdown() throws GenericEtlException {
+        isShutdown.set(true);
+
+        synchronized (completionMonitor) {
+            while (outstandingTasks.get() > 0) {
+                try {
+                    completionMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GenericEtlException("Interrupted waiting for work-stealing tasks to complete");
+                }
+            }
+        }
+
+        if (ownsPool) {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * Queries whether the executor has been shutdown.
+     *
+     * @return 'true' if the executor has been shutdown, and 'false' if it has not.
+     */
+    @Override
+    public boolean isShutdown() {
+        return isShutdown.get();
+    }
+
+    /**
+     * Submits a task to the pool. Any exception thrown by the task will be swallowed just like a thread-pool would.
+     *
+     * @param task         a runnable wrapping the task to be performed in the future.
+     * @param parentMetrics A parent EtlMetrics object to attach the runnables to.
+     * @throws RejectedExecutionException If the executor has been shutdown or the thread was interrupted whilst
+     *                                    waiting for room to submit the task.
+     */
+    @Override
+    public void submit(Runnable task, EtlMetrics parentMetrics) {
+        if (isShutdown.get()) {
+            throw new RejectedExecutionException("Executor has been shutdown and cannot accept more work");
+        }
+
+        boolean isPoolThread = ForkJoinTask.getPool() == forkJoinPool;
+        acquirePermit(isPoolThread);
+        outstandingTasks.incrementAndGet();
+
+        ForkJoinTask<?> forkJoinTask = ForkJoinTask.adapt(() -> {
+            try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, SUBMIT_SCOPE_NAME)) {
+                task.run();
+            } catch (RuntimeException ignored) {
+            } finally {
+                taskCompleted();
+            }
+        });
+
+        try {
+            if (isPoolThread) {
+                forkJoinTask.fork();
+            } else {
+                forkJoinPool.execute(forkJoinTask);
+            }
+        } catch (RuntimeException e) {
+            taskCompleted();
+            throw e;
+        }
+    }
+
+    private void acquirePermit(boolean isPoolThread) {
+        if (permits.tryAcquire()) {
+            return;
+        }
+
+        try {
+            if (isPoolThread) {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    private boolean hasPermit = false;
+
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        if (!hasPermit) {
+                            permits.acquire();
+                            hasPermit = true;
+                        }
+
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return hasPermit || (hasPermit = permits.tryAcquire());
+                    }
+                });
+            } else {
+                permits.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Thread was interrupted trying to queue new work");
+        }
+    }
+
+    private void taskCompleted() {
+        permits.release();
+
+        if (outstandingTasks.decrementAndGet() == 0) {
+            synchronized (completionMonitor) {
+                completionMonitor.notifyAll();
+            }
+        }
+    }
+}
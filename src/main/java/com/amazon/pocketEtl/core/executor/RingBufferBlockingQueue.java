@@ -0,0 +1,344 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free multi-producer multi-consumer queue based on a ring buffer where each slot carries a sequence
+ * number (after Dmitry Vyukov's bounded MPMC queue). Producers and consumers each claim a position with a single CAS
+ * and never block each other unless the queue is full or empty respectively.
+ * <p>
+ * The blocking operations required by BlockingQueue park the calling thread after registering it as a waiter. A
+ * producer whose element lands on an empty queue unparks the waiting consumers, and a consumer that frees a slot in a
+ * full queue unparks the waiting producers, so an idle queue costs nothing while it waits.
+ * <p>
+ * Removing an arbitrary element leaves a tombstone in its slot that consumers skip over; the slot only becomes
+ * available to producers again once consumers reach it, so until then it still counts towards size().
+ *
+ * @param <E> Type of the elements held in this queue.
+ */
+class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private final static Object REMOVED = new Object();
+
+    private final int capacity;
+    private final AtomicReferenceArray<Object> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong(0);
+    private final AtomicLong dequeuePosition = new AtomicLong(0);
+    private final Queue<Thread> waitingConsumers = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+
+    RingBufferBlockingQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+
+        long position = enqueuePosition.get();
+
+        while (true) {
+            int index = indexOf(position);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1);
+
+                    // Every element ahead of this one has already been claimed, so consumers may be parked
+                    if (dequeuePosition.get() >= position) {
+                        unparkAll(waitingConsumers);
+                    }
+
+                    return true;
+                }
+
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                // The slot still holds an element from the previous lap: the queue is full
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = dequeuePosition.get();
+
+        while (true) {
+            int index = indexOf(position);
+            long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    Object element = elements.getAndSet(index, null);
+                    sequences.set(index, position + capacity);
+
+                    // A producer may have found this slot occupied and be parked waiting for it
+                    if (enqueuePosition.get() >= position + capacity) {
+                        unparkAll(waitingProducers);
+                    }
+
+                    if (element != REMOVED) {
+                        return (E) element;
+                    }
+                }
+
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                // The slot has not been filled on this lap yet: the queue is empty
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long position = dequeuePosition.get();
+
+        while (true) {
+            int index = indexOf(position);
+
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+
+            Object element = elements.get(index);
+
+            if (element == null) {
+                // Claimed by a consumer since the position was read
+                position = dequeuePosition.get();
+            } else if (element == REMOVED) {
+                position++;
+            } else {
+                return (E) element;
+            }
+        }
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+        await(() -> offer(element) ? Boolean.TRUE : null, waitingProducers, false, 0);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        return await(() -> offer(element) ? Boolean.TRUE : null, waitingProducers, true, deadline) != null;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return await(this::poll, waitingConsumers, false, 0);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        return await(this::poll, waitingConsumers, true, deadline);
+    }
+
+    @Override
+    public int size() {
+        // Read the dequeue position first so that a concurrent dequeue can only make the result an over-estimate
+        long dequeued = dequeuePosition.get();
+        long enqueued = enqueuePosition.get();
+
+        return (int) Math.max(0, Math.min(capacity, enqueued - dequeued));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+
+        int drained = 0;
+        E element;
+
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * Removes a single instance of an element from the queue by replacing it with a tombstone that consumers skip.
+     * This is what ThreadPoolExecutor relies on to withdraw a task that was queued while the pool was shutting down.
+     * @param element The element to remove.
+     * @return True if an instance of the element was found and removed before a consumer took it.
+     */
+    @Override
+    public boolean remove(Object element) {
+        if (element == null) {
+            return false;
+        }
+
+        long end = enqueuePosition.get();
+
+        for (long position = dequeuePosition.get(); position < end; position++) {
+            int index = indexOf(position);
+            Object candidate = elements.get(index);
+
+            if (candidate != null && candidate != REMOVED && candidate.equals(element)
+                    && elements.compareAndSet(index, candidate, REMOVED)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in the queue at the time of the call. The snapshot may
+     * miss elements that are concurrently added or removed. The iterator does not support remove().
+     * @return An iterator over a snapshot of the queue.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        long position = dequeuePosition.get();
+        long end = enqueuePosition.get();
+
+        for (; position < end; position++) {
+            int index = indexOf(position);
+            Object element = elements.get(index);
+
+            if (element != null && element != REMOVED && sequences.get(index) == position + 1) {
+                snapshot.add((E) element);
+            }
+        }
+
+        Iterator<E> snapshotIterator = snapshot.iterator();
+
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return snapshotIterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return snapshotIterator.next();
+            }
+        };
+    }
+
+    private int indexOf(long position) {
+        return (int) (position % capacity);
+    }
+
+    // Repeats an attempt until it returns a result, parking between attempts until the other side of the queue
+    // unparks this thread. The thread registers as a waiter before its last attempt so that a wake-up sent between
+    // that attempt and parking is not lost. Returns null if the deadline passes first.
+    private <R> R await(Supplier<R> attempt, Queue<Thread> waiters, boolean timed, long deadline)
+            throws InterruptedException {
+        Thread currentThread = Thread.currentThread();
+        R result = attempt.get();
+
+        while (result == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+
+            if (remaining <= 0) {
+                return null;
+            }
+
+            waiters.add(currentThread);
+
+            try {
+                result = attempt.get();
+
+                if (result == null) {
+                    if (timed) {
+                        LockSupport.parkNanos(this, remaining);
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+            } finally {
+                waiters.remove(currentThread);
+            }
+        }
+
+        return result;
+    }
+
+    private static void unparkAll(Queue<Thread> waiters) {
+        Thread waiter;
+
+        while ((waiter = waiters.poll()) != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
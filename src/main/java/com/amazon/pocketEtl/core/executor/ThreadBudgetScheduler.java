@@ -0,0 +1,333 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.exception.GenericEtlException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scheduler that owns a fixed budget of worker threads and shares them between many EtlExecutors, typically one for
+ * each stage of an EtlStream. Each EtlExecutor has its own bounded work-queue and a limit on how many of the budgeted
+ * threads may work on it at once. Whenever a worker thread becomes free it takes its next task from the EtlExecutor
+ * with the deepest backlog that is below its limit, so the threads move to whichever stage is currently the
+ * bottleneck.
+ * <p>
+ * When a worker thread tries to submit work to an EtlExecutor whose queue is full, for instance when a transform
+ * stage hands a record to the next stage, it helps to drain that queue instead of blocking. This means a pipeline of
+ * stages sharing the budget cannot deadlock with every worker waiting on a full queue.
+ * <p>
+ * Instances should be obtained from EtlExecutorFactory and must be shut down once every EtlExecutor created by them has
+ * been shut down.
+ */
+public class ThreadBudgetScheduler {
+    private final static String SUBMIT_SCOPE_NAME = "ThreadBudgetScheduler.submit";
+    private final static long IDLE_WAIT_MILLIS = 10;
+    private final static long HELP_WAIT_MILLIS = 1;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final int maxThreads;
+    private final List<BudgetedEtlExecutor> etlExecutors = new CopyOnWriteArrayList<>();
+    private final ExecutorService workerThreads;
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    private final AtomicInteger idleWorkers = new AtomicInteger(0);
+    private final Object workAvailable = new Object();
+
+    ThreadBudgetScheduler(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Thread budget must be at least 1");
+        }
+
+        this.maxThreads = maxThreads;
+        this.workerThreads = Executors.newFixedThreadPool(maxThreads, runnable -> new WorkerThread(this, runnable));
+
+        for (int i = 0; i < maxThreads; i++) {
+            workerThreads.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Construct a new EtlExecutor that runs its tasks on the threads of this scheduler.
+     * @param maxThreads The maximum number of the budgeted threads that may work on tasks from this EtlExecutor at the
+     *                   same time.
+     * @param queueSize The maximum size of the work-queue. Submit will block once this hits its size limit.
+     * @param queueStrategy The type of work-queue that tasks wait in until a budgeted thread picks them up.
+     * @return A fully constructed EtlExecutor.
+     */
+    public EtlExecutor newEtlExecutor(int maxThreads, int queueSize, WorkQueueStrategy queueStrategy) {
+        if (isShutdown.get()) {
+            throw new IllegalStateException("ThreadBudgetScheduler has been shutdown");
+        }
+
+        BudgetedEtlExecutor etlExecutor = new BudgetedEtlExecutor(maxThreads, queueSize, queueStrategy);
+        etlExecutors.add(etlExecutor);
+        return etlExecutor;
+    }
+
+    /**
+     * Stops all the worker threads owned by this scheduler. Any EtlExecutors created by this scheduler should have
+     * been shut down first, as any work remaining in their queues will be abandoned.
+     *
+     * @throws GenericEtlException If this thread was interrupted whilst waiting for the worker threads to stop.
+     */
+    public void shutdown() throws GenericEtlException {
+        isShutdown.set(true);
+
+        synchronized (workAvailable) {
+            workAvailable.notifyAll();
+        }
+
+        workerThreads.shutdown();
+
+        try {
+            workerThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenericEtlException("Interrupted waiting for thread budget workers to stop");
+        }
+    }
+
+    /**
+     * Queries whether the scheduler has been shutdown.
+     *
+     * @return 'true' if the scheduler has been shutdown, and 'false' if it has not.
+     */
+    public boolean isShutdown() {
+        return isShutdown.get();
+    }
+
+    private void runWorker() {
+        while (!isShutdown.get()) {
+            BudgetedEtlExecutor etlExecutor = claimExecutorWithDeepestBacklog();
+
+            if (etlExecutor == null) {
+                waitForWork();
+            } else {
+                etlExecutor.runClaimedTask();
+            }
+        }
+    }
+
+    private BudgetedEtlExecutor claimExecutorWithDeepestBacklog() {
+        while (true) {
+            BudgetedEtlExecutor deepest = null;
+            int deepestBacklog = 0;
+
+            for (BudgetedEtlExecutor etlExecutor : etlExecutors) {
+                int backlog = etlExecutor.queue.size();
+
+                if (backlog > deepestBacklog && etlExecutor.hasFreeThreadSlot()) {
+                    deepest = etlExecutor;
+                    deepestBacklog = backlog;
+                }
+            }
+
+            if (deepest == null || deepest.tryClaimThreadSlot()) {
+                return deepest;
+            }
+        }
+    }
+
+    private boolean hasClaimableWork() {
+        for (BudgetedEtlExecutor etlExecutor : etlExecutors) {
+            if (!etlExecutor.queue.isEmpty() && etlExecutor.hasFreeThreadSlot()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void waitForWork() {
+        synchronized (workAvailable) {
+            idleWorkers.incrementAndGet();
+
+            try {
+                if (!isShutdown.get() && !hasClaimableWork()) {
+                    // Timed wait guards against any missed signal
+                    workAvailable.wait(IDLE_WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                idleWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    private void signalWorkAvailable() {
+        if (idleWorkers.get() > 0) {
+            synchronized (workAvailable) {
+                workAvailable.notify();
+            }
+        }
+    }
+
+    private boolean isWorkerThread() {
+        Thread currentThread = Thread.currentThread();
+        return currentThread instanceof WorkerThread && ((WorkerThread) currentThread).scheduler == this;
+    }
+
+    private static class WorkerThread extends Thread {
+        private final static AtomicInteger threadNumber = new AtomicInteger(0);
+
+        private final ThreadBudgetScheduler scheduler;
+
+        WorkerThread(ThreadBudgetScheduler scheduler, Runnable runnable) {
+            super(runnable, "ThreadBudgetScheduler-worker-" + threadNumber.incrementAndGet());
+            this.scheduler = scheduler;
+            setDaemon(true);
+        }
+    }
+
+    private final class BudgetedEtlExecutor implements EtlExecutor {
+        private final int maxThreads;
+        private final BlockingQueue<Runnable> queue;
+        private final AtomicInteger activeThreads = new AtomicInteger(0);
+        private final AtomicLong outstandingTasks = new AtomicLong(0);
+        private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+        private final Object completionMonitor = new Object();
+
+        BudgetedEtlExecutor(int maxThreads, int queueSize, WorkQueueStrategy queueStrategy) {
+            this.maxThreads = maxThreads;
+            this.queue = queueStrategy.newQueue(queueSize);
+        }
+
+        @Override
+        public void shutdown() throws GenericEtlException {
+            isShutdown.set(true);
+
+            synchronized (completionMonitor) {
+                while (outstandingTasks.get() > 0) {
+                    try {
+                        completionMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new GenericEtlException("Interrupted waiting for thread budget tasks to complete");
+                    }
+                }
+            }
+
+            etlExecutors.remove(this);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return isShutdown.get();
+        }
+
+        @Override
+        public void submit(Runnable task, EtlMetrics parentMetrics) {
+            if (isShutdown.get() || ThreadBudgetScheduler.this.isShutdown.get()) {
+                throw new RejectedExecutionException("Executor has been shutdown and cannot accept more work");
+            }
+
+            Runnable wrappedTask = () -> {
+                try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, SUBMIT_SCOPE_NAME)) {
+                    task.run();
+                }
+            };
+
+            outstandingTasks.incrementAndGet();
+
+            try {
+                if (isWorkerThread()) {
+                    offerOrHelp(wrappedTask);
+                } else {
+                    queue.put(wrappedTask);
+                }
+            } catch (InterruptedException e) {
+                taskCompleted();
+                throw new RejectedExecutionException("Thread was interrupted trying to queue new work");
+            }
+
+            signalWorkAvailable();
+        }
+
+        private void offerOrHelp(Runnable task) throws InterruptedException {
+            while (!queue.offer(task)) {
+                if (tryClaimThreadSlot()) {
+                    runClaimedTask();
+                } else {
+                    // Every thread this executor is allowed is busy draining the queue, wait for one to make room
+                    if (queue.offer(task, HELP_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean hasFreeThreadSlot() {
+            return activeThreads.get() < maxThreads;
+        }
+
+        private boolean tryClaimThreadSlot() {
+            int active;
+
+            do {
+                active = activeThreads.get();
+
+                if (active >= maxThreads) {
+                    return false;
+                }
+            } while (!activeThreads.compareAndSet(active, active + 1));
+
+            return true;
+        }
+
+        private void runClaimedTask() {
+            Runnable task = queue.poll();
+
+            try {
+                if (task != null) {
+                    task.run();
+                }
+            } catch (RuntimeException ignored) {
+            } finally {
+                activeThreads.decrementAndGet();
+
+                if (task != null) {
+                    taskCompleted();
+                }
+
+                if (!queue.isEmpty()) {
+                    signalWorkAvailable();
+                }
+            }
+        }
+
+        private void taskCompleted() {
+            if (outstandingTasks.decrementAndGet() == 0) {
+                synchronized (completionMonitor) {
+                    completionMonitor.notifyAll();
+                }
+            }
+        }
+    }
+}
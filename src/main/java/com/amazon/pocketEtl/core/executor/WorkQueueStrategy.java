@@ -0,0 +1,63 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Strategies for the bounded work queue that sits in front of the worker threads of a stage. All strategies block the
+ * submitting thread when the queue is full; they differ in how much the threads submitting work and the threads
+ * taking work contend with each other.
+ */
+public enum WorkQueueStrategy {
+    /**
+     * A single array guarded by a single lock. Producers and consumers all contend on the same lock. This is the
+     * default and is a good choice for stages with few threads on either side.
+     */
+    ARRAY_BLOCKING {
+        @Override
+        <T> BlockingQueue<T> newQueue(int capacity) {
+            return new ArrayBlockingQueue<>(capacity);
+        }
+    },
+
+    /**
+     * A linked queue with separate locks for adding and removing work, so producers only contend with other
+     * producers and consumers only contend with other consumers. Allocates a node for every item queued.
+     */
+    LINKED_BLOCKING {
+        @Override
+        <T> BlockingQueue<T> newQueue(int capacity) {
+            return new LinkedBlockingQueue<>(capacity);
+        }
+    },
+
+    /**
+     * A lock-free multi-producer multi-consumer ring buffer. Adding and removing work never takes a lock, which suits
+     * stages with a high fan-in of producing threads and many workers. Threads waiting on a full or empty queue park
+     * until the other side of the queue makes room or adds work, so an idle stage does not consume any CPU.
+     */
+    RING_BUFFER {
+        @Override
+        <T> BlockingQueue<T> newQueue(int capacity) {
+            return new RingBufferBlockingQueue<>(capacity);
+        }
+    };
+
+    abstract <T> BlockingQueue<T> newQueue(int capacity);
+}
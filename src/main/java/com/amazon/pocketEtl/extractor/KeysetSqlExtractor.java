@@ -0,0 +1,292 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Extractor;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.db.jdbi.EtlJdbi;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An implementation of Extractor that reads the results of an SQL query a page at a time using keyset pagination,
+ * instead of holding a single cursor open for the whole extraction like SqlExtractor. Each page is a separate query
+ * on its own connection that continues from the key of the last row of the previous page:
+ * <p>
+ * "SELECT * FROM (extractSql) paginated_extract WHERE keyColumn &gt; #lastKey ORDER BY keyColumn LIMIT #pageSize"
+ * <p>
+ * The key column must be unique and should be indexed; rows where it is null are not extracted. The extract SQL must
+ * not contain an ORDER BY clause, and the database must support LIMIT. The next page is queried on a background thread
+ * while the current page is being extracted, so up to two pages (2 * pageSize rows) are held in memory at a time.
+ * <p>
+ * An extraction that fails can be resumed: a checkpoint listener is given the key of the last row of each page once
+ * every object in the page has been extracted, and an extractor constructed with withResumeAfterKey() starts from the
+ * row after that key. Extracted objects may not have been loaded yet when the checkpoint is taken, so the loaders of
+ * a resumed stream should tolerate loading some objects twice.
+ * <p>
+ * Example usage:
+ * EtlStream.extract(KeysetSqlExtractor.of(dataSource, "SELECT * FROM orders", "order_id", Order.class)
+ *                                     .withResumeAfterKey(checkpointStore.load())
+ *                                     .withCheckpointListener(checkpointStore::save));
+ *
+ * @param <T> Type of object that is extracted from the datasource.
+ */
+@SuppressWarnings("WeakerAccess")
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetSqlExtractor<T> implements Extractor<T> {
+    private final static int DEFAULT_PAGE_SIZE = 10000;
+    private final static String LAST_KEY_PARAMETER = "keysetLastKey";
+    private final static String PAGE_SIZE_PARAMETER = "keysetPageSize";
+    private final static String DERIVED_TABLE_ALIAS = "paginated_extract";
+
+    private final DataSource dataSource;
+    private final String extractSql;
+    private final String keyColumn;
+    private final Class<T> extractClass;
+    private final int pageSize;
+    private final Map<String, ?> extractSqlParameters;
+    private final BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper;
+    private final Object resumeAfterKey;
+    private final Consumer<Object> checkpointListener;
+
+    private boolean isClosed = false;
+    private DBI dbi = null;
+    private ResultSetMapper<T> beanMapper = null;
+    private ExecutorService executorService = null;
+    private Future<Page<T>> nextPage = null;
+    private Iterator<T> currentPage = null;
+    private Object currentPageLastKey = null;
+    private EtlMetrics parentMetrics = null;
+
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class Page<T> {
+        private final List<T> objects;
+        private final Object lastKey;
+        private final boolean isLastPage;
+    }
+
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class KeyedObject<T> {
+        private final Object key;
+        private final T object;
+    }
+
+    /**
+     * Creates an extractor with the default page size.
+     * @param dataSource JDBC datasource to extract from, which should be pooled.
+     * @param extractSql The SQL query to extract the objects with.
+     * @param keyColumn The name of a unique column in the results of the query to paginate on.
+     * @param extractClass Class the rows are mapped to.
+     * @param <T> Type of object that is extracted from the datasource.
+     * @return A new KeysetSqlExtractor.
+     */
+    public static <T> KeysetSqlExtractor<T> of(@Nonnull DataSource dataSource, @Nonnull String extractSql,
+                                               @Nonnull String keyColumn, @Nonnull Class<T> extractClass) {
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, DEFAULT_PAGE_SIZE, null, null,
+                null, null);
+    }
+
+    /**
+     * Set the maximum number of rows in each page. Up to two pages are held in memory at a time, because the next page
+     * is queried while the current page is being extracted.
+     * @param pageSize Number of rows to query at a time.
+     * @return A copy of this object with this property changed.
+     */
+    public KeysetSqlExtractor<T> withPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, pageSize,
+                extractSqlParameters, unknownPropertyMapper, resumeAfterKey, checkpointListener);
+    }
+
+    /**
+     * Bind named parameters in the extract SQL. See SqlExtractor.withSqlParameters().
+     * @param extractSqlParameters A map of parameter names to values.
+     * @return A copy of this object with this property changed.
+     */
+    public KeysetSqlExtractor<T> withSqlParameters(@Nullable Map<String, ?> extractSqlParameters) {
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, pageSize,
+                extractSqlParameters, unknownPropertyMapper, resumeAfterKey, checkpointListener);
+    }
+
+    /**
+     * Map values that cannot be mapped to a property directly. See SqlExtractor.withUnknownPropertyMapper().
+     * @param unknownPropertyMapper A lambda that inserts an unmapped value into the object being extracted.
+     * @return A copy of this object with this property changed.
+     */
+    public KeysetSqlExtractor<T> withUnknownPropertyMapper(
+            @Nullable BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper) {
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, pageSize,
+                extractSqlParameters, unknownPropertyMapper, resumeAfterKey, checkpointListener);
+    }
+
+    /**
+     * Start extracting from the row after a key, such as one saved by a checkpoint listener.
+     * @param resumeAfterKey A value of the key column, or null to start from the first row.
+     * @return A copy of this object with this property changed.
+     */
+    public KeysetSqlExtractor<T> withResumeAfterKey(@Nullable Object resumeAfterKey) {
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, pageSize,
+                extractSqlParameters, unknownPropertyMapper, resumeAfterKey, checkpointListener);
+    }
+
+    /**
+     * Be told the key of the last row of each page once every object in the page has been extracted, so that it can be
+     * persisted and the extraction resumed from there.
+     * @param checkpointListener Called with each key on the thread the extractor is running on, or null.
+     * @return A copy of this object with this property changed.
+     */
+    public KeysetSqlExtractor<T> withCheckpointListener(@Nullable Consumer<Object> checkpointListener) {
+        return new KeysetSqlExtractor<>(dataSource, extractSql, keyColumn, extractClass, pageSize,
+                extractSqlParameters, unknownPropertyMapper, resumeAfterKey, checkpointListener);
+    }
+
+    /**
+     * Starts querying the first page.
+     * @param parentMetrics A parent EtlMetrics object to record all timers and counters into, will be null if
+     *                      profiling is not required.
+     */
+    @Override
+    public void open(@Nullable EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+        dbi = EtlJdbi.newDBI(dataSource, unknownPropertyMapper);
+        beanMapper = EtlJdbi.newBeanMapper(extractClass, unknownPropertyMapper);
+        executorService = Executors.newSingleThreadExecutor();
+        nextPage = executorService.submit(() -> queryPage(resumeAfterKey));
+    }
+
+    /**
+     * Extract the next object from the database, waiting for the next page to be queried if this is the last object of
+     * the current one.
+     *
+     * @return The next object or empty if no more objects can be extracted.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     *                                             detected and the stream needs to be aborted.
+     */
+    @Override
+    public Optional<T> next() throws UnrecoverableStreamFailureException {
+        if (isClosed) {
+            throw new IllegalStateException("Attempt to use extractor that has been closed");
+        }
+
+        if (executorService == null) {
+            throw new IllegalStateException("Attempt to extract from an uninitialized extractor");
+        }
+
+        while (currentPage == null || !currentPage.hasNext()) {
+            if (currentPageLastKey != null && checkpointListener != null) {
+                checkpointListener.accept(currentPageLastKey);
+            }
+
+            currentPageLastKey = null;
+
+            if (nextPage == null) {
+                return Optional.empty();
+            }
+
+            Page<T> page = waitForPage(nextPage);
+            nextPage = page.isLastPage ? null : executorService.submit(() -> queryPage(page.lastKey));
+            currentPage = page.objects.iterator();
+            currentPageLastKey = page.lastKey;
+        }
+
+        return Optional.of(currentPage.next());
+    }
+
+    /**
+     * Stops querying pages.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "KeysetSqlExtractor.close")) {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private Page<T> waitForPage(Future<Page<T>> page) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "KeysetSqlExtractor.waitForPage")) {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException(e);
+        } catch (ExecutionException e) {
+            throw new UnrecoverableStreamFailureException(e.getCause());
+        }
+    }
+
+    private Page<T> queryPage(@Nullable Object lastKey) {
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (extractSqlParameters != null) {
+            parameters.putAll(extractSqlParameters);
+        }
+
+        parameters.put(PAGE_SIZE_PARAMETER, pageSize);
+
+        if (lastKey != null) {
+            parameters.put(LAST_KEY_PARAMETER, lastKey);
+        }
+
+        String pageSql = "SELECT * FROM (" + extractSql + ") " + DERIVED_TABLE_ALIAS + " WHERE " + keyColumn
+                + (lastKey == null ? " IS NOT NULL" : " > #" + LAST_KEY_PARAMETER) + " ORDER BY " + keyColumn
+                + " LIMIT #" + PAGE_SIZE_PARAMETER;
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "KeysetSqlExtractor.queryPage");
+             Handle handle = dbi.open()) {
+            List<KeyedObject<T>> rows = handle.createQuery(pageSql)
+                    .bindFromMap(parameters)
+                    .map((index, resultSet, context) -> new KeyedObject<>(resultSet.getObject(keyColumn),
+                            beanMapper.map(index, resultSet, context)))
+                    .list();
+
+            scope.addCounter("KeysetSqlExtractor.rows", rows.size());
+
+            Object pageLastKey = rows.isEmpty() ? null : rows.get(rows.size() - 1).key;
+            List<T> objects = new ArrayList<>(rows.size());
+            rows.forEach(row -> objects.add(row.object));
+
+            return new Page<>(objects, pageLastKey, rows.size() < pageSize);
+        }
+    }
+}
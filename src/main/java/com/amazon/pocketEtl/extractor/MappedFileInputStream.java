@@ -0,0 +1,137 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * InputStream implementation that reads a file through a sequence of read-only memory-mapped regions. Only one region is
+ * mapped at a time, so files larger than the 2GB limit of a single MappedByteBuffer can be read, and the heap is never
+ * used to hold the contents of the file. Closing the stream closes the underlying FileChannel.
+ * * Mark and reset are not supported by this implementation.
+ */
+class MappedFileInputStream extends InputStream {
+    private final static long DEFAULT_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final long regionSize;
+
+    private MappedByteBuffer currentRegion = null;
+    private long nextRegionStart = 0;
+    private boolean closed = false;
+
+    MappedFileInputStream(FileChannel fileChannel) throws IOException {
+        this(fileChannel, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileInputStream(FileChannel fileChannel, long regionSize) throws IOException {
+        if (regionSize < 1 || regionSize > DEFAULT_REGION_SIZE) {
+            throw new IllegalArgumentException("Region size must be between 1 and " + DEFAULT_REGION_SIZE);
+        }
+
+        this.fileChannel = fileChannel;
+        this.fileSize = fileChannel.size();
+        this.regionSize = regionSize;
+    }
+
+    // Lets readers that need random access to the file read it directly
+    FileChannel getFileChannel() {
+        return fileChannel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return advanceToReadableRegion() ? currentRegion.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!advanceToReadableRegion()) {
+            return -1;
+        }
+
+        int bytesToRead = Math.min(len, currentRegion.remaining());
+        currentRegion.get(b, off, bytesToRead);
+
+        return bytesToRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+
+        while (skipped < n && advanceToReadableRegion()) {
+            int bytesToSkip = (int) Math.min(n - skipped, currentRegion.remaining());
+            currentRegion.position(currentRegion.position() + bytesToSkip);
+            skipped += bytesToSkip;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        long remaining = (currentRegion == null ? 0 : currentRegion.remaining()) + fileSize - nextRegionStart;
+
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            currentRegion = null;
+            fileChannel.close();
+        }
+    }
+
+    // Returns false once the end of the file has been reached
+    private boolean advanceToReadableRegion() throws IOException {
+        ensureOpen();
+
+        while (currentRegion == null || !currentRegion.hasRemaining()) {
+            if (nextRegionStart >= fileSize) {
+                return false;
+            }
+
+            long mappedSize = Math.min(regionSize, fileSize - nextRegionStart);
+            currentRegion = fileChannel.map(FileChannel.MapMode.READ_ONLY, nextRegionStart, mappedSize);
+            nextRegionStart += mappedSize;
+        }
+
+        return true;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
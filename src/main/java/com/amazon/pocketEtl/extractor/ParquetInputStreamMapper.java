@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.integration.parquet.ParquetFileReader;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter;
+import com.amazon.pocketEtl.integration.parquet.ParquetSource;
+import com.amazonaws.util.IOUtils;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Implementation of InputStreamMapper that takes an InputStream with a Parquet file in it and creates an iterator that
+ * maps each row to an object. Only the columns that map to a property of the class being extracted (or are referred to
+ * by the filter) are read, and row groups whose statistics show that none of their rows can match the filter are
+ * skipped entirely. See ParquetFileReader for how columns are mapped to properties.
+ *
+ * Parquet files have to be read out of order, starting with the footer at the end. If the InputStream is backed by a
+ * file, such as a FileInputStream or an S3 file buffered with S3BufferingStrategy.MEMORY_MAPPED_TEMP_FILE, the file is
+ * read directly and the columns and row groups that are not needed are never read. Any other InputStream is read into
+ * memory first. To read only the parts of a file in S3 that are needed, use S3ParquetExtractor instead.
+ *
+ * Example usage:
+ * InputStreamExtractor.of(() -> new FileInputStream("orders.parquet"), ParquetInputStreamMapper.of(Order.class))
+ *
+ * @param <T> The type of object the Parquet rows are being mapped to.
+ */
+@SuppressWarnings("WeakerAccess")
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParquetInputStreamMapper<T> implements InputStreamMapper<T> {
+    private final Class<T> objectClass;
+    private final ParquetFilter filter;
+
+    /**
+     * Convert an InputStream containing a Parquet file to an iterator. Used by InputStreamExtractor.
+     * @param objectClassToMapTo Class definition to map the Parquet rows into.
+     * @param <T> Type of object being iterated over.
+     * @return A function that converts an inputStream to an iterator.
+     */
+    public static <T> ParquetInputStreamMapper<T> of(Class<T> objectClassToMapTo) {
+        return new ParquetInputStreamMapper<>(objectClassToMapTo, null);
+    }
+
+    /**
+     * Only extract the rows that match a filter, skipping the row groups that cannot contain any.
+     * @param filter The filter rows must match to be extracted, or null to extract every row.
+     * @return A copy of this object with this property changed.
+     */
+    public ParquetInputStreamMapper<T> withFilter(@Nullable ParquetFilter filter) {
+        return new ParquetInputStreamMapper<>(objectClass, filter);
+    }
+
+    /**
+     * Converts an inputStream into an iterator of objects.
+     * @param inputStream inputStream containing a Parquet file.
+     * @return An iterator based on the inputStream.
+     */
+    @Override
+    public Iterator<T> apply(InputStream inputStream) {
+        try {
+            return new ParquetFileReader<>(getParquetSource(inputStream), objectClass, filter);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ParquetSource getParquetSource(InputStream inputStream) throws IOException {
+        InputStream unwrappedInputStream = inputStream;
+
+        while (unwrappedInputStream instanceof WrappedInputStream) {
+            unwrappedInputStream = ((WrappedInputStream) unwrappedInputStream).getWrappedInputStream();
+        }
+
+        if (unwrappedInputStream instanceof MappedFileInputStream) {
+            return ParquetSource.of(((MappedFileInputStream) unwrappedInputStream).getFileChannel());
+        }
+
+        if (unwrappedInputStream instanceof FileInputStream) {
+            return ParquetSource.of(((FileInputStream) unwrappedInputStream).getChannel());
+        }
+
+        return ParquetSource.of(IOUtils.toByteArray(unwrappedInputStream));
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Extractor;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.db.jdbi.EtlJdbi;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.skife.jdbi.v2.Handle;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Splits an SQL query into a number of range queries on a split column, and creates one Extractor for each range. When
+ * the collection of Extractors is passed to EtlStream.extract() the ranges are queried concurrently, each on its own
+ * connection, instead of the whole result set being read through a single JDBC cursor. Use a pooled DataSource that
+ * allows at least as many connections as there are partitions.
+ * <p>
+ * The split column must be numeric, date or timestamp and should be indexed. Unless the boundaries between partitions
+ * are supplied, the range of the split column is divided evenly: the minimum and maximum values are queried when the
+ * first partition is opened. Each partition query wraps the extract SQL as a derived table, so the extract SQL must
+ * not contain an ORDER BY clause:
+ * <p>
+ * "SELECT * FROM (extractSql) partitioned_extract WHERE splitColumn &gt;= #partitionLowerBound AND splitColumn &lt;
+ * #partitionUpperBound"
+ * <p>
+ * The first partition has no lower bound and also extracts the rows where the split column is null, and the last
+ * partition has no upper bound, so every row is extracted exactly once even if the boundaries are out of date.
+ * <p>
+ * Example usage:
+ * EtlStream.extract(PartitionedSqlExtractor.of(dataSource, "SELECT * FROM orders", "order_id", Order.class)
+ *                                          .withPartitions(8)
+ *                                          .getExtractors());
+ *
+ * @param <T> Type of object that is extracted from the datasource.
+ */
+@SuppressWarnings("WeakerAccess")
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class PartitionedSqlExtractor<T> {
+    private final static int DEFAULT_NUMBER_OF_PARTITIONS = 4;
+    private final static String LOWER_BOUND_PARAMETER = "partitionLowerBound";
+    private final static String UPPER_BOUND_PARAMETER = "partitionUpperBound";
+    private final static String DERIVED_TABLE_ALIAS = "partitioned_extract";
+
+    private final DataSource dataSource;
+    private final String extractSql;
+    private final String splitColumn;
+    private final Class<T> extractClass;
+    private final int numberOfPartitions;
+    private final List<?> boundaries;
+    private final Map<String, ?> extractSqlParameters;
+    private final BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper;
+
+    /**
+     * Creates a partitioned extractor with the default number of partitions.
+     * @param dataSource JDBC datasource to extract from, which should be pooled.
+     * @param extractSql The SQL query to extract the objects with.
+     * @param splitColumn The name of the numeric, date or timestamp column in the results of the query to partition
+     *                    the query on.
+     * @param extractClass Class the rows are mapped to.
+     * @param <T> Type of object that is extracted from the datasource.
+     * @return A new PartitionedSqlExtractor.
+     */
+    public static <T> PartitionedSqlExtractor<T> of(@Nonnull DataSource dataSource, @Nonnull String extractSql,
+                                                    @Nonnull String splitColumn, @Nonnull Class<T> extractClass) {
+        return new PartitionedSqlExtractor<>(dataSource, extractSql, splitColumn, extractClass,
+                DEFAULT_NUMBER_OF_PARTITIONS, null, null, null);
+    }
+
+    /**
+     * Divide the range of the split column evenly into a number of partitions. Fewer partitions will return data if the
+     * range is too small to divide that many times.
+     * @param numberOfPartitions The number of partitions, which is also the number of concurrent queries.
+     * @return A copy of this object with this property changed.
+     */
+    public PartitionedSqlExtractor<T> withPartitions(int numberOfPartitions) {
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least 1");
+        }
+
+        return new PartitionedSqlExtractor<>(dataSource, extractSql, splitColumn, extractClass, numberOfPartitions,
+                boundaries, extractSqlParameters, unknownPropertyMapper);
+    }
+
+    /**
+     * Use boundaries between partitions instead of querying the range of the split column, for example to give
+     * partitions of a skewed column a similar number of rows. There is one more partition than there are boundaries.
+     * @param boundaries Values of the split column in ascending order that can be bound as JDBC parameters, such as
+     *                   Long or java.sql.Timestamp objects, or null to query the range of the split column.
+     * @return A copy of this object with this property changed.
+     */
+    public PartitionedSqlExtractor<T> withBoundaries(@Nullable List<?> boundaries) {
+        return new PartitionedSqlExtractor<>(dataSource, extractSql, splitColumn, extractClass, numberOfPartitions,
+                boundaries, extractSqlParameters, unknownPropertyMapper);
+    }
+
+    /**
+     * Bind named parameters in the extract SQL. See SqlExtractor.withSqlParameters().
+     * @param extractSqlParameters A map of parameter names to values.
+     * @return A copy of this object with this property changed.
+     */
+    public PartitionedSqlExtractor<T> withSqlParameters(@Nullable Map<String, ?> extractSqlParameters) {
+        return new PartitionedSqlExtractor<>(dataSource, extractSql, splitColumn, extractClass, numberOfPartitions,
+                boundaries, extractSqlParameters, unknownPropertyMapper);
+    }
+
+    /**
+     * Map values that cannot be mapped to a property directly. See SqlExtractor.withUnknownPropertyMapper().
+     * @param unknownPropertyMapper A lambda that inserts an unmapped value into the object being extracted.
+     * @return A copy of this object with this property changed.
+     */
+    public PartitionedSqlExtractor<T> withUnknownPropertyMapper(
+            @Nullable BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper) {
+        return new PartitionedSqlExtractor<>(dataSource, extractSql, splitColumn, extractClass, numberOfPartitions,
+                boundaries, extractSqlParameters, unknownPropertyMapper);
+    }
+
+    /**
+     * Creates one Extractor for each partition. The boundaries of the partitions are shared between the Extractors, so
+     * the range of the split column is only queried once.
+     * @return A collection of Extractors that together extract every row of the query.
+     */
+    public Collection<Extractor<?>> getExtractors() {
+        int partitionCount = boundaries == null ? numberOfPartitions : boundaries.size() + 1;
+        PartitionBoundaries partitionBoundaries = new PartitionBoundaries();
+        List<Extractor<?>> extractors = new ArrayList<>(partitionCount);
+
+        for (int i = 0; i < partitionCount; i++) {
+            extractors.add(new PartitionExtractor(i, partitionBoundaries));
+        }
+
+        return extractors;
+    }
+
+    /**
+     * Divides the range between two values of the split column evenly. Boundaries that would make a partition empty
+     * are left out, so there may be fewer than requested.
+     * @param minValue Smallest value of the split column, or null if there are no rows.
+     * @param maxValue Largest value of the split column, or null if there are no rows.
+     * @param numberOfPartitions The number of partitions to divide the range into.
+     * @return The boundaries between partitions in ascending order, of the same type as the values.
+     */
+    static List<Object> divideRange(@Nullable Object minValue, @Nullable Object maxValue, int numberOfPartitions) {
+        List<Object> result = new ArrayList<>();
+
+        if (minValue == null || maxValue == null) {
+            return result;
+        }
+
+        BigDecimal min = toBigDecimal(minValue);
+        BigDecimal range = toBigDecimal(maxValue).subtract(min);
+        boolean isIntegral = !(minValue instanceof BigDecimal || minValue instanceof Double
+                || minValue instanceof Float);
+        BigDecimal previous = min;
+
+        for (int i = 1; i < numberOfPartitions; i++) {
+            BigDecimal offset = range.multiply(BigDecimal.valueOf(i));
+            BigDecimal boundary = min.add(isIntegral
+                    ? offset.divide(BigDecimal.valueOf(numberOfPartitions), 0, RoundingMode.FLOOR)
+                    : offset.divide(BigDecimal.valueOf(numberOfPartitions), MathContext.DECIMAL64));
+
+            if (boundary.compareTo(previous) > 0) {
+                result.add(fromBigDecimal(boundary, minValue));
+                previous = boundary;
+            }
+        }
+
+        return result;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+
+        if (value instanceof Date) {
+            return BigDecimal.valueOf(((Date) value).getTime());
+        }
+
+        throw new IllegalArgumentException("Split column must be numeric, date or timestamp but was "
+                + value.getClass().getName());
+    }
+
+    private static Object fromBigDecimal(BigDecimal value, Object typeOf) {
+        if (typeOf instanceof BigDecimal) {
+            return value;
+        }
+
+        if (typeOf instanceof BigInteger) {
+            return value.toBigInteger();
+        }
+
+        if (typeOf instanceof Double || typeOf instanceof Float) {
+            return value.doubleValue();
+        }
+
+        if (typeOf instanceof Number) {
+            return value.longValue();
+        }
+
+        if (typeOf instanceof java.sql.Date) {
+            return new java.sql.Date(value.longValue());
+        }
+
+        return new Timestamp(value.longValue());
+    }
+
+    private String getPartitionSql(boolean hasLowerBound, boolean hasUpperBound) {
+        String derivedTableSql = "SELECT * FROM (" + extractSql + ") " + DERIVED_TABLE_ALIAS + " WHERE ";
+        String lowerBoundSql = splitColumn + " >= #" + LOWER_BOUND_PARAMETER;
+        String upperBoundSql = splitColumn + " < #" + UPPER_BOUND_PARAMETER;
+
+        if (hasLowerBound && hasUpperBound) {
+            return derivedTableSql + lowerBoundSql + " AND " + upperBoundSql;
+        }
+
+        if (hasLowerBound) {
+            return derivedTableSql + lowerBoundSql;
+        }
+
+        if (hasUpperBound) {
+            return derivedTableSql + "(" + upperBoundSql + " OR " + splitColumn + " IS NULL)";
+        }
+
+        return extractSql;
+    }
+
+    /**
+     * Boundaries between partitions that are either supplied or queried by whichever partition is opened first.
+     */
+    private class PartitionBoundaries {
+        private List<?> values = null;
+
+        synchronized List<?> get(@Nullable EtlMetrics parentMetrics) {
+            if (values == null) {
+                values = boundaries != null ? boundaries : queryBoundaries(parentMetrics);
+            }
+
+            return values;
+        }
+
+        private List<Object> queryBoundaries(@Nullable EtlMetrics parentMetrics) {
+            String rangeSql = "SELECT MIN(" + splitColumn + "), MAX(" + splitColumn + ") FROM (" + extractSql + ") "
+                    + DERIVED_TABLE_ALIAS;
+
+            try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics,
+                    "PartitionedSqlExtractor.queryBoundaries");
+                 Handle handle = EtlJdbi.newDBI(dataSource, null).open()) {
+                Object[] range = handle.createQuery(rangeSql)
+                        .bindFromMap(extractSqlParameters)
+                        .map((index, resultSet, context) ->
+                                new Object[] { resultSet.getObject(1), resultSet.getObject(2) })
+                        .first();
+
+                return range == null ? Collections.emptyList() : divideRange(range[0], range[1], numberOfPartitions);
+            }
+        }
+    }
+
+    /**
+     * Extracts one partition with a SqlExtractor once the boundaries of the partition are known.
+     */
+    private class PartitionExtractor implements Extractor<T> {
+        private final int partitionIndex;
+        private final PartitionBoundaries partitionBoundaries;
+
+        private Extractor<T> extractor = null;
+
+        PartitionExtractor(int partitionIndex, PartitionBoundaries partitionBoundaries) {
+            this.partitionIndex = partitionIndex;
+            this.partitionBoundaries = partitionBoundaries;
+        }
+
+        @Override
+        public void open(@Nullable EtlMetrics parentMetrics) {
+            List<?> values = partitionBoundaries.get(parentMetrics);
+
+            // The range was too small to divide this many times
+            if (partitionIndex > values.size()) {
+                extractor = IterableExtractor.of(Collections.emptyList());
+                extractor.open(parentMetrics);
+                return;
+            }
+
+            boolean hasLowerBound = partitionIndex > 0;
+            boolean hasUpperBound = partitionIndex < values.size();
+            Map<String, Object> parameters = new HashMap<>();
+
+            if (extractSqlParameters != null) {
+                parameters.putAll(extractSqlParameters);
+            }
+
+            if (hasLowerBound) {
+                parameters.put(LOWER_BOUND_PARAMETER, values.get(partitionIndex - 1));
+            }
+
+            if (hasUpperBound) {
+                parameters.put(UPPER_BOUND_PARAMETER, values.get(partitionIndex));
+            }
+
+            extractor = SqlExtractor.of(dataSource, getPartitionSql(hasLowerBound, hasUpperBound), extractClass)
+                    .withSqlParameters(parameters)
+                    .withUnknownPropertyMapper(unknownPropertyMapper);
+            extractor.open(parentMetrics);
+        }
+
+        @Override
+        public Optional<T> next() throws UnrecoverableStreamFailureException {
+            if (extractor == null) {
+                throw new IllegalStateException("Attempt to extract from an uninitialized extractor");
+            }
+
+            return extractor.next();
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (extractor != null) {
+                extractor.close();
+            }
+        }
+    }
+}
@@ -52,7 +52,8 @@ public class S3BufferedExtractor<T> extends WrappedExtractor<T> {
      */
     public static <T> S3BufferedExtractorSupplier<T> supplierOf(String s3Bucket, String s3Key,
                                                                 InputStreamMapper<T> inputStreamMapper) {
-        return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, null);
+        return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, null, S3BufferingStrategy.HEAP, 0,
+                0);
     }
 
     // Simple wrapping for the real extractor, just uses the stored object.
@@ -73,6 +74,9 @@ public class S3BufferedExtractor<T> extends WrappedExtractor<T> {
         private final String s3Key;
         private final InputStreamMapper<T> inputStreamMapper;
         private final AmazonS3 amazonS3;
+        private final S3BufferingStrategy bufferingStrategy;
+        private final int rangedDownloadPartSize;
+        private final int rangedDownloadConcurrency;
 
         /**
          * Creates a new provider based on the current one that is associated with a specific AmazonS3 client object.
@@ -82,7 +86,44 @@ public class S3BufferedExtractor<T> extends WrappedExtractor<T> {
          */
         @Nonnull
         public S3BufferedExtractorSupplier<T> withClient(@Nullable AmazonS3 amazonS3Client) {
-            return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, amazonS3Client);
+            return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, amazonS3Client,
+                    bufferingStrategy, rangedDownloadPartSize, rangedDownloadConcurrency);
+        }
+
+        /**
+         * Creates a new provider based on the current one that buffers the file in a different place before objects are
+         * extracted from it. Use MEMORY_MAPPED_TEMP_FILE to read files that are too large to hold on the heap.
+         *
+         * @param bufferingStrategy Where to hold the contents of the file. The default is HEAP.
+         * @return A new S3BufferedExtractorSupplier.
+         */
+        @Nonnull
+        public S3BufferedExtractorSupplier<T> withBufferingStrategy(@Nonnull S3BufferingStrategy bufferingStrategy) {
+            return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, amazonS3, bufferingStrategy,
+                    rangedDownloadPartSize, rangedDownloadConcurrency);
+        }
+
+        /**
+         * Creates a new provider based on the current one that downloads the file in parts using parallel ranged
+         * requests, so that extraction can begin as soon as the first part arrives and only a bounded number of parts
+         * are held in memory at any time.
+         *
+         * @param partSizeBytes The number of bytes to download in each request.
+         * @param concurrency The maximum number of parts to download at the same time.
+         * @return A new S3BufferedExtractorSupplier.
+         */
+        @Nonnull
+        public S3BufferedExtractorSupplier<T> withParallelRangedDownload(int partSizeBytes, int concurrency) {
+            if (partSizeBytes < 1) {
+                throw new IllegalArgumentException("Part size must be at least 1");
+            }
+
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be at least 1");
+            }
+
+            return new S3BufferedExtractorSupplier<>(s3Bucket, s3Key, inputStreamMapper, amazonS3, bufferingStrategy,
+                    partSizeBytes, concurrency);
         }
 
         /**
@@ -100,6 +141,13 @@ public class S3BufferedExtractor<T> extends WrappedExtractor<T> {
                 s3BufferedInputStreamSupplier = s3BufferedInputStreamSupplier.withClient(amazonS3);
             }
 
+            s3BufferedInputStreamSupplier = s3BufferedInputStreamSupplier.withBufferingStrategy(bufferingStrategy);
+
+            if (rangedDownloadConcurrency > 0) {
+                s3BufferedInputStreamSupplier = s3BufferedInputStreamSupplier
+                        .withParallelRangedDownload(rangedDownloadPartSize, rangedDownloadConcurrency);
+            }
+
             return new S3BufferedExtractor<>(InputStreamExtractor.of(s3BufferedInputStreamSupplier, inputStreamMapper));
         }
     }
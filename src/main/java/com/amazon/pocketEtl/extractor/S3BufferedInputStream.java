@@ -19,13 +19,11 @@ import com.amazon.pocketEtl.common.ThrowingFunction;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.util.IOUtils;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.function.Supplier;
@@ -34,27 +32,38 @@ import java.util.function.Supplier;
  * InputStream implementation that can be used to read a file in S3. The entire file will be read into memory when the
  * S3BufferedInputStream is first used, this is to avoid the risk of the stream being closed by the remote service before
  * it has been fully processed. This approach will be problematic with extremely large files for obvious reasons, but it
- * is good for handling sensitive data because nothing is written to disk.
+ * is good for handling sensitive data because nothing is written to disk. Where the file should be buffered instead can
+ * be changed with S3BufferedInputStreamSupplier.withBufferingStrategy().
  * * This has been tested to also work with SSE-KMS encrypted files.
  * * Mark and reset are not supported by this implementation, and attempts to use them will throw an exception.
  * * If a pre-built s3 client is not specified when constructing this object then the default client builder will be used.
  *
+ * For large files, the supplier can instead be configured to download the file in parts using parallel ranged
+ * requests (see S3BufferedInputStreamSupplier.withParallelRangedDownload()). In that mode only a bounded number of
+ * parts are held in memory at any time and the contents of the file can be read as soon as the first part arrives.
+ *
  * Example usage:
  * S3BufferedInputStream.supplierOf("MyBucket", "MyFile.csv").get();
  */
 @SuppressWarnings("WeakerAccess")
 @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 public class S3BufferedInputStream extends WrappedInputStream {
+    private final static int NO_RANGED_DOWNLOAD = 0;
+
     private final String s3Bucket;
     private final String s3Key;
     private final AmazonS3 amazonS3;
     private final ThrowingFunction<InputStream, InputStream, IOException> inputStreamCachingFunction;
-
-    private final static ThrowingFunction<InputStream, InputStream, IOException> DEFAULT_CACHING_FUNCTION = (inputStream ->
-            new ByteArrayInputStream(IOUtils.toByteArray(inputStream)));
+    private final int rangedDownloadPartSize;
+    private final int rangedDownloadConcurrency;
 
     private InputStream wrappedInputStream = null;
 
+    S3BufferedInputStream(String s3Bucket, String s3Key, AmazonS3 amazonS3,
+                          ThrowingFunction<InputStream, InputStream, IOException> inputStreamCachingFunction) {
+        this(s3Bucket, s3Key, amazonS3, inputStreamCachingFunction, NO_RANGED_DOWNLOAD, NO_RANGED_DOWNLOAD);
+    }
+
     /**
      * Creates a new supplier for S3BufferedInputStream objects. This is the only way to create an S3BufferedInputStream.
      *
@@ -64,11 +73,17 @@ public class S3BufferedInputStream extends WrappedInputStream {
      */
     @Nonnull
     public static S3BufferedInputStreamSupplier supplierOf(@Nonnull String bucket, @Nonnull String key) {
-        return new S3BufferedInputStreamSupplier(bucket, key, null);
+        return new S3BufferedInputStreamSupplier(bucket, key, null, S3BufferingStrategy.HEAP, NO_RANGED_DOWNLOAD,
+                NO_RANGED_DOWNLOAD);
     }
 
     @Override
     protected InputStream getWrappedInputStream() throws IOException {
+        if (wrappedInputStream == null && rangedDownloadConcurrency > 0) {
+            wrappedInputStream = new S3RangedInputStream(s3Bucket, s3Key, amazonS3, rangedDownloadPartSize,
+                    rangedDownloadConcurrency);
+        }
+
         if (wrappedInputStream == null) {
             S3Object s3Object = amazonS3.getObject(s3Bucket, s3Key);
             wrappedInputStream = inputStreamCachingFunction.apply(s3Object.getObjectContent());
@@ -89,6 +104,9 @@ public class S3BufferedInputStream extends WrappedInputStream {
         private final String s3Bucket;
         private final String s3Key;
         private final AmazonS3 amazonS3;
+        private final S3BufferingStrategy bufferingStrategy;
+        private final int rangedDownloadPartSize;
+        private final int rangedDownloadConcurrency;
 
         /**
          * Creates a new provider based on the current one that is associated with a specific AmazonS3 client object.
@@ -98,7 +116,44 @@ public class S3BufferedInputStream extends WrappedInputStream {
          */
         @Nonnull
         public S3BufferedInputStreamSupplier withClient(@Nullable AmazonS3 amazonS3Client) {
-            return new S3BufferedInputStreamSupplier(s3Bucket, s3Key, amazonS3Client);
+            return new S3BufferedInputStreamSupplier(s3Bucket, s3Key, amazonS3Client, bufferingStrategy,
+                    rangedDownloadPartSize, rangedDownloadConcurrency);
+        }
+
+        /**
+         * Creates a new provider based on the current one that buffers the file in a different place while it is being
+         * read. This has no effect when the file is downloaded in parts with withParallelRangedDownload().
+         *
+         * @param bufferingStrategy Where to hold the contents of the file. The default is HEAP.
+         * @return A new S3BufferedInputStreamSupplier.
+         */
+        @Nonnull
+        public S3BufferedInputStreamSupplier withBufferingStrategy(@Nonnull S3BufferingStrategy bufferingStrategy) {
+            return new S3BufferedInputStreamSupplier(s3Bucket, s3Key, amazonS3, bufferingStrategy,
+                    rangedDownloadPartSize, rangedDownloadConcurrency);
+        }
+
+        /**
+         * Creates a new provider based on the current one that downloads the file in parts using parallel ranged
+         * requests instead of reading the entire file into memory before it can be used. Parts are returned in order as
+         * soon as they are available, and at most (concurrency + 1) parts are held in memory at any time.
+         *
+         * @param partSizeBytes The number of bytes to download in each request.
+         * @param concurrency The maximum number of parts to download at the same time.
+         * @return A new S3BufferedInputStreamSupplier.
+         */
+        @Nonnull
+        public S3BufferedInputStreamSupplier withParallelRangedDownload(int partSizeBytes, int concurrency) {
+            if (partSizeBytes < 1) {
+                throw new IllegalArgumentException("Part size must be at least 1");
+            }
+
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be at least 1");
+            }
+
+            return new S3BufferedInputStreamSupplier(s3Bucket, s3Key, amazonS3, bufferingStrategy, partSizeBytes,
+                    concurrency);
         }
 
         /**
@@ -111,7 +166,8 @@ public class S3BufferedInputStream extends WrappedInputStream {
         @Nonnull
         public S3BufferedInputStream get() {
             AmazonS3 s3Client = (amazonS3 == null) ? AmazonS3Client.builder().build() : amazonS3;
-            return new S3BufferedInputStream(s3Bucket, s3Key, s3Client, DEFAULT_CACHING_FUNCTION);
+            return new S3BufferedInputStream(s3Bucket, s3Key, s3Client, bufferingStrategy::buffer,
+                    rangedDownloadPartSize, rangedDownloadConcurrency);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazonaws.util.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Strategies for where S3BufferedInputStream holds the contents of an S3 object while it is being read. Every strategy
+ * reads the entire object from S3 before any of it is returned, so that the connection to S3 is not held open while
+ * the contents are being processed.
+ */
+public enum S3BufferingStrategy {
+    /**
+     * Holds the entire object in a byte array on the heap. Nothing is written to disk, which makes this suitable for
+     * sensitive data, but the heap must be large enough to hold the largest object that will be read. This is the
+     * default.
+     */
+    HEAP {
+        @Override
+        InputStream buffer(InputStream s3InputStream) throws IOException {
+            return new ByteArrayInputStream(IOUtils.toByteArray(s3InputStream));
+        }
+    },
+
+    /**
+     * Streams the object into a temporary file on local disk and reads it back through memory-mapped regions of that
+     * file, so heap usage stays constant regardless of the size of the object and the operating system decides how
+     * much of the file is kept in memory. The temporary file is deleted no later than when the stream is closed; on
+     * platforms that allow it the file is unlinked as soon as it has been opened for reading. The contents of the
+     * object are written to disk unencrypted, so do not use this strategy for sensitive data unless the local disk is
+     * itself encrypted.
+     */
+    MEMORY_MAPPED_TEMP_FILE {
+        @Override
+        InputStream buffer(InputStream s3InputStream) throws IOException {
+            Path tempFile = Files.createTempFile("pocket-etl-s3-", ".buffer");
+
+            try {
+                try (InputStream inputStream = s3InputStream) {
+                    Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                return new MappedFileInputStream(FileChannel.open(tempFile, StandardOpenOption.READ,
+                        StandardOpenOption.DELETE_ON_CLOSE));
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+    };
+
+    abstract InputStream buffer(InputStream s3InputStream) throws IOException;
+}
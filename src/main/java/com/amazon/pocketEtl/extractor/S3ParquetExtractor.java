@@ -0,0 +1,174 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Extractor;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileReader;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * An extractor implementation that reads a Parquet file in S3 using ranged GET requests, so that only the footer and
+ * the column chunks that are needed are downloaded. Only the columns that map to a property of the class being
+ * extracted (or are referred to by the filter) are read, and row groups whose statistics show that none of their rows
+ * can match the filter are never downloaded at all. See ParquetFileReader for how columns are mapped to properties.
+ *
+ * One row group of the projected columns is held in memory at a time, and nothing is written to disk.
+ *
+ * Example usage:
+ * EtlStream.extract(S3ParquetExtractor.supplierOf("myBucket", "orders.parquet", Order.class)
+ *                                     .withFilter(ParquetFilter.equalTo("marketplace", "US")));
+ *
+ * @param <T> The type of object being extracted.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class S3ParquetExtractor<T> implements Extractor<T> {
+    private final String s3Bucket;
+    private final String s3Key;
+    private final Class<T> classToExtract;
+    private final ParquetFilter filter;
+    private final AmazonS3 amazonS3;
+
+    private EtlMetrics parentMetrics = null;
+    private ParquetFileReader<T> parquetFileReader = null;
+
+    /**
+     * Creates a factory that can manufacture S3ParquetExtractor objects on demand with a specific configuration.
+     *
+     * @param s3Bucket the S3 bucket name to read the data from.
+     * @param s3Key the S3 key that identifies the Parquet file in S3.
+     * @param classToExtract the class the rows of the file are mapped to.
+     * @param <T> the type of object being extracted.
+     * @return An S3ParquetExtractorSupplier object that can be configured and create S3ParquetExtractor objects from.
+     */
+    public static <T> S3ParquetExtractorSupplier<T> supplierOf(@Nonnull String s3Bucket, @Nonnull String s3Key,
+                                                               @Nonnull Class<T> classToExtract) {
+        return new S3ParquetExtractorSupplier<>(s3Bucket, s3Key, classToExtract, null, null);
+    }
+
+    /**
+     * Reads the footer of the Parquet file.
+     * @param parentMetrics A parent EtlMetrics object to record all timers and counters into, will be null if
+     *                      profiling is not required.
+     * @throws UnrecoverableStreamFailureException If the footer could not be read.
+     */
+    @Override
+    public void open(@Nullable EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+        S3ParquetSource source = new S3ParquetSource(amazonS3, s3Bucket, s3Key, parentMetrics);
+
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3ParquetExtractor.open")) {
+            parquetFileReader = new ParquetFileReader<>(source, classToExtract, filter);
+        } catch (IOException | AmazonClientException e) {
+            throw new UnrecoverableStreamFailureException(e);
+        }
+    }
+
+    /**
+     * Attempts to extract the next object from the Parquet file.
+     * @return A newly extracted object or an empty optional if the end of the file has been reached.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     * detected and the stream needs to be aborted.
+     */
+    @Override
+    public Optional<T> next() throws UnrecoverableStreamFailureException {
+        if (parquetFileReader == null) {
+            throw new IllegalStateException("Attempt to call next() on an uninitialized stream");
+        }
+
+        try {
+            return parquetFileReader.hasNext() ? Optional.of(parquetFileReader.next()) : Optional.empty();
+        } catch (RuntimeException e) {
+            throw new UnrecoverableStreamFailureException(e);
+        }
+    }
+
+    /**
+     * Records how many row groups were skipped using the filter. There are no resources to free.
+     */
+    @Override
+    public void close() {
+        if (parquetFileReader != null) {
+            try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3ParquetExtractor.close")) {
+                scope.addCounter("S3ParquetExtractor.skippedRowGroups", parquetFileReader.getSkippedRowGroupCount());
+            }
+        }
+    }
+
+    /**
+     * A factory that supplies S3ParquetExtractor objects. Allows a pre-constructed AmazonS3 client object to be used,
+     * otherwise one will be built for you using the AWS default client builder.
+     *
+     * @param <T> The type of object being extracted.
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class S3ParquetExtractorSupplier<T> implements Supplier<S3ParquetExtractor<T>> {
+        private final String s3Bucket;
+        private final String s3Key;
+        private final Class<T> classToExtract;
+        private final ParquetFilter filter;
+        private final AmazonS3 amazonS3;
+
+        /**
+         * Creates a new supplier based on the current one that is associated with a specific AmazonS3 client object.
+         *
+         * @param amazonS3Client An AmazonS3 client object or null to use the default client.
+         * @return A new S3ParquetExtractorSupplier.
+         */
+        @Nonnull
+        public S3ParquetExtractorSupplier<T> withClient(@Nullable AmazonS3 amazonS3Client) {
+            return new S3ParquetExtractorSupplier<>(s3Bucket, s3Key, classToExtract, filter, amazonS3Client);
+        }
+
+        /**
+         * Creates a new supplier based on the current one that only extracts the rows that match a filter, and does not
+         * download the row groups that cannot contain any.
+         *
+         * @param filter The filter rows must match to be extracted, or null to extract every row.
+         * @return A new S3ParquetExtractorSupplier.
+         */
+        @Nonnull
+        public S3ParquetExtractorSupplier<T> withFilter(@Nullable ParquetFilter filter) {
+            return new S3ParquetExtractorSupplier<>(s3Bucket, s3Key, classToExtract, filter, amazonS3);
+        }
+
+        /**
+         * Get a constructed instance of an S3ParquetExtractor initialized with the parameters stored on the supplier
+         * object.
+         *
+         * @return an initialized instance of an S3ParquetExtractor.
+         */
+        @Override
+        public S3ParquetExtractor<T> get() {
+            AmazonS3 s3Client = (amazonS3 == null) ? AmazonS3Client.builder().build() : amazonS3;
+            return new S3ParquetExtractor<>(s3Bucket, s3Key, classToExtract, filter, s3Client);
+        }
+    }
+}
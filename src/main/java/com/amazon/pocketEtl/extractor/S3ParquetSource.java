@@ -0,0 +1,72 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.integration.parquet.ParquetSource;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * ParquetSource implementation that reads the parts of a Parquet file in S3 that are needed with ranged GET requests.
+ * Every range is requested with the ETag of the file when its length was first read, so a file that is overwritten in
+ * S3 while it is being read will cause an IOException rather than a mix of old and new contents.
+ */
+@RequiredArgsConstructor
+class S3ParquetSource implements ParquetSource {
+    private final AmazonS3 amazonS3;
+    private final String s3Bucket;
+    private final String s3Key;
+    @Nullable
+    private final EtlMetrics parentMetrics;
+
+    private String eTag = null;
+    private long length = -1;
+
+    @Override
+    public long getLength() {
+        if (length < 0) {
+            try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics,
+                    "S3ParquetExtractor.getObjectMetadata")) {
+                ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(s3Bucket, s3Key);
+                eTag = objectMetadata.getETag();
+                length = objectMetadata.getContentLength();
+            }
+        }
+
+        return length;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3ParquetExtractor.getObjectRange")) {
+            S3RangedInputStream.readRange(amazonS3, s3Bucket, s3Key, eTag, position, buffer, offset, length);
+
+            if (scope.getMetrics() != null) {
+                scope.getMetrics().addCount("S3ParquetExtractor.bytesRead", length);
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Extractor;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * An extractor implementation that reads every object in S3 under a given prefix, such as the part files written by
+ * S3FastLoader, as a single stream of extracted objects.
+ *
+ * The objects under the prefix are listed a page at a time as they are needed, and are downloaded in parallel by a
+ * bounded pool of threads. A bounded number of objects are downloaded ahead of the one currently being extracted from,
+ * and each downloaded object is buffered according to an S3BufferingStrategy before it is mapped into extracted objects
+ * by the InputStreamMapper. By default objects are extracted from in the order S3 lists them (lexicographic key order);
+ * if order does not matter then objects can instead be extracted from as soon as they have been downloaded.
+ *
+ * Example usage:
+ * EtlStream.extract(S3PrefixExtractor.supplierOf("myBucket", "output/2018-01-01/", CsvInputStreamMapper.of(My.class))
+ *                                    .withParallelism(8));
+ *
+ * @param <T> The type of object being extracted.
+ */
+public class S3PrefixExtractor<T> implements Extractor<T> {
+    private final static Logger logger = getLogger(S3PrefixExtractor.class);
+    private final static int DEFAULT_PARALLELISM = 4;
+    private final static int DEFAULT_PREFETCH = 8;
+
+    private final String s3Bucket;
+    private final String s3Prefix;
+    private final InputStreamMapper<T> inputStreamMapper;
+    private final AmazonS3 amazonS3;
+    private final int parallelism;
+    private final int prefetch;
+    private final boolean ordered;
+    private final S3BufferingStrategy bufferingStrategy;
+    private final Deque<Future<DownloadedObject>> pendingDownloads = new ArrayDeque<>();
+    private final BlockingQueue<Future<DownloadedObject>> completedDownloads = new LinkedBlockingQueue<>();
+
+    private ExecutorService executorService = null;
+    private CompletionService<DownloadedObject> completionService = null;
+    private EtlMetrics parentMetrics = null;
+    private Iterator<S3ObjectSummary> listedObjects = null;
+    private String continuationToken = null;
+    private boolean listingComplete = false;
+    private InputStream currentInputStream = null;
+    private Iterator<T> currentIterator = null;
+    private long currentObjectRecords = 0;
+    private boolean isClosed = false;
+
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class DownloadedObject {
+        private final String s3Key;
+        private final InputStream inputStream;
+    }
+
+    /**
+     * Creates a factory that can manufacture S3PrefixExtractor objects on demand with a specific configuration.
+     *
+     * @param s3Bucket the S3 bucket name to read the data from.
+     * @param s3Prefix the prefix that all the keys of the S3 objects to be read from start with.
+     * @param inputStreamMapper an InputStreamMapper object which will be used to read and deserialize the data in
+     *                          each S3 object into extracted java objects.
+     * @param <T> the type of object being extracted.
+     * @return An S3PrefixExtractorSupplier object that can be configured and create S3PrefixExtractor objects from.
+     */
+    public static <T> S3PrefixExtractorSupplier<T> supplierOf(@Nonnull String s3Bucket, @Nonnull String s3Prefix,
+                                                              @Nonnull InputStreamMapper<T> inputStreamMapper) {
+        return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, null, DEFAULT_PARALLELISM,
+                DEFAULT_PREFETCH, true, S3BufferingStrategy.HEAP);
+    }
+
+    S3PrefixExtractor(String s3Bucket, String s3Prefix, InputStreamMapper<T> inputStreamMapper, AmazonS3 amazonS3,
+                      int parallelism, int prefetch, boolean ordered, S3BufferingStrategy bufferingStrategy) {
+        this.s3Bucket = s3Bucket;
+        this.s3Prefix = s3Prefix;
+        this.inputStreamMapper = inputStreamMapper;
+        this.amazonS3 = amazonS3;
+        this.parallelism = parallelism;
+        this.prefetch = prefetch;
+        this.ordered = ordered;
+        this.bufferingStrategy = bufferingStrategy;
+    }
+
+    /**
+     * Starts listing and downloading the objects under the prefix.
+     * @param parentMetrics A parent EtlMetrics object to record all timers and counters into, will be null if
+     *                      profiling is not required.
+     */
+    @Override
+    public void open(@Nullable EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+        executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "S3PrefixExtractor-" + s3Bucket + "/" + s3Prefix);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Only unordered extraction takes downloads in the order they complete. In ordered mode nothing would ever
+        // take them from the completion queue, which would keep every downloaded object reachable until closed.
+        if (!ordered) {
+            completionService = new ExecutorCompletionService<>(executorService, completedDownloads);
+        }
+
+        scheduleDownloads();
+    }
+
+    /**
+     * Attempts to extract the next object, moving on to the next downloaded S3 object when the current one has been
+     * exhausted.
+     * @return A newly extracted object or an empty optional if every S3 object under the prefix has been read.
+     * @throws UnrecoverableStreamFailureException An unrecoverable problem that affects the entire stream has been
+     * detected and the stream needs to be aborted.
+     */
+    @Override
+    public Optional<T> next() throws UnrecoverableStreamFailureException {
+        if (isClosed || executorService == null) {
+            throw new IllegalStateException("Attempt to call next() on an extractor that is not open");
+        }
+
+        try {
+            while (currentIterator == null || !currentIterator.hasNext()) {
+                finishCurrentObject();
+                scheduleDownloads();
+
+                Future<DownloadedObject> nextDownload = takeNextDownload();
+
+                if (nextDownload == null) {
+                    return Optional.empty();
+                }
+
+                startObject(waitForDownload(nextDownload));
+                scheduleDownloads();
+            }
+
+            currentObjectRecords++;
+            return Optional.of(currentIterator.next());
+        } catch (UnrecoverableStreamFailureException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new UnrecoverableStreamFailureException(e);
+        }
+    }
+
+    /**
+     * Stops any downloads that are still in progress and frees up the resources used by objects that have been
+     * downloaded but not extracted from.
+     * @throws Exception If something goes wrong.
+     */
+    @Override
+    public void close() throws Exception {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+
+        closeQuietly(currentInputStream);
+        pendingDownloads.forEach(download -> {
+            if (!download.cancel(true)) {
+                try {
+                    closeQuietly(download.get().inputStream);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ignored) {
+                    // The download failed so there is nothing to close
+                }
+            }
+        });
+        pendingDownloads.clear();
+        completedDownloads.clear();
+    }
+
+    int getCompletedDownloadsQueued() {
+        return completedDownloads.size();
+    }
+
+    private void scheduleDownloads() {
+        while (pendingDownloads.size() < prefetch) {
+            String s3Key = nextKey();
+
+            if (s3Key == null) {
+                return;
+            }
+
+            Callable<DownloadedObject> download = () -> download(s3Key);
+            pendingDownloads.add(ordered ? executorService.submit(download) : completionService.submit(download));
+        }
+    }
+
+    // Lists objects a page at a time, only requesting the next page once the previous one has been scheduled
+    private String nextKey() {
+        while (true) {
+            while (listedObjects != null && listedObjects.hasNext()) {
+                S3ObjectSummary objectSummary = listedObjects.next();
+
+                // Skip the empty placeholder objects that the S3 console creates for 'folders'
+                if (!(objectSummary.getKey().endsWith("/") && objectSummary.getSize() == 0)) {
+                    return objectSummary.getKey();
+                }
+            }
+
+            if (listingComplete) {
+                return null;
+            }
+
+            try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3PrefixExtractor.listObjects")) {
+                ListObjectsV2Result listObjectsResult = amazonS3.listObjectsV2(new ListObjectsV2Request()
+                        .withBucketName(s3Bucket)
+                        .withPrefix(s3Prefix)
+                        .withContinuationToken(continuationToken));
+
+                listedObjects = listObjectsResult.getObjectSummaries().iterator();
+                continuationToken = listObjectsResult.getNextContinuationToken();
+                listingComplete = !listObjectsResult.isTruncated();
+            }
+        }
+    }
+
+    private DownloadedObject download(String s3Key) throws IOException {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3PrefixExtractor.getObject")) {
+            S3Object s3Object = amazonS3.getObject(s3Bucket, s3Key);
+
+            if (scope.getMetrics() != null) {
+                scope.getMetrics().addCount("S3PrefixExtractor.objectBytes",
+                        s3Object.getObjectMetadata().getContentLength());
+            }
+
+            return new DownloadedObject(s3Key, bufferingStrategy.buffer(s3Object.getObjectContent()));
+        }
+    }
+
+    private Future<DownloadedObject> takeNextDownload() {
+        if (pendingDownloads.isEmpty()) {
+            return null;
+        }
+
+        if (ordered) {
+            return pendingDownloads.poll();
+        }
+
+        try {
+            Future<DownloadedObject> completedDownload = completionService.take();
+            pendingDownloads.remove(completedDownload);
+
+            return completedDownload;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException(e);
+        }
+    }
+
+    private DownloadedObject waitForDownload(Future<DownloadedObject> download) {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException(e);
+        } catch (ExecutionException e) {
+            logger.error("Failed to read S3 object under " + s3Bucket + "/" + s3Prefix, e.getCause());
+            throw new UnrecoverableStreamFailureException(e.getCause());
+        }
+    }
+
+    private void startObject(DownloadedObject downloadedObject) {
+        logger.debug("Extracting from S3 object " + s3Bucket + "/" + downloadedObject.s3Key);
+        currentInputStream = downloadedObject.inputStream;
+        currentIterator = inputStreamMapper.apply(currentInputStream);
+        currentObjectRecords = 0;
+    }
+
+    private void finishCurrentObject() {
+        if (currentInputStream == null) {
+            return;
+        }
+
+        closeQuietly(currentInputStream);
+
+        if (parentMetrics != null) {
+            parentMetrics.addCount("S3PrefixExtractor.objectsExtracted", 1);
+            parentMetrics.addCount("S3PrefixExtractor.recordsPerObject", currentObjectRecords);
+        }
+
+        currentInputStream = null;
+        currentIterator = null;
+    }
+
+    private static void closeQuietly(@Nullable InputStream inputStream) {
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close buffered S3 object", e);
+            }
+        }
+    }
+
+    /**
+     * A factory that supplies S3PrefixExtractor objects. Allows a pre-constructed AmazonS3 client object to be used,
+     * otherwise one will be built for you using the AWS default client builder.
+     *
+     * @param <T> The type of object being extracted.
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class S3PrefixExtractorSupplier<T> implements Supplier<S3PrefixExtractor<T>> {
+        private final String s3Bucket;
+        private final String s3Prefix;
+        private final InputStreamMapper<T> inputStreamMapper;
+        private final AmazonS3 amazonS3;
+        private final int parallelism;
+        private final int prefetch;
+        private final boolean ordered;
+        private final S3BufferingStrategy bufferingStrategy;
+
+        /**
+         * Creates a new provider based on the current one that is associated with a specific AmazonS3 client object.
+         *
+         * @param amazonS3Client An AmazonS3 client object or null to use the default client.
+         * @return A new S3PrefixExtractorSupplier.
+         */
+        @Nonnull
+        public S3PrefixExtractorSupplier<T> withClient(@Nullable AmazonS3 amazonS3Client) {
+            return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, amazonS3Client, parallelism,
+                    prefetch, ordered, bufferingStrategy);
+        }
+
+        /**
+         * Creates a new provider based on the current one that downloads a different number of S3 objects at the
+         * same time.
+         *
+         * @param parallelism The number of threads used to download S3 objects. The default is 4.
+         * @return A new S3PrefixExtractorSupplier.
+         */
+        @Nonnull
+        public S3PrefixExtractorSupplier<T> withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1");
+            }
+
+            return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, amazonS3, parallelism,
+                    prefetch, ordered, bufferingStrategy);
+        }
+
+        /**
+         * Creates a new provider based on the current one that downloads a different number of S3 objects ahead of
+         * the one currently being extracted from. Every object that has been downloaded ahead is held in its buffer
+         * until it is extracted from, so this bounds the memory or disk used by the extractor.
+         *
+         * @param prefetch The maximum number of S3 objects that are being downloaded or waiting to be extracted from at
+         *                 any time. The default is 8.
+         * @return A new S3PrefixExtractorSupplier.
+         */
+        @Nonnull
+        public S3PrefixExtractorSupplier<T> withPrefetch(int prefetch) {
+            if (prefetch < 1) {
+                throw new IllegalArgumentException("Prefetch must be at least 1");
+            }
+
+            return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, amazonS3, parallelism,
+                    prefetch, ordered, bufferingStrategy);
+        }
+
+        /**
+         * Creates a new provider based on the current one that extracts from S3 objects in a different order.
+         *
+         * @param ordered If true, objects are extracted from in the order they are listed by S3, which is the order of
+         *                their keys. If false, objects are extracted from in the order their downloads complete, so a
+         *                slow download does not hold up objects behind it. The default is true.
+         * @return A new S3PrefixExtractorSupplier.
+         */
+        @Nonnull
+        public S3PrefixExtractorSupplier<T> withOrdered(boolean ordered) {
+            return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, amazonS3, parallelism,
+                    prefetch, ordered, bufferingStrategy);
+        }
+
+        /**
+         * Creates a new provider based on the current one that buffers each downloaded S3 object in a different place.
+         *
+         * @param bufferingStrategy Where to hold the contents of each S3 object. The default is HEAP.
+         * @return A new S3PrefixExtractorSupplier.
+         */
+        @Nonnull
+        public S3PrefixExtractorSupplier<T> withBufferingStrategy(@Nonnull S3BufferingStrategy bufferingStrategy) {
+            return new S3PrefixExtractorSupplier<>(s3Bucket, s3Prefix, inputStreamMapper, amazonS3, parallelism,
+                    prefetch, ordered, bufferingStrategy);
+        }
+
+        /**
+         * Get a constructed instance of an S3PrefixExtractor initialized with the parameters stored on the supplier
+         * object.
+         *
+         * @return an initialized instance of an S3PrefixExtractor.
+         */
+        @Override
+        public S3PrefixExtractor<T> get() {
+            AmazonS3 s3Client = (amazonS3 == null) ? AmazonS3Client.builder().build() : amazonS3;
+            return new S3PrefixExtractor<>(s3Bucket, s3Prefix, inputStreamMapper, s3Client, parallelism, prefetch,
+                    ordered, bufferingStrategy);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import lombok.AllArgsConstructor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * InputStream implementation that reads a file in S3 by downloading it in fixed size parts using parallel ranged GET
+ * requests. The parts are returned in order, and reading can begin as soon as the first part has been downloaded while
+ * the following parts are still being downloaded in the background.
+ * * Each part is read completely into memory before it is returned, so no connection to S3 is held open while the
+ *   contents of the file are being processed, and nothing is written to disk.
+ * * At most 'concurrency' parts are being downloaded or waiting to be read at any time, so the memory used is bounded
+ *   by (concurrency + 1) * partSize regardless of the size of the file. Part buffers are reused once they have been
+ *   read.
+ * * Every part is requested with the ETag of the file when it was first read, so a file that is overwritten in S3
+ *   while it is being read will cause an IOException rather than a mix of old and new contents.
+ * * Mark and reset are not supported by this implementation.
+ */
+class S3RangedInputStream extends InputStream {
+    private final String s3Bucket;
+    private final String s3Key;
+    private final AmazonS3 amazonS3;
+    private final int partSize;
+    private final int concurrency;
+    private final Deque<Future<Part>> pendingParts;
+    private final Deque<byte[]> freeBuffers;
+
+    private ExecutorService executorService = null;
+    private String eTag = null;
+    private long objectLength = -1;
+    private long nextPartStart = 0;
+    private Part currentPart = null;
+    private boolean closed = false;
+
+    @AllArgsConstructor
+    private static class Part {
+        private final byte[] buffer;
+        private final int length;
+        private int position;
+
+        private int remaining() {
+            return length - position;
+        }
+    }
+
+    /**
+     * Standard constructor.
+     * @param s3Bucket S3 bucket name.
+     * @param s3Key S3 object key.
+     * @param amazonS3 S3 client to download the object with.
+     * @param partSize The number of bytes to request in each ranged GET.
+     * @param concurrency The maximum number of parts to download at the same time.
+     */
+    S3RangedInputStream(String s3Bucket, String s3Key, AmazonS3 amazonS3, int partSize, int concurrency) {
+        if (partSize < 1) {
+            throw new IllegalArgumentException("Part size must be at least 1");
+        }
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+
+        this.s3Bucket = s3Bucket;
+        this.s3Key = s3Key;
+        this.amazonS3 = amazonS3;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.pendingParts = new ArrayDeque<>(concurrency);
+        this.freeBuffers = new ArrayDeque<>(concurrency + 1);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] singleByte = new byte[1];
+        return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!advanceToReadablePart()) {
+            return -1;
+        }
+
+        int bytesToCopy = Math.min(len, currentPart.remaining());
+        System.arraycopy(currentPart.buffer, currentPart.position, b, off, bytesToCopy);
+        currentPart.position += bytesToCopy;
+
+        return bytesToCopy;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+
+        while (skipped < n && advanceToReadablePart()) {
+            int bytesToSkip = (int) Math.min(n - skipped, currentPart.remaining());
+            currentPart.position += bytesToSkip;
+            skipped += bytesToSkip;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return currentPart == null ? 0 : currentPart.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        pendingParts.forEach(part -> part.cancel(true));
+        pendingParts.clear();
+        currentPart = null;
+        freeBuffers.clear();
+
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    // Returns false once the end of the object has been reached
+    private boolean advanceToReadablePart() throws IOException {
+        ensureOpen();
+
+        if (objectLength < 0) {
+            startDownload();
+        }
+
+        while (currentPart == null || currentPart.remaining() == 0) {
+            if (currentPart != null) {
+                freeBuffers.push(currentPart.buffer);
+                currentPart = null;
+            }
+
+            Future<Part> nextPart = pendingParts.poll();
+
+            if (nextPart == null) {
+                executorService.shutdown();
+                return false;
+            }
+
+            currentPart = waitForPart(nextPart);
+            schedulePartDownloads();
+        }
+
+        return true;
+    }
+
+    private void startDownload() {
+        ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(s3Bucket, s3Key);
+        eTag = objectMetadata.getETag();
+        objectLength = objectMetadata.getContentLength();
+        executorService = Executors.newFixedThreadPool(concurrency, runnable -> {
+            // Daemon threads so that a stream that is abandoned without being closed cannot keep the JVM alive
+            Thread thread = new Thread(runnable, "S3RangedInputStream-" + s3Bucket + "/" + s3Key);
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedulePartDownloads();
+    }
+
+    private void schedulePartDownloads() {
+        while (pendingParts.size() < concurrency && nextPartStart < objectLength) {
+            long partStart = nextPartStart;
+            long partEnd = Math.min(partStart + partSize, objectLength) - 1;
+            byte[] buffer = freeBuffers.isEmpty() ? new byte[(int) (partEnd - partStart + 1)] : freeBuffers.pop();
+
+            nextPartStart = partEnd + 1;
+            pendingParts.add(executorService.submit(() -> downloadPart(partStart, partEnd, buffer)));
+        }
+    }
+
+    private Part downloadPart(long partStart, long partEnd, byte[] buffer) throws IOException {
+        int length = (int) (partEnd - partStart + 1);
+        readRange(amazonS3, s3Bucket, s3Key, eTag, partStart, buffer, 0, length);
+        return new Part(buffer, length, 0);
+    }
+
+    /**
+     * Reads a range of a file in S3 into a buffer with a single ranged GET request.
+     * @param amazonS3 S3 client to download the range with.
+     * @param s3Bucket S3 bucket name.
+     * @param s3Key S3 object key.
+     * @param eTag The ETag the object must still have, or null to read whatever version is current.
+     * @param position The position in the object of the first byte to read.
+     * @param buffer Where the bytes are written.
+     * @param offset The position in the buffer to write the first byte.
+     * @param length The number of bytes to read, which must be at least one.
+     * @throws IOException If the object has been modified, ends before the range does, or could not be read.
+     */
+    static void readRange(AmazonS3 amazonS3, String s3Bucket, String s3Key, @Nullable String eTag, long position,
+                          byte[] buffer, int offset, int length) throws IOException {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(s3Bucket, s3Key)
+                .withRange(position, position + length - 1);
+
+        if (eTag != null) {
+            getObjectRequest = getObjectRequest.withMatchingETagConstraint(eTag);
+        }
+
+        try (S3Object s3Object = amazonS3.getObject(getObjectRequest)) {
+            if (s3Object == null) {
+                throw new IOException("S3 object " + s3Bucket + "/" + s3Key + " was modified while it was being read");
+            }
+
+            try (InputStream rangeInputStream = s3Object.getObjectContent()) {
+                int bytesRead = 0;
+
+                while (bytesRead < length) {
+                    int result = rangeInputStream.read(buffer, offset + bytesRead, length - bytesRead);
+
+                    if (result == -1) {
+                        throw new IOException("Unexpected end of S3 object " + s3Bucket + "/" + s3Key + " at byte "
+                                + (position + bytesRead));
+                    }
+
+                    bytesRead += result;
+                }
+            }
+        }
+    }
+
+    private Part waitForPart(Future<Part> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while waiting for part of S3 object to download");
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+}
@@ -17,15 +17,20 @@ package com.amazon.pocketEtl.extractor;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 
 import org.apache.logging.log4j.Logger;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.Query;
 import org.skife.jdbi.v2.ResultIterator;
 
 import com.amazon.pocketEtl.EtlMetrics;
@@ -46,6 +51,9 @@ import lombok.RequiredArgsConstructor;
  * "SELECT columnOne FROM myTable WHERE someAttribute = #matchParameter"
  * <p>
  * For the parameter map you should pass in a map that associates a value to "matchParameter".
+ * <p>
+ * For queries with very large results, use withStreaming() so that the JDBC driver does not read the entire result set
+ * into memory before the first object is extracted.
  *
  * @param <T> Type of object that is extracted from the datasource.
  */
@@ -53,28 +61,63 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class SqlExtractor<T> implements Extractor<T> {
     private final static Logger logger = getLogger(SqlExtractor.class);
+    private final static int DEFAULT_STREAMING_FETCH_SIZE = 1000;
 
     private final String extractSql;
     private final Class<T> extractClass;
     private final DataSource dataSource;
     private final Map<String, ?> extractSqlParameters;
     private final BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper;
+    private final Integer fetchSize;
+    private final boolean streaming;
 
     private boolean isClosed = false;
     private Handle handle = null;
+    private boolean isInTransaction = false;
     private ResultIterator<T> resultIterator = null;
     private EtlMetrics parentMetrics = null;
 
     public static <T> SqlExtractor<T> of(DataSource dataSource, String extractSql, Class<T> extractClass) {
-        return new SqlExtractor<>(extractSql, extractClass, dataSource, null, null);
+        return new SqlExtractor<>(extractSql, extractClass, dataSource, null, null, null, false);
     }
 
     public SqlExtractor<T> withSqlParameters(Map<String, ?> extractSqlParameters) {
-        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper);
+        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper,
+                fetchSize, streaming);
     }
 
     public SqlExtractor<T> withUnknownPropertyMapper(BiConsumer<T, Map.Entry<String, String>> unknownPropertyMapper) {
-        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper);
+        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper,
+                fetchSize, streaming);
+    }
+
+    /**
+     * Hint to the JDBC driver how many rows to fetch from the database at a time. Some drivers, such as PostgreSQL,
+     * ignore the fetch size and read the entire result set unless streaming is also turned on.
+     * @param fetchSize Number of rows to fetch at a time.
+     * @return A copy of this object with this property changed.
+     */
+    public SqlExtractor<T> withFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be at least 1");
+        }
+
+        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper,
+                fetchSize, streaming);
+    }
+
+    /**
+     * Stream the results of the query from the database as they are extracted instead of letting the JDBC driver read
+     * the entire result set into memory before the first object is extracted. The query is run in a transaction with
+     * autocommit turned off, which PostgreSQL and Redshift require to fetch rows through a cursor, and rows are fetched
+     * the fetch size (or 1000) at a time. MySQL and MariaDB are instead told to stream rows one at a time, unless
+     * the connection uses server side cursors with useCursorFetch=true. The transaction is rolled back when the
+     * extractor is closed.
+     * @return A copy of this object with this property changed.
+     */
+    public SqlExtractor<T> withStreaming() {
+        return new SqlExtractor<>(extractSql, extractClass, dataSource, extractSqlParameters, unknownPropertyMapper,
+                fetchSize, true);
     }
 
     @Override
@@ -84,11 +127,59 @@ public class SqlExtractor<T> implements Extractor<T> {
         handle = dbi.open();
 
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "SqlExtractor.executeQuery")) {
-            resultIterator = handle.createQuery(extractSql)
+            Query<T> query = handle.createQuery(extractSql)
                     .bindFromMap(extractSqlParameters)
-                    .mapTo(extractClass)
-                    .iterator();
+                    .mapTo(extractClass);
+
+            if (streaming) {
+                handle.begin();
+                isInTransaction = true;
+                query = query.setFetchSize(getStreamingFetchSize());
+            } else if (fetchSize != null) {
+                query = query.setFetchSize(fetchSize);
+            }
+
+            resultIterator = query.iterator();
+        }
+    }
+
+    private int getStreamingFetchSize() {
+        String productName;
+        String driverName;
+        String url;
+
+        try {
+            DatabaseMetaData metaData = handle.getConnection().getMetaData();
+            productName = metaData.getDatabaseProductName();
+            driverName = metaData.getDriverName();
+            url = metaData.getURL();
+        } catch (SQLException e) {
+            throw new UnrecoverableStreamFailureException(e);
+        }
+
+        // MySQL ignores positive fetch sizes unless it has been configured to use server side cursors
+        if (isMySql(productName, driverName) && !usesCursorFetch(url)) {
+            return Integer.MIN_VALUE;
         }
+
+        return fetchSize != null ? fetchSize : DEFAULT_STREAMING_FETCH_SIZE;
+    }
+
+    // MariaDB speaks the MySQL protocol and may be reached through either a MySQL or a MariaDB driver, whatever the
+    // URL scheme of the connection looks like
+    private static boolean isMySql(@Nullable String productName, @Nullable String driverName) {
+        return "MySQL".equalsIgnoreCase(productName)
+                || "MariaDB".equalsIgnoreCase(productName)
+                || containsIgnoreCase(driverName, "MySQL")
+                || containsIgnoreCase(driverName, "MariaDB");
+    }
+
+    private static boolean usesCursorFetch(@Nullable String url) {
+        return containsIgnoreCase(url, "useCursorFetch=true");
+    }
+
+    private static boolean containsIgnoreCase(@Nullable String value, String searchString) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(searchString.toLowerCase(Locale.ROOT));
     }
 
     /**
@@ -147,13 +238,29 @@ public class SqlExtractor<T> implements Extractor<T> {
         isClosed = true;
 
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "SqlExtractor.close")) {
-            if (resultIterator != null) {
-                resultIterator.close();
+            try {
+                if (resultIterator != null) {
+                    resultIterator.close();
+                }
+            } finally {
+                if (handle != null) {
+                    closeHandle();
+                }
             }
+        }
+    }
 
-            if (handle != null) {
-                handle.close();
+    private void closeHandle() {
+        try {
+            // The query did not change anything, but the transaction it streamed in has to be ended
+            if (isInTransaction) {
+                handle.rollback();
             }
+        } catch (RuntimeException e) {
+            // Closing the connection ends the transaction anyway, so a failed rollback must not stop it being closed
+            logger.warn("Failed to roll back the transaction of the extract query", e);
+        } finally {
+            handle.close();
         }
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import com.amazon.pocketEtl.exception.DependencyException;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -43,6 +44,7 @@ public class RedshiftJdbcClient {
     private static final String S3_SOURCE_URL_TOKEN = "$s3_source_url";
     private static final String IAM_ROLE_TOKEN = "$iam_role";
     private static final String AWS_S3_REGION_TOKEN = "$aws_s3_region";
+    private static final String COMPRESSION_TOKEN = "$compression";
 
     private static final String DROP_TABLE_IF_EXISTS_SQL =
             "drop table if exists " + STAGE_TABLE_NAME_TOKEN;
@@ -59,7 +61,14 @@ public class RedshiftJdbcClient {
                     "from '" + S3_SOURCE_URL_TOKEN + "' " +
                     "iam_role '" + IAM_ROLE_TOKEN + "' " +
                     "region '" + AWS_S3_REGION_TOKEN + "' " +
-                    "removequotes";
+                    "removequotes" + COMPRESSION_TOKEN;
+
+    // Redshift only copies columnar files from a bucket in its own region, so no region is given
+    private static final String COPY_PARQUET_SQL =
+            "copy " + STAGE_TABLE_NAME_TOKEN + "(" + COLUMN_LIST_TOKEN + ") " +
+                    "from '" + S3_SOURCE_URL_TOKEN + "' " +
+                    "iam_role '" + IAM_ROLE_TOKEN + "' " +
+                    "format as parquet";
 
     private static final String DELETE_FROM_TABLE_USING_TEMPORARY_TABLE =
             "delete from " + DESTINATION_TABLE_NAME_TOKEN + " " +
@@ -102,6 +111,29 @@ public class RedshiftJdbcClient {
      */
     public void copyAndMerge(List<String> fileColumnNames, List<String> keyColumnNames, String destinationTableName, String sourceS3bucket,
                              String sourceS3prefix, String sourceS3region, String iamRoleToAssume, EtlMetrics parentMetrics) {
+        copyAndMerge(fileColumnNames, keyColumnNames, destinationTableName, sourceS3bucket, sourceS3prefix,
+                sourceS3region, iamRoleToAssume, RedshiftCopyFormat.DELIMITED, null, parentMetrics);
+    }
+
+    /**
+     * Loads data from S3 files of a given format into a staging table, then deletes and inserts all the records into a
+     * destination table.
+     *
+     * @param fileColumnNames      List of column names to map the data onto (in the order they are found in the file)
+     * @param keyColumnNames       List of key column names to uniquely identify records from this dataset
+     * @param destinationTableName The table name of the final destination table
+     * @param sourceS3bucket       S3 Bucket where the data to loader can be found
+     * @param sourceS3prefix       Key prefix to locate al the files in S3 to loader
+     * @param sourceS3region       S3 region where the bucket is hosted
+     * @param iamRoleToAssume      IAM role assumed by Redshift to read the data from S3
+     * @param copyFormat           The format of the files
+     * @param compression          The COPY option that identifies how delimited files are compressed (eg: 'gzip'), or
+     *                             null if they are not compressed. Ignored for Parquet files.
+     * @param parentMetrics        Parent metrics object to log timers and counters into
+     */
+    public void copyAndMerge(List<String> fileColumnNames, List<String> keyColumnNames, String destinationTableName, String sourceS3bucket,
+                             String sourceS3prefix, String sourceS3region, String iamRoleToAssume,
+                             RedshiftCopyFormat copyFormat, @Nullable String compression, EtlMetrics parentMetrics) {
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "RedshiftJdbcClient.copyAndMerge")) {
             String s3Url = String.format("s3://%s/%s/", sourceS3bucket, sourceS3prefix);
             String stageTableName = generateStageTableName();
@@ -117,7 +149,8 @@ public class RedshiftJdbcClient {
                 dropTableIfExists(connection, stageTableName);
                 createTemporaryTableLikeExistingTable(connection, stageTableName, destinationTableName);
 
-                copyFromS3ToRedshiftTable(connection, fileColumnNames, stageTableName, s3Url, iamRoleToAssume, sourceS3region);
+                copyFromS3ToRedshiftTable(connection, fileColumnNames, stageTableName, s3Url, iamRoleToAssume, sourceS3region,
+                                          copyFormat, compression);
 
                 connection.setAutoCommit(false);
 
@@ -161,6 +194,28 @@ public class RedshiftJdbcClient {
      */
     public void deleteAndCopy(List<String> fileColumnNames, String destinationTableName, String sourceS3bucket, String sourceS3prefix,
                               String sourceS3region, String iamRoleToAssume, EtlMetrics parentMetrics) {
+        deleteAndCopy(fileColumnNames, destinationTableName, sourceS3bucket, sourceS3prefix, sourceS3region,
+                iamRoleToAssume, RedshiftCopyFormat.DELIMITED, null, parentMetrics);
+    }
+
+    /**
+     * Deletes all the rows of destination table and then loads data from S3 files of a given format into destination
+     * table.
+     *
+     * @param fileColumnNames      List of column names to map the data onto (in the order they are found in the file)
+     * @param destinationTableName The table name of the final destination table
+     * @param sourceS3bucket       S3 Bucket where the data to loader can be found
+     * @param sourceS3prefix       Key prefix to locate al the files in S3 to loader
+     * @param sourceS3region       S3 region where the bucket is hosted
+     * @param iamRoleToAssume      IAM role assumed by Redshift to read the data from S3
+     * @param copyFormat           The format of the files
+     * @param compression          The COPY option that identifies how delimited files are compressed (eg: 'gzip'), or
+     *                             null if they are not compressed. Ignored for Parquet files.
+     * @param parentMetrics        Parent metrics object to log timers and counters into
+     */
+    public void deleteAndCopy(List<String> fileColumnNames, String destinationTableName, String sourceS3bucket, String sourceS3prefix,
+                              String sourceS3region, String iamRoleToAssume, RedshiftCopyFormat copyFormat,
+                              @Nullable String compression, EtlMetrics parentMetrics) {
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "RedshiftJdbcClient.deleteAndCopy")) {
             String s3Url = String.format("s3://%s/%s/", sourceS3bucket, sourceS3prefix);
             Connection connection = null;
@@ -175,7 +230,8 @@ public class RedshiftJdbcClient {
                 connection.setAutoCommit(false);
 
                 deleteAllRowsFromDestinationTable(connection, destinationTableName);
-                copyFromS3ToRedshiftTable(connection, fileColumnNames, destinationTableName, s3Url, iamRoleToAssume, sourceS3region);
+                copyFromS3ToRedshiftTable(connection, fileColumnNames, destinationTableName, s3Url, iamRoleToAssume, sourceS3region,
+                                          copyFormat, compression);
 
                 connection.commit();
 
@@ -250,21 +306,27 @@ public class RedshiftJdbcClient {
     }
 
     private String performSqlCopySubstitutions(String temporaryTableName, String combinedColumnNames,
-                                               String s3SourceUrl, String iamRole, String awsS3Region) {
-        return RedshiftJdbcClient.COPY_SQL.replace(STAGE_TABLE_NAME_TOKEN, temporaryTableName)
-                                          .replace(COLUMN_LIST_TOKEN, combinedColumnNames)
-                                          .replace(S3_SOURCE_URL_TOKEN, s3SourceUrl)
-                                          .replace(IAM_ROLE_TOKEN, iamRole)
-                                          .replace(AWS_S3_REGION_TOKEN, awsS3Region);
+                                               String s3SourceUrl, String iamRole, String awsS3Region,
+                                               RedshiftCopyFormat copyFormat, @Nullable String compression) {
+        String copySql = copyFormat == RedshiftCopyFormat.PARQUET ? COPY_PARQUET_SQL : COPY_SQL;
+
+        return copySql.replace(STAGE_TABLE_NAME_TOKEN, temporaryTableName)
+                      .replace(COLUMN_LIST_TOKEN, combinedColumnNames)
+                      .replace(S3_SOURCE_URL_TOKEN, s3SourceUrl)
+                      .replace(IAM_ROLE_TOKEN, iamRole)
+                      .replace(AWS_S3_REGION_TOKEN, awsS3Region)
+                      .replace(COMPRESSION_TOKEN, compression == null ? "" : " " + compression);
     }
 
     private void copyFromS3ToRedshiftTable(Connection connection, List<String> fileColumnNames, String destinationTableName,
-                                           String s3SourceUrl, String iamRole, String awsS3Region) throws SQLException {
+                                           String s3SourceUrl, String iamRole, String awsS3Region,
+                                           RedshiftCopyFormat copyFormat, @Nullable String compression)
+            throws SQLException {
 
         String combinedColumnNames = String.join(",", fileColumnNames);
         try (PreparedStatement preparedStatement = connection.prepareStatement(
                 performSqlCopySubstitutions(destinationTableName, combinedColumnNames, s3SourceUrl,
-                                            iamRole, awsS3Region))) {
+                                            iamRole, awsS3Region, copyFormat, compression))) {
             preparedStatement.execute();
         }
     }
@@ -17,6 +17,7 @@ package com.amazon.pocketEtl.integration.db.jdbi;
 
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
@@ -25,7 +26,15 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -35,9 +44,13 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Implementation of JDBI ResultSetMapper that will map any basic DTO and figure out how to extract the values from
@@ -47,154 +60,356 @@ import java.util.function.BiConsumer;
  * Also, once the column extracted from the resultset does not map to any property in DTO and DTO has a property named
  * 'otherInformation' of type Map, then it adds the column name and value in a LinkedHashMap and adds it to the DTO.
  *
+ * The reflection is done up front rather than for every row: the constructor and setters of each DTO class are
+ * compiled into direct calls once and shared by every mapper of that class, and the first row of each ResultSet is
+ * used to build a plan of which getter and setter to call for each column. The plan is reused for every following row,
+ * and for other ResultSets with the same columns.
+ *
  * @param <T> Type of DTO being mapped into
  */
 class EtlBeanMapper<T> implements ResultSetMapper<T> {
-    private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ClassValue<BeanClass<?>> beanClasses = new ClassValue<BeanClass<?>>() {
+        @Override
+        protected BeanClass<?> computeValue(Class<?> type) {
+            return new BeanClass<>(compileConstructor(type), findBeanProperties(type));
+        }
+    };
 
-    private final Class<T> type;
-    private final Map<String, PropertyDescriptor> properties = new HashMap<>();
+    private final Map<String, BeanProperty> properties;
     private final BiConsumer<T, Map.Entry<String, String>> secondaryMapper;
+    private final Supplier<T> constructor;
 
-    EtlBeanMapper(Class<T> type, @Nullable BiConsumer<T, Map.Entry<String, String>> secondaryMapper)
-    {
-        this.type = type;
-        this.secondaryMapper = secondaryMapper;
+    private MappingPlan<T> mappingPlan = null;
 
-        try {
-            BeanInfo info = Introspector.getBeanInfo(type);
+    @SuppressWarnings("unchecked")
+    EtlBeanMapper(Class<T> type, @Nullable BiConsumer<T, Map.Entry<String, String>> secondaryMapper) {
+        BeanClass<T> beanClass = (BeanClass<T>) beanClasses.get(type);
+        this.secondaryMapper = secondaryMapper;
+        this.properties = beanClass.properties;
+        this.constructor = beanClass.constructor;
+    }
 
-            for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
-                properties.put(descriptor.getName().toLowerCase(), descriptor);
-            }
+    public T map(int row, ResultSet rs, StatementContext ctx) throws SQLException {
+        // JDBI numbers the rows of each ResultSet from zero, so the first row is where the columns can change. Keying
+        // on the row rather than the ResultSet means a closed ResultSet is never kept reachable by this mapper.
+        if (row == 0 || mappingPlan == null) {
+            mappingPlan = getMappingPlan(rs.getMetaData());
         }
-        catch (IntrospectionException e) {
-            throw new IllegalArgumentException(e);
+
+        T bean = constructor.get();
+
+        for (ColumnMapping<T> columnMapping : mappingPlan.columnMappings) {
+            columnMapping.map(bean, rs);
         }
+
+        return bean;
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    public T map(int row, ResultSet rs, StatementContext ctx)
-            throws SQLException
-    {
-        T bean;
-        try {
-            bean = type.newInstance();
+    private MappingPlan<T> getMappingPlan(ResultSetMetaData metadata) throws SQLException {
+        String[] columnLabels = new String[metadata.getColumnCount()];
+
+        for (int i = 1; i <= columnLabels.length; ++i) {
+            columnLabels[i - 1] = metadata.getColumnLabel(i);
         }
-        catch (Exception e) {
-            throw new IllegalArgumentException(String.format("A bean, %s, was mapped " +
-                    "which was not instantiable", type.getName()), e);
+
+        if (mappingPlan != null && Arrays.equals(mappingPlan.columnLabels, columnLabels)) {
+            return mappingPlan;
         }
 
-        ResultSetMetaData metadata = rs.getMetaData();
+        List<ColumnMapping<T>> columnMappings = new ArrayList<>();
 
-        for (int i = 1; i <= metadata.getColumnCount(); ++i) {
-            String name = metadata.getColumnLabel(i).toLowerCase();
+        for (int i = 1; i <= columnLabels.length; ++i) {
+            ColumnMapping<T> columnMapping = getColumnMapping(i, columnLabels[i - 1], metadata);
 
-            PropertyDescriptor descriptor = properties.get(name);
+            if (columnMapping != null) {
+                columnMappings.add(columnMapping);
+            }
+        }
 
-            if (descriptor != null) {
-                Class type = descriptor.getPropertyType();
-                Object value = getValueForTypeFromResultSet(i, rs, type);
-                setBeanPropertyValue(bean, descriptor, name, value);
-            } else if (secondaryMapper != null) {
-                String value;
-                int columnType = metadata.getColumnType(i);
+        return new MappingPlan<>(columnLabels, columnMappings);
+    }
 
-                if(columnType == Types.DATE || columnType == Types.TIMESTAMP) {
-                    DateTime dateTime = (DateTime) getValueForTypeFromResultSet(i, rs, DateTime.class);
-                    value = dateTime.toString(DateTimeFormat.forPattern(DATE_TIME_FORMAT));
-                } else {
-                    value = (String)getValueForTypeFromResultSet(i, rs, String.class);
-                }
+    @SuppressWarnings("unchecked")
+    private ColumnMapping<T> getColumnMapping(int columnIndex, String columnLabel, ResultSetMetaData metadata)
+            throws SQLException {
+        String name = columnLabel.toLowerCase();
+        BeanProperty property = properties.get(name);
 
-                secondaryMapper.accept(bean, new SimpleImmutableEntry(metadata.getColumnLabel(i), value));
-            }
+        if (property != null) {
+            ColumnReader columnReader = getColumnReader(property.type);
+            return (bean, rs) -> property.set(bean, columnReader.read(rs, columnIndex));
         }
 
-        return bean;
+        if (secondaryMapper == null) {
+            return null;
+        }
+
+        int columnType = metadata.getColumnType(columnIndex);
+
+        if (columnType == Types.DATE || columnType == Types.TIMESTAMP) {
+            ColumnReader columnReader = getColumnReader(DateTime.class);
+            return (bean, rs) -> {
+                DateTime dateTime = (DateTime) columnReader.read(rs, columnIndex);
+                secondaryMapper.accept(bean, new SimpleImmutableEntry<>(columnLabel,
+                        dateTime.toString(DATE_TIME_FORMATTER)));
+            };
+        }
+
+        ColumnReader columnReader = getColumnReader(String.class);
+        return (bean, rs) ->
+                secondaryMapper.accept(bean, new SimpleImmutableEntry<>(columnLabel, (String) columnReader.read(rs,
+                        columnIndex)));
     }
 
-    @SuppressWarnings("unchecked")
-    private Object getValueForTypeFromResultSet(int columnIndex, ResultSet rs, Class type) throws SQLException {
-        Object value;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ColumnReader getColumnReader(Class type) {
+        ColumnReader columnReader;
 
         if (type.isAssignableFrom(Boolean.class) || type.isAssignableFrom(boolean.class)) {
-            value = rs.getBoolean(columnIndex);
+            columnReader = ResultSet::getBoolean;
         }
         else if (type.isAssignableFrom(Byte.class) || type.isAssignableFrom(byte.class)) {
-            value = rs.getByte(columnIndex);
+            columnReader = ResultSet::getByte;
         }
         else if (type.isAssignableFrom(Short.class) || type.isAssignableFrom(short.class)) {
-            value = rs.getShort(columnIndex);
+            columnReader = ResultSet::getShort;
         }
         else if (type.isAssignableFrom(Integer.class) || type.isAssignableFrom(int.class)) {
-            value = rs.getInt(columnIndex);
+            columnReader = ResultSet::getInt;
         }
         else if (type.isAssignableFrom(Long.class) || type.isAssignableFrom(long.class)) {
-            value = rs.getLong(columnIndex);
+            columnReader = ResultSet::getLong;
         }
         else if (type.isAssignableFrom(Float.class) || type.isAssignableFrom(float.class)) {
-            value = rs.getFloat(columnIndex);
+            columnReader = ResultSet::getFloat;
         }
         else if (type.isAssignableFrom(Double.class) || type.isAssignableFrom(double.class)) {
-            value = rs.getDouble(columnIndex);
+            columnReader = ResultSet::getDouble;
         }
         else if (type.isAssignableFrom(BigDecimal.class)) {
-            value = rs.getBigDecimal(columnIndex);
+            columnReader = ResultSet::getBigDecimal;
         }
         else if (type.isAssignableFrom(Timestamp.class)) {
-            value = rs.getTimestamp(columnIndex);
+            columnReader = ResultSet::getTimestamp;
         }
         else if (type.isAssignableFrom(DateTime.class)) {
-            Timestamp ts = rs.getTimestamp(columnIndex);
-
-            if (ts != null) {
-                value = new DateTime(ts.getTime());
-            }
-            else {
-                value = null;
-            }
+            columnReader = (rs, columnIndex) -> {
+                Timestamp ts = rs.getTimestamp(columnIndex);
+                return ts != null ? new DateTime(ts.getTime()) : null;
+            };
         }
         else if (type.isAssignableFrom(Time.class)) {
-            value = rs.getTime(columnIndex);
+            columnReader = ResultSet::getTime;
         }
         else if (type.isAssignableFrom(Date.class)) {
-            value = rs.getDate(columnIndex);
+            columnReader = ResultSet::getDate;
         }
         else if (type.isAssignableFrom(String.class)) {
-            value = rs.getString(columnIndex);
+            columnReader = ResultSet::getString;
         }
         else if (type.isEnum()) {
-            value = Enum.valueOf(type, rs.getString(columnIndex));
+            columnReader = (rs, columnIndex) -> Enum.valueOf(type, rs.getString(columnIndex));
         }
         else {
-            value = rs.getObject(columnIndex);
+            columnReader = ResultSet::getObject;
         }
 
-        if (rs.wasNull() && !type.isPrimitive()) {
-            value = null;
+        if (type.isPrimitive()) {
+            return columnReader;
         }
 
-        return value;
+        return (rs, columnIndex) -> {
+            Object value = columnReader.read(rs, columnIndex);
+            return rs.wasNull() ? null : value;
+        };
     }
 
-    private void setBeanPropertyValue(T bean, PropertyDescriptor descriptor, String name, Object value) {
-        try
-        {
-            descriptor.getWriteMethod().invoke(bean, value);
+    private static Map<String, BeanProperty> findBeanProperties(Class<?> type) {
+        Map<String, BeanProperty> properties = new HashMap<>();
+
+        try {
+            BeanInfo info = Introspector.getBeanInfo(type);
+
+            for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+                String name = descriptor.getName().toLowerCase();
+                Method writeMethod = descriptor.getWriteMethod();
+                properties.put(name, new BeanProperty(name, descriptor.getPropertyType(), writeMethod,
+                        writeMethod == null ? null : compileSetter(writeMethod)));
+            }
+        }
+        catch (IntrospectionException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        return properties;
+    }
+
+    // Returns null if the setter cannot be called directly, for instance because the class is not public
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> compileSetter(Method writeMethod) {
+        if (!isVisible(writeMethod.getDeclaringClass()) || !isVisible(writeMethod.getParameterTypes()[0])) {
+            return null;
         }
-        catch (IllegalAccessException e) {
-            throw new IllegalArgumentException(String.format("Unable to access setter for " +
-                    "property, %s", name), e);
+
+        CallSite callSite;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle setter = lookup.unreflect(writeMethod);
+            callSite = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    setter,
+                    setter.type().wrap().changeReturnType(void.class));
         }
-        catch (InvocationTargetException e) {
-            throw new IllegalArgumentException(String.format("Invocation target exception trying to " +
-                    "invoker setter for the %s property", name), e);
+        catch (ReflectiveOperationException | LambdaConversionException | IllegalArgumentException e) {
+            return null;
         }
-        catch (NullPointerException e) {
-            throw new IllegalArgumentException(String.format("No appropriate method to " +
-                    "write property %s", name), e);
+
+        return (BiConsumer<Object, Object>) newCompiledCall(callSite);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> compileConstructor(Class<T> type) {
+        if (!isVisible(type)) {
+            return () -> newInstance(type);
+        }
+
+        CallSite callSite;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            callSite = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    constructor.type());
+        }
+        catch (ReflectiveOperationException | LambdaConversionException | IllegalArgumentException e) {
+            return () -> newInstance(type);
+        }
+
+        return (Supplier<T>) newCompiledCall(callSite);
+    }
+
+    // The call site of a lambda that captures nothing takes no arguments and just returns the compiled call, so the
+    // only thing it can throw is an Error
+    private static Object newCompiledCall(CallSite callSite) {
+        try {
+            return callSite.getTarget().invoke();
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A compiled call is defined in the class loader of this class, so it can only refer to classes that loader can see
+    private static boolean isVisible(Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        try {
+            return Class.forName(type.getName(), false, EtlBeanMapper.class.getClassLoader()) == type;
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static <T> T newInstance(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            return constructor.newInstance();
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException(String.format("A bean, %s, was mapped " +
+                    "which was not instantiable", type.getName()), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ColumnMapping<T> {
+        void map(T bean, ResultSet rs) throws SQLException;
+    }
+
+    private static class BeanClass<T> {
+        private final Supplier<T> constructor;
+        private final Map<String, BeanProperty> properties;
+
+        private BeanClass(Supplier<T> constructor, Map<String, BeanProperty> properties) {
+            this.constructor = constructor;
+            this.properties = properties;
+        }
+    }
+
+    private static class MappingPlan<T> {
+        private final String[] columnLabels;
+        private final List<ColumnMapping<T>> columnMappings;
+
+        private MappingPlan(String[] columnLabels, List<ColumnMapping<T>> columnMappings) {
+            this.columnLabels = columnLabels;
+            this.columnMappings = columnMappings;
+        }
+    }
+
+    private static class BeanProperty {
+        private final String name;
+        private final Class<?> type;
+        private final Method writeMethod;
+        private final BiConsumer<Object, Object> setter;
+
+        private BeanProperty(String name, Class<?> type, @Nullable Method writeMethod,
+                             @Nullable BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.type = type;
+            this.writeMethod = writeMethod;
+            this.setter = setter;
+        }
+
+        private void set(Object bean, Object value) {
+            if (writeMethod == null) {
+                throw new IllegalArgumentException(String.format("No appropriate method to " +
+                        "write property %s", name));
+            }
+
+            if (setter == null) {
+                setReflectively(bean, value);
+                return;
+            }
+
+            try {
+                setter.accept(bean, value);
+            }
+            catch (RuntimeException e) {
+                throw new IllegalArgumentException(String.format("Invocation target exception trying to " +
+                        "invoker setter for the %s property", name), e);
+            }
+        }
+
+        private void setReflectively(Object bean, Object value) {
+            try {
+                writeMethod.invoke(bean, value);
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("Unable to access setter for " +
+                        "property, %s", name), e);
+            }
+            catch (InvocationTargetException e) {
+                throw new IllegalArgumentException(String.format("Invocation target exception trying to " +
+                        "invoker setter for the %s property", name), e);
+            }
         }
     }
 }
@@ -17,6 +17,7 @@ package com.amazon.pocketEtl.integration.db.jdbi;
 
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.HashPrefixStatementRewriter;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
@@ -49,4 +50,17 @@ public class EtlJdbi {
 
         return dbi;
     }
+
+    /**
+     * Construct the mapper that a DBI constructed by newDBI uses to map rows into objects. Useful for queries that need
+     * to read other columns of each row as well as mapping it.
+     * @param type Class the rows are mapped to.
+     * @param secondaryMapper A lambda that is invoked when a data element can't be directly mapped to the bean. See
+     *                        newDBI.
+     * @return A ResultSetMapper that maps rows into objects of the given class.
+     */
+    public static <T> ResultSetMapper<T> newBeanMapper(
+            Class<T> type, @Nullable BiConsumer<T, Map.Entry<String, String>> secondaryMapper) {
+        return new EtlBeanMapper<>(type, secondaryMapper);
+    }
 }
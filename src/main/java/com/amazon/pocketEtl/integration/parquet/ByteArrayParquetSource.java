@@ -0,0 +1,42 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.EOFException;
+
+/**
+ * ParquetSource implementation that reads a file held in a byte array.
+ */
+@RequiredArgsConstructor
+class ByteArrayParquetSource implements ParquetSource {
+    private final byte[] bytes;
+
+    @Override
+    public long getLength() {
+        return bytes.length;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length) throws EOFException {
+        if (position < 0 || position + length > bytes.length) {
+            throw new EOFException("Attempt to read past the end of the Parquet file");
+        }
+
+        System.arraycopy(bytes, (int) position, buffer, offset, length);
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.amazon.pocketEtl.integration.parquet.ParquetFileMetadata.ColumnChunk;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads every value of a column chunk of a top-level column into memory. Supports version 1 and version 2 data pages
+ * that are plain, dictionary, RLE (booleans only) or delta encoded, compressed with any of the codecs in
+ * ParquetCompressionCodec, which covers the files written by ParquetFileWriter and by parquet-mr with either writer
+ * version.
+ */
+final class ColumnChunkReader {
+    private static final int PAGE_TYPE_DATA = 0;
+    private static final int PAGE_TYPE_INDEX = 1;
+    private static final int PAGE_TYPE_DICTIONARY = 2;
+    private static final int PAGE_TYPE_DATA_V2 = 3;
+
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_PLAIN_DICTIONARY = 2;
+    private static final int ENCODING_RLE = 3;
+    private static final int ENCODING_DELTA_BINARY_PACKED = 5;
+    private static final int ENCODING_DELTA_LENGTH_BYTE_ARRAY = 6;
+    private static final int ENCODING_DELTA_BYTE_ARRAY = 7;
+    private static final int ENCODING_RLE_DICTIONARY = 8;
+
+    private ColumnChunkReader() {
+    }
+
+    /**
+     * Reads a column chunk.
+     * @param source The file the column chunk is stored in.
+     * @param columnChunk The metadata of the column chunk.
+     * @param type The type of the column.
+     * @param required Whether the column is required, in which case its pages have no definition levels.
+     * @param rowCount The number of rows in the row group.
+     * @return The value of the column for each row in its canonical form, or null.
+     * @throws IOException If the column chunk could not be read, is malformed, or uses an unsupported feature.
+     */
+    static Object[] read(ParquetSource source, ColumnChunk columnChunk, ParquetColumnType type, boolean required,
+                         int rowCount) throws IOException {
+        ParquetCompressionCodec codec = ParquetCompressionCodec.fromThriftId(columnChunk.getCodec());
+
+        if (codec == null) {
+            throw new IOException("Column '" + columnChunk.getName() + "' is compressed with codec "
+                    + columnChunk.getCodec() + " which cannot be read");
+        }
+
+        if (columnChunk.getValueCount() != rowCount || columnChunk.getCompressedSizeInBytes() > Integer.MAX_VALUE) {
+            throw new IOException("Column chunk for column '" + columnChunk.getName() + "' cannot be read");
+        }
+
+        byte[] bytes = new byte[(int) columnChunk.getCompressedSizeInBytes()];
+        source.readFully(columnChunk.getStartOffset(), bytes, 0, bytes.length);
+
+        Object[] values = new Object[rowCount];
+        Object[] dictionary = null;
+        int position = 0;
+        int row = 0;
+
+        try {
+            while (row < rowCount) {
+                ThriftCompactReader reader = new ThriftCompactReader(bytes, position, bytes.length);
+                PageHeader header = PageHeader.read(reader);
+                position = reader.getPosition();
+
+                if (header.compressedSize < 0 || header.compressedSize > bytes.length - position) {
+                    throw new IOException("Page runs past the end of the column chunk");
+                }
+
+                int pageStart = position;
+                position += header.compressedSize;
+
+                if ((header.type == PAGE_TYPE_DATA || header.type == PAGE_TYPE_DATA_V2)
+                        && header.valueCount > rowCount - row) {
+                    throw new IOException("Column chunk has more values than the row group has rows");
+                }
+
+                switch (header.type) {
+                    case PAGE_TYPE_DICTIONARY:
+                        byte[] dictionaryPage =
+                                codec.decompress(bytes, pageStart, header.compressedSize, header.uncompressedSize);
+                        dictionary = readDictionaryPage(dictionaryPage, header.valueCount, type);
+                        break;
+                    case PAGE_TYPE_DATA:
+                        ByteBuffer page = ByteBuffer.wrap(
+                                codec.decompress(bytes, pageStart, header.compressedSize, header.uncompressedSize))
+                                .order(ByteOrder.LITTLE_ENDIAN);
+                        ByteBuffer definitionLevels = required ? null : readLengthPrefixed(page);
+
+                        readDataPage(definitionLevels, page, header, type, dictionary, values, row);
+                        row += header.valueCount;
+                        break;
+                    case PAGE_TYPE_DATA_V2:
+                        readDataPageV2(bytes, pageStart, header, codec, type, required, dictionary, values, row);
+                        row += header.valueCount;
+                        break;
+                    case PAGE_TYPE_INDEX:
+                        break;
+                    default:
+                        throw new IOException("Page type " + header.type + " cannot be read");
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException |
+                NegativeArraySizeException | ArithmeticException e) {
+            throw new IOException("Column chunk for column '" + columnChunk.getName() + "' is malformed", e);
+        }
+
+        return values;
+    }
+
+    private static Object[] readDictionaryPage(byte[] page, int valueCount, ParquetColumnType type) {
+        ByteBuffer in = ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN);
+        Object[] dictionary = new Object[valueCount];
+
+        for (int i = 0; i < valueCount; i++) {
+            dictionary[i] = type.readPlain(in);
+        }
+
+        return dictionary;
+    }
+
+    // Version 2 data pages store their levels uncompressed ahead of the values, which are the only part compressed
+    private static void readDataPageV2(byte[] bytes, int pageStart, PageHeader header, ParquetCompressionCodec codec,
+                                       ParquetColumnType type, boolean required, Object[] dictionary, Object[] values,
+                                       int firstRow) throws IOException {
+        if (header.repetitionLevelsLength != 0) {
+            throw new IOException("Repeated columns cannot be read");
+        }
+
+        int levelsLength = header.definitionLevelsLength;
+
+        if (levelsLength < 0 || levelsLength > header.compressedSize || levelsLength > header.uncompressedSize) {
+            throw new IOException("Definition levels run past the end of the page");
+        }
+
+        ByteBuffer definitionLevels = required ? null :
+                ByteBuffer.wrap(bytes, pageStart, levelsLength).slice().order(ByteOrder.LITTLE_ENDIAN);
+        ParquetCompressionCodec valuesCodec = header.isCompressed ? codec : ParquetCompressionCodec.UNCOMPRESSED;
+        byte[] page = valuesCodec.decompress(bytes, pageStart + levelsLength, header.compressedSize - levelsLength,
+                header.uncompressedSize - levelsLength);
+
+        readDataPage(definitionLevels, ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN), header, type, dictionary,
+                values, firstRow);
+    }
+
+    private static void readDataPage(ByteBuffer levels, ByteBuffer in, PageHeader header, ParquetColumnType type,
+                                     Object[] dictionary, Object[] values, int firstRow) throws IOException {
+        int valueCount = header.valueCount;
+        int[] definitionLevels = null;
+        int definedValueCount = valueCount;
+
+        if (levels != null) {
+            definitionLevels = new int[valueCount];
+            RleBitPackingHybridDecoder.decode(levels, 1, valueCount, definitionLevels);
+
+            definedValueCount = 0;
+
+            for (int level : definitionLevels) {
+                definedValueCount += level;
+            }
+        }
+
+        Object[] definedValues = readValues(in, header.encoding, type, dictionary, definedValueCount);
+
+        for (int i = 0, next = 0; i < valueCount; i++) {
+            values[firstRow + i] = definitionLevels == null || definitionLevels[i] == 1 ? definedValues[next++] : null;
+        }
+    }
+
+    private static Object[] readValues(ByteBuffer in, int encoding, ParquetColumnType type, Object[] dictionary,
+                                       int count) throws IOException {
+        Object[] values = new Object[count];
+
+        switch (encoding) {
+            case ENCODING_PLAIN:
+                if (type == ParquetColumnType.BOOLEAN) {
+                    readBooleans(in, values);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        values[i] = type.readPlain(in);
+                    }
+                }
+                break;
+            case ENCODING_PLAIN_DICTIONARY:
+            case ENCODING_RLE_DICTIONARY:
+                if (dictionary == null) {
+                    throw new IOException("Dictionary encoded page has no dictionary");
+                }
+
+                int[] indices = new int[count];
+                int bitWidth = in.get() & 0xFF;
+                RleBitPackingHybridDecoder.decode(in, bitWidth, count, indices);
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = dictionary[indices[i]];
+                }
+                break;
+            case ENCODING_RLE:
+                if (type != ParquetColumnType.BOOLEAN) {
+                    throw new IOException("RLE encoded page of type " + type + " cannot be read");
+                }
+
+                int[] bits = new int[count];
+                RleBitPackingHybridDecoder.decode(readLengthPrefixed(in), 1, count, bits);
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = bits[i] == 1;
+                }
+                break;
+            case ENCODING_DELTA_BINARY_PACKED:
+                long[] integers = DeltaBinaryPackedDecoder.decode(in, count);
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = fromDeltaDecodedInteger(integers[i], type);
+                }
+                break;
+            case ENCODING_DELTA_LENGTH_BYTE_ARRAY:
+                readDeltaLengthByteArrays(in, type, values);
+                break;
+            case ENCODING_DELTA_BYTE_ARRAY:
+                readDeltaByteArrays(in, type, values);
+                break;
+            default:
+                throw new IOException("Page encoding " + encoding + " cannot be read");
+        }
+
+        return values;
+    }
+
+    private static void readBooleans(ByteBuffer in, Object[] values) {
+        int[] bits = new int[values.length];
+        RleBitPackingHybridDecoder.readBitPacked(in, 1, values.length, bits, 0, values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = bits[i] == 1;
+        }
+    }
+
+    private static Object fromDeltaDecodedInteger(long value, ParquetColumnType type) throws IOException {
+        switch (type) {
+            case INT32:
+            case DATE:
+                return (int) value;
+            case INT64:
+            case TIMESTAMP_MILLIS:
+                return value;
+            default:
+                throw new IOException("Delta encoded page of type " + type + " cannot be read");
+        }
+    }
+
+    // The lengths of all the values are delta encoded, followed by all of their bytes
+    private static void readDeltaLengthByteArrays(ByteBuffer in, ParquetColumnType type, Object[] values)
+            throws IOException {
+        if (type != ParquetColumnType.STRING) {
+            throw new IOException("Delta length encoded page of type " + type + " cannot be read");
+        }
+
+        long[] lengths = DeltaBinaryPackedDecoder.decode(in, values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            byte[] value = new byte[Math.toIntExact(lengths[i])];
+            in.get(value);
+            values[i] = value;
+        }
+    }
+
+    // Each value is stored as the length of the prefix it shares with the previous value, followed by the rest of it
+    private static void readDeltaByteArrays(ByteBuffer in, ParquetColumnType type, Object[] values)
+            throws IOException {
+        if (type != ParquetColumnType.STRING) {
+            throw new IOException("Delta encoded page of type " + type + " cannot be read");
+        }
+
+        long[] prefixLengths = DeltaBinaryPackedDecoder.decode(in, values.length);
+        readDeltaLengthByteArrays(in, type, values);
+        byte[] previous = new byte[0];
+
+        for (int i = 0; i < values.length; i++) {
+            byte[] suffix = (byte[]) values[i];
+            int prefixLength = Math.toIntExact(prefixLengths[i]);
+            byte[] value = new byte[prefixLength + suffix.length];
+            System.arraycopy(previous, 0, value, 0, prefixLength);
+            System.arraycopy(suffix, 0, value, prefixLength, suffix.length);
+            values[i] = value;
+            previous = value;
+        }
+    }
+
+    private static ByteBuffer readLengthPrefixed(ByteBuffer in) {
+        int length = in.getInt();
+        ByteBuffer bytes = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+        bytes.limit(length);
+        in.position(in.position() + length);
+        return bytes;
+    }
+
+    private static class PageHeader {
+        private int type = -1;
+        private int uncompressedSize = 0;
+        private int compressedSize = 0;
+        private int valueCount = 0;
+        private int encoding = ENCODING_PLAIN;
+        private int definitionLevelsLength = 0;
+        private int repetitionLevelsLength = 0;
+        private boolean isCompressed = true;
+
+        static PageHeader read(ThriftCompactReader reader) throws IOException {
+            PageHeader header = new PageHeader();
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                switch (fieldId) {
+                    case 1:
+                        header.type = reader.readI32();
+                        break;
+                    case 2:
+                        header.uncompressedSize = reader.readI32();
+                        break;
+                    case 3:
+                        header.compressedSize = reader.readI32();
+                        break;
+                    case 5:
+                    case 7:
+                        // The data page and dictionary page headers both start with the value count and encoding
+                        reader.readStructBegin();
+
+                        for (int id = reader.readFieldBegin(); id != 0; id = reader.readFieldBegin()) {
+                            if (id == 1) {
+                                header.valueCount = reader.readI32();
+                            } else if (id == 2) {
+                                header.encoding = reader.readI32();
+                            } else {
+                                reader.skipField();
+                            }
+                        }
+                        break;
+                    case 8:
+                        readDataPageV2Header(reader, header);
+                        break;
+                    default:
+                        reader.skipField();
+                }
+            }
+
+            return header;
+        }
+
+        private static void readDataPageV2Header(ThriftCompactReader reader, PageHeader header) throws IOException {
+            reader.readStructBegin();
+
+            for (int id = reader.readFieldBegin(); id != 0; id = reader.readFieldBegin()) {
+                switch (id) {
+                    case 1:
+                        header.valueCount = reader.readI32();
+                        break;
+                    case 4:
+                        header.encoding = reader.readI32();
+                        break;
+                    case 5:
+                        header.definitionLevelsLength = reader.readI32();
+                        break;
+                    case 6:
+                        header.repetitionLevelsLength = reader.readI32();
+                        break;
+                    case 7:
+                        header.isCompressed = reader.readBooleanField();
+                        break;
+                    default:
+                        reader.skipField();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Buffers the values of a single column for the row group being written and encodes them into pages as they fill up.
+ *
+ * Every column other than booleans starts each column chunk with dictionary encoding, which stores each distinct value
+ * once in a dictionary page and replaces the values in the data pages with bit-packed indices into it. If the
+ * dictionary does not make the first page smaller, that page is written with plain encoding and the dictionary is
+ * abandoned for the rest of the column chunk; if the dictionary grows too large, the pages already written keep using
+ * it but the rest of the column chunk is written with plain encoding.
+ */
+class ColumnChunkWriter {
+    static final int ENCODING_PLAIN = 0;
+    static final int ENCODING_PLAIN_DICTIONARY = 2;
+    static final int ENCODING_RLE = 3;
+
+    static final int PAGE_TYPE_DATA = 0;
+    static final int PAGE_TYPE_DICTIONARY = 2;
+
+    private static final int INITIAL_PAGE_CAPACITY = 1024;
+
+    private final ParquetColumn column;
+    private final ParquetCompressionCodec codec;
+    private final int pageRowCountLimit;
+    private final int maxDictionarySizeInBytes;
+
+    // The page being filled
+    private int[] definitionLevels = new int[INITIAL_PAGE_CAPACITY];
+    private int[] pageValues = new int[INITIAL_PAGE_CAPACITY];
+    private final ByteArrayOutputStream plainValues = new ByteArrayOutputStream();
+    private int pageRowCount = 0;
+    private int pageValueCount = 0;
+    private long pagePlainSizeInBytes = 0;
+
+    // The column chunk being filled
+    private final Map<Object, Integer> dictionary = new HashMap<>();
+    private final List<Object> dictionaryValues = new ArrayList<>();
+    private long dictionarySizeInBytes = 0;
+    private boolean dictionaryEncoding;
+    private int dictionaryEncodedPages = 0;
+    private int pagesWritten = 0;
+    private final ByteArrayOutputStream dataPages = new ByteArrayOutputStream();
+    private long uncompressedDataPagesSizeInBytes = 0;
+    private final SortedSet<Integer> encodings = new TreeSet<>();
+    private long valueCount = 0;
+    private long nullCount = 0;
+    private Object minValue = null;
+    private Object maxValue = null;
+    private boolean statisticsOrdered = true;
+
+    ColumnChunkWriter(ParquetColumn column, ParquetCompressionCodec codec, int pageRowCountLimit,
+                      int maxDictionarySizeInBytes) {
+        this.column = column;
+        this.codec = codec;
+        this.pageRowCountLimit = pageRowCountLimit;
+        this.maxDictionarySizeInBytes = maxDictionarySizeInBytes;
+        this.dictionaryEncoding = column.getType().isDictionaryEncodable();
+    }
+
+    /**
+     * Adds the value of this column for the next row.
+     * @param value The value in its canonical form for the column type, or null.
+     */
+    void add(Object value) {
+        if (pageRowCount == definitionLevels.length) {
+            definitionLevels = Arrays.copyOf(definitionLevels, pageRowCount * 2);
+        }
+
+        if (value == null) {
+            definitionLevels[pageRowCount] = 0;
+            nullCount++;
+        } else {
+            definitionLevels[pageRowCount] = 1;
+            updateStatistics(value);
+            addValue(value);
+        }
+
+        pageRowCount++;
+        valueCount++;
+
+        boolean dictionaryFull = dictionaryEncoding && dictionarySizeInBytes > maxDictionarySizeInBytes;
+
+        if (pageRowCount >= pageRowCountLimit || dictionaryFull) {
+            writePage();
+        }
+    }
+
+    /**
+     * Estimate how much space this column chunk would take if it was written now.
+     * @return The estimated size in bytes.
+     */
+    long getBufferedSizeInBytes() {
+        return dataPages.size() + pagePlainSizeInBytes + dictionarySizeInBytes;
+    }
+
+    /**
+     * Writes the entire column chunk and starts a new one.
+     * @param out Where the column chunk is written.
+     * @param fileOffset The position in the file the column chunk will be written at.
+     * @return Metadata describing the column chunk that was written.
+     * @throws IOException If the column chunk could not be written.
+     */
+    ColumnChunkMetadata writeColumnChunk(OutputStream out, long fileOffset) throws IOException {
+        writePage();
+
+        Long dictionaryPageOffset = null;
+        long uncompressedSizeInBytes = uncompressedDataPagesSizeInBytes;
+        long compressedSizeInBytes = dataPages.size();
+
+        if (dictionaryEncodedPages > 0) {
+            ByteArrayOutputStream dictionaryPage = new ByteArrayOutputStream((int) dictionarySizeInBytes);
+            dictionaryValues.forEach(value -> column.getType().writePlain(value, dictionaryPage));
+
+            byte[] uncompressed = dictionaryPage.toByteArray();
+            byte[] compressed = codec.compress(uncompressed);
+
+            ThriftCompactWriter header = new ThriftCompactWriter();
+            header.writeStructBegin();
+            header.writeI32Field(1, PAGE_TYPE_DICTIONARY);
+            header.writeI32Field(2, uncompressed.length);
+            header.writeI32Field(3, compressed.length);
+            header.writeStructFieldBegin(7);
+            header.writeI32Field(1, dictionaryValues.size());
+            header.writeI32Field(2, ENCODING_PLAIN_DICTIONARY);
+            header.writeStructEnd();
+            header.writeStructEnd();
+            byte[] headerBytes = header.toByteArray();
+
+            out.write(headerBytes);
+            out.write(compressed);
+
+            dictionaryPageOffset = fileOffset;
+            uncompressedSizeInBytes += headerBytes.length + uncompressed.length;
+            compressedSizeInBytes += headerBytes.length + compressed.length;
+        }
+
+        long dataPageOffset = fileOffset + compressedSizeInBytes - dataPages.size();
+        dataPages.writeTo(out);
+
+        boolean hasStatistics = statisticsOrdered && minValue != null;
+        ColumnChunkMetadata metadata = new ColumnChunkMetadata(column.getName(),
+                column.getType().getPhysicalType(), new ArrayList<>(encodings), codec.getThriftId(), valueCount,
+                uncompressedSizeInBytes, compressedSizeInBytes, fileOffset, dataPageOffset, dictionaryPageOffset,
+                nullCount, hasStatistics ? column.getType().toStatisticsBytes(minValue) : null,
+                hasStatistics ? column.getType().toStatisticsBytes(maxValue) : null);
+
+        startColumnChunk();
+
+        return metadata;
+    }
+
+    private void addValue(Object value) {
+        if (pageValueCount == pageValues.length) {
+            pageValues = Arrays.copyOf(pageValues, pageValueCount * 2);
+        }
+
+        ParquetColumnType type = column.getType();
+        pagePlainSizeInBytes += type.plainSize(value);
+
+        if (type == ParquetColumnType.BOOLEAN) {
+            pageValues[pageValueCount++] = (Boolean) value ? 1 : 0;
+        } else if (dictionaryEncoding) {
+            Object key = value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+            Integer index = dictionary.get(key);
+
+            if (index == null) {
+                index = dictionaryValues.size();
+                dictionary.put(key, index);
+                dictionaryValues.add(value);
+                dictionarySizeInBytes += type.plainSize(value);
+            }
+
+            pageValues[pageValueCount++] = index;
+        } else {
+            type.writePlain(value, plainValues);
+            pageValueCount++;
+        }
+    }
+
+    private void updateStatistics(Object value) {
+        ParquetColumnType type = column.getType();
+
+        if (!type.isOrdered(value)) {
+            statisticsOrdered = false;
+        } else if (minValue == null) {
+            minValue = value;
+            maxValue = value;
+        } else if (type.compare(value, minValue) < 0) {
+            minValue = value;
+        } else if (type.compare(value, maxValue) > 0) {
+            maxValue = value;
+        }
+    }
+
+    private boolean isDictionarySmallerThanPlain() {
+        int bitWidth = RleBitPackingHybridEncoder.bitWidth(Math.max(0, dictionaryValues.size() - 1));
+        return dictionarySizeInBytes + ((long) pageValueCount * bitWidth + 7) / 8 < pagePlainSizeInBytes;
+    }
+
+    private void writePage() {
+        if (pageRowCount == 0) {
+            return;
+        }
+
+        ParquetColumnType type = column.getType();
+
+        if (dictionaryEncoding && pagesWritten == 0 && !isDictionarySmallerThanPlain()) {
+            for (int i = 0; i < pageValueCount; i++) {
+                type.writePlain(dictionaryValues.get(pageValues[i]), plainValues);
+            }
+
+            dictionaryEncoding = false;
+            dictionary.clear();
+            dictionaryValues.clear();
+            dictionarySizeInBytes = 0;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream((int) pagePlainSizeInBytes + 16);
+
+        if (!column.isRequired()) {
+            ByteArrayOutputStream levels = new ByteArrayOutputStream();
+            RleBitPackingHybridEncoder.encode(definitionLevels, pageRowCount, 1, levels);
+            LittleEndian.writeInt(body, levels.size());
+            body.write(levels.toByteArray(), 0, levels.size());
+        }
+
+        int encoding = ENCODING_PLAIN;
+
+        if (type == ParquetColumnType.BOOLEAN) {
+            RleBitPackingHybridEncoder.writeBitPacked(pageValues, 0, pageValueCount, 1, body);
+        } else if (dictionaryEncoding) {
+            int bitWidth = RleBitPackingHybridEncoder.bitWidth(Math.max(0, dictionaryValues.size() - 1));
+            body.write(bitWidth);
+            RleBitPackingHybridEncoder.encode(pageValues, pageValueCount, bitWidth, body);
+            encoding = ENCODING_PLAIN_DICTIONARY;
+            dictionaryEncodedPages++;
+        } else {
+            body.write(plainValues.toByteArray(), 0, plainValues.size());
+        }
+
+        byte[] uncompressed = body.toByteArray();
+        byte[] compressed = codec.compress(uncompressed);
+
+        ThriftCompactWriter header = new ThriftCompactWriter();
+        header.writeStructBegin();
+        header.writeI32Field(1, PAGE_TYPE_DATA);
+        header.writeI32Field(2, uncompressed.length);
+        header.writeI32Field(3, compressed.length);
+        header.writeStructFieldBegin(5);
+        header.writeI32Field(1, pageRowCount);
+        header.writeI32Field(2, encoding);
+        header.writeI32Field(3, ENCODING_RLE);
+        header.writeI32Field(4, ENCODING_RLE);
+        header.writeStructEnd();
+        header.writeStructEnd();
+        byte[] headerBytes = header.toByteArray();
+
+        dataPages.write(headerBytes, 0, headerBytes.length);
+        dataPages.write(compressed, 0, compressed.length);
+        uncompressedDataPagesSizeInBytes += headerBytes.length + uncompressed.length;
+        encodings.add(encoding);
+        encodings.add(ENCODING_RLE);
+        pagesWritten++;
+
+        // Pages already written refer to the dictionary, so it is kept but no longer added to
+        if (dictionaryEncoding && dictionarySizeInBytes > maxDictionarySizeInBytes) {
+            dictionaryEncoding = false;
+        }
+
+        pageRowCount = 0;
+        pageValueCount = 0;
+        pagePlainSizeInBytes = 0;
+        plainValues.reset();
+    }
+
+    private void startColumnChunk() {
+        dictionary.clear();
+        dictionaryValues.clear();
+        dictionarySizeInBytes = 0;
+        dictionaryEncoding = column.getType().isDictionaryEncodable();
+        dictionaryEncodedPages = 0;
+        pagesWritten = 0;
+        dataPages.reset();
+        uncompressedDataPagesSizeInBytes = 0;
+        encodings.clear();
+        valueCount = 0;
+        nullCount = 0;
+        minValue = null;
+        maxValue = null;
+        statisticsOrdered = true;
+    }
+
+    /**
+     * The metadata that describes a column chunk in the file footer.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    static class ColumnChunkMetadata {
+        private final String name;
+        private final int physicalType;
+        private final List<Integer> encodings;
+        private final int codec;
+        private final long valueCount;
+        private final long uncompressedSizeInBytes;
+        private final long compressedSizeInBytes;
+        private final long fileOffset;
+        private final long dataPageOffset;
+        private final Long dictionaryPageOffset;
+        private final long nullCount;
+        private final byte[] minValue;
+        private final byte[] maxValue;
+
+        void write(ThriftCompactWriter writer) {
+            writer.writeStructBegin();
+            writer.writeI64Field(2, fileOffset);
+            writer.writeStructFieldBegin(3);
+            writer.writeI32Field(1, physicalType);
+            writer.writeListFieldBegin(2, ThriftCompactWriter.TYPE_I32, encodings.size());
+            encodings.forEach(writer::writeI32);
+            writer.writeListFieldBegin(3, ThriftCompactWriter.TYPE_BINARY, 1);
+            writer.writeString(name);
+            writer.writeI32Field(4, codec);
+            writer.writeI64Field(5, valueCount);
+            writer.writeI64Field(6, uncompressedSizeInBytes);
+            writer.writeI64Field(7, compressedSizeInBytes);
+            writer.writeI64Field(9, dataPageOffset);
+
+            if (dictionaryPageOffset != null) {
+                writer.writeI64Field(11, dictionaryPageOffset);
+            }
+
+            writer.writeStructFieldBegin(12);
+            writer.writeI64Field(3, nullCount);
+
+            if (maxValue != null) {
+                writer.writeBinaryField(5, maxValue);
+                writer.writeBinaryField(6, minValue);
+            }
+
+            writer.writeStructEnd();
+            writer.writeStructEnd();
+            writer.writeStructEnd();
+        }
+    }
+}
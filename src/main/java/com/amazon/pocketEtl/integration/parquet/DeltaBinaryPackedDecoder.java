@@ -0,0 +1,127 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes values written with Parquet's DELTA_BINARY_PACKED encoding, which writers such as parquet-mr use for integer
+ * columns in version 2 data pages, and for the string lengths of the DELTA_LENGTH_BYTE_ARRAY and DELTA_BYTE_ARRAY
+ * encodings.
+ *
+ * The encoding starts with a header holding the number of values in a block, the number of miniblocks in a block, the
+ * total number of values and the first value. Each block then holds the minimum delta between consecutive values in
+ * the block, the bit width of each of its miniblocks, and the miniblocks themselves, in which every delta minus the
+ * minimum delta is bit-packed. Miniblocks after the last value are left out.
+ */
+final class DeltaBinaryPackedDecoder {
+    private static final int MAX_BIT_WIDTH = 64;
+
+    private DeltaBinaryPackedDecoder() {
+    }
+
+    /**
+     * Decodes a complete sequence of values.
+     * @param in A buffer positioned at the header, which is advanced past the last miniblock that holds a value.
+     * @param expectedCount The number of values the sequence must hold.
+     * @return The decoded values. 32-bit values are returned as longs, and wrap around just as they do when written.
+     * @throws IOException If the encoded values are malformed or do not hold the expected number of values.
+     */
+    static long[] decode(ByteBuffer in, int expectedCount) throws IOException {
+        long blockSize = readUnsignedVarLong(in);
+        long miniblocksInBlock = readUnsignedVarLong(in);
+        long totalCount = readUnsignedVarLong(in);
+        long firstValue = readZigZagVarLong(in);
+
+        if (miniblocksInBlock == 0 || blockSize % 128 != 0 || blockSize / miniblocksInBlock % 32 != 0) {
+            throw new IOException("Invalid block size " + blockSize + " with " + miniblocksInBlock + " miniblocks");
+        }
+
+        if (totalCount != expectedCount) {
+            throw new IOException("Encoded values hold " + totalCount + " values instead of " + expectedCount);
+        }
+
+        int valuesInMiniblock = (int) (blockSize / miniblocksInBlock);
+        long[] values = new long[expectedCount];
+        int decoded = 0;
+
+        if (expectedCount > 0) {
+            values[decoded++] = firstValue;
+        }
+
+        while (decoded < expectedCount) {
+            long minDelta = readZigZagVarLong(in);
+            byte[] bitWidths = new byte[(int) miniblocksInBlock];
+            in.get(bitWidths);
+
+            for (int miniblock = 0; miniblock < bitWidths.length && decoded < expectedCount; miniblock++) {
+                int bitWidth = bitWidths[miniblock] & 0xFF;
+
+                if (bitWidth > MAX_BIT_WIDTH) {
+                    throw new IOException("Invalid bit width " + bitWidth);
+                }
+
+                byte[] packed = new byte[valuesInMiniblock * bitWidth / 8];
+                in.get(packed);
+
+                for (int i = 0; i < valuesInMiniblock && decoded < expectedCount; i++) {
+                    values[decoded] = values[decoded - 1] + minDelta + unpack(packed, i, bitWidth);
+                    decoded++;
+                }
+            }
+        }
+
+        return values;
+    }
+
+    // Reads the value at an index of a sequence packed from the least significant bit of each byte
+    private static long unpack(byte[] packed, int index, int bitWidth) {
+        long value = 0;
+        int firstBit = index * bitWidth;
+
+        for (int bitsRead = 0; bitsRead < bitWidth; ) {
+            int bit = firstBit + bitsRead;
+            int shift = bit & 7;
+            int bitsToRead = Math.min(8 - shift, bitWidth - bitsRead);
+            long bits = ((packed[bit >>> 3] & 0xFF) >>> shift) & ((1 << bitsToRead) - 1);
+            value |= bits << bitsRead;
+            bitsRead += bitsToRead;
+        }
+
+        return value;
+    }
+
+    private static long readUnsignedVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Variable length integer is too long");
+    }
+
+    private static long readZigZagVarLong(ByteBuffer in) throws IOException {
+        long value = readUnsignedVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * ParquetSource implementation that reads a file through a FileChannel using positional reads.
+ */
+@RequiredArgsConstructor
+class FileChannelParquetSource implements ParquetSource {
+    private final FileChannel fileChannel;
+
+    @Override
+    public long getLength() throws IOException {
+        return fileChannel.size();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+
+        while (byteBuffer.hasRemaining()) {
+            int bytesRead = fileChannel.read(byteBuffer, position + byteBuffer.position() - offset);
+
+            if (bytesRead == -1) {
+                throw new EOFException("Attempt to read past the end of the Parquet file");
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Function;
+
+/**
+ * A single column of a Parquet schema, mapped to a property of the Java class being written.
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+class ParquetColumn {
+    private final String name;
+    private final ParquetColumnType type;
+    private final boolean required;
+    @Getter(AccessLevel.NONE)
+    private final AnnotatedMember accessor;
+    @Getter(AccessLevel.NONE)
+    private final Function<Object, Object> toParquetValue;
+
+    /**
+     * Reads the value of this column from an object being written.
+     * @param object The object being written.
+     * @return The value in its canonical form for the column type, or null.
+     */
+    Object getValue(Object object) {
+        Object value = accessor.getValue(object);
+        return value == null ? null : toParquetValue.apply(value);
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.joda.time.Days;
+import org.joda.time.ReadableInstant;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * The types of column this package can write, each of which is a Parquet physical type with an optional converted type
+ * that tells readers how to interpret it. Values of each type are held in a single canonical Java form: Boolean,
+ * Integer, Long, Float, Double, or a byte[] holding a UTF-8 string.
+ */
+enum ParquetColumnType {
+    BOOLEAN(0, null) {
+        @Override
+        void writePlain(Object value, ByteArrayOutputStream out) {
+            throw new UnsupportedOperationException("Booleans are bit-packed by the page that holds them");
+        }
+
+        @Override
+        int plainSize(Object value) {
+            return 1;
+        }
+
+        @Override
+        byte[] toStatisticsBytes(Object value) {
+            return new byte[] { (byte) ((Boolean) value ? 1 : 0) };
+        }
+
+        @Override
+        Object readPlain(ByteBuffer in) {
+            throw new UnsupportedOperationException("Booleans are bit-packed by the page that holds them");
+        }
+
+        @Override
+        Object fromStatisticsBytes(byte[] bytes) {
+            return bytes.length == 1 ? bytes[0] != 0 : null;
+        }
+    },
+
+    INT32(1, null),
+    INT64(2, null),
+    FLOAT(4, null),
+    DOUBLE(5, null),
+    STRING(6, 0),
+    DATE(1, 6),
+    TIMESTAMP_MILLIS(2, 9);
+
+    static final int PHYSICAL_TYPE_BOOLEAN = 0;
+    static final int PHYSICAL_TYPE_INT32 = 1;
+    static final int PHYSICAL_TYPE_INT64 = 2;
+    static final int PHYSICAL_TYPE_FLOAT = 4;
+    static final int PHYSICAL_TYPE_DOUBLE = 5;
+    static final int PHYSICAL_TYPE_BYTE_ARRAY = 6;
+
+    private static final int CONVERTED_TYPE_UTF8 = 0;
+    private static final int CONVERTED_TYPE_ENUM = 4;
+    private static final int CONVERTED_TYPE_DATE = 6;
+    private static final int CONVERTED_TYPE_TIMESTAMP_MILLIS = 9;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final org.joda.time.LocalDate JODA_EPOCH = new org.joda.time.LocalDate(1970, 1, 1);
+
+    private final int physicalType;
+    private final Integer convertedType;
+
+    ParquetColumnType(int physicalType, Integer convertedType) {
+        this.physicalType = physicalType;
+        this.convertedType = convertedType;
+    }
+
+    int getPhysicalType() {
+        return physicalType;
+    }
+
+    Integer getConvertedType() {
+        return convertedType;
+    }
+
+    /**
+     * Find the column type that reads a column of a Parquet file. Byte arrays are read as UTF-8 strings, and converted
+     * types that are not listed here are read as their physical type.
+     * @param physicalType The physical type of the column in the file schema.
+     * @param convertedType The converted type of the column in the file schema, or null.
+     * @return The column type, or null if it is not one this package can read.
+     */
+    static ParquetColumnType fromSchema(int physicalType, Integer convertedType) {
+        switch (physicalType) {
+            case PHYSICAL_TYPE_BOOLEAN:
+                return BOOLEAN;
+            case PHYSICAL_TYPE_INT32:
+                return convertedType != null && convertedType == CONVERTED_TYPE_DATE ? DATE : INT32;
+            case PHYSICAL_TYPE_INT64:
+                return convertedType != null && convertedType == CONVERTED_TYPE_TIMESTAMP_MILLIS ?
+                        TIMESTAMP_MILLIS : INT64;
+            case PHYSICAL_TYPE_FLOAT:
+                return FLOAT;
+            case PHYSICAL_TYPE_DOUBLE:
+                return DOUBLE;
+            case PHYSICAL_TYPE_BYTE_ARRAY:
+                return convertedType == null || convertedType == CONVERTED_TYPE_UTF8 ||
+                        convertedType == CONVERTED_TYPE_ENUM ? STRING : null;
+            default:
+                return null;
+        }
+    }
+
+    boolean isDictionaryEncodable() {
+        return this != BOOLEAN;
+    }
+
+    void writePlain(Object value, ByteArrayOutputStream out) {
+        switch (physicalType) {
+            case PHYSICAL_TYPE_INT32:
+                LittleEndian.writeInt(out, (Integer) value);
+                break;
+            case PHYSICAL_TYPE_INT64:
+                LittleEndian.writeLong(out, (Long) value);
+                break;
+            case PHYSICAL_TYPE_FLOAT:
+                LittleEndian.writeInt(out, Float.floatToRawIntBits((Float) value));
+                break;
+            case PHYSICAL_TYPE_DOUBLE:
+                LittleEndian.writeLong(out, Double.doubleToRawLongBits((Double) value));
+                break;
+            default:
+                byte[] bytes = (byte[]) value;
+                LittleEndian.writeInt(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Decodes one plain encoded value.
+     * @param in A little-endian buffer positioned at the value, which is advanced past it.
+     * @return The value in its canonical form.
+     */
+    Object readPlain(ByteBuffer in) {
+        switch (physicalType) {
+            case PHYSICAL_TYPE_INT32:
+                return in.getInt();
+            case PHYSICAL_TYPE_INT64:
+                return in.getLong();
+            case PHYSICAL_TYPE_FLOAT:
+                return in.getFloat();
+            case PHYSICAL_TYPE_DOUBLE:
+                return in.getDouble();
+            default:
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return bytes;
+        }
+    }
+
+    int plainSize(Object value) {
+        switch (physicalType) {
+            case PHYSICAL_TYPE_INT32:
+            case PHYSICAL_TYPE_FLOAT:
+                return 4;
+            case PHYSICAL_TYPE_INT64:
+            case PHYSICAL_TYPE_DOUBLE:
+                return 8;
+            default:
+                return 4 + ((byte[]) value).length;
+        }
+    }
+
+    /**
+     * Encodes a value the way Parquet stores it in column statistics, which is the plain encoding without the length
+     * prefix for strings.
+     */
+    byte[] toStatisticsBytes(Object value) {
+        if (physicalType == PHYSICAL_TYPE_BYTE_ARRAY) {
+            return (byte[]) value;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8);
+        writePlain(value, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a value from column statistics.
+     * @return The value in its canonical form, or null if the bytes are not the right length for this type.
+     */
+    Object fromStatisticsBytes(byte[] bytes) {
+        if (physicalType == PHYSICAL_TYPE_BYTE_ARRAY) {
+            return bytes;
+        }
+
+        int expectedLength = physicalType == PHYSICAL_TYPE_INT32 || physicalType == PHYSICAL_TYPE_FLOAT ? 4 : 8;
+        return bytes.length == expectedLength ? readPlain(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)) : null;
+    }
+
+    /**
+     * Converts a value supplied by a user, such as the operand of a ParquetFilter, to the canonical form of this type
+     * so it can be compared with the values in a column.
+     * @throws IllegalArgumentException If the value cannot be converted to this type.
+     */
+    Object toCanonicalValue(Object value) {
+        switch (this) {
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    return value;
+                }
+                break;
+            case INT32:
+                if (value instanceof Number) {
+                    return ((Number) value).intValue();
+                }
+                break;
+            case INT64:
+                if (value instanceof Number) {
+                    return ((Number) value).longValue();
+                }
+                break;
+            case FLOAT:
+                if (value instanceof Number) {
+                    return ((Number) value).floatValue();
+                }
+                break;
+            case DOUBLE:
+                if (value instanceof Number) {
+                    return ((Number) value).doubleValue();
+                }
+                break;
+            case STRING:
+                if (value instanceof Enum) {
+                    return ((Enum<?>) value).name().getBytes(UTF_8);
+                }
+
+                if (value instanceof CharSequence || value instanceof Character) {
+                    return value.toString().getBytes(UTF_8);
+                }
+                break;
+            case DATE:
+                if (value instanceof org.joda.time.LocalDate) {
+                    return Days.daysBetween(JODA_EPOCH, (org.joda.time.LocalDate) value).getDays();
+                }
+
+                if (value instanceof java.time.LocalDate) {
+                    return (int) ((java.time.LocalDate) value).toEpochDay();
+                }
+                break;
+            case TIMESTAMP_MILLIS:
+                if (value instanceof ReadableInstant) {
+                    return ((ReadableInstant) value).getMillis();
+                }
+
+                if (value instanceof Date) {
+                    return ((Date) value).getTime();
+                }
+
+                if (value instanceof Instant) {
+                    return ((Instant) value).toEpochMilli();
+                }
+
+                if (value instanceof Number) {
+                    return ((Number) value).longValue();
+                }
+                break;
+        }
+
+        throw new IllegalArgumentException("Value " + value + " cannot be compared with a column of type " + this);
+    }
+
+    /**
+     * Converts a value to a JSON node that Jackson can deserialize into any of the Java types ParquetSchema maps to
+     * this type. Timestamps become epoch milliseconds and dates become ISO-8601 strings.
+     */
+    JsonNode toJsonNode(Object value, JsonNodeFactory nodeFactory) {
+        switch (this) {
+            case BOOLEAN:
+                return nodeFactory.booleanNode((Boolean) value);
+            case INT32:
+                return nodeFactory.numberNode((Integer) value);
+            case INT64:
+            case TIMESTAMP_MILLIS:
+                return nodeFactory.numberNode((Long) value);
+            case FLOAT:
+                return nodeFactory.numberNode((Float) value);
+            case DOUBLE:
+                return nodeFactory.numberNode((Double) value);
+            case DATE:
+                return nodeFactory.textNode(java.time.LocalDate.ofEpochDay((Integer) value).toString());
+            default:
+                return nodeFactory.textNode(new String((byte[]) value, UTF_8));
+        }
+    }
+
+    /**
+     * Compares two values in the order Parquet uses for column statistics: signed for numbers and unsigned
+     * lexicographic for strings.
+     */
+    @SuppressWarnings("unchecked")
+    int compare(Object a, Object b) {
+        if (physicalType == PHYSICAL_TYPE_BYTE_ARRAY) {
+            return compareUnsigned((byte[]) a, (byte[]) b);
+        }
+
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    /**
+     * Whether a value can be included in column statistics. NaN has no place in the ordering so it cannot.
+     */
+    boolean isOrdered(Object value) {
+        if (value instanceof Float) {
+            return !((Float) value).isNaN();
+        }
+
+        if (value instanceof Double) {
+            return !((Double) value).isNaN();
+        }
+
+        return true;
+    }
+
+    static int compareUnsigned(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+
+        for (int i = 0; i < length; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.MalformedInputException;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression codecs that can be used to compress the pages of a Parquet file. SNAPPY is the codec most Parquet
+ * writers use by default, ZSTD compresses about as well as GZIP at several times the speed, and LZ4_RAW is the fastest
+ * to write and read. The deprecated Hadoop framed LZ4 codec is not supported.
+ */
+@SuppressWarnings("WeakerAccess")
+public enum ParquetCompressionCodec {
+    UNCOMPRESSED(0) {
+        @Override
+        byte[] compress(byte[] bytes) {
+            return bytes;
+        }
+
+        @Override
+        byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) {
+            byte[] uncompressed = new byte[length];
+            System.arraycopy(bytes, offset, uncompressed, 0, length);
+            return uncompressed;
+        }
+    },
+
+    GZIP(2) {
+        @Override
+        byte[] compress(byte[] bytes) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 32);
+
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+                gzipOutputStream.write(bytes);
+            } catch (IOException e) {
+                // Writing to memory does not throw
+                throw new UncheckedIOException(e);
+            }
+
+            return compressed.toByteArray();
+        }
+
+        @Override
+        byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) throws IOException {
+            byte[] uncompressed = new byte[uncompressedLength];
+
+            try (InputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+                int bytesRead = 0;
+
+                while (bytesRead < uncompressedLength) {
+                    int result = gzipInputStream.read(uncompressed, bytesRead, uncompressedLength - bytesRead);
+
+                    if (result == -1) {
+                        throw new IOException("Compressed Parquet page is shorter than its header says");
+                    }
+
+                    bytesRead += result;
+                }
+            }
+
+            return uncompressed;
+        }
+    },
+
+    SNAPPY(1) {
+        @Override
+        byte[] compress(byte[] bytes) {
+            return compressWith(new SnappyCompressor(), bytes);
+        }
+
+        @Override
+        byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) throws IOException {
+            return decompressWith(new SnappyDecompressor(), bytes, offset, length, uncompressedLength);
+        }
+    },
+
+    ZSTD(6) {
+        @Override
+        byte[] compress(byte[] bytes) {
+            return compressWith(new ZstdCompressor(), bytes);
+        }
+
+        @Override
+        byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) throws IOException {
+            return decompressWith(new ZstdDecompressor(), bytes, offset, length, uncompressedLength);
+        }
+    },
+
+    LZ4_RAW(7) {
+        @Override
+        byte[] compress(byte[] bytes) {
+            return compressWith(new Lz4Compressor(), bytes);
+        }
+
+        @Override
+        byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) throws IOException {
+            return decompressWith(new Lz4Decompressor(), bytes, offset, length, uncompressedLength);
+        }
+    };
+
+    private final int thriftId;
+
+    ParquetCompressionCodec(int thriftId) {
+        this.thriftId = thriftId;
+    }
+
+    int getThriftId() {
+        return thriftId;
+    }
+
+    /**
+     * Find the codec a Parquet file refers to by its Thrift id.
+     * @param thriftId The id of the codec in the file metadata.
+     * @return The codec, or null if it is not one this package can read.
+     */
+    static ParquetCompressionCodec fromThriftId(int thriftId) {
+        for (ParquetCompressionCodec codec : values()) {
+            if (codec.thriftId == thriftId) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    abstract byte[] compress(byte[] bytes);
+
+    abstract byte[] decompress(byte[] bytes, int offset, int length, int uncompressedLength) throws IOException;
+
+    // The compressors and decompressors keep working state, so a new one is used for every page
+    private static byte[] compressWith(Compressor compressor, byte[] bytes) {
+        byte[] compressed = new byte[compressor.maxCompressedLength(bytes.length)];
+        int compressedLength = compressor.compress(bytes, 0, bytes.length, compressed, 0, compressed.length);
+
+        return Arrays.copyOf(compressed, compressedLength);
+    }
+
+    private static byte[] decompressWith(Decompressor decompressor, byte[] bytes, int offset, int length,
+                                         int uncompressedLength) throws IOException {
+        byte[] uncompressed = new byte[uncompressedLength];
+        int decompressedLength;
+
+        try {
+            decompressedLength = decompressor.decompress(bytes, offset, length, uncompressed, 0, uncompressedLength);
+        } catch (MalformedInputException e) {
+            throw new IOException("Compressed Parquet page is corrupt", e);
+        }
+
+        if (decompressedLength != uncompressedLength) {
+            throw new IOException("Compressed Parquet page is shorter than its header says");
+        }
+
+        return uncompressed;
+    }
+}
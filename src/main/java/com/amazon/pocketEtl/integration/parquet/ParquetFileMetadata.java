@@ -0,0 +1,353 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of the footer of a Parquet file that are needed to read it: the top-level columns of its schema, and where
+ * each column chunk of each row group is stored along with its statistics. Columns nested inside groups are left out.
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+class ParquetFileMetadata {
+    private static final int REPETITION_REQUIRED = 0;
+    private static final int REPETITION_REPEATED = 2;
+
+    private final List<Column> columns;
+    private final List<RowGroup> rowGroups;
+
+    /**
+     * Parses the Thrift encoded FileMetaData struct from the footer of a Parquet file.
+     * @param footer The bytes of the footer.
+     * @return The parsed metadata.
+     * @throws IOException If the footer is malformed.
+     */
+    static ParquetFileMetadata parse(byte[] footer) throws IOException {
+        ThriftCompactReader reader = new ThriftCompactReader(footer, 0, footer.length);
+        List<SchemaElement> schemaElements = new ArrayList<>();
+        List<RowGroup> rowGroups = new ArrayList<>();
+
+        reader.readStructBegin();
+
+        for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+            if (fieldId == 2) {
+                int size = reader.readListBegin();
+
+                for (int i = 0; i < size; i++) {
+                    schemaElements.add(SchemaElement.read(reader));
+                }
+            } else if (fieldId == 4) {
+                int size = reader.readListBegin();
+
+                for (int i = 0; i < size; i++) {
+                    rowGroups.add(RowGroup.read(reader));
+                }
+            } else {
+                reader.skipField();
+            }
+        }
+
+        return new ParquetFileMetadata(getTopLevelColumns(schemaElements), rowGroups);
+    }
+
+    // The first schema element is the root, and every group is followed by the elements of its children
+    private static List<Column> getTopLevelColumns(List<SchemaElement> schemaElements) throws IOException {
+        if (schemaElements.isEmpty()) {
+            throw new IOException("Parquet file has no schema");
+        }
+
+        ImmutableList.Builder<Column> columns = ImmutableList.builder();
+        int index = 1;
+
+        for (int child = 0; child < schemaElements.get(0).numChildren; child++) {
+            if (index >= schemaElements.size()) {
+                throw new IOException("Parquet schema has fewer elements than its groups say");
+            }
+
+            SchemaElement element = schemaElements.get(index);
+
+            if (element.numChildren == 0 && element.repetition != REPETITION_REPEATED) {
+                columns.add(new Column(element.name, element.physicalType, element.convertedType,
+                        element.repetition == REPETITION_REQUIRED));
+            }
+
+            index = skipSubtree(schemaElements, index);
+        }
+
+        return columns.build();
+    }
+
+    private static int skipSubtree(List<SchemaElement> schemaElements, int index) {
+        int next = index + 1;
+
+        for (int child = 0; child < schemaElements.get(index).numChildren && next < schemaElements.size(); child++) {
+            next = skipSubtree(schemaElements, next);
+        }
+
+        return next;
+    }
+
+    /**
+     * A top-level column of the file schema.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    static class Column {
+        private final String name;
+        private final Integer physicalType;
+        private final Integer convertedType;
+        private final boolean required;
+    }
+
+    /**
+     * A row group, and the column chunks of its top-level columns keyed by column name.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    static class RowGroup {
+        private final long rowCount;
+        private final Map<String, ColumnChunk> columnChunks;
+
+        static RowGroup read(ThriftCompactReader reader) throws IOException {
+            long rowCount = 0;
+            Map<String, ColumnChunk> columnChunks = new HashMap<>();
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                if (fieldId == 1) {
+                    int size = reader.readListBegin();
+
+                    for (int i = 0; i < size; i++) {
+                        ColumnChunk columnChunk = ColumnChunk.read(reader);
+
+                        if (columnChunk != null) {
+                            columnChunks.put(columnChunk.name, columnChunk);
+                        }
+                    }
+                } else if (fieldId == 3) {
+                    rowCount = reader.readI64();
+                } else {
+                    reader.skipField();
+                }
+            }
+
+            return new RowGroup(rowCount, columnChunks);
+        }
+    }
+
+    /**
+     * Where a column chunk is stored in the file, and its statistics. The minimum and maximum values are null if the
+     * writer did not record them in an order this package understands.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    static class ColumnChunk {
+        private final String name;
+        private final int codec;
+        private final long valueCount;
+        private final long startOffset;
+        private final long compressedSizeInBytes;
+        private final Long nullCount;
+        private final byte[] minValue;
+        private final byte[] maxValue;
+
+        // Returns null for a column chunk that is nested inside a group or stored in another file
+        static ColumnChunk read(ThriftCompactReader reader) throws IOException {
+            ColumnChunk columnChunk = null;
+            boolean inThisFile = true;
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                if (fieldId == 1) {
+                    reader.readBinary();
+                    inThisFile = false;
+                } else if (fieldId == 3) {
+                    columnChunk = readColumnMetadata(reader);
+                } else {
+                    reader.skipField();
+                }
+            }
+
+            return inThisFile ? columnChunk : null;
+        }
+
+        private static ColumnChunk readColumnMetadata(ThriftCompactReader reader) throws IOException {
+            List<String> path = new ArrayList<>();
+            int physicalType = 0;
+            int codec = 0;
+            long valueCount = 0;
+            long compressedSizeInBytes = 0;
+            long dataPageOffset = 0;
+            Long dictionaryPageOffset = null;
+            Statistics statistics = new Statistics();
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                switch (fieldId) {
+                    case 1:
+                        physicalType = reader.readI32();
+                        break;
+                    case 3:
+                        int size = reader.readListBegin();
+
+                        for (int i = 0; i < size; i++) {
+                            path.add(reader.readString());
+                        }
+                        break;
+                    case 4:
+                        codec = reader.readI32();
+                        break;
+                    case 5:
+                        valueCount = reader.readI64();
+                        break;
+                    case 7:
+                        compressedSizeInBytes = reader.readI64();
+                        break;
+                    case 9:
+                        dataPageOffset = reader.readI64();
+                        break;
+                    case 11:
+                        dictionaryPageOffset = reader.readI64();
+                        break;
+                    case 12:
+                        statistics = Statistics.read(reader);
+                        break;
+                    default:
+                        reader.skipField();
+                }
+            }
+
+            if (path.size() != 1) {
+                return null;
+            }
+
+            // Some writers record a dictionary page offset of zero when there is no dictionary page
+            long startOffset = dictionaryPageOffset != null && dictionaryPageOffset > 0 &&
+                    dictionaryPageOffset < dataPageOffset ? dictionaryPageOffset : dataPageOffset;
+
+            return new ColumnChunk(path.get(0), codec, valueCount, startOffset, compressedSizeInBytes,
+                    statistics.nullCount, statistics.getMinValue(physicalType),
+                    statistics.getMaxValue(physicalType));
+        }
+    }
+
+    private static class SchemaElement {
+        private Integer physicalType = null;
+        private int repetition = REPETITION_REQUIRED;
+        private String name = null;
+        private int numChildren = 0;
+        private Integer convertedType = null;
+
+        static SchemaElement read(ThriftCompactReader reader) throws IOException {
+            SchemaElement element = new SchemaElement();
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                switch (fieldId) {
+                    case 1:
+                        element.physicalType = reader.readI32();
+                        break;
+                    case 3:
+                        element.repetition = reader.readI32();
+                        break;
+                    case 4:
+                        element.name = reader.readString();
+                        break;
+                    case 5:
+                        element.numChildren = reader.readI32();
+                        break;
+                    case 6:
+                        element.convertedType = reader.readI32();
+                        break;
+                    default:
+                        reader.skipField();
+                }
+            }
+
+            return element;
+        }
+    }
+
+    // Min_value and max_value are always in the order defined by the column type, but the deprecated min and max were
+    // written in signed byte order for strings by older writers so they are only trusted for other types
+    private static class Statistics {
+        private byte[] min = null;
+        private byte[] max = null;
+        private byte[] minValue = null;
+        private byte[] maxValue = null;
+        private Long nullCount = null;
+
+        static Statistics read(ThriftCompactReader reader) throws IOException {
+            Statistics statistics = new Statistics();
+
+            reader.readStructBegin();
+
+            for (int fieldId = reader.readFieldBegin(); fieldId != 0; fieldId = reader.readFieldBegin()) {
+                switch (fieldId) {
+                    case 1:
+                        statistics.max = reader.readBinary();
+                        break;
+                    case 2:
+                        statistics.min = reader.readBinary();
+                        break;
+                    case 3:
+                        statistics.nullCount = reader.readI64();
+                        break;
+                    case 5:
+                        statistics.maxValue = reader.readBinary();
+                        break;
+                    case 6:
+                        statistics.minValue = reader.readBinary();
+                        break;
+                    default:
+                        reader.skipField();
+                }
+            }
+
+            return statistics;
+        }
+
+        byte[] getMinValue(int physicalType) {
+            if (minValue != null && maxValue != null) {
+                return minValue;
+            }
+
+            return physicalType != ParquetColumnType.PHYSICAL_TYPE_BYTE_ARRAY && max != null ? min : null;
+        }
+
+        byte[] getMaxValue(int physicalType) {
+            if (minValue != null && maxValue != null) {
+                return maxValue;
+            }
+
+            return physicalType != ParquetColumnType.PHYSICAL_TYPE_BYTE_ARRAY && min != null ? max : null;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.amazon.pocketEtl.integration.parquet.ParquetFileMetadata.Column;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileMetadata.ColumnChunk;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileMetadata.RowGroup;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter.BoundFilter;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter.ColumnStatistics;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads objects from a Parquet file, mapping each column to the property of the same name (ignoring case) using
+ * Jackson, so any class that can be deserialized from JSON with matching property names can be read. Only the columns
+ * that map to a property of the class, or that the filter refers to, are read; the other columns are never read from
+ * the source.
+ *
+ * If a filter is supplied, row groups whose statistics show that none of their rows can match it are skipped without
+ * their columns being read, and only the rows that match it are returned.
+ *
+ * The footer is read when the reader is constructed, and then the projected columns of one row group at a time are
+ * read into memory as the rows are iterated over. Columns nested inside groups and repeated columns are not supported,
+ * and their properties are left unset. This class is not thread-safe.
+ *
+ * @param <T> The type of object being read.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ParquetFileReader<T> implements Iterator<T> {
+    private static final byte[] MAGIC = "PAR1".getBytes(Charset.forName("US-ASCII"));
+    private static final int TRAILER_LENGTH = 8;
+
+    // Reading this much of the end of the file at once usually gets the whole footer in a single read
+    private static final int FOOTER_READ_AHEAD_IN_BYTES = 64 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            // Column names are matched to properties regardless of case, like JSONStringMapper
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true)
+            // Timestamps are epoch milliseconds
+            .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
+            .registerModules(new JodaModule(), new Jdk8Module(), new JavaTimeModule());
+
+    private final ParquetSource source;
+    private final ObjectReader objectReader;
+    private final List<RowGroup> rowGroups;
+    private final List<Column> columnsToRead = new ArrayList<>();
+    private final List<ParquetColumnType> columnTypes = new ArrayList<>();
+    private final List<String> propertyNames = new ArrayList<>();
+    private final BoundFilter filter;
+
+    private int nextRowGroup = 0;
+    private int skippedRowGroupCount = 0;
+    private Object[][] columnValues = null;
+    private int rowCount = 0;
+    private int nextRow = 0;
+    private T nextObject = null;
+
+    /**
+     * Starts reading a Parquet file by reading its footer.
+     * @param source The file to read.
+     * @param classToRead The class the rows are mapped to.
+     * @param filter A filter the rows must match to be returned, or null to return every row.
+     * @throws IOException If the footer could not be read or is malformed.
+     * @throws IllegalArgumentException If a column that would be read has a type that cannot be read, or the filter
+     *                                  refers to a column that is not in the file.
+     */
+    public ParquetFileReader(ParquetSource source, Class<T> classToRead, @Nullable ParquetFilter filter)
+            throws IOException {
+        ParquetFileMetadata metadata = readMetadata(source);
+        Map<String, String> propertyNamesByColumnName = getPropertyNamesByColumnName(classToRead);
+        Set<String> filterColumnNames = new HashSet<>();
+
+        if (filter != null) {
+            Set<String> columnNames = new HashSet<>();
+            filter.addColumnNames(columnNames);
+            columnNames.forEach(name -> filterColumnNames.add(name.toLowerCase(Locale.ROOT)));
+        }
+
+        Map<String, Integer> columnIndexes = new HashMap<>();
+
+        for (Column column : metadata.getColumns()) {
+            String columnName = column.getName().toLowerCase(Locale.ROOT);
+            String propertyName = propertyNamesByColumnName.get(columnName);
+
+            if (propertyName != null || filterColumnNames.contains(columnName)) {
+                ParquetColumnType type = column.getPhysicalType() == null ? null :
+                        ParquetColumnType.fromSchema(column.getPhysicalType(), column.getConvertedType());
+
+                if (type == null) {
+                    throw new IllegalArgumentException("Column '" + column.getName()
+                            + "' of the Parquet file has a type that cannot be read");
+                }
+
+                columnIndexes.put(columnName, columnsToRead.size());
+                columnsToRead.add(column);
+                columnTypes.add(type);
+                propertyNames.add(propertyName);
+            }
+        }
+
+        this.source = source;
+        this.objectReader = objectMapper.readerFor(classToRead);
+        this.rowGroups = metadata.getRowGroups();
+        this.filter = filter == null ? null : filter.bind(name -> {
+            Integer index = columnIndexes.get(name.toLowerCase(Locale.ROOT));
+
+            if (index == null) {
+                throw new IllegalArgumentException("Filter refers to column '" + name
+                        + "' which is not in the Parquet file");
+            }
+
+            return index;
+        }, columnTypes);
+    }
+
+    /**
+     * @return true if there is another row that matches the filter.
+     * @throws UncheckedIOException If a row group could not be read or a row could not be mapped to an object.
+     */
+    @Override
+    public boolean hasNext() {
+        while (nextObject == null) {
+            if (nextRow == rowCount) {
+                if (!readNextRowGroup()) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            int row = nextRow++;
+
+            if (filter == null || filter.matches(columnValues, row)) {
+                nextObject = toObject(row);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The next row that matches the filter.
+     * @throws UncheckedIOException If a row group could not be read or a row could not be mapped to an object.
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T object = nextObject;
+        nextObject = null;
+
+        return object;
+    }
+
+    /**
+     * @return The number of row groups that have been skipped so far because no row in them could match the filter.
+     */
+    public int getSkippedRowGroupCount() {
+        return skippedRowGroupCount;
+    }
+
+    private static ParquetFileMetadata readMetadata(ParquetSource source) throws IOException {
+        long length = source.getLength();
+
+        if (length < MAGIC.length + TRAILER_LENGTH) {
+            throw new IOException("File is too short to be a Parquet file");
+        }
+
+        int tailLength = (int) Math.min(length, FOOTER_READ_AHEAD_IN_BYTES);
+        byte[] tail = new byte[tailLength];
+        source.readFully(length - tailLength, tail, 0, tailLength);
+
+        if (!Arrays.equals(Arrays.copyOfRange(tail, tailLength - MAGIC.length, tailLength), MAGIC)) {
+            throw new IOException("File is not a Parquet file");
+        }
+
+        int footerLength = ByteBuffer.wrap(tail, tailLength - TRAILER_LENGTH, 4).order(ByteOrder.LITTLE_ENDIAN)
+                .getInt();
+
+        if (footerLength < 0 || footerLength > length - MAGIC.length - TRAILER_LENGTH) {
+            throw new IOException("Parquet footer length " + footerLength + " is invalid");
+        }
+
+        byte[] footer = new byte[footerLength];
+
+        if (footerLength <= tailLength - TRAILER_LENGTH) {
+            System.arraycopy(tail, tailLength - TRAILER_LENGTH - footerLength, footer, 0, footerLength);
+        } else {
+            source.readFully(length - TRAILER_LENGTH - footerLength, footer, 0, footerLength);
+        }
+
+        return ParquetFileMetadata.parse(footer);
+    }
+
+    private static Map<String, String> getPropertyNamesByColumnName(Class<?> classToRead) {
+        BeanDescription description =
+                objectMapper.getDeserializationConfig().introspect(objectMapper.constructType(classToRead));
+        Map<String, String> propertyNames = new HashMap<>();
+
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.hasSetter() || property.hasField() || property.hasConstructorParameter()) {
+                propertyNames.put(property.getName().toLowerCase(Locale.ROOT), property.getName());
+            }
+        }
+
+        return propertyNames;
+    }
+
+    private boolean readNextRowGroup() {
+        columnValues = null;
+        rowCount = 0;
+        nextRow = 0;
+
+        try {
+            while (nextRowGroup < rowGroups.size()) {
+                RowGroup rowGroup = rowGroups.get(nextRowGroup++);
+
+                if (rowGroup.getRowCount() == 0) {
+                    continue;
+                }
+
+                if (rowGroup.getRowCount() > Integer.MAX_VALUE) {
+                    throw new IOException("Row group has too many rows to be read");
+                }
+
+                ColumnChunk[] columnChunks = getColumnChunks(rowGroup);
+
+                if (filter != null && !filter.mightMatch(getStatistics(columnChunks))) {
+                    skippedRowGroupCount++;
+                    continue;
+                }
+
+                int rowGroupRowCount = (int) rowGroup.getRowCount();
+                columnValues = new Object[columnChunks.length][];
+
+                for (int i = 0; i < columnChunks.length; i++) {
+                    columnValues[i] = ColumnChunkReader.read(source, columnChunks[i], columnTypes.get(i),
+                            columnsToRead.get(i).isRequired(), rowGroupRowCount);
+                }
+
+                rowCount = rowGroupRowCount;
+                return true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return false;
+    }
+
+    private ColumnChunk[] getColumnChunks(RowGroup rowGroup) throws IOException {
+        ColumnChunk[] columnChunks = new ColumnChunk[columnsToRead.size()];
+
+        for (int i = 0; i < columnChunks.length; i++) {
+            columnChunks[i] = rowGroup.getColumnChunks().get(columnsToRead.get(i).getName());
+
+            if (columnChunks[i] == null) {
+                throw new IOException("Row group has no column chunk for column '" + columnsToRead.get(i).getName()
+                        + "'");
+            }
+        }
+
+        return columnChunks;
+    }
+
+    private ColumnStatistics[] getStatistics(ColumnChunk[] columnChunks) {
+        ColumnStatistics[] statistics = new ColumnStatistics[columnChunks.length];
+
+        for (int i = 0; i < columnChunks.length; i++) {
+            ColumnChunk columnChunk = columnChunks[i];
+            ParquetColumnType type = columnTypes.get(i);
+            Object minValue = columnChunk.getMinValue() == null ? null :
+                    type.fromStatisticsBytes(columnChunk.getMinValue());
+            Object maxValue = columnChunk.getMaxValue() == null ? null :
+                    type.fromStatisticsBytes(columnChunk.getMaxValue());
+
+            statistics[i] = new ColumnStatistics(minValue, maxValue, columnChunk.getNullCount(),
+                    columnChunk.getValueCount());
+        }
+
+        return statistics;
+    }
+
+    private T toObject(int row) {
+        ObjectNode node = objectMapper.createObjectNode();
+        JsonNodeFactory nodeFactory = objectMapper.getNodeFactory();
+
+        for (int i = 0; i < columnValues.length; i++) {
+            String propertyName = propertyNames.get(i);
+
+            // Columns that are only read for the filter are not mapped
+            if (propertyName != null) {
+                Object value = columnValues[i][row];
+                node.set(propertyName, value == null ? nodeFactory.nullNode() :
+                        columnTypes.get(i).toJsonNode(value, nodeFactory));
+            }
+        }
+
+        try {
+            return objectReader.readValue(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
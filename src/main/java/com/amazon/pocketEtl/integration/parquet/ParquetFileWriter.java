@@ -0,0 +1,228 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.amazon.pocketEtl.integration.parquet.ColumnChunkWriter.ColumnChunkMetadata;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes objects to a single Parquet file with a flat schema derived from their class. Rows are buffered in memory
+ * until the caller flushes them as a row group, and the file is complete once finish has been called. The caller is
+ * responsible for deciding how large row groups and files should be, using getBufferedSizeInBytes and
+ * getBytesWritten. This class is not thread-safe.
+ *
+ * Each column chunk is dictionary encoded where that makes it smaller, every page is compressed with the chosen codec,
+ * and the footer records the minimum and maximum value and null count of every column chunk so readers can skip row
+ * groups that cannot contain what they are looking for.
+ *
+ * @param <T> The type of object being written.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ParquetFileWriter<T> {
+    private static final byte[] MAGIC = "PAR1".getBytes(Charset.forName("US-ASCII"));
+    private static final String CREATED_BY = "pocket-etl";
+    private static final int FORMAT_VERSION = 1;
+    private static final int REPETITION_REQUIRED = 0;
+    private static final int REPETITION_OPTIONAL = 1;
+
+    // Limits that keep pages to a size readers can comfortably hold in memory
+    private static final int PAGE_ROW_COUNT_LIMIT = 20000;
+    private static final int MAX_DICTIONARY_SIZE_IN_BYTES = 1024 * 1024;
+
+    private final ParquetSchema<T> schema;
+    private final ParquetCompressionCodec codec;
+    private final OutputStream outputStream;
+    private final List<ColumnChunkWriter> columnChunkWriters;
+    private final Object[] rowValues;
+    private final List<RowGroupMetadata> rowGroups = new ArrayList<>();
+
+    private long bytesWritten = 0;
+    private long bufferedRowCount = 0;
+    private long rowCount = 0;
+
+    /**
+     * Starts writing a new Parquet file.
+     * @param schema The schema of the objects being written.
+     * @param codec The codec used to compress every page.
+     * @param outputStream Where the file is written. It is never closed by this writer.
+     * @throws IOException If the file could not be written to the stream.
+     */
+    public ParquetFileWriter(ParquetSchema<T> schema, ParquetCompressionCodec codec, OutputStream outputStream)
+            throws IOException {
+        this.schema = schema;
+        this.codec = codec;
+        this.outputStream = outputStream;
+        this.columnChunkWriters = schema.getColumns().stream()
+                .map(column -> new ColumnChunkWriter(column, codec, PAGE_ROW_COUNT_LIMIT, MAX_DICTIONARY_SIZE_IN_BYTES))
+                .collect(Collectors.toList());
+        this.rowValues = new Object[columnChunkWriters.size()];
+
+        writeBytes(MAGIC);
+    }
+
+    /**
+     * Adds an object to the row group being buffered.
+     * @param object The object to write.
+     */
+    public void write(T object) {
+        List<ParquetColumn> columns = schema.getColumns();
+
+        // Read every value before adding any so a failure cannot leave the columns with different numbers of rows
+        for (int i = 0; i < rowValues.length; i++) {
+            rowValues[i] = columns.get(i).getValue(object);
+        }
+
+        for (int i = 0; i < rowValues.length; i++) {
+            columnChunkWriters.get(i).add(rowValues[i]);
+        }
+
+        bufferedRowCount++;
+        rowCount++;
+    }
+
+    /**
+     * Estimate how much space the row group being buffered would take if it was written now.
+     * @return The estimated size in bytes.
+     */
+    public long getBufferedSizeInBytes() {
+        return columnChunkWriters.stream().mapToLong(ColumnChunkWriter::getBufferedSizeInBytes).sum();
+    }
+
+    /**
+     * @return The number of bytes that have been written to the output stream so far.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return The number of objects that have been written to the file, including any still being buffered.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the row group being buffered to the output stream, if it holds any rows.
+     * @throws IOException If the row group could not be written to the stream.
+     */
+    public void flushRowGroup() throws IOException {
+        if (bufferedRowCount == 0) {
+            return;
+        }
+
+        List<ColumnChunkMetadata> columnChunks = new ArrayList<>(columnChunkWriters.size());
+        long totalUncompressedSizeInBytes = 0;
+
+        for (ColumnChunkWriter columnChunkWriter : columnChunkWriters) {
+            ColumnChunkMetadata columnChunk = columnChunkWriter.writeColumnChunk(outputStream, bytesWritten);
+            bytesWritten += columnChunk.getCompressedSizeInBytes();
+            totalUncompressedSizeInBytes += columnChunk.getUncompressedSizeInBytes();
+            columnChunks.add(columnChunk);
+        }
+
+        rowGroups.add(new RowGroupMetadata(columnChunks, totalUncompressedSizeInBytes, bufferedRowCount));
+        bufferedRowCount = 0;
+    }
+
+    /**
+     * Writes the row group being buffered and the file footer to the output stream, completing the file. Nothing more
+     * can be written after this.
+     * @throws IOException If the file could not be written to the stream.
+     */
+    public void finish() throws IOException {
+        flushRowGroup();
+
+        ThriftCompactWriter footer = new ThriftCompactWriter();
+        List<ParquetColumn> columns = schema.getColumns();
+
+        footer.writeStructBegin();
+        footer.writeI32Field(1, FORMAT_VERSION);
+
+        footer.writeListFieldBegin(2, ThriftCompactWriter.TYPE_STRUCT, columns.size() + 1);
+        footer.writeStructBegin();
+        footer.writeStringField(4, "schema");
+        footer.writeI32Field(5, columns.size());
+        footer.writeStructEnd();
+
+        for (ParquetColumn column : columns) {
+            footer.writeStructBegin();
+            footer.writeI32Field(1, column.getType().getPhysicalType());
+            footer.writeI32Field(3, column.isRequired() ? REPETITION_REQUIRED : REPETITION_OPTIONAL);
+            footer.writeStringField(4, column.getName());
+
+            if (column.getType().getConvertedType() != null) {
+                footer.writeI32Field(6, column.getType().getConvertedType());
+            }
+
+            footer.writeStructEnd();
+        }
+
+        footer.writeI64Field(3, rowCount);
+        footer.writeListFieldBegin(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        rowGroups.forEach(rowGroup -> rowGroup.write(footer));
+        footer.writeStringField(6, CREATED_BY);
+
+        // Declares that the statistics use the ordering defined by each column's type
+        footer.writeListFieldBegin(7, ThriftCompactWriter.TYPE_STRUCT, columns.size());
+
+        for (int i = 0; i < columns.size(); i++) {
+            footer.writeStructBegin();
+            footer.writeStructFieldBegin(1);
+            footer.writeStructEnd();
+            footer.writeStructEnd();
+        }
+
+        footer.writeStructEnd();
+
+        byte[] footerBytes = footer.toByteArray();
+        ByteArrayOutputStream footerLength = new ByteArrayOutputStream(4);
+        LittleEndian.writeInt(footerLength, footerBytes.length);
+
+        writeBytes(footerBytes);
+        writeBytes(footerLength.toByteArray());
+        writeBytes(MAGIC);
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        outputStream.write(bytes);
+        bytesWritten += bytes.length;
+    }
+
+    @RequiredArgsConstructor
+    private static class RowGroupMetadata {
+        private final List<ColumnChunkMetadata> columnChunks;
+        private final long totalUncompressedSizeInBytes;
+        private final long rowCount;
+
+        void write(ThriftCompactWriter writer) {
+            writer.writeStructBegin();
+            writer.writeListFieldBegin(1, ThriftCompactWriter.TYPE_STRUCT, columnChunks.size());
+            columnChunks.forEach(columnChunk -> columnChunk.write(writer));
+            writer.writeI64Field(2, totalUncompressedSizeInBytes);
+            writer.writeI64Field(3, rowCount);
+            writer.writeStructEnd();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A predicate on the columns of a Parquet file that a ParquetFileReader uses in two ways: row groups whose column
+ * statistics show that no row in them can match are skipped without being read, and the rows of the row groups that
+ * are read are only returned if they match.
+ *
+ * Comparisons are made in the order Parquet uses for column statistics, so strings compare by their UTF-8 bytes, and
+ * the value being compared with is converted to the type of the column first (eg: a DateTime compared with a timestamp
+ * column is converted to epoch milliseconds). A null value never matches a comparison. Filters can be combined with
+ * and(...) and or(...).
+ *
+ * Example usage:
+ * ParquetFilter.and(ParquetFilter.greaterThanOrEqualTo("orderDate", startDate),
+ *                   ParquetFilter.equalTo("marketplace", "US"))
+ *
+ * Filters are immutable and threadsafe.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class ParquetFilter {
+    // Only the filters in this class can be used, as the reader has to be able to evaluate them against statistics
+    ParquetFilter() {
+    }
+
+    /**
+     * Matches rows where the value of a column is equal to a value.
+     * @param columnName The name of the column, ignoring case.
+     * @param value The value to compare with, which is converted to the type of the column.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter equalTo(String columnName, Object value) {
+        return new ComparisonFilter(columnName, Comparison.EQUAL_TO, value);
+    }
+
+    /**
+     * Matches rows where the value of a column is greater than a value.
+     * @param columnName The name of the column, ignoring case.
+     * @param value The value to compare with, which is converted to the type of the column.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter greaterThan(String columnName, Object value) {
+        return new ComparisonFilter(columnName, Comparison.GREATER_THAN, value);
+    }
+
+    /**
+     * Matches rows where the value of a column is greater than or equal to a value.
+     * @param columnName The name of the column, ignoring case.
+     * @param value The value to compare with, which is converted to the type of the column.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter greaterThanOrEqualTo(String columnName, Object value) {
+        return new ComparisonFilter(columnName, Comparison.GREATER_THAN_OR_EQUAL_TO, value);
+    }
+
+    /**
+     * Matches rows where the value of a column is less than a value.
+     * @param columnName The name of the column, ignoring case.
+     * @param value The value to compare with, which is converted to the type of the column.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter lessThan(String columnName, Object value) {
+        return new ComparisonFilter(columnName, Comparison.LESS_THAN, value);
+    }
+
+    /**
+     * Matches rows where the value of a column is less than or equal to a value.
+     * @param columnName The name of the column, ignoring case.
+     * @param value The value to compare with, which is converted to the type of the column.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter lessThanOrEqualTo(String columnName, Object value) {
+        return new ComparisonFilter(columnName, Comparison.LESS_THAN_OR_EQUAL_TO, value);
+    }
+
+    /**
+     * Combines filters so that a row only matches if it matches all of them.
+     * @param filters The filters to combine.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter and(ParquetFilter... filters) {
+        return new CombinedFilter(ImmutableList.copyOf(filters), true);
+    }
+
+    /**
+     * Combines filters so that a row matches if it matches any of them.
+     * @param filters The filters to combine.
+     * @return A new ParquetFilter.
+     */
+    public static ParquetFilter or(ParquetFilter... filters) {
+        return new CombinedFilter(ImmutableList.copyOf(filters), false);
+    }
+
+    /**
+     * Adds the names of the columns this filter refers to.
+     */
+    abstract void addColumnNames(Set<String> columnNames);
+
+    /**
+     * Resolves the columns this filter refers to against the columns being read from a file.
+     * @param columnIndexes Maps a column name to its index in the columns being read.
+     * @param columnTypes The types of the columns being read.
+     * @return A filter that can be evaluated against statistics and rows.
+     */
+    abstract BoundFilter bind(Function<String, Integer> columnIndexes, List<ParquetColumnType> columnTypes);
+
+    /**
+     * A filter whose columns have been resolved against the columns being read from a file. Statistics and row values
+     * are indexed in the same order as those columns.
+     */
+    interface BoundFilter {
+        /**
+         * @return false if no row in a row group with these statistics can match the filter.
+         */
+        boolean mightMatch(ColumnStatistics[] statistics);
+
+        boolean matches(Object[][] columnValues, int row);
+    }
+
+    /**
+     * The statistics of a column chunk with its values in their canonical form. The minimum and maximum are null if
+     * they are not known.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    static class ColumnStatistics {
+        private final Object minValue;
+        private final Object maxValue;
+        private final Long nullCount;
+        private final long valueCount;
+    }
+
+    private enum Comparison {
+        EQUAL_TO("="),
+        GREATER_THAN(">"),
+        GREATER_THAN_OR_EQUAL_TO(">="),
+        LESS_THAN("<"),
+        LESS_THAN_OR_EQUAL_TO("<=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        // Whether a value that compares with the operand this way matches
+        boolean test(int comparison) {
+            switch (this) {
+                case EQUAL_TO:
+                    return comparison == 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                case GREATER_THAN_OR_EQUAL_TO:
+                    return comparison >= 0;
+                case LESS_THAN:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+
+        // Whether any value between the minimum and maximum could match, given how they compare with the operand
+        boolean mightMatch(int minComparison, int maxComparison) {
+            switch (this) {
+                case EQUAL_TO:
+                    return minComparison <= 0 && maxComparison >= 0;
+                case GREATER_THAN:
+                    return maxComparison > 0;
+                case GREATER_THAN_OR_EQUAL_TO:
+                    return maxComparison >= 0;
+                case LESS_THAN:
+                    return minComparison < 0;
+                default:
+                    return minComparison <= 0;
+            }
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class ComparisonFilter extends ParquetFilter {
+        private final String columnName;
+        private final Comparison comparison;
+        private final Object value;
+
+        @Override
+        void addColumnNames(Set<String> columnNames) {
+            columnNames.add(columnName);
+        }
+
+        @Override
+        BoundFilter bind(Function<String, Integer> columnIndexes, List<ParquetColumnType> columnTypes) {
+            int index = columnIndexes.apply(columnName);
+            ParquetColumnType type = columnTypes.get(index);
+            Object operand = type.toCanonicalValue(value);
+
+            return new BoundFilter() {
+                @Override
+                public boolean mightMatch(ColumnStatistics[] statistics) {
+                    ColumnStatistics columnStatistics = statistics[index];
+
+                    if (columnStatistics == null) {
+                        return true;
+                    }
+
+                    Long nullCount = columnStatistics.getNullCount();
+
+                    if (nullCount != null && nullCount == columnStatistics.getValueCount()) {
+                        return false;
+                    }
+
+                    if (columnStatistics.getMinValue() == null || columnStatistics.getMaxValue() == null) {
+                        return true;
+                    }
+
+                    return comparison.mightMatch(type.compare(columnStatistics.getMinValue(), operand),
+                            type.compare(columnStatistics.getMaxValue(), operand));
+                }
+
+                @Override
+                public boolean matches(Object[][] columnValues, int row) {
+                    Object columnValue = columnValues[index][row];
+                    return columnValue != null && comparison.test(type.compare(columnValue, operand));
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return columnName + " " + comparison.symbol + " " + value;
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class CombinedFilter extends ParquetFilter {
+        private final List<ParquetFilter> filters;
+        private final boolean matchAll;
+
+        @Override
+        void addColumnNames(Set<String> columnNames) {
+            filters.forEach(filter -> filter.addColumnNames(columnNames));
+        }
+
+        @Override
+        BoundFilter bind(Function<String, Integer> columnIndexes, List<ParquetColumnType> columnTypes) {
+            List<BoundFilter> boundFilters = filters.stream()
+                    .map(filter -> filter.bind(columnIndexes, columnTypes))
+                    .collect(Collectors.toList());
+
+            return new BoundFilter() {
+                @Override
+                public boolean mightMatch(ColumnStatistics[] statistics) {
+                    return matchAll ? boundFilters.stream().allMatch(filter -> filter.mightMatch(statistics)) :
+                            boundFilters.stream().anyMatch(filter -> filter.mightMatch(statistics));
+                }
+
+                @Override
+                public boolean matches(Object[][] columnValues, int row) {
+                    for (BoundFilter filter : boundFilters) {
+                        if (filter.matches(columnValues, row) != matchAll) {
+                            return !matchAll;
+                        }
+                    }
+
+                    return matchAll;
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(ParquetFilter::toString)
+                    .collect(Collectors.joining(matchAll ? " and " : " or ", "(", ")"));
+        }
+    }
+}
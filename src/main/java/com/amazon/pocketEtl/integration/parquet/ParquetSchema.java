@@ -0,0 +1,161 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.ReadableInstant;
+
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A flat Parquet schema derived from a Java class, with one column for each property Jackson would serialize, named and
+ * ordered as Jackson would name and order them (so {@literal @JsonProperty} and {@literal @JsonPropertyOrder} are
+ * respected). Properties of primitive types become required columns and everything else becomes optional.
+ *
+ * The supported property types are boolean, byte, short, int, long, float, double and their boxed equivalents, char,
+ * Character, String and enums (written as UTF-8 strings), joda DateTime, java.util.Date and java.time.Instant (written
+ * as UTC millisecond timestamps) and joda or java.time LocalDate (written as dates).
+ *
+ * Schemas are immutable and threadsafe.
+ *
+ * @param <T> The type of object the schema describes.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ParquetSchema<T> {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final LocalDate JODA_EPOCH = new LocalDate(1970, 1, 1);
+
+    private final List<ParquetColumn> columns;
+
+    private ParquetSchema(List<ParquetColumn> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Derive a schema from a Java class.
+     * @param classToWrite The class of the objects that will be written with this schema.
+     * @param <T> The type of object the schema describes.
+     * @return A new schema.
+     * @throws IllegalArgumentException If the class has no properties, or has a property of an unsupported type.
+     */
+    public static <T> ParquetSchema<T> of(Class<T> classToWrite) {
+        BeanDescription description =
+                objectMapper.getSerializationConfig().introspect(objectMapper.constructType(classToWrite));
+        ImmutableList.Builder<ParquetColumn> columns = ImmutableList.builder();
+
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+
+            if (accessor != null) {
+                accessor.fixAccess(true);
+                columns.add(createColumn(classToWrite, property.getName(), accessor));
+            }
+        }
+
+        List<ParquetColumn> builtColumns = columns.build();
+
+        if (builtColumns.isEmpty()) {
+            throw new IllegalArgumentException("Class " + classToWrite.getName() + " has no properties to write");
+        }
+
+        return new ParquetSchema<>(builtColumns);
+    }
+
+    List<ParquetColumn> getColumns() {
+        return columns;
+    }
+
+    private static ParquetColumn createColumn(Class<?> classToWrite, String name, AnnotatedMember accessor) {
+        Class<?> type = accessor instanceof AnnotatedMethod ? ((AnnotatedMethod) accessor).getRawReturnType() :
+                accessor.getRawType();
+        boolean required = type.isPrimitive();
+
+        if (type == boolean.class || type == Boolean.class) {
+            return new ParquetColumn(name, ParquetColumnType.BOOLEAN, required, accessor, Function.identity());
+        }
+
+        if (type == byte.class || type == Byte.class || type == short.class || type == Short.class) {
+            return new ParquetColumn(name, ParquetColumnType.INT32, required, accessor,
+                    value -> ((Number) value).intValue());
+        }
+
+        if (type == int.class || type == Integer.class) {
+            return new ParquetColumn(name, ParquetColumnType.INT32, required, accessor, Function.identity());
+        }
+
+        if (type == long.class || type == Long.class) {
+            return new ParquetColumn(name, ParquetColumnType.INT64, required, accessor, Function.identity());
+        }
+
+        if (type == float.class || type == Float.class) {
+            return new ParquetColumn(name, ParquetColumnType.FLOAT, required, accessor, Function.identity());
+        }
+
+        if (type == double.class || type == Double.class) {
+            return new ParquetColumn(name, ParquetColumnType.DOUBLE, required, accessor, Function.identity());
+        }
+
+        if (type == String.class || type == char.class || type == Character.class) {
+            return new ParquetColumn(name, ParquetColumnType.STRING, required, accessor,
+                    value -> value.toString().getBytes(UTF_8));
+        }
+
+        if (type.isEnum()) {
+            return new ParquetColumn(name, ParquetColumnType.STRING, required, accessor,
+                    value -> ((Enum<?>) value).name().getBytes(UTF_8));
+        }
+
+        if (ReadableInstant.class.isAssignableFrom(type)) {
+            return new ParquetColumn(name, ParquetColumnType.TIMESTAMP_MILLIS, required, accessor,
+                    value -> ((ReadableInstant) value).getMillis());
+        }
+
+        if (Date.class.isAssignableFrom(type)) {
+            return new ParquetColumn(name, ParquetColumnType.TIMESTAMP_MILLIS, required, accessor,
+                    value -> ((Date) value).getTime());
+        }
+
+        if (type == Instant.class) {
+            return new ParquetColumn(name, ParquetColumnType.TIMESTAMP_MILLIS, required, accessor,
+                    value -> ((Instant) value).toEpochMilli());
+        }
+
+        if (type == LocalDate.class) {
+            return new ParquetColumn(name, ParquetColumnType.DATE, required, accessor,
+                    value -> Days.daysBetween(JODA_EPOCH, (LocalDate) value).getDays());
+        }
+
+        if (type == java.time.LocalDate.class) {
+            return new ParquetColumn(name, ParquetColumnType.DATE, required, accessor,
+                    value -> (int) ((java.time.LocalDate) value).toEpochDay());
+        }
+
+        throw new IllegalArgumentException("Property '" + name + "' of " + classToWrite.getName() + " has type "
+                + type.getName() + " which cannot be written to Parquet");
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Random access to the bytes of a Parquet file. A ParquetFileReader reads the footer at the end of the file first, and
+ * then reads only the column chunks it needs, so a source that can read a range of the file without reading everything
+ * before it, such as a local file or an object in S3, avoids reading the columns and row groups that are not used.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface ParquetSource {
+    /**
+     * @return The length of the file in bytes.
+     * @throws IOException If the length could not be determined.
+     */
+    long getLength() throws IOException;
+
+    /**
+     * Reads a range of the file.
+     * @param position The position in the file to start reading from.
+     * @param buffer Where the bytes are written.
+     * @param offset The position in the buffer to write the first byte.
+     * @param length The number of bytes to read.
+     * @throws IOException If the bytes could not be read, including if the range extends past the end of the file.
+     */
+    void readFully(long position, byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Creates a source that reads a file that is held in memory.
+     * @param bytes The contents of the file.
+     * @return A new ParquetSource.
+     */
+    static ParquetSource of(byte[] bytes) {
+        return new ByteArrayParquetSource(bytes);
+    }
+
+    /**
+     * Creates a source that reads a file through a FileChannel using positional reads, which do not change the position
+     * of the channel. The channel is not closed by the source.
+     * @param fileChannel A channel opened for reading on the file.
+     * @return A new ParquetSource.
+     */
+    static ParquetSource of(FileChannel fileChannel) {
+        return new FileChannelParquetSource(fileChannel);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes values written with the RLE/bit-packing hybrid encoding that Parquet uses for definition levels and
+ * dictionary indices. See RleBitPackingHybridEncoder for a description of the encoding.
+ */
+final class RleBitPackingHybridDecoder {
+    private static final int GROUP_SIZE = 8;
+    private static final int MAX_BIT_WIDTH = 32;
+
+    private RleBitPackingHybridDecoder() {
+    }
+
+    /**
+     * Decodes a sequence of values.
+     * @param in A buffer positioned at the first run, which is advanced past the runs that were read.
+     * @param bitWidth The number of bits used to encode each value.
+     * @param count The number of values to decode.
+     * @param values Where the decoded values are written, starting at the beginning of the array.
+     * @throws IOException If the encoded values are malformed.
+     */
+    static void decode(ByteBuffer in, int bitWidth, int count, int[] values) throws IOException {
+        if (bitWidth < 0 || bitWidth > MAX_BIT_WIDTH) {
+            throw new IOException("Invalid bit width " + bitWidth);
+        }
+
+        int decoded = 0;
+
+        while (decoded < count) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Encoded values end after " + decoded + " of " + count + " values");
+            }
+
+            int header = readVarint(in);
+
+            if ((header & 1) == 0) {
+                int runLength = header >>> 1;
+                int value = 0;
+
+                for (int byteIndex = 0; byteIndex < (bitWidth + 7) / 8; byteIndex++) {
+                    value |= (in.get() & 0xFF) << (byteIndex * 8);
+                }
+
+                int end = Math.min(count, decoded + runLength);
+
+                while (decoded < end) {
+                    values[decoded++] = value;
+                }
+            } else {
+                int valuesInRun = (header >>> 1) * GROUP_SIZE;
+                decoded = readBitPacked(in, bitWidth, valuesInRun, values, decoded, count);
+            }
+        }
+    }
+
+    /**
+     * Reads values that are bit-packed without a run header, from the least significant bit of each byte. Values after
+     * the first 'count' are read but discarded.
+     * @return The number of values in the array after reading.
+     */
+    static int readBitPacked(ByteBuffer in, int bitWidth, int valuesInRun, int[] values, int from, int count) {
+        long mask = (1L << bitWidth) - 1;
+        long buffer = 0;
+        int bitsInBuffer = 0;
+        int next = from;
+
+        for (int i = 0; i < valuesInRun; i++) {
+            while (bitsInBuffer < bitWidth) {
+                // Writers may leave out the padding at the end of the last run
+                buffer |= (long) (in.hasRemaining() ? in.get() & 0xFF : 0) << bitsInBuffer;
+                bitsInBuffer += 8;
+            }
+
+            if (next < count) {
+                values[next++] = (int) (buffer & mask);
+            }
+
+            buffer >>>= bitWidth;
+            bitsInBuffer -= bitWidth;
+        }
+
+        return next;
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Run header is too long");
+    }
+}
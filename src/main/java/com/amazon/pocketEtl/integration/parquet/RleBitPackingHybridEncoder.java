@@ -0,0 +1,119 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes integers with the RLE/bit-packing hybrid encoding Parquet uses for definition levels and dictionary indices.
+ * Runs of at least eight identical values are run-length encoded and everything in between is bit-packed in groups of
+ * eight.
+ */
+final class RleBitPackingHybridEncoder {
+    private static final int GROUP_SIZE = 8;
+
+    private RleBitPackingHybridEncoder() {
+    }
+
+    /**
+     * Encodes a sequence of values.
+     * @param values Array holding the values to encode.
+     * @param count The number of values to encode from the start of the array.
+     * @param bitWidth The number of bits needed to hold the largest value.
+     * @param out Where the encoded values are written.
+     */
+    static void encode(int[] values, int count, int bitWidth, ByteArrayOutputStream out) {
+        int bitPackedStart = 0;
+        int i = 0;
+
+        while (i < count) {
+            int runEnd = i + 1;
+
+            while (runEnd < count && values[runEnd] == values[i]) {
+                runEnd++;
+            }
+
+            // A bit-packed run must hold a whole number of groups, so the start of this run may have to complete it
+            int valuesToCompleteGroup = (GROUP_SIZE - (i - bitPackedStart) % GROUP_SIZE) % GROUP_SIZE;
+
+            if (runEnd - i - valuesToCompleteGroup >= GROUP_SIZE) {
+                writeBitPackedRun(values, bitPackedStart, i + valuesToCompleteGroup, bitWidth, out);
+                writeRleRun(values[i], runEnd - i - valuesToCompleteGroup, bitWidth, out);
+                bitPackedStart = runEnd;
+            }
+
+            i = runEnd;
+        }
+
+        writeBitPackedRun(values, bitPackedStart, count, bitWidth, out);
+    }
+
+    /**
+     * Determine the number of bits needed to encode every value from zero up to a maximum.
+     * @param maxValue The maximum value.
+     * @return The bit width, which is never less than one.
+     */
+    static int bitWidth(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    // Values are packed from the least significant bit of each byte, and the last group is padded with zeros
+    static void writeBitPacked(int[] values, int from, int to, int bitWidth, ByteArrayOutputStream out) {
+        int paddedTo = from + ((to - from + GROUP_SIZE - 1) / GROUP_SIZE) * GROUP_SIZE;
+        long mask = (1L << bitWidth) - 1;
+        long buffer = 0;
+        int bitsInBuffer = 0;
+
+        for (int i = from; i < paddedTo; i++) {
+            long value = i < to ? values[i] & mask : 0;
+            buffer |= value << bitsInBuffer;
+            bitsInBuffer += bitWidth;
+
+            while (bitsInBuffer >= 8) {
+                out.write((int) buffer);
+                buffer >>>= 8;
+                bitsInBuffer -= 8;
+            }
+        }
+    }
+
+    private static void writeBitPackedRun(int[] values, int from, int to, int bitWidth, ByteArrayOutputStream out) {
+        if (to <= from) {
+            return;
+        }
+
+        int groups = (to - from + GROUP_SIZE - 1) / GROUP_SIZE;
+        writeVarint(groups << 1 | 1, out);
+        writeBitPacked(values, from, to, bitWidth, out);
+    }
+
+    private static void writeRleRun(int value, int length, int bitWidth, ByteArrayOutputStream out) {
+        writeVarint(length << 1, out);
+
+        for (int byteIndex = 0; byteIndex < (bitWidth + 7) / 8; byteIndex++) {
+            out.write(value >>> (byteIndex * 8));
+        }
+    }
+
+    private static void writeVarint(int value, ByteArrayOutputStream out) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the subset of the Thrift compact protocol that Parquet uses for its file metadata and page headers. Fields are
+ * read in the order they appear, and any field the caller is not interested in can be skipped without knowing its
+ * definition.
+ */
+class ThriftCompactReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TYPE_STOP = 0;
+    private static final int TYPE_BYTE = 3;
+    private static final int TYPE_I16 = 4;
+    private static final int TYPE_DOUBLE = 7;
+    private static final int TYPE_SET = 10;
+    private static final int TYPE_MAP = 11;
+    private static final int MAX_NESTING_DEPTH = 64;
+
+    private final byte[] bytes;
+    private final int limit;
+    private final int[] lastFieldIds = new int[MAX_NESTING_DEPTH];
+    private int position;
+    private int depth = 0;
+    private int fieldType;
+    private int listElementType;
+
+    ThriftCompactReader(byte[] bytes, int offset, int limit) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * Starts reading a struct that is not itself a field, such as the outermost struct or an element of a list. The
+     * fields of the struct are then read by calling readFieldBegin until it returns zero.
+     */
+    void readStructBegin() throws IOException {
+        if (++depth == MAX_NESTING_DEPTH) {
+            throw new IOException("Thrift structs are nested too deeply");
+        }
+
+        lastFieldIds[depth] = 0;
+    }
+
+    /**
+     * Reads the header of the next field of the current struct. Its value must then be read with the method for its
+     * type, or skipped.
+     * @return The id of the field, or zero if the struct has no more fields, in which case the struct has been ended.
+     */
+    int readFieldBegin() throws IOException {
+        int header = readByte();
+
+        if (header == TYPE_STOP) {
+            depth--;
+            return 0;
+        }
+
+        int delta = header >>> 4;
+        int fieldId = delta == 0 ? (short) unZigZag((int) readVarint()) : lastFieldIds[depth] + delta;
+
+        fieldType = header & 0x0F;
+        lastFieldIds[depth] = fieldId;
+
+        return fieldId;
+    }
+
+    int getFieldType() {
+        return fieldType;
+    }
+
+    /**
+     * Reads a boolean field, whose value is held in its field header.
+     */
+    boolean readBooleanField() {
+        return fieldType == ThriftCompactWriter.TYPE_BOOLEAN_TRUE;
+    }
+
+    int readI32() throws IOException {
+        return unZigZag((int) readVarint());
+    }
+
+    long readI64() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    byte[] readBinary() throws IOException {
+        int length = (int) readVarint();
+
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Thrift binary value runs past the end of the data");
+        }
+
+        byte[] value = new byte[length];
+        System.arraycopy(bytes, position, value, 0, length);
+        position += length;
+
+        return value;
+    }
+
+    String readString() throws IOException {
+        return new String(readBinary(), UTF_8);
+    }
+
+    /**
+     * Reads the header of a list. Its elements must then be read with the method for their type, or skipped.
+     * @return The number of elements in the list.
+     */
+    int readListBegin() throws IOException {
+        int header = readByte();
+        int size = header >>> 4;
+
+        listElementType = header & 0x0F;
+
+        return size == 15 ? (int) readVarint() : size;
+    }
+
+    int getListElementType() {
+        return listElementType;
+    }
+
+    /**
+     * Skips the value of the field whose header was just read.
+     */
+    void skipField() throws IOException {
+        skip(fieldType, false);
+    }
+
+    /**
+     * Skips a single element of a list.
+     */
+    void skipListElement(int elementType) throws IOException {
+        skip(elementType, true);
+    }
+
+    private void skip(int type, boolean isElement) throws IOException {
+        switch (type) {
+            case ThriftCompactWriter.TYPE_BOOLEAN_TRUE:
+            case ThriftCompactWriter.TYPE_BOOLEAN_FALSE:
+                // A boolean field is held in its header, but a boolean list element takes a byte
+                if (isElement) {
+                    readByte();
+                }
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case ThriftCompactWriter.TYPE_I32:
+            case ThriftCompactWriter.TYPE_I64:
+                readVarint();
+                break;
+            case TYPE_DOUBLE:
+                advance(8);
+                break;
+            case ThriftCompactWriter.TYPE_BINARY:
+                advance((int) readVarint());
+                break;
+            case ThriftCompactWriter.TYPE_LIST:
+            case TYPE_SET:
+                int size = readListBegin();
+                int elementType = listElementType;
+
+                for (int i = 0; i < size; i++) {
+                    skip(elementType, true);
+                }
+                break;
+            case TYPE_MAP:
+                int entries = (int) readVarint();
+
+                if (entries > 0) {
+                    int keyAndValueTypes = readByte();
+
+                    for (int i = 0; i < entries; i++) {
+                        skip(keyAndValueTypes >>> 4, true);
+                        skip(keyAndValueTypes & 0x0F, true);
+                    }
+                }
+                break;
+            case ThriftCompactWriter.TYPE_STRUCT:
+                readStructBegin();
+
+                while (readFieldBegin() != 0) {
+                    skipField();
+                }
+                break;
+            default:
+                throw new IOException("Unknown Thrift type " + type);
+        }
+    }
+
+    private void advance(int length) throws IOException {
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Thrift value runs past the end of the data");
+        }
+
+        position += length;
+    }
+
+    private int readByte() throws IOException {
+        if (position >= limit) {
+            throw new IOException("Unexpected end of Thrift data");
+        }
+
+        return bytes[position++] & 0xFF;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Thrift varint is too long");
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Writes the Thrift compact protocol, which Parquet uses to encode its file footer and page headers. Only the parts of
+ * the protocol that appear in Parquet metadata are implemented, and structs are written field by field in ascending
+ * field id order by the caller.
+ */
+class ThriftCompactWriter {
+    static final int TYPE_BOOLEAN_TRUE = 1;
+    static final int TYPE_BOOLEAN_FALSE = 2;
+    static final int TYPE_I32 = 5;
+    static final int TYPE_I64 = 6;
+    static final int TYPE_BINARY = 8;
+    static final int TYPE_LIST = 9;
+    static final int TYPE_STRUCT = 12;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_FIELD_ID_DELTA = 15;
+    private static final int MAX_SHORT_LIST_SIZE = 14;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final int[] lastFieldIds = new int[16];
+    private int depth = 0;
+
+    /**
+     * Starts a struct that is not itself a field, such as the outermost struct or an element of a list.
+     */
+    void writeStructBegin() {
+        lastFieldIds[++depth] = 0;
+    }
+
+    void writeStructEnd() {
+        out.write(0);
+        depth--;
+    }
+
+    void writeStructFieldBegin(int fieldId) {
+        writeFieldHeader(TYPE_STRUCT, fieldId);
+        writeStructBegin();
+    }
+
+    void writeI32Field(int fieldId, int value) {
+        writeFieldHeader(TYPE_I32, fieldId);
+        writeI32(value);
+    }
+
+    void writeI64Field(int fieldId, long value) {
+        writeFieldHeader(TYPE_I64, fieldId);
+        writeVarint(zigZag(value));
+    }
+
+    void writeBinaryField(int fieldId, byte[] value) {
+        writeFieldHeader(TYPE_BINARY, fieldId);
+        writeBinary(value);
+    }
+
+    void writeStringField(int fieldId, String value) {
+        writeBinaryField(fieldId, value.getBytes(UTF_8));
+    }
+
+    void writeBooleanField(int fieldId, boolean value) {
+        writeFieldHeader(value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE, fieldId);
+    }
+
+    /**
+     * Starts a list field. Its elements must be written next using writeI32, writeString or writeStructBegin.
+     */
+    void writeListFieldBegin(int fieldId, int elementType, int size) {
+        writeFieldHeader(TYPE_LIST, fieldId);
+
+        if (size <= MAX_SHORT_LIST_SIZE) {
+            out.write(size << 4 | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            writeVarint(size);
+        }
+    }
+
+    void writeI32(int value) {
+        writeVarint(zigZag(value));
+    }
+
+    void writeString(String value) {
+        writeBinary(value.getBytes(UTF_8));
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeBinary(byte[] value) {
+        writeVarint(value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private void writeFieldHeader(int type, int fieldId) {
+        int delta = fieldId - lastFieldIds[depth];
+
+        if (delta > 0 && delta <= MAX_FIELD_ID_DELTA) {
+            out.write(delta << 4 | type);
+        } else {
+            out.write(type);
+            writeVarint(zigZag(fieldId));
+        }
+
+        lastFieldIds[depth] = fieldId;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write((int) value);
+    }
+
+    private static long zigZag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
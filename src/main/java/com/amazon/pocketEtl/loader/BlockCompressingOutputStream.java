@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that collects what is written to it into fixed size blocks and compresses each block on its own.
+ * Flushing compresses the partly filled block so that everything written so far has been written to the destination,
+ * which block compressors such as LZ4 and Zstandard do not support through their own streams.
+ */
+abstract class BlockCompressingOutputStream extends OutputStream {
+    private final OutputStream destination;
+    private final byte[] block;
+    private int blockLength = 0;
+    private boolean isClosed = false;
+
+    BlockCompressingOutputStream(OutputStream destination, int blockSizeInBytes) {
+        this.destination = destination;
+        this.block = new byte[blockSizeInBytes];
+    }
+
+    /**
+     * Compresses a complete or partly filled block and writes it to the destination.
+     */
+    abstract void writeBlock(OutputStream destination, byte[] block, int length) throws IOException;
+
+    /**
+     * Writes whatever is needed after the last block to finish the compressed data.
+     */
+    abstract void writeEnd(OutputStream destination) throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+
+        if (blockLength == block.length) {
+            writeBufferedBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int bytesToCopy = Math.min(length, block.length - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, bytesToCopy);
+            blockLength += bytesToCopy;
+            offset += bytesToCopy;
+            length -= bytesToCopy;
+
+            if (blockLength == block.length) {
+                writeBufferedBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (blockLength > 0) {
+            writeBufferedBlock();
+        }
+
+        destination.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+
+        try {
+            if (blockLength > 0) {
+                writeBufferedBlock();
+            }
+
+            writeEnd(destination);
+        } finally {
+            destination.close();
+        }
+    }
+
+    private void writeBufferedBlock() throws IOException {
+        writeBlock(destination, block, blockLength);
+        blockLength = 0;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A bounded pool of equally sized heap buffers that can be shared between threads. Buffers are only allocated when
+ * the pool has no free buffer to hand out, and once the maximum number of buffers have been allocated a thread trying
+ * to acquire another will block until one is released back into the pool. This puts a hard limit on the memory used by
+ * everything sharing the pool and applies back-pressure to whatever is filling the buffers.
+ *
+ * A writer that may keep a partly filled buffer for as long as it likes (for instance while it waits for more data to
+ * arrive) must hold a reservation, and the pool will not grant more reservations than it has buffers. As long as each
+ * of these writers only holds one such buffer at a time, and everything else holding a buffer releases it without
+ * needing to acquire another, a writer waiting in acquire() can never be starved by writers that are idle.
+ */
+class ByteBufferPool {
+    private final int bufferSizeInBytes;
+    private final BlockingQueue<ByteBuffer> freeBuffers = new LinkedBlockingQueue<>();
+    private final Semaphore unallocatedBuffers;
+    private final Semaphore unreservedBuffers;
+
+    ByteBufferPool(int bufferSizeInBytes, int maxBuffers) {
+        this.bufferSizeInBytes = bufferSizeInBytes;
+        this.unallocatedBuffers = new Semaphore(maxBuffers);
+        this.unreservedBuffers = new Semaphore(maxBuffers);
+    }
+
+    /**
+     * Reserves one of the buffers in the pool for a writer that may hold on to a partly filled buffer indefinitely.
+     * @throws IllegalStateException If every buffer in the pool has already been reserved.
+     */
+    void reserve() {
+        if (!unreservedBuffers.tryAcquire()) {
+            throw new IllegalStateException("Every buffer in the pool has already been reserved");
+        }
+    }
+
+    /**
+     * Gives up a reservation made by reserve(), once the writer that made it no longer holds a partly filled buffer.
+     */
+    void cancelReservation() {
+        unreservedBuffers.release();
+    }
+
+    /**
+     * Takes an empty buffer from the pool, allocating a new one if the pool has not yet reached its limit, otherwise
+     * waiting for another thread to release one.
+     * @return An empty buffer that is now owned by the caller.
+     * @throws InterruptedException If the thread was interrupted while waiting for a buffer to be released.
+     */
+    ByteBuffer acquire() throws InterruptedException {
+        ByteBuffer buffer = freeBuffers.poll();
+
+        if (buffer != null) {
+            return buffer;
+        }
+
+        if (unallocatedBuffers.tryAcquire()) {
+            return ByteBuffer.allocate(bufferSizeInBytes);
+        }
+
+        return freeBuffers.take();
+    }
+
+    /**
+     * Returns a buffer to the pool so it can be reused. The buffer must not be used by the caller after it has been
+     * released.
+     * @param buffer A buffer previously acquired from this pool.
+     */
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        freeBuffers.add(buffer);
+    }
+}
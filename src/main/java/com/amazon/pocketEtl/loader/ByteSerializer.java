@@ -0,0 +1,48 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Functional interface for a function that takes an object of a specific type and encodes it directly as bytes into an
+ * OutputStream. Used by loaders that write objects in serial form such as S3FastLoader, and avoids building an
+ * intermediate String for every object the way a StringSerializer does.
+ *
+ * A single instance is shared by every loader constructed by the same supplier, so implementations must be thread-safe.
+ * @param <T> The type of object being serialized.
+ */
+@SuppressWarnings("WeakerAccess")
+@FunctionalInterface
+public interface ByteSerializer<T> {
+    /**
+     * Encodes a single object.
+     * @param objectToSerialize The object to be serialized.
+     * @param outputStream The stream to write the encoded object to. Implementations must not close this stream.
+     * @throws IOException If the object could not be written to the stream.
+     */
+    void serialize(T objectToSerialize, OutputStream outputStream) throws IOException;
+
+    /**
+     * Writes anything that must appear at the start of every file, before the first object written to it, such as a
+     * header row. The default is to write nothing.
+     * @param outputStream The stream to write the header to. Implementations must not close this stream.
+     * @throws IOException If the header could not be written to the stream.
+     */
+    default void writeHeader(OutputStream outputStream) throws IOException {
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the contents of a single part file through an S3CompressionCodec, keeping track of how large the compressed
+ * part file could become so that records can be kept within a limit on its compressed size.
+ *
+ * Compressed output lags behind the data written because the compressor buffers it internally, so the size of the part
+ * file is bounded by the bytes that have been compressed so far plus the worst case size of the bytes written since the
+ * compressor was last flushed. The compressor is only flushed when that bound says the next record might not fit, which
+ * measures the part file exactly at the cost of slightly worse compression.
+ */
+class CompressingPartWriter {
+    private final CountingOutputStream countingOutputStream;
+    private final OutputStream compressor;
+    private final S3CompressionCodec codec;
+
+    private long compressedBytesAtLastFlush;
+    private long uncompressedBytesSinceLastFlush = 0;
+    private long uncompressedBytesWritten = 0;
+
+    /**
+     * Starts compressing a new part file.
+     * @param codec The codec to compress with.
+     * @param destination Where the compressed bytes are written. It is never closed by this writer.
+     */
+    CompressingPartWriter(S3CompressionCodec codec, OutputStream destination) {
+        this.codec = codec;
+        this.countingOutputStream = new CountingOutputStream(destination);
+
+        try {
+            compressor = codec.compress(countingOutputStream);
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Failed to start compressing S3 part file", e);
+        }
+
+        compressedBytesAtLastFlush = countingOutputStream.count;
+    }
+
+    /**
+     * Compresses a standalone part file in memory.
+     * @param codec The codec to compress with.
+     * @param bytes The entire uncompressed contents of the part file.
+     * @return The entire compressed contents of the part file.
+     */
+    static byte[] compressToByteArray(S3CompressionCodec codec, byte[] bytes) {
+        if (codec == S3CompressionCodec.NONE) {
+            return bytes;
+        }
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        CompressingPartWriter partWriter = new CompressingPartWriter(codec, byteArrayOutputStream);
+        partWriter.write(bytes);
+        partWriter.finish();
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Determines whether a record can be added to the part file without its compressed size exceeding a limit. This
+     * may flush the compressor.
+     * @param lengthInBytes The uncompressed size of the record.
+     * @param maxCompressedSizeInBytes The limit on the size of the finished, compressed part file.
+     * @return true if the record is guaranteed to fit.
+     */
+    boolean fits(int lengthInBytes, long maxCompressedSizeInBytes) {
+        if (boundedSizeWith(lengthInBytes) <= maxCompressedSizeInBytes) {
+            return true;
+        }
+
+        if (uncompressedBytesSinceLastFlush == 0) {
+            return false;
+        }
+
+        flush();
+
+        return boundedSizeWith(lengthInBytes) <= maxCompressedSizeInBytes;
+    }
+
+    void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    void write(byte[] bytes, int offset, int length) {
+        try {
+            compressor.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Failed to compress S3 part file", e);
+        }
+
+        uncompressedBytesSinceLastFlush += length;
+        uncompressedBytesWritten += length;
+    }
+
+    /**
+     * Writes out everything still held by the compressor and finishes the compressed data.
+     */
+    void finish() {
+        try {
+            compressor.close();
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Failed to finish compressing S3 part file", e);
+        }
+    }
+
+    long getUncompressedBytesWritten() {
+        return uncompressedBytesWritten;
+    }
+
+    private long boundedSizeWith(int lengthInBytes) {
+        return compressedBytesAtLastFlush
+                + codec.maxCompressedSizeInBytes(uncompressedBytesSinceLastFlush + lengthInBytes);
+    }
+
+    private void flush() {
+        try {
+            compressor.flush();
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Failed to compress S3 part file", e);
+        }
+
+        compressedBytesAtLastFlush = countingOutputStream.count;
+        uncompressedBytesSinceLastFlush = 0;
+    }
+
+    // Counts the compressed bytes and protects the destination from being closed when the compressor is
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
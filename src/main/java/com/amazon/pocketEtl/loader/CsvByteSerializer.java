@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.StringJoiner;
+
+/**
+ * A ByteSerializer implementation for encoding a DTO as a UTF-8 delimited row with specified columnSeparator. Each row
+ * is written straight to the output stream without building an intermediate String. Produces the same output as
+ * CsvStringSerializer, except that when a header row is used it is written at the start of every file rather than only
+ * by the first call. This serializer is thread-safe.
+ *
+ * PocketETL developer note: Currently it serializes joda datetime to string in UTC timezone. This behaviour can be
+ * changed by setting default timezone using setTimeZone method of CsvMapper class.
+ *
+ * @param <T> Type of DTO to be serialized.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CsvByteSerializer<T> implements ByteSerializer<T> {
+    private static final CsvMapper mapper = new CsvMapper();
+
+    private static final char DEFAULT_COLUMN_SEPARATOR = ',';
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    private final Class<T> classToSerialize;
+    private final Character columnSeparator;
+    private final Boolean writeHeaderRow;
+    private ObjectWriter writer;
+    private byte[] headerRow;
+
+    /**
+     * Standard constructor. Uses commas as a default columnSeparator.
+     *
+     * @param classToSerialize Class of DTO to be serialized.
+     */
+    public static <T> CsvByteSerializer<T> of(Class<T> classToSerialize) {
+        return new CsvByteSerializer<>(classToSerialize, null, null);
+    }
+
+    /**
+     * Change the character to use to delimit columns that are being output.
+     * @param columnSeparator Delimiter to be used as column separator.
+     * @return A new modified CsvByteSerializer.
+     */
+    public CsvByteSerializer<T> withColumnSeparator(Character columnSeparator) {
+        return new CsvByteSerializer<>(classToSerialize, columnSeparator, writeHeaderRow);
+    }
+
+    /**
+     * Modify the behavior of this serializer to either start writing a header row at the start of every file or stop
+     * doing so.
+     * @param writeHeaderRow True to write a header row at the start of every file; or false not to
+     * @return A newly initialized copy of the existing object with this behavior changed.
+     */
+    public CsvByteSerializer<T> withHeaderRow(Boolean writeHeaderRow) {
+        return new CsvByteSerializer<>(classToSerialize, columnSeparator, writeHeaderRow);
+    }
+
+    /**
+     * Method for writing a dto object as a delimited row without quote character.
+     *
+     * @param objectToSerialize Object to be serialized.
+     * @param outputStream Stream to write the row to.
+     * @throws IOException If the row could not be written to the stream.
+     */
+    @Override
+    public void serialize(T objectToSerialize, OutputStream outputStream) throws IOException {
+        writer.writeValue(outputStream, objectToSerialize);
+    }
+
+    /**
+     * Writes the header row if this serializer has been configured to use one.
+     * @param outputStream Stream to write the header row to.
+     * @throws IOException If the header row could not be written to the stream.
+     */
+    @Override
+    public void writeHeader(OutputStream outputStream) throws IOException {
+        outputStream.write(headerRow);
+    }
+
+    private CsvByteSerializer(Class<T> classToSerialize, Character columnSeparator, Boolean writeHeaderRow) {
+        this.classToSerialize = classToSerialize;
+        this.columnSeparator = columnSeparator;
+        this.writeHeaderRow = writeHeaderRow;
+        createObjectWriter();
+    }
+
+    private void createObjectWriter() {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new JodaModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        CsvSchema schema = mapper.schemaFor(classToSerialize).withColumnSeparator(getColumnSeparator()).withoutQuoteChar();
+        writer = mapper.writer(schema).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        headerRow = getWriteHeaderRow() ? createHeaderRow(schema) : new byte[0];
+    }
+
+    private static byte[] createHeaderRow(CsvSchema schema) {
+        StringJoiner header = new StringJoiner(String.valueOf(schema.getColumnSeparator()), "",
+                new String(schema.getLineSeparator()));
+
+        for (CsvSchema.Column column : schema) {
+            header.add(column.getName());
+        }
+
+        return header.toString().getBytes(DEFAULT_CHARSET);
+    }
+
+    private boolean getWriteHeaderRow() {
+        return Boolean.TRUE.equals(writeHeaderRow);
+    }
+
+    private char getColumnSeparator() {
+        return columnSeparator == null ? DEFAULT_COLUMN_SEPARATOR : columnSeparator;
+    }
+}
@@ -15,14 +15,17 @@
 
 package com.amazon.pocketEtl.loader;
 
+import com.amazon.pocketEtl.BatchLoader;
 import com.amazon.pocketEtl.EtlMetrics;
 import com.amazon.pocketEtl.EtlProfilingScope;
-import com.amazon.pocketEtl.Loader;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.TableWriteItems;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.AccessLevel;
@@ -31,6 +34,12 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
@@ -39,12 +48,24 @@ import static org.apache.logging.log4j.LogManager.getLogger;
  * Loads a JSON record to a DynamoDB table. If an item with that hash key already exists in Dynamo, it will be
  * updated.
  * <p>
+ * This loader is also a BatchLoader. When it is used in a load stage that has a batch size set, records are written
+ * using BatchWriteItem in groups of up to 25 items. Items that DynamoDB reports as unprocessed (typically because the
+ * table is being throttled) are retried with exponential backoff and full jitter, and any items that still could not
+ * be written once the retries are exhausted are returned as failed records. The table handle is thread-safe, so a
+ * load stage with multiple threads will write batches to the table in parallel.
  **/
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-public class DynamoDbLoader<T> implements Loader<T> {
+public class DynamoDbLoader<T> implements BatchLoader<T> {
     private final static String SUCCESS_METRIC_KEY = "DynamoDbLoader.success";
     private final static String FAILURE_METRIC_KEY = "DynamoDbLoader.failure";
+    private final static String UNPROCESSED_METRIC_KEY = "DynamoDbLoader.unprocessedItems";
+    private final static String RETRY_METRIC_KEY = "DynamoDbLoader.batchWriteRetries";
+
+    private final static int MAX_ITEMS_PER_BATCH_WRITE = 25;
+    private final static int DEFAULT_MAX_BATCH_WRITE_RETRIES = 8;
+    private final static long BASE_BACKOFF_MILLIS = 25;
+    private final static long MAX_BACKOFF_MILLIS = 5000;
 
     private final static Logger logger = getLogger(DynamoDbLoader.class);
 
@@ -53,23 +74,35 @@ public class DynamoDbLoader<T> implements Loader<T> {
     private final String hashKey;
     private final Function<T, String> hashKeyExtractor;
     private final ObjectWriter writer;
+    private final int maxBatchWriteRetries;
     private EtlMetrics parentMetrics;
+    private volatile Table table;
 
     public static <T> DynamoDbLoader<T> of(String tableName, String hashKey, Function<T, String> hashKeyExtractor) {
-        return new DynamoDbLoader<>(new DynamoDB(AmazonDynamoDBClientBuilder.standard().withRegion("us-east-1").build()), tableName, hashKey, hashKeyExtractor, new ObjectMapper().writer());
+        return new DynamoDbLoader<>(new DynamoDB(AmazonDynamoDBClientBuilder.standard().withRegion("us-east-1").build()), tableName, hashKey, hashKeyExtractor, new ObjectMapper().writer(), DEFAULT_MAX_BATCH_WRITE_RETRIES);
     }
 
     public DynamoDbLoader<T> withDynamoDb(DynamoDB db) {
-        return new DynamoDbLoader<>(db, tableName, hashKey, hashKeyExtractor, writer);
+        return new DynamoDbLoader<>(db, tableName, hashKey, hashKeyExtractor, writer, maxBatchWriteRetries);
     }
 
     public DynamoDbLoader<T> withClient(AmazonDynamoDB ddbClient) {
-        return new DynamoDbLoader<>(new DynamoDB(ddbClient), tableName, hashKey, hashKeyExtractor, writer);
+        return new DynamoDbLoader<>(new DynamoDB(ddbClient), tableName, hashKey, hashKeyExtractor, writer, maxBatchWriteRetries);
+    }
+
+    /**
+     * Sets the number of times items that DynamoDB reports as unprocessed during a batch write will be retried before
+     * they are considered to have failed. The default is 8.
+     * @param maxBatchWriteRetries Maximum number of retries of unprocessed items per batch write.
+     * @return A new copy of this loader with its behavior modified.
+     */
+    public DynamoDbLoader<T> withMaxBatchWriteRetries(int maxBatchWriteRetries) {
+        return new DynamoDbLoader<>(db, tableName, hashKey, hashKeyExtractor, writer, maxBatchWriteRetries);
     }
 
     // package-protected to allow for swapping out during unit testing
     DynamoDbLoader<T> withWriter(ObjectWriter writer) {
-        return new DynamoDbLoader<>(db, tableName, hashKey, hashKeyExtractor, writer);
+        return new DynamoDbLoader<>(db, tableName, hashKey, hashKeyExtractor, writer, maxBatchWriteRetries);
     }
 
     @Override
@@ -98,10 +131,9 @@ public class DynamoDbLoader<T> implements Loader<T> {
         }
 
         try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "DynamoDbLoader.load")) {
-            Table table = db.getTable(tableName);
+            Table table = getTable();
             Item item = new Item().withPrimaryKey(hashKey, primaryKey).withJSON("document", objectAsJson);
 
-            // write to ddb. using a batch operation would improve performance
             try {
                 table.putItem(item);
             } catch (Exception e) {
@@ -116,10 +148,56 @@ public class DynamoDbLoader<T> implements Loader<T> {
         logger.debug("Loaded {} successfully", primaryKey);
     }
 
+    /**
+     * Loads a batch of records using BatchWriteItem, splitting it into requests of up to 25 items. Unprocessed items
+     * are retried with jittered exponential backoff.
+     * @param objectsToLoad The objects to be loaded.
+     * @return The objects that could not be converted or written to DynamoDB.
+     */
+    @Override
+    public List<T> loadBatch(List<T> objectsToLoad) {
+        List<T> failedObjects = new ArrayList<>();
+
+        // BatchWriteItem rejects requests that contain the same key twice, so duplicates within a batch are collapsed
+        // to the last value written which is the same outcome a series of individual puts would have had.
+        Map<String, Item> itemsByKey = new LinkedHashMap<>();
+        Map<String, List<T>> objectsByKey = new LinkedHashMap<>();
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "DynamoDbLoader.prepare")) {
+            for (T objectToLoad : objectsToLoad) {
+                try {
+                    String primaryKey = hashKeyExtractor.apply(objectToLoad);
+                    String objectAsJson = writer.writeValueAsString(objectToLoad);
+
+                    itemsByKey.put(primaryKey, new Item().withPrimaryKey(hashKey, primaryKey).withJSON("document", objectAsJson));
+                    objectsByKey.computeIfAbsent(primaryKey, key -> new ArrayList<>()).add(objectToLoad);
+                } catch (RuntimeException | IOException e) {
+                    logger.warn("Failed to prepare record for loading", e);
+                    failedObjects.add(objectToLoad);
+                }
+            }
+
+            scope.addCounter(FAILURE_METRIC_KEY, failedObjects.size());
+        }
+
+        List<Item> items = new ArrayList<>(itemsByKey.values());
+
+        for (int i = 0; i < items.size(); i += MAX_ITEMS_PER_BATCH_WRITE) {
+            List<Item> batch = items.subList(i, Math.min(i + MAX_ITEMS_PER_BATCH_WRITE, items.size()));
+
+            for (String failedKey : batchWriteItems(batch)) {
+                failedObjects.addAll(objectsByKey.get(failedKey));
+            }
+        }
+
+        return failedObjects;
+    }
+
     @Override
     public void open(@Nullable EtlMetrics parentMetrics) {
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "DynamoDbLoader.open")) {
             this.parentMetrics = parentMetrics;
+            this.table = db.getTable(tableName);
             logger.debug("Opening");
         }
     }
@@ -131,6 +209,87 @@ public class DynamoDbLoader<T> implements Loader<T> {
         }
     }
 
+    // Writes up to 25 items, returning the hash keys of any items that could not be written. If the first write fails
+    // nothing is known to have been written, so the whole batch is failed; if a retry fails or is interrupted only the
+    // items left over from the previous attempt are failed.
+    private List<String> batchWriteItems(List<Item> items) {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "DynamoDbLoader.batchWrite")) {
+            Map<String, List<WriteRequest>> unprocessedItems = null;
+            List<String> failedKeys;
+
+            try {
+                BatchWriteItemOutcome outcome = db.batchWriteItem(new TableWriteItems(tableName).withItemsToPut(items));
+                unprocessedItems = outcome.getUnprocessedItems();
+
+                for (int retry = 0; hasUnprocessedItems(unprocessedItems) && retry < maxBatchWriteRetries; retry++) {
+                    scope.addCounter(UNPROCESSED_METRIC_KEY, countUnprocessedItems(unprocessedItems));
+                    scope.addCounter(RETRY_METRIC_KEY, 1);
+                    backoff(retry);
+
+                    outcome = db.batchWriteItemUnprocessed(unprocessedItems);
+                    unprocessedItems = outcome.getUnprocessedItems();
+                }
+
+                failedKeys = keysOf(unprocessedItems);
+
+                if (!failedKeys.isEmpty()) {
+                    logger.warn("Failed to write {} records after {} retries", failedKeys.size(),
+                            maxBatchWriteRetries);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedKeys = unprocessedItems == null ? keysOf(items) : keysOf(unprocessedItems);
+                logger.warn("Interrupted while retrying batch write, failing {} remaining records", failedKeys.size());
+            } catch (RuntimeException e) {
+                failedKeys = unprocessedItems == null ? keysOf(items) : keysOf(unprocessedItems);
+                logger.warn("Failed to write {} of a batch of {} records", failedKeys.size(), items.size(), e);
+            }
+
+            scope.addCounter(SUCCESS_METRIC_KEY, items.size() - failedKeys.size());
+            scope.addCounter(FAILURE_METRIC_KEY, failedKeys.size());
+            return failedKeys;
+        }
+    }
+
+    private List<String> keysOf(List<Item> items) {
+        List<String> keys = new ArrayList<>(items.size());
+        items.forEach(item -> keys.add(item.getString(hashKey)));
+        return keys;
+    }
+
+    private List<String> keysOf(@Nullable Map<String, List<WriteRequest>> unprocessedItems) {
+        List<String> keys = new ArrayList<>();
+
+        if (unprocessedItems != null) {
+            unprocessedItems.values().forEach(writeRequests -> writeRequests.forEach(writeRequest ->
+                    keys.add(writeRequest.getPutRequest().getItem().get(hashKey).getS())));
+        }
+
+        return keys;
+    }
+
+    private static boolean hasUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems) {
+        return unprocessedItems != null && unprocessedItems.values().stream().anyMatch(list -> !list.isEmpty());
+    }
+
+    private static int countUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems) {
+        return unprocessedItems.values().stream().mapToInt(List::size).sum();
+    }
+
+    // Exponential backoff with full jitter
+    private static void backoff(int retry) throws InterruptedException {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(retry, 16));
+        TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private Table getTable() {
+        if (table == null) {
+            table = db.getTable(tableName);
+        }
+
+        return table;
+    }
+
     private void emitSuccessAndFailureMetrics(final EtlProfilingScope scope, final boolean isSuccess) {
         scope.addCounter(SUCCESS_METRIC_KEY, isSuccess ? 1 : 0);
         scope.addCounter(FAILURE_METRIC_KEY, isSuccess ? 0 : 1);
@@ -0,0 +1,657 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Loader;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.google.common.collect.ImmutableList;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.LocalDate;
+import org.joda.time.ReadableInstant;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * Loader implementation that inserts objects into a relational database table over JDBC. Rather than executing one
+ * statement per object, each loader buffers the objects it is given until it has a full batch, and then writes the
+ * whole batch with multi-row INSERT statements (INSERT INTO table (...) VALUES (...), (...), ...) executed as a single
+ * JDBC batch, committing a transaction for every batch. This reduces the number of round-trips to the database by
+ * several orders of magnitude and is typically fast enough to load tens of thousands of rows a second into Postgres
+ * or MySQL.
+ *
+ * Like S3FastLoader this class is deliberately not synchronized and is not thread-safe, and the best way to use it is
+ * to construct a Supplier using the supplierOf static method and pass that supplier into a ParallelLoader so every
+ * thread batches its own rows and borrows its own connection from the DataSource. Eg:
+ *
+ * ParallelLoader.of(JdbcBatchLoader.supplierOf(dataSource, "my_table", MyObject.class))
+ *
+ * The columns being inserted are derived from the class being loaded, with one column for each property Jackson would
+ * serialize, named as Jackson would name them (so {@literal @JsonProperty} can be used to map a property onto a
+ * column with a different name). Column names are not quoted, so the usual case-folding rules of the database apply.
+ *
+ * Optionally the loader can upsert rather than insert, in which case rows that conflict with an existing row on the
+ * specified key columns will update that row instead. On MySQL and MariaDB this is done with ON DUPLICATE KEY UPDATE,
+ * referring to the new values through a row alias on MySQL 8.0.19 and later and through the VALUES() function on
+ * MariaDB and older versions of MySQL, and on every other database with ON CONFLICT (...) DO UPDATE, which is supported
+ * by Postgres and SQLite.
+ *
+ * If a batch cannot be written the transaction for that batch is rolled back and an UnrecoverableStreamFailureException
+ * is thrown, as there is no way of knowing which of the objects in the batch caused the failure. Batches that have
+ * already been committed are not rolled back.
+ *
+ * @param <T> The type of objects being loaded.
+ */
+@SuppressWarnings("WeakerAccess")
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class JdbcBatchLoader<T> implements Loader<T> {
+    private final static Logger logger = getLogger(JdbcBatchLoader.class);
+    private final static ObjectMapper objectMapper = new ObjectMapper();
+
+    private final static int DEFAULT_BATCH_SIZE = 1000;
+    private final static int DEFAULT_ROWS_PER_STATEMENT = 100;
+
+    // The lowest limit on bind parameters in a single statement of the common drivers (Postgres prior to 42.4)
+    private final static int MAX_PARAMETERS_PER_STATEMENT = 32767;
+
+    // MySQL 8.0.19 added row aliases to INSERT and deprecated referring to the new values with VALUES()
+    private final static Pattern VERSION_PATTERN = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+    private final static int[] MYSQL_ROW_ALIAS_VERSION = { 8, 0, 19 };
+    private final static String ROW_ALIAS = "new_row";
+
+    private final static String SUCCESS_METRIC_KEY = "JdbcBatchLoader.success";
+    private final static String FAILURE_METRIC_KEY = "JdbcBatchLoader.failure";
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final List<JdbcColumn> columns;
+    private final int batchSize;
+    private final int rowsPerStatement;
+    private final List<String> upsertKeyColumns;
+
+    private final List<T> batch = new ArrayList<>();
+
+    private EtlMetrics parentMetrics;
+    private Connection connection = null;
+    private boolean restoreAutoCommit = false;
+    private UpsertSyntax upsertSyntax = UpsertSyntax.ON_CONFLICT;
+    private PreparedStatement fullStatement = null;
+
+    /**
+     * Constructs a new JdbcBatchLoaderSupplier which will supply instances of JdbcBatchLoader that can be used in
+     * parallel as each of them will borrow its own connection from the DataSource.
+     *
+     * Example usage:
+     * JdbcBatchLoader.supplierOf(dataSource, "my_table", MyObject.class)
+     *
+     * @param dataSource The DataSource to borrow connections from. This should typically be a connection pool.
+     * @param tableName The name of the table to insert rows into.
+     * @param classToLoad The class of the objects being loaded, from which the columns are derived.
+     * @param <T> The type of object being loaded.
+     * @return A newly constructed JdbcBatchLoaderSupplier object.
+     * @throws IllegalArgumentException If the class has no properties, or has a property of an unsupported type.
+     */
+    public static <T> JdbcBatchLoaderSupplier<T> supplierOf(@Nonnull DataSource dataSource, @Nonnull String tableName,
+                                                            @Nonnull Class<T> classToLoad) {
+        return new JdbcBatchLoaderSupplier<>(dataSource, tableName, columnsOf(classToLoad), DEFAULT_BATCH_SIZE,
+                DEFAULT_ROWS_PER_STATEMENT, ImmutableList.of());
+    }
+
+    /**
+     * Adds the next object to the batch being buffered. If the batch is full it will be written to the database and
+     * committed.
+     * @param objectToLoad The object to be loaded.
+     * @throws UnrecoverableStreamFailureException If the batch could not be written to the database.
+     */
+    @Override
+    public void load(T objectToLoad) {
+        batch.add(objectToLoad);
+
+        if (batch.size() >= batchSize) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Prepares the loader to start accepting objects to load. A connection is not borrowed from the DataSource until
+     * the first batch is written.
+     * @param parentMetrics An EtlMetrics object to attach any child threads created by load() to
+     */
+    @Override
+    public void open(@Nullable EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+    }
+
+    /**
+     * Writes any objects currently buffered to the database as a final batch, and returns the connection to the
+     * DataSource.
+     * @throws Exception If something goes wrong.
+     */
+    @Override
+    public void close() throws Exception {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "JdbcBatchLoader.close")) {
+            try {
+                if (!batch.isEmpty()) {
+                    flushBatch();
+                }
+            } finally {
+                releaseConnection();
+            }
+        }
+    }
+
+    /**
+     * Builds an INSERT statement for a number of rows. Package-private for unit testing.
+     */
+    static String buildInsertSql(String tableName, List<String> columnNames, int rows, List<String> upsertKeyColumns,
+                                 UpsertSyntax upsertSyntax) {
+        String placeholders = columnNames.stream().map(name -> "?").collect(Collectors.joining(", ", "(", ")"));
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName)
+                .append(columnNames.stream().collect(Collectors.joining(", ", " (", ")")))
+                .append(" VALUES ");
+
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(placeholders);
+        }
+
+        if (upsertKeyColumns.isEmpty()) {
+            return sql.toString();
+        }
+
+        List<String> updateColumns = columnNames.stream()
+                .filter(name -> !upsertKeyColumns.contains(name))
+                .collect(Collectors.toList());
+
+        if (upsertSyntax != UpsertSyntax.ON_CONFLICT) {
+            boolean useRowAlias = upsertSyntax == UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS;
+
+            if (useRowAlias) {
+                sql.append(" AS ").append(ROW_ALIAS);
+            }
+
+            // MySQL has no DO NOTHING; assigning a key column to itself leaves the existing row untouched
+            List<String> assignedColumns = updateColumns.isEmpty() ? upsertKeyColumns.subList(0, 1) : updateColumns;
+
+            return sql.append(" ON DUPLICATE KEY UPDATE ")
+                    .append(assignedColumns.stream()
+                            .map(name -> name + " = " + (updateColumns.isEmpty() ? name :
+                                    useRowAlias ? ROW_ALIAS + "." + name : "VALUES(" + name + ")"))
+                            .collect(Collectors.joining(", ")))
+                    .toString();
+        }
+
+        sql.append(upsertKeyColumns.stream().collect(Collectors.joining(", ", " ON CONFLICT (", ")")));
+
+        if (updateColumns.isEmpty()) {
+            return sql.append(" DO NOTHING").toString();
+        }
+
+        return sql.append(" DO UPDATE SET ")
+                .append(updateColumns.stream()
+                        .map(name -> name + " = EXCLUDED." + name)
+                        .collect(Collectors.joining(", ")))
+                .toString();
+    }
+
+    private void flushBatch() {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "JdbcBatchLoader.flushBatch")) {
+            boolean isSuccess = false;
+
+            try {
+                writeBatch(upsertKeyColumns.isEmpty() ? batch : deduplicateBatch());
+                connection.commit();
+                isSuccess = true;
+            } catch (SQLException | RuntimeException e) {
+                clearBatch();
+                rollback();
+                throw new UnrecoverableStreamFailureException("Failed to write a batch of " + batch.size() +
+                        " rows to table " + tableName, e);
+            } finally {
+                scope.addCounter(SUCCESS_METRIC_KEY, isSuccess ? batch.size() : 0);
+                scope.addCounter(FAILURE_METRIC_KEY, isSuccess ? 0 : batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<T> rows) throws SQLException {
+        if (connection == null) {
+            borrowConnection();
+        }
+
+        int fullStatementCount = rows.size() / rowsPerStatement;
+        int remainingRows = rows.size() % rowsPerStatement;
+
+        if (fullStatementCount > 0) {
+            if (fullStatement == null) {
+                fullStatement = connection.prepareStatement(buildInsertSql(rowsPerStatement));
+            }
+
+            for (int i = 0; i < fullStatementCount; i++) {
+                bindRows(fullStatement, rows, i * rowsPerStatement, rowsPerStatement);
+                fullStatement.addBatch();
+            }
+
+            fullStatement.executeBatch();
+        }
+
+        if (remainingRows > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(buildInsertSql(remainingRows))) {
+                bindRows(statement, rows, fullStatementCount * rowsPerStatement, remainingRows);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private String buildInsertSql(int rows) {
+        List<String> columnNames = columns.stream().map(JdbcColumn::getName).collect(Collectors.toList());
+        return buildInsertSql(tableName, columnNames, rows, upsertKeyColumns, upsertSyntax);
+    }
+
+    private void bindRows(PreparedStatement statement, List<T> rows, int fromIndex, int rowCount) throws SQLException {
+        int parameterIndex = 1;
+
+        for (int i = fromIndex; i < fromIndex + rowCount; i++) {
+            T row = rows.get(i);
+
+            for (JdbcColumn column : columns) {
+                column.bind(statement, parameterIndex++, row);
+            }
+        }
+    }
+
+    // A single statement cannot affect the same row twice when upserting, so only the last of any rows in the batch
+    // that share a key is kept, which leaves the table as it would have been had they been written one at a time.
+    // Arrays do not compare by content, so binary key values are wrapped in a ByteBuffer, which does.
+    private List<T> deduplicateBatch() {
+        List<JdbcColumn> keyColumns = columns.stream()
+                .filter(column -> upsertKeyColumns.contains(column.getName()))
+                .collect(Collectors.toList());
+        Map<List<Object>, T> rowsByKey = new LinkedHashMap<>();
+
+        for (T row : batch) {
+            List<Object> key = keyColumns.stream()
+                    .map(column -> {
+                        Object value = column.getValue(row);
+                        return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+                    })
+                    .collect(Collectors.toList());
+            rowsByKey.remove(key);
+            rowsByKey.put(key, row);
+        }
+
+        return rowsByKey.size() == batch.size() ? batch : new ArrayList<>(rowsByKey.values());
+    }
+
+    private void borrowConnection() throws SQLException {
+        connection = dataSource.getConnection();
+
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            restoreAutoCommit = true;
+        }
+
+        if (!upsertKeyColumns.isEmpty()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            upsertSyntax = getUpsertSyntax(metaData.getDatabaseProductName(), metaData.getDatabaseProductVersion());
+        }
+    }
+
+    /**
+     * Chooses how to upsert into a database. MariaDB does not support row aliases, and reports either its own product
+     * name or a MySQL version suffixed with -MariaDB. Package-private for unit testing.
+     */
+    static UpsertSyntax getUpsertSyntax(@Nullable String productName, @Nullable String productVersion) {
+        boolean isMariaDb = "MariaDB".equalsIgnoreCase(productName)
+                || (productVersion != null && productVersion.contains("MariaDB"));
+
+        if (isMariaDb) {
+            return UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES;
+        }
+
+        if (!"MySQL".equalsIgnoreCase(productName)) {
+            return UpsertSyntax.ON_CONFLICT;
+        }
+
+        Matcher matcher = productVersion == null ? null : VERSION_PATTERN.matcher(productVersion);
+
+        if (matcher == null || !matcher.find()) {
+            return UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES;
+        }
+
+        for (int i = 0; i < MYSQL_ROW_ALIAS_VERSION.length; i++) {
+            int versionPart = Integer.parseInt(matcher.group(i + 1));
+
+            if (versionPart != MYSQL_ROW_ALIAS_VERSION[i]) {
+                return versionPart > MYSQL_ROW_ALIAS_VERSION[i] ? UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS :
+                        UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES;
+            }
+        }
+
+        return UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS;
+    }
+
+    // The full statement is reused for every batch, so rows added to it before a failure must not be sent with the next
+    // batch. The statement for the remaining rows is closed as soon as the batch fails, which discards it.
+    private void clearBatch() {
+        if (fullStatement != null) {
+            try {
+                fullStatement.clearBatch();
+            } catch (SQLException e) {
+                logger.warn("Failed to clear batch: ", e);
+            }
+        }
+    }
+
+    private void rollback() {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                logger.warn("Failed to roll back batch: ", e);
+            }
+        }
+    }
+
+    private void releaseConnection() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+
+            if (restoreAutoCommit) {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            connection.close();
+            connection = null;
+            fullStatement = null;
+        }
+    }
+
+    private static List<JdbcColumn> columnsOf(Class<?> classToLoad) {
+        BeanDescription description =
+                objectMapper.getSerializationConfig().introspect(objectMapper.constructType(classToLoad));
+        ImmutableList.Builder<JdbcColumn> columns = ImmutableList.builder();
+
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+
+            if (accessor != null) {
+                accessor.fixAccess(true);
+                columns.add(createColumn(classToLoad, property.getName(), accessor));
+            }
+        }
+
+        List<JdbcColumn> builtColumns = columns.build();
+
+        if (builtColumns.isEmpty()) {
+            throw new IllegalArgumentException("Class " + classToLoad.getName() + " has no properties to load");
+        }
+
+        return builtColumns;
+    }
+
+    private static JdbcColumn createColumn(Class<?> classToLoad, String name, AnnotatedMember accessor) {
+        Class<?> type = accessor instanceof AnnotatedMethod ? ((AnnotatedMethod) accessor).getRawReturnType() :
+                accessor.getRawType();
+
+        if (type == boolean.class || type == Boolean.class) {
+            return new JdbcColumn(name, Types.BOOLEAN, accessor, Function.identity());
+        }
+
+        if (type == byte.class || type == Byte.class) {
+            return new JdbcColumn(name, Types.TINYINT, accessor, Function.identity());
+        }
+
+        if (type == short.class || type == Short.class) {
+            return new JdbcColumn(name, Types.SMALLINT, accessor, Function.identity());
+        }
+
+        if (type == int.class || type == Integer.class) {
+            return new JdbcColumn(name, Types.INTEGER, accessor, Function.identity());
+        }
+
+        if (type == long.class || type == Long.class) {
+            return new JdbcColumn(name, Types.BIGINT, accessor, Function.identity());
+        }
+
+        if (type == float.class || type == Float.class) {
+            return new JdbcColumn(name, Types.REAL, accessor, Function.identity());
+        }
+
+        if (type == double.class || type == Double.class) {
+            return new JdbcColumn(name, Types.DOUBLE, accessor, Function.identity());
+        }
+
+        if (type == BigDecimal.class) {
+            return new JdbcColumn(name, Types.DECIMAL, accessor, Function.identity());
+        }
+
+        if (type == BigInteger.class) {
+            return new JdbcColumn(name, Types.DECIMAL, accessor, value -> new BigDecimal((BigInteger) value));
+        }
+
+        if (type == String.class || type == char.class || type == Character.class) {
+            return new JdbcColumn(name, Types.VARCHAR, accessor, Object::toString);
+        }
+
+        if (type.isEnum()) {
+            return new JdbcColumn(name, Types.VARCHAR, accessor, value -> ((Enum<?>) value).name());
+        }
+
+        if (type == byte[].class) {
+            return new JdbcColumn(name, Types.VARBINARY, accessor, Function.identity());
+        }
+
+        if (java.sql.Date.class.isAssignableFrom(type)) {
+            return new JdbcColumn(name, Types.DATE, accessor, Function.identity());
+        }
+
+        if (ReadableInstant.class.isAssignableFrom(type)) {
+            return new JdbcColumn(name, Types.TIMESTAMP, accessor,
+                    value -> new Timestamp(((ReadableInstant) value).getMillis()));
+        }
+
+        if (Date.class.isAssignableFrom(type)) {
+            return new JdbcColumn(name, Types.TIMESTAMP, accessor, value -> new Timestamp(((Date) value).getTime()));
+        }
+
+        if (type == Instant.class) {
+            return new JdbcColumn(name, Types.TIMESTAMP, accessor, value -> Timestamp.from((Instant) value));
+        }
+
+        if (type == LocalDateTime.class) {
+            return new JdbcColumn(name, Types.TIMESTAMP, accessor, value -> Timestamp.valueOf((LocalDateTime) value));
+        }
+
+        if (type == LocalDate.class) {
+            return new JdbcColumn(name, Types.DATE, accessor, value -> {
+                LocalDate date = (LocalDate) value;
+                return java.sql.Date.valueOf(java.time.LocalDate.of(date.getYear(), date.getMonthOfYear(),
+                        date.getDayOfMonth()));
+            });
+        }
+
+        if (type == java.time.LocalDate.class) {
+            return new JdbcColumn(name, Types.DATE, accessor,
+                    value -> java.sql.Date.valueOf((java.time.LocalDate) value));
+        }
+
+        throw new IllegalArgumentException("Property " + name + " of " + classToLoad.getName() + " has type " +
+                type.getName() + " which cannot be loaded over JDBC");
+    }
+
+    /**
+     * The statements that can upsert rows. Package-private for unit testing.
+     */
+    enum UpsertSyntax {
+        ON_CONFLICT,
+        ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS,
+        ON_DUPLICATE_KEY_UPDATE_VALUES
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class JdbcColumn {
+        private final String name;
+        private final int sqlType;
+        private final AnnotatedMember accessor;
+        private final Function<Object, Object> converter;
+
+        String getName() {
+            return name;
+        }
+
+        Object getValue(Object row) {
+            return accessor.getValue(row);
+        }
+
+        void bind(PreparedStatement statement, int parameterIndex, Object row) throws SQLException {
+            Object value = accessor.getValue(row);
+
+            if (value == null) {
+                statement.setNull(parameterIndex, sqlType);
+            } else {
+                statement.setObject(parameterIndex, converter.apply(value));
+            }
+        }
+    }
+
+    /**
+     * A class that supplies JdbcBatchLoader objects on demand, each of which will borrow its own connection from the
+     * DataSource.
+     *
+     * To construct an instance of this supplier, use the static method JdbcBatchLoader.supplierOf(...)
+     */
+    @SuppressWarnings("WeakerAccess")
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class JdbcBatchLoaderSupplier<T> implements Supplier<Loader<T>> {
+        private final DataSource dataSource;
+        private final String tableName;
+        private final List<JdbcColumn> columns;
+        private final int batchSize;
+        private final int rowsPerStatement;
+        private final List<String> upsertKeyColumns;
+
+        /**
+         * Optional: The number of objects each loader buffers before writing them to the database and committing the
+         * transaction. Larger batches mean fewer commits but more work lost if a batch fails. The default is 1000.
+         * @param batchSize Number of objects in each batch.
+         * @return A copy of the current JdbcBatchLoaderSupplier with this property modified.
+         */
+        public JdbcBatchLoaderSupplier<T> withBatchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be at least 1");
+            }
+
+            return new JdbcBatchLoaderSupplier<>(dataSource, tableName, columns, batchSize, rowsPerStatement,
+                    upsertKeyColumns);
+        }
+
+        /**
+         * Optional: The number of rows written by each multi-row INSERT statement in a batch. Setting this to 1 writes
+         * every row with its own statement, relying only on JDBC batching. The number will be reduced if necessary to
+         * keep the number of bind parameters in each statement within the limits of the common drivers. The default is
+         * 100.
+         * @param rowsPerStatement Number of rows in each INSERT statement.
+         * @return A copy of the current JdbcBatchLoaderSupplier with this property modified.
+         */
+        public JdbcBatchLoaderSupplier<T> withRowsPerStatement(int rowsPerStatement) {
+            if (rowsPerStatement < 1) {
+                throw new IllegalArgumentException("Rows per statement must be at least 1");
+            }
+
+            return new JdbcBatchLoaderSupplier<>(dataSource, tableName, columns, batchSize, rowsPerStatement,
+                    upsertKeyColumns);
+        }
+
+        /**
+         * Optional: Upsert rather than insert, so that a row which conflicts with an existing row on the given key
+         * columns updates all the other columns of that row instead. The key columns must be covered by a primary key
+         * or unique constraint in the database.
+         * @param keyColumnNames The names of the columns that uniquely identify a row.
+         * @return A copy of the current JdbcBatchLoaderSupplier with this property modified.
+         * @throws IllegalArgumentException If no key columns are given, or a key column is not a property of the class
+         * being loaded.
+         */
+        public JdbcBatchLoaderSupplier<T> withUpsert(@Nonnull List<String> keyColumnNames) {
+            if (keyColumnNames.isEmpty()) {
+                throw new IllegalArgumentException("At least one key column must be specified to upsert");
+            }
+
+            for (String keyColumnName : keyColumnNames) {
+                if (columns.stream().noneMatch(column -> column.getName().equals(keyColumnName))) {
+                    throw new IllegalArgumentException("Key column " + keyColumnName + " is not a property of the " +
+                            "class being loaded");
+                }
+            }
+
+            return new JdbcBatchLoaderSupplier<>(dataSource, tableName, columns, batchSize, rowsPerStatement,
+                    ImmutableList.copyOf(keyColumnNames));
+        }
+
+        /**
+         * Construct a new loader according to the properties of this supplier.
+         * @return A newly constructed JdbcBatchLoader.
+         */
+        @Override
+        @Nonnull
+        public JdbcBatchLoader<T> get() {
+            int effectiveRowsPerStatement = Math.max(1, Math.min(Math.min(rowsPerStatement, batchSize),
+                    MAX_PARAMETERS_PER_STATEMENT / columns.size()));
+
+            return new JdbcBatchLoader<>(dataSource, tableName, columns, batchSize, effectiveRowsPerStatement,
+                    upsertKeyColumns);
+        }
+    }
+}
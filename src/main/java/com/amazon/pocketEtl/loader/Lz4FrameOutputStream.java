@@ -0,0 +1,69 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import io.airlift.compress.lz4.Lz4Compressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes data in the LZ4 frame format, as read by the lz4 command line tool, using 64 KiB independent blocks. Blocks
+ * that do not compress are stored uncompressed so no block is ever larger than the data it holds.
+ */
+class Lz4FrameOutputStream extends BlockCompressingOutputStream {
+    static final int BLOCK_SIZE_IN_BYTES = 64 * 1024;
+    static final int BLOCK_HEADER_SIZE_IN_BYTES = 4;
+    static final int END_MARK_SIZE_IN_BYTES = 4;
+
+    // Magic number, then a descriptor for version 1 with independent 64 KiB blocks, no checksums and no content size,
+    // followed by the second byte of the xxHash32 of that descriptor
+    private static final byte[] FRAME_HEADER = {0x04, 0x22, 0x4D, 0x18, 0x60, 0x40, (byte) 0x82};
+    private static final int UNCOMPRESSED_BLOCK_FLAG = 0x80000000;
+
+    private final Lz4Compressor compressor = new Lz4Compressor();
+    private final byte[] compressedBlock = new byte[compressor.maxCompressedLength(BLOCK_SIZE_IN_BYTES)];
+
+    Lz4FrameOutputStream(OutputStream destination) throws IOException {
+        super(destination, BLOCK_SIZE_IN_BYTES);
+        destination.write(FRAME_HEADER);
+    }
+
+    @Override
+    void writeBlock(OutputStream destination, byte[] block, int length) throws IOException {
+        int compressedLength = compressor.compress(block, 0, length, compressedBlock, 0, compressedBlock.length);
+
+        if (compressedLength < length) {
+            writeLittleEndianInt(destination, compressedLength);
+            destination.write(compressedBlock, 0, compressedLength);
+        } else {
+            writeLittleEndianInt(destination, length | UNCOMPRESSED_BLOCK_FLAG);
+            destination.write(block, 0, length);
+        }
+    }
+
+    @Override
+    void writeEnd(OutputStream destination) throws IOException {
+        writeLittleEndianInt(destination, 0);
+    }
+
+    private static void writeLittleEndianInt(OutputStream destination, int value) throws IOException {
+        destination.write(value);
+        destination.write(value >>> 8);
+        destination.write(value >>> 16);
+        destination.write(value >>> 24);
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.Loader;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.parquet.ParquetCompressionCodec;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileWriter;
+import com.amazon.pocketEtl.integration.parquet.ParquetSchema;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * Loader implementation that loads data to multiple S3 part files in the columnar Parquet format, which is much cheaper
+ * to scan with tools such as Athena, Spark or Redshift Spectrum than delimited text. Like S3FastLoader this class is
+ * deliberately not synchronized and is not thread-safe, and the best way to use it is to construct a Supplier using
+ * the supplierOf static method and pass that supplier into a ParallelLoader so every thread writes its own part files.
+ * Eg:
+ *
+ * ParallelLoader.of(ParquetS3Loader.supplierOf("myBucket", MyObject.class))
+ *
+ * Each loader buffers the rows it is given column by column in memory until they reach the row group size, and then
+ * encodes them as a row group of the part file it is building. Every part file is written as an S3 multipart upload,
+ * so encoded row groups stream out through a pair of upload-part buffers owned by the loader and each part is uploaded
+ * in the background while the loader carries on, rather than the whole part file being held in memory. Once the part
+ * file reaches the maximum part file size its upload is completed, and the next object loaded starts a new part file.
+ * Columns are dictionary encoded where that makes them smaller and every page is compressed with the configured codec.
+ *
+ * The Parquet schema is derived from the class being loaded; see ParquetSchema for the property types that are
+ * supported.
+ *
+ * @param <T> The type of objects being loaded.
+ */
+@SuppressWarnings("WeakerAccess")
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class ParquetS3Loader<T> implements Loader<T> {
+    private final static Logger logger = getLogger(ParquetS3Loader.class);
+
+    // Default part-size is 128 MiB
+    private final static int DEFAULT_MAX_PARTFILE_SIZE_IN_BYTES = 1024 * 1024 * 128;
+
+    // Default row group size is 32 MiB
+    private final static int DEFAULT_ROW_GROUP_SIZE_IN_BYTES = 1024 * 1024 * 32;
+
+    // Default upload part size is 8 MiB
+    private final static int DEFAULT_MULTIPART_PART_SIZE_IN_BYTES = 1024 * 1024 * 8;
+
+    // One buffer being filled while the previous part is uploaded
+    private final static int PART_BUFFERS_PER_LOADER = 2;
+
+    private final static String SUCCESS_METRIC_KEY = "ParquetS3Loader.success";
+    private final static String FAILURE_METRIC_KEY = "ParquetS3Loader.failure";
+
+    private final AmazonS3 amazonS3;
+    private final String s3Bucket;
+    private final Integer maxPartFileSizeInBytes;
+    private final Integer rowGroupSizeInBytes;
+    private final String sseKmsArn;
+    private final Function<Integer, String> s3PartFileKeyGenerator;
+    private final ParquetSchema<T> schema;
+    private final ParquetCompressionCodec compressionCodec;
+    private final Integer multipartPartSizeInBytes;
+    private final ExecutorService uploadExecutor;
+
+    private EtlMetrics parentMetrics;
+    private ByteBufferPool partBufferPool = null;
+    private S3MultipartUpload partFileUpload = null;
+    private ParquetFileWriter<T> partFileWriter = null;
+    private int fileSequenceNumber = 0;
+
+    /**
+     * Constructs a new ParquetS3LoaderSupplier which will supply sequenced instances of ParquetS3Loader objects that
+     * can be used in parallel as they will write to different keys in the S3 bucket.
+     *
+     * Example usage:
+     * ParquetS3Loader.supplierOf("myBucket", MyObject.class)
+     *
+     * By default the files will be named thus:-
+     * PocketETL/01/part-00001.parquet
+     * PocketETL/01/part-00002.parquet
+     * PocketETL/02/part-00001.parquet
+     * ...etc
+     *
+     * @param s3Bucket The S3 bucket to write the data into.
+     * @param classToLoad The class of the objects being loaded, from which the Parquet schema is derived.
+     * @param <T> The type of object being loaded.
+     * @return A newly constructed ParquetS3LoaderSupplier object.
+     * @throws IllegalArgumentException If the class has a property that cannot be written to Parquet.
+     */
+    public static <T> ParquetS3LoaderSupplier<T> supplierOf(String s3Bucket, Class<T> classToLoad) {
+        return new ParquetS3LoaderSupplier<>(null, null, null, null, s3Bucket, null, ParquetSchema.of(classToLoad),
+                ParquetCompressionCodec.GZIP, null);
+    }
+
+    /**
+     * Loads the next object into the row group being buffered. If the part file being built has reached its maximum
+     * size its upload will be completed, and if the row group has reached its maximum size it will be written to the
+     * part file. If anything goes wrong the upload of the part file being built is aborted.
+     * @param objectToLoad The object to be loaded.
+     */
+    @Override
+    public void load(T objectToLoad) {
+        if (partFileWriter == null) {
+            startPartFile();
+        }
+
+        try {
+            partFileWriter.write(objectToLoad);
+
+            long bufferedSizeInBytes = partFileWriter.getBufferedSizeInBytes();
+
+            if (partFileWriter.getBytesWritten() + bufferedSizeInBytes >= getMaxPartFileSizeInBytes()) {
+                finishPartFile();
+            } else if (bufferedSizeInBytes >= getRowGroupSizeInBytes()) {
+                flushRowGroup();
+            }
+        } catch (RuntimeException e) {
+            abortPartFile();
+            throw e;
+        }
+    }
+
+    /**
+     * Prepares the loader to start accepting objects to load.
+     * @param parentMetrics An EtlMetrics object to attach any child threads created by load() to
+     */
+    @Override
+    public void open(@Nullable EtlMetrics parentMetrics) {
+        this.parentMetrics = parentMetrics;
+        this.partBufferPool = new ByteBufferPool(getMultipartPartSizeInBytes(), PART_BUFFERS_PER_LOADER);
+    }
+
+    /**
+     * Will write any data currently buffered to S3, completing the final part file, and close the loader. If the part
+     * file cannot be completed its upload is aborted.
+     * @throws Exception If something goes wrong.
+     */
+    @Override
+    public void close() throws Exception {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "ParquetS3Loader.close")) {
+            if (partFileWriter != null) {
+                finishPartFile();
+            }
+        }
+    }
+
+    private void startPartFile() {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "ParquetS3Loader.startUpload")) {
+            String s3Key = s3PartFileKeyGenerator.apply(++fileSequenceNumber);
+
+            try {
+                partFileUpload = new S3MultipartUpload(amazonS3, s3Bucket, s3Key, sseKmsArn, null, partBufferPool,
+                        uploadExecutor, parentMetrics);
+            } catch (AmazonClientException e) {
+                logger.error(e);
+                scope.addCounter(e.getClass().getSimpleName(), 1);
+                emitSuccessAndFailureMetrics(scope, false);
+                throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ", e);
+            }
+        }
+
+        try {
+            partFileWriter = new ParquetFileWriter<>(schema, compressionCodec, partFileUpload.asOutputStream());
+        } catch (IOException e) {
+            abortPartFile();
+            throw new UnrecoverableStreamFailureException("Exception caught trying to start Parquet part file: ", e);
+        } catch (RuntimeException e) {
+            abortPartFile();
+            throw e;
+        }
+    }
+
+    private void flushRowGroup() {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "ParquetS3Loader.writeRowGroup")) {
+            partFileWriter.flushRowGroup();
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Exception caught trying to write Parquet row group: ", e);
+        }
+    }
+
+    private void finishPartFile() {
+        S3MultipartUpload upload = partFileUpload;
+        ParquetFileWriter<T> writer = partFileWriter;
+        partFileWriter = null;
+        partFileUpload = null;
+
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "ParquetS3Loader.finishPartFile")) {
+            writer.finish();
+        } catch (IOException e) {
+            upload.abort();
+            throw new UnrecoverableStreamFailureException("Exception caught trying to finish Parquet part file: ", e);
+        } catch (RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+
+        completeUpload(upload);
+    }
+
+    // Discards the part file being built, if there is one, so its parts are not left stored in S3
+    private void abortPartFile() {
+        S3MultipartUpload upload = partFileUpload;
+        partFileWriter = null;
+        partFileUpload = null;
+
+        if (upload != null) {
+            upload.abort();
+        }
+    }
+
+    private int getMaxPartFileSizeInBytes() {
+        return maxPartFileSizeInBytes == null ? DEFAULT_MAX_PARTFILE_SIZE_IN_BYTES : maxPartFileSizeInBytes;
+    }
+
+    private int getRowGroupSizeInBytes() {
+        return rowGroupSizeInBytes == null ? DEFAULT_ROW_GROUP_SIZE_IN_BYTES : rowGroupSizeInBytes;
+    }
+
+    private int getMultipartPartSizeInBytes() {
+        return multipartPartSizeInBytes == null ? DEFAULT_MULTIPART_PART_SIZE_IN_BYTES : multipartPartSizeInBytes;
+    }
+
+    private void completeUpload(S3MultipartUpload upload) {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "ParquetS3Loader.writeToS3")) {
+            try {
+                upload.complete();
+                emitSuccessAndFailureMetrics(scope, true);
+            } catch (AmazonClientException e) {
+                logger.error(e);
+                scope.addCounter(e.getClass().getSimpleName(), 1);
+                emitSuccessAndFailureMetrics(scope, false);
+                throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ", e);
+            }
+        }
+    }
+
+    private void emitSuccessAndFailureMetrics(final EtlProfilingScope scope, final boolean isSuccess) {
+        scope.addCounter(SUCCESS_METRIC_KEY, isSuccess ? 1 : 0);
+        scope.addCounter(FAILURE_METRIC_KEY, isSuccess ? 0 : 1);
+    }
+
+    /**
+     * A class that supplies ParquetS3Loader objects on demand. The class keeps a sequence counter which increments
+     * each time it constructs a new ParquetS3Loader and this sequence number can be referenced in the supplied S3 key
+     * generator function.
+     *
+     * To construct an instance of this supplier, use the static method ParquetS3Loader.supplierOf(...)
+     */
+    @SuppressWarnings("WeakerAccess")
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class ParquetS3LoaderSupplier<T> implements Supplier<Loader<T>> {
+        private final String awsKmsArn;
+        private final Integer maxPartFileSizeInBytes;
+        private final Integer rowGroupSizeInBytes;
+        private final AmazonS3 s3Client;
+        private final String s3Bucket;
+        private final S3PartFileKeyGenerator s3KeyGenerator;
+        private final ParquetSchema<T> schema;
+        private final ParquetCompressionCodec compressionCodec;
+        private final Integer multipartPartSizeInBytes;
+
+        private AtomicInteger sequenceCounter = new AtomicInteger(0);
+        private ExecutorService uploadExecutor = null;
+
+        /**
+         * Optional: Enables server-side-encryption on all the loaders supplied by this object using the referenced KMS
+         * key.
+         * @param awsKmsArn An ARN that identifies the KMS key to use to encrypt the data being written to S3.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withSSEKmsArn(String awsKmsArn) {
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: Defines the target size of the files that will be written to S3. A part file is completed as soon
+         * as the data written to it and buffered for it reaches this size. The default is 128 MiB.
+         * @param maxPartFileSizeInBytes Target file size in bytes.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withMaxPartFileSizeInBytes(Integer maxPartFileSizeInBytes) {
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: Defines how much data each loader buffers before encoding it as a row group. Larger row groups
+         * make scans more efficient but use more memory in each loader. The default is 32 MiB.
+         * @param rowGroupSizeInBytes Row group size in bytes, or null to use the default.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withRowGroupSizeInBytes(Integer rowGroupSizeInBytes) {
+            if (rowGroupSizeInBytes != null && rowGroupSizeInBytes < 1) {
+                throw new IllegalArgumentException("Row group size must be at least 1 byte");
+            }
+
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: Specifies an AmazonS3 client used to write the data to S3. If not specified, the default AWS client
+         * builder will be used.
+         * @param s3Client an Amazon S3 client
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withClient(AmazonS3 s3Client) {
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: Define the behavior of how part files being written to S3 will be named. The default behavior is
+         * PocketETL/{sequence-number}/part-{part-number}.parquet.
+         * @param s3KeyGenerator A function that given a sequence number and a part number will return an S3 key to use
+         *                       to store the object.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withS3PartFileKeyGenerator(S3PartFileKeyGenerator s3KeyGenerator) {
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: The codec used to compress every page of the Parquet files. The default is GZIP.
+         * @param compressionCodec The codec to compress pages with.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withCompression(@Nonnull ParquetCompressionCodec compressionCodec) {
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Optional: Defines the size of the parts that each part file is uploaded to S3 in. Every loader holds two
+         * buffers of this size, one being filled while the other is uploaded, in addition to the row group it is
+         * buffering. The default is 8 MiB.
+         * @param multipartPartSizeInBytes The size of each upload part. S3 requires this to be at least 5 MiB.
+         * @return A copy of the current ParquetS3LoaderSupplier with this property modified.
+         */
+        public ParquetS3LoaderSupplier<T> withMultipartPartSizeInBytes(int multipartPartSizeInBytes) {
+            if (multipartPartSizeInBytes < S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES) {
+                throw new IllegalArgumentException("Multipart upload part size must be at least "
+                        + S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES + " bytes");
+            }
+
+            return new ParquetS3LoaderSupplier<>(awsKmsArn, maxPartFileSizeInBytes, rowGroupSizeInBytes, s3Client,
+                    s3Bucket, s3KeyGenerator, schema, compressionCodec, multipartPartSizeInBytes);
+        }
+
+        /**
+         * Construct a new loader according to the properties of this provider and increment the sequence counter used
+         * to determine S3 key names for future provided loaders.
+         * @return A newly constructed ParquetS3Loader.
+         */
+        @Override
+        @Nonnull
+        public ParquetS3Loader<T> get() {
+            final int sequenceNum = sequenceCounter.incrementAndGet();
+            Function<Integer, String> keyGeneratorForThread;
+
+            if (s3KeyGenerator == null) {
+                keyGeneratorForThread = (part) -> String.format("PocketETL/%02d/part-%05d.parquet", sequenceNum, part);
+            } else {
+                keyGeneratorForThread = (part) -> s3KeyGenerator.generateS3Key(sequenceNum, part);
+            }
+
+            AmazonS3 effectiveS3Client = (s3Client == null) ? AmazonS3Client.builder().build() : s3Client;
+
+            return new ParquetS3Loader<>(effectiveS3Client, s3Bucket, maxPartFileSizeInBytes, rowGroupSizeInBytes,
+                    awsKmsArn, keyGeneratorForThread, schema, compressionCodec, multipartPartSizeInBytes,
+                    getUploadExecutor());
+        }
+
+        // The upload threads are shared by every loader this object supplies, each of which has at most one part
+        // uploading at a time
+        private synchronized ExecutorService getUploadExecutor() {
+            if (uploadExecutor == null) {
+                uploadExecutor = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "ParquetS3Loader-upload-" + s3Bucket);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+
+            return uploadExecutor;
+        }
+    }
+}
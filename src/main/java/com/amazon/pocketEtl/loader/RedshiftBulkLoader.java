@@ -17,11 +17,14 @@ package com.amazon.pocketEtl.loader;
 
 import com.amazon.pocketEtl.Loader;
 import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.RedshiftCopyFormat;
 import com.amazon.pocketEtl.integration.RedshiftJdbcClient;
+import com.amazon.pocketEtl.integration.parquet.ParquetCompressionCodec;
 import com.amazonaws.services.s3.AmazonS3;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
+import javax.annotation.Nonnull;
 import javax.sql.DataSource;
 import java.util.List;
 import java.util.UUID;
@@ -99,7 +102,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
     public static <T> RedshiftBulkLoaderSupplier<T> supplierOf(Class<T> classToLoad) {
         return new RedshiftBulkLoaderSupplier<>(null, classToLoad, null, null,
                 null, null, null, null, null, null,
-                null, null, DEFAULT_LOAD_STRATEGY, null);
+                null, null, DEFAULT_LOAD_STRATEGY, null, S3CompressionCodec.NONE, RedshiftCopyFormat.DELIMITED);
     }
 
     @Override
@@ -123,6 +126,8 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         private final List<String> redshiftIndexColumnNames;
         private final RedshiftLoadStrategy redshiftLoadStrategy;
         private final RedshiftJdbcClient redshiftJdbcClient;
+        private final S3CompressionCodec compressionCodec;
+        private final RedshiftCopyFormat copyFormat;
 
         /**
          * Required: Defines the name of the S3 bucket this loader should write its interim data to before copying it into
@@ -135,7 +140,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withS3Bucket(String s3Bucket) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -148,7 +153,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withBufferSizeInBytes(Integer bufferSizeInBytes) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -161,7 +166,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withAmazonS3(AmazonS3 amazonS3) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -175,7 +180,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withS3Prefix(String s3Prefix) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -189,7 +194,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withKmsArn(String kmsArn) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -203,7 +208,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withLoadStrategy(RedshiftLoadStrategy redshiftLoadStrategy) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -215,7 +220,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withRedshiftDataSource(DataSource redshiftDataSource) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -228,7 +233,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withS3Region(String s3Region) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -241,7 +246,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withRedshiftTableName(String redshiftTableName) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -254,7 +259,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withRedshiftIamRole(String redshiftIamRole) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -271,7 +276,7 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withRedshiftColumnNames(List<String> redshiftColumnNames) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -288,14 +293,44 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
         public RedshiftBulkLoaderSupplier<T> withRedshiftIndexColumnNames(List<String> redshiftIndexColumnNames) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
+        }
+
+        /**
+         * Optional: Compresses the files written to S3 and has Redshift decompress them as it copies them, which reduces
+         * the time spent writing to S3 and copying into Redshift for the cost of some CPU time. Redshift cannot load
+         * LZ4 compressed files, so LZ4 is rejected when the loader is constructed. The default is NONE.
+         *
+         * @param compressionCodec The codec to compress the interim files with.
+         * @return A copy of the current RedshiftBulkLoader with this property modified.
+         */
+        public RedshiftBulkLoaderSupplier<T> withCompression(@Nonnull S3CompressionCodec compressionCodec) {
+            return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
+                    redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
+        }
+
+        /**
+         * Optional: Specifies the format of the interim files written to S3. DELIMITED writes pipe delimited text and
+         * PARQUET writes Parquet files that Redshift loads with COPY ... FORMAT AS PARQUET, mapping the properties of
+         * the data class onto the Redshift columns in the same order as they would be serialized to CSV. The pages of
+         * Parquet files are compressed internally with the same algorithm as the compression that has been set, and
+         * are not compressed if it is NONE. The default is DELIMITED.
+         *
+         * @param copyFormat The format of the interim files.
+         * @return A copy of the current RedshiftBulkLoader with this property modified.
+         */
+        public RedshiftBulkLoaderSupplier<T> withCopyFormat(@Nonnull RedshiftCopyFormat copyFormat) {
+            return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
+                    redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         // Visible for testing.
         RedshiftBulkLoaderSupplier<T> withRedshiftJdbcClient(RedshiftJdbcClient redshiftJdbcClient) {
             return new RedshiftBulkLoaderSupplier<>(s3Bucket, classToLoad, bufferSizeInBytes, amazonS3, s3Prefix, kmsArn,
                     redshiftDataSource, s3Region, redshiftTableName, redshiftIamRole, redshiftColumnNames,
-                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient);
+                    redshiftIndexColumnNames, redshiftLoadStrategy, redshiftJdbcClient, compressionCodec, copyFormat);
         }
 
         /**
@@ -316,26 +351,17 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
             checkRequiredProperty(redshiftColumnNames, "redshiftColumnNames");
             checkRequiredProperty(redshiftIndexColumnNames, "redshiftIndexColumnNames");
 
-            Supplier<StringSerializer<T>> stringSerializerSupplier = () -> CsvStringSerializer.of(classToLoad)
-                    .withColumnSeparator('|');
-
-            final String finalS3Prefix = (s3Prefix == null ? DEFAULT_S3_PREFIX : s3Prefix) + "/" + UUID.randomUUID().toString();
-
-            S3FastLoader.S3FastLoaderSupplier<T> loaderSupplier = S3FastLoader.supplierOf(s3Bucket, stringSerializerSupplier)
-                    .withS3PartFileKeyGenerator((thread, partNum) ->
-                            String.format("%s/%02d/part-%05d.csv", finalS3Prefix, thread, partNum));
-
-            if (amazonS3 != null) {
-                loaderSupplier = loaderSupplier.withClient(amazonS3);
+            if (compressionCodec != S3CompressionCodec.NONE && compressionCodec.getRedshiftCopyOption() == null) {
+                throw new IllegalArgumentException("Redshift COPY cannot load files compressed with "
+                        + compressionCodec);
             }
 
-            if (bufferSizeInBytes != null) {
-                loaderSupplier = loaderSupplier.withMaxPartFileSizeInBytes(bufferSizeInBytes);
-            }
+            final String finalS3Prefix = (s3Prefix == null ? DEFAULT_S3_PREFIX : s3Prefix) + "/" + UUID.randomUUID().toString();
 
-            if (kmsArn != null) {
-                loaderSupplier = loaderSupplier.withSSEKmsArn(kmsArn);
-            }
+            Supplier<Loader<T>> loaderSupplier = copyFormat == RedshiftCopyFormat.PARQUET ?
+                    createParquetLoaderSupplier(finalS3Prefix) : createDelimitedLoaderSupplier(finalS3Prefix);
+            String copyCompressionOption =
+                    copyFormat == RedshiftCopyFormat.PARQUET ? null : compressionCodec.getRedshiftCopyOption();
 
             RedshiftJdbcClient redshiftJdbcClient = this.redshiftJdbcClient == null ? new RedshiftJdbcClient(redshiftDataSource) : this.redshiftJdbcClient;
 
@@ -347,11 +373,12 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
                                     case MERGE_INTO_EXISTING_DATA:
                                         redshiftJdbcClient.copyAndMerge(redshiftColumnNames, redshiftIndexColumnNames,
                                                                         redshiftTableName, s3Bucket, finalS3Prefix, s3Region, redshiftIamRole,
-                                                                        parentMetrics);
+                                                                        copyFormat, copyCompressionOption, parentMetrics);
                                         break;
                                     case CLOBBER_EXISTING_DATA:
                                         redshiftJdbcClient.deleteAndCopy(redshiftColumnNames, redshiftTableName, s3Bucket,
-                                                                         finalS3Prefix, s3Region, redshiftIamRole, parentMetrics);
+                                                                         finalS3Prefix, s3Region, redshiftIamRole,
+                                                                         copyFormat, copyCompressionOption, parentMetrics);
                                         break;
                                 }
                             } else if (redshiftLoadStrategy.equals(RedshiftLoadStrategy.CLOBBER_EXISTING_DATA)) {
@@ -365,6 +392,62 @@ public class RedshiftBulkLoader<T> extends WrappedLoader<T> {
                     }));
         }
 
+        private Supplier<Loader<T>> createDelimitedLoaderSupplier(String finalS3Prefix) {
+            Supplier<StringSerializer<T>> stringSerializerSupplier = () -> CsvStringSerializer.of(classToLoad)
+                    .withColumnSeparator('|');
+
+            S3FastLoader.S3FastLoaderSupplier<T> loaderSupplier = S3FastLoader.supplierOf(s3Bucket, stringSerializerSupplier)
+                    .withS3PartFileKeyGenerator((thread, partNum) ->
+                            String.format("%s/%02d/part-%05d.csv", finalS3Prefix, thread, partNum))
+                    .withCompression(compressionCodec);
+
+            if (amazonS3 != null) {
+                loaderSupplier = loaderSupplier.withClient(amazonS3);
+            }
+
+            if (bufferSizeInBytes != null) {
+                loaderSupplier = loaderSupplier.withMaxPartFileSizeInBytes(bufferSizeInBytes);
+            }
+
+            if (kmsArn != null) {
+                loaderSupplier = loaderSupplier.withSSEKmsArn(kmsArn);
+            }
+
+            return loaderSupplier;
+        }
+
+        private Supplier<Loader<T>> createParquetLoaderSupplier(String finalS3Prefix) {
+            ParquetS3Loader.ParquetS3LoaderSupplier<T> loaderSupplier = ParquetS3Loader.supplierOf(s3Bucket, classToLoad)
+                    .withS3PartFileKeyGenerator((thread, partNum) ->
+                            String.format("%s/%02d/part-%05d.parquet", finalS3Prefix, thread, partNum))
+                    .withCompression(toParquetCompressionCodec(compressionCodec));
+
+            if (amazonS3 != null) {
+                loaderSupplier = loaderSupplier.withClient(amazonS3);
+            }
+
+            if (bufferSizeInBytes != null) {
+                loaderSupplier = loaderSupplier.withMaxPartFileSizeInBytes(bufferSizeInBytes);
+            }
+
+            if (kmsArn != null) {
+                loaderSupplier = loaderSupplier.withSSEKmsArn(kmsArn);
+            }
+
+            return loaderSupplier;
+        }
+
+        private static ParquetCompressionCodec toParquetCompressionCodec(S3CompressionCodec compressionCodec) {
+            switch (compressionCodec) {
+                case GZIP:
+                    return ParquetCompressionCodec.GZIP;
+                case ZSTD:
+                    return ParquetCompressionCodec.ZSTD;
+                default:
+                    return ParquetCompressionCodec.UNCOMPRESSED;
+            }
+        }
+
         private void checkRequiredProperty(Object property, String propertyName) {
             if (property == null) {
                 throw new RuntimeException("Cannot instantiate a RedshiftBulkLoader without '" + propertyName +
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression codecs that S3 based loaders such as S3FastLoader can apply to the part files they write. Each codec
+ * knows the file extension and Content-Encoding that identify data it has compressed, and the option that tells a
+ * Redshift COPY command how to decompress it.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public enum S3CompressionCodec {
+    /**
+     * Part files are written exactly as they were serialized. This is the default.
+     */
+    NONE("", null, null) {
+        @Override
+        OutputStream compress(OutputStream destination) {
+            return destination;
+        }
+
+        @Override
+        long maxCompressedSizeInBytes(long uncompressedSizeInBytes) {
+            return uncompressedSizeInBytes;
+        }
+    },
+
+    /**
+     * Part files are compressed with gzip using the default compression level.
+     */
+    GZIP(".gz", "gzip", "gzip") {
+        // Header, trailer, and the empty blocks written by a sync flush and when the stream is finished
+        private static final int GZIP_FRAMING_OVERHEAD_IN_BYTES = 32;
+
+        @Override
+        OutputStream compress(OutputStream destination) throws IOException {
+            // Sync flushing is enabled so the compressed size of everything written so far can be measured exactly
+            return new GZIPOutputStream(destination, true);
+        }
+
+        @Override
+        long maxCompressedSizeInBytes(long uncompressedSizeInBytes) {
+            // Incompressible data is stored in blocks that each add 5 bytes per 64 KiB
+            return uncompressedSizeInBytes + (uncompressedSizeInBytes >> 10) + GZIP_FRAMING_OVERHEAD_IN_BYTES;
+        }
+    },
+
+    /**
+     * Part files are compressed with Zstandard, which compresses text about as well as gzip at several times the
+     * speed. Redshift COPY can load these files.
+     */
+    ZSTD(".zst", "zstd", "zstd") {
+        @Override
+        OutputStream compress(OutputStream destination) {
+            return new ZstdFramesOutputStream(destination);
+        }
+
+        @Override
+        long maxCompressedSizeInBytes(long uncompressedSizeInBytes) {
+            int frameSize = ZstdFramesOutputStream.FRAME_SIZE_IN_BYTES;
+            long fullFrames = uncompressedSizeInBytes / frameSize;
+            int remainingBytes = (int) (uncompressedSizeInBytes % frameSize);
+
+            return fullFrames * ZstdFramesOutputStream.maxCompressedFrameSizeInBytes(frameSize)
+                    + ZstdFramesOutputStream.maxCompressedFrameSizeInBytes(remainingBytes);
+        }
+    },
+
+    /**
+     * Part files are compressed in the LZ4 frame format, which trades compression ratio for the fastest compression
+     * of these codecs. Redshift COPY cannot load these files, so this is intended for files read by other consumers
+     * such as Athena or Spark.
+     */
+    LZ4(".lz4", null, null) {
+        @Override
+        OutputStream compress(OutputStream destination) throws IOException {
+            return new Lz4FrameOutputStream(destination);
+        }
+
+        @Override
+        long maxCompressedSizeInBytes(long uncompressedSizeInBytes) {
+            // Blocks that do not compress are stored as they are, so each block only adds its header
+            long blocks = uncompressedSizeInBytes / Lz4FrameOutputStream.BLOCK_SIZE_IN_BYTES + 1;
+
+            return uncompressedSizeInBytes + blocks * Lz4FrameOutputStream.BLOCK_HEADER_SIZE_IN_BYTES
+                    + Lz4FrameOutputStream.END_MARK_SIZE_IN_BYTES;
+        }
+    };
+
+    /**
+     * The extension added to the S3 key of every part file compressed with this codec, e.g. ".gz".
+     */
+    @Getter
+    private final String fileExtension;
+
+    /**
+     * The Content-Encoding stored with every part file compressed with this codec, or null if there is none.
+     */
+    @Getter
+    private final String contentEncoding;
+
+    /**
+     * The option that needs to be added to a Redshift COPY command to load files compressed with this codec, or null
+     * if none is needed or Redshift cannot load them.
+     */
+    @Getter
+    private final String redshiftCopyOption;
+
+    /**
+     * Wraps a stream so that everything written to the returned stream is compressed and written to the destination.
+     * Flushing the returned stream must write out everything written to it so far, and closing it must finish the
+     * compressed data and close the destination.
+     */
+    abstract OutputStream compress(OutputStream destination) throws IOException;
+
+    /**
+     * An upper bound on the number of compressed bytes that compressing the given number of bytes could produce,
+     * including any framing needed to finish or flush the compressed data.
+     */
+    abstract long maxCompressedSizeInBytes(long uncompressedSizeInBytes);
+}
@@ -27,15 +27,28 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -51,9 +64,22 @@ import static org.apache.logging.log4j.LogManager.getLogger;
  * ParallelLoader.of(S3FastLoader.supplierOf(...))
  *
  * The implementation of this loader buffers data in memory until it is ready to write a complete part file in S3 and
- * then writes the entire part file at once and clears the buffer to start loading more data.
+ * then writes the entire part file at once and clears the buffer to start loading more data. If asynchronous flushing
+ * is enabled (see S3FastLoaderSupplier.withAsynchronousFlush) the write happens on a background thread while the loader
+ * carries on filling another buffer, and any failure is reported by the next call to load or close.
  *
- * A serialization function that can convert the data objects into strings is required for this Loader to function.
+ * Alternatively the loader can be configured to write each part file as an S3 multipart upload (see
+ * S3FastLoaderSupplier.withMultipartUpload). In this mode data is serialized into much smaller upload-part buffers
+ * taken from a pool shared by all the loaders from the same supplier, and each buffer is uploaded in the background as
+ * soon as it fills while serialization carries on into the next one. The upload of a part file is completed when it
+ * reaches its maximum size or the loader is closed.
+ *
+ * Part files can optionally be compressed as they are written (see S3FastLoaderSupplier.withCompression), in which
+ * case the maximum part file size applies to the compressed size of each file.
+ *
+ * A serialization function that can convert the data objects into strings, or a ByteSerializer that can encode them
+ * directly as bytes, is required for this Loader to function. A ByteSerializer avoids building a String for every
+ * object, and each object is only ever encoded once even when it starts a new part file.
  *
  * @param <T> The type of objects being loaded.
  */
@@ -65,6 +91,9 @@ public class S3FastLoader<T> implements Loader<T> {
     // Default part-size is 128 MiB
     private final static int DEFAULT_MAX_PARTFILE_SIZE_IN_BYTES = 1024 * 1024 * 128;
 
+    // S3 rejects multipart uploads where any part other than the last is smaller than 5 MiB
+    final static int MIN_MULTIPART_PART_SIZE_IN_BYTES = 1024 * 1024 * 5;
+
     private final static String SUCCESS_METRIC_KEY = "S3FastLoader.success";
     private final static String FAILURE_METRIC_KEY = "S3FastLoader.failure";
     private final static Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
@@ -75,11 +104,28 @@ public class S3FastLoader<T> implements Loader<T> {
     private final String sseKmsArn;
     private final Function<Integer, String> s3PartFileKeyGenerator;
     private final Supplier<StringSerializer<T>> stringSerializerProvider;
+    private final ByteSerializer<T> byteSerializer;
+    private final ByteBufferPool multipartBufferPool;
+    private final ExecutorService multipartUploadExecutor;
+    private final Integer maxFlushesInFlight;
+    private final S3CompressionCodec compressionCodec;
+    private final Runnable multipartResourcesReleaser;
 
     private EtlMetrics parentMetrics;
+    private boolean hasReleasedMultipartResources = false;
     private ByteBuffer buffer = null;
     private StringSerializer<T> stringSerializer = null;
     private int fileSequenceNumber = 0;
+    private CompressingPartWriter partWriter = null;
+    private S3MultipartUpload multipartUpload = null;
+    private boolean hasMultipartBufferReservation = false;
+    private ByteBufferPool flushBufferPool = null;
+    private ExecutorService flushExecutor = null;
+    private final Deque<Future<?>> flushesInFlight = new ArrayDeque<>();
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private byte[] headerBytes = new byte[0];
+    private byte[] serializedRecord = null;
+    private int serializedRecordLength = 0;
 
     /**
      * Constructs a new S3FastLoaderSupplier which will supply sequenced instances of S3FastLoader objects that can be used
@@ -106,7 +152,27 @@ public class S3FastLoader<T> implements Loader<T> {
      * @return A newly constructed S3FastLoaderSupplier object.
      */
     public static <T> S3FastLoaderSupplier<T> supplierOf(String s3Bucket, Supplier<StringSerializer<T>> stringSerializerSupplier) {
-        return new S3FastLoaderSupplier<>(null, null, null, s3Bucket, null, stringSerializerSupplier);
+        return new S3FastLoaderSupplier<>(null, null, null, s3Bucket, null, stringSerializerSupplier, null, null, null,
+                null, S3CompressionCodec.NONE);
+    }
+
+    /**
+     * Constructs a new S3FastLoaderSupplier that encodes objects directly into the part file buffers using a
+     * ByteSerializer rather than converting each of them to a String first. Otherwise behaves exactly the same as the
+     * S3FastLoaderSupplier constructed by supplierOf(String, Supplier).
+     *
+     * Example usage:
+     * S3FastLoader.supplierOf("myBucket", CsvByteSerializer.of(MyObject.class))
+     *
+     * @param s3Bucket The S3 bucket to write the data into.
+     * @param byteSerializer A thread-safe serializer that writes an object to load as bytes. It will be shared by all
+     *                       the loaders supplied.
+     * @param <T> The type supplierOf object being loaded.
+     * @return A newly constructed S3FastLoaderSupplier object.
+     */
+    public static <T> S3FastLoaderSupplier<T> supplierOf(String s3Bucket, ByteSerializer<T> byteSerializer) {
+        return new S3FastLoaderSupplier<>(null, null, null, s3Bucket, null, null, byteSerializer, null, null, null,
+                S3CompressionCodec.NONE);
     }
 
     /**
@@ -117,20 +183,92 @@ public class S3FastLoader<T> implements Loader<T> {
      */
     @Override
     public void load(T objectToLoad) {
-        String serializedObject = stringSerializer.apply(objectToLoad);
-        byte[] serializedObjectBytes = serializedObject.getBytes(DEFAULT_CHARSET);
+        if (isMultipartUpload()) {
+            loadIntoMultipartUpload(objectToLoad);
+            return;
+        }
+
+        if (isAsynchronousFlush()) {
+            checkForFailedFlushes();
+        }
+
+        serializeRecord(objectToLoad);
 
-        if (buffer.remaining() < serializedObjectBytes.length) {
+        if (!getPartWriterForBuffer().fits(getBytesToWriteRecord(), buffer.capacity())) {
             flushBuffer();
-            serializedObject = stringSerializer.apply(objectToLoad);
-            serializedObjectBytes = serializedObject.getBytes(DEFAULT_CHARSET);
+            reserializeRecordForNewPartFile(objectToLoad);
         }
 
-        if (buffer.remaining() < serializedObjectBytes.length) {
-            writeBufferToS3(serializedObjectBytes, serializedObjectBytes.length);
+        if (!getPartWriterForBuffer().fits(getBytesToWriteRecord(), buffer.capacity())) {
+            // Discard the new part file so it does not start with anything written by the compressor
+            partWriter = null;
+            buffer.clear();
+
+            byte[] compressedBytes = CompressingPartWriter.compressToByteArray(compressionCodec,
+                    getRecordAsPartFile());
+            writeBufferToS3(nextS3Key(), compressedBytes, compressedBytes.length);
         } else {
-            buffer.put(serializedObjectBytes);
+            writeRecord();
+        }
+    }
+
+    private void serializeRecord(T objectToLoad) {
+        if (byteSerializer == null) {
+            serializedRecord = stringSerializer.apply(objectToLoad).getBytes(DEFAULT_CHARSET);
+            serializedRecordLength = serializedRecord.length;
+            return;
+        }
+
+        recordBuffer.reset();
+
+        try {
+            byteSerializer.serialize(objectToLoad, recordBuffer);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to serialize object: ", e);
+        }
+
+        serializedRecord = recordBuffer.getBuffer();
+        serializedRecordLength = recordBuffer.size();
+    }
+
+    // A new StringSerializer is used for every part file and may serialize the object differently, eg: with a header
+    // row. A ByteSerializer writes its header separately, so the bytes already serialized are reused.
+    private void reserializeRecordForNewPartFile(T objectToLoad) {
+        if (byteSerializer == null) {
+            serializeRecord(objectToLoad);
+        }
+    }
+
+    private boolean isStartOfPartFile() {
+        return partWriter == null || partWriter.getUncompressedBytesWritten() == 0;
+    }
+
+    private int getBytesToWriteRecord() {
+        return serializedRecordLength + (isStartOfPartFile() ? headerBytes.length : 0);
+    }
+
+    private void writeRecord() {
+        if (isStartOfPartFile()) {
+            partWriter.write(headerBytes);
         }
+
+        partWriter.write(serializedRecord, 0, serializedRecordLength);
+    }
+
+    private byte[] getRecordAsPartFile() {
+        ByteArrayOutputStream partFile = new ByteArrayOutputStream(headerBytes.length + serializedRecordLength);
+        partFile.write(headerBytes, 0, headerBytes.length);
+        partFile.write(serializedRecord, 0, serializedRecordLength);
+
+        return partFile.toByteArray();
+    }
+
+    private CompressingPartWriter getPartWriterForBuffer() {
+        if (partWriter == null) {
+            partWriter = new CompressingPartWriter(compressionCodec, new ByteBufferOutputStream(buffer));
+        }
+
+        return partWriter;
     }
 
     /**
@@ -141,11 +279,42 @@ public class S3FastLoader<T> implements Loader<T> {
     public void open(@Nullable EtlMetrics parentMetrics) {
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3FastLoader.open")) {
             this.parentMetrics = parentMetrics;
-            buffer = ByteBuffer.allocate(getMaxPartFileSizeInBytes());
-            stringSerializer = stringSerializerProvider.get();
+
+            if (isAsynchronousFlush()) {
+                // One buffer being filled plus one for each flush allowed to be in flight
+                flushBufferPool = new ByteBufferPool(getMaxPartFileSizeInBytes(), maxFlushesInFlight + 1);
+                flushExecutor = Executors.newFixedThreadPool(maxFlushesInFlight, runnable -> {
+                    Thread thread = new Thread(runnable, "S3FastLoader-flush-" + s3Bucket);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                buffer = acquireFlushBuffer();
+            } else if (isMultipartUpload()) {
+                reserveMultipartBuffer();
+            } else {
+                buffer = ByteBuffer.allocate(getMaxPartFileSizeInBytes());
+            }
+
+            if (byteSerializer == null) {
+                stringSerializer = stringSerializerProvider.get();
+            } else {
+                headerBytes = serializeHeader();
+            }
         }
     }
 
+    private byte[] serializeHeader() {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+
+        try {
+            byteSerializer.writeHeader(header);
+        } catch (IOException e) {
+            throw new UnrecoverableStreamFailureException("Exception caught trying to serialize header: ", e);
+        }
+
+        return header.toByteArray();
+    }
+
     /**
      * Will flush any data currently buffered to S3 and close the loader.
      * @throws Exception If something goes wrong.
@@ -153,31 +322,224 @@ public class S3FastLoader<T> implements Loader<T> {
     @Override
     public void close() throws Exception {
         try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3FastLoader.close")) {
+            if (isMultipartUpload()) {
+                try {
+                    completeMultipartUpload();
+                } finally {
+                    cancelMultipartBufferReservation();
+                    releaseMultipartResources();
+                }
+            } else if (isAsynchronousFlush()) {
+                closeAsynchronousFlush();
+            } else {
+                flushBuffer();
+            }
+        }
+    }
+
+    private boolean isAsynchronousFlush() {
+        return !isMultipartUpload() && maxFlushesInFlight != null;
+    }
+
+    private void closeAsynchronousFlush() {
+        try {
             flushBuffer();
+
+            while (!flushesInFlight.isEmpty()) {
+                awaitFlush(flushesInFlight.poll());
+            }
+        } finally {
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    // Surfaces the failure of any background flush that has already finished, without waiting for the others
+    private void checkForFailedFlushes() {
+        while (!flushesInFlight.isEmpty() && flushesInFlight.peek().isDone()) {
+            awaitFlush(flushesInFlight.poll());
+        }
+    }
+
+    private void awaitFlush(Future<?> flush) {
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException("Interrupted waiting for buffer to be written to S3", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnrecoverableStreamFailureException) {
+                throw (UnrecoverableStreamFailureException) e.getCause();
+            }
+
+            throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ",
+                    e.getCause());
+        }
+    }
+
+    private ByteBuffer acquireFlushBuffer() {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3FastLoader.waitForBuffer")) {
+            return flushBufferPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException("Interrupted waiting for a free S3 buffer", e);
+        }
+    }
+
+    private boolean isMultipartUpload() {
+        return multipartBufferPool != null;
+    }
+
+    // Every loader can be left holding a partly filled part buffer while it waits for more records, so each one needs
+    // a buffer of its own in the shared pool or loaders that are still busy could wait for a free buffer forever
+    private void reserveMultipartBuffer() {
+        try {
+            multipartBufferPool.reserve();
+            hasMultipartBufferReservation = true;
+        } catch (IllegalStateException e) {
+            throw new UnrecoverableStreamFailureException("More loaders are sharing the multipart upload buffer pool " +
+                    "than it has buffers; the buffer pool size must be at least the number of loader threads", e);
+        }
+    }
+
+    private void cancelMultipartBufferReservation() {
+        if (hasMultipartBufferReservation) {
+            multipartBufferPool.cancelReservation();
+            hasMultipartBufferReservation = false;
+        }
+    }
+
+    // Lets the supplier shut down the upload threads shared by its loaders once the last of them has been closed
+    private void releaseMultipartResources() {
+        if (!hasReleasedMultipartResources) {
+            multipartResourcesReleaser.run();
+            hasReleasedMultipartResources = true;
+        }
+    }
+
+    private void loadIntoMultipartUpload(T objectToLoad) {
+        serializeRecord(objectToLoad);
+
+        if (multipartUpload != null && !partWriter.fits(getBytesToWriteRecord(), getMaxPartFileSizeInBytes())) {
+            completeMultipartUpload();
+            reserializeRecordForNewPartFile(objectToLoad);
         }
+
+        if (serializedRecordLength == 0) {
+            return;
+        }
+
+        if (multipartUpload == null) {
+            startMultipartUpload();
+        }
+
+        try {
+            writeRecord();
+        } catch (UnrecoverableStreamFailureException e) {
+            // Nothing more can be written to this part file, so make sure it is not left incomplete in S3
+            multipartUpload.abort();
+            multipartUpload = null;
+            partWriter = null;
+            throw e;
+        }
+    }
+
+    private void startMultipartUpload() {
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3FastLoader.startUpload")) {
+            String s3Key = nextS3Key();
+
+            try {
+                multipartUpload = new S3MultipartUpload(amazonS3, s3Bucket, s3Key, sseKmsArn,
+                        compressionCodec.getContentEncoding(), multipartBufferPool, multipartUploadExecutor,
+                        parentMetrics);
+                partWriter = new CompressingPartWriter(compressionCodec, multipartUpload.asOutputStream());
+            } catch (AmazonClientException e) {
+                logger.error(e);
+                scope.addCounter(e.getClass().getSimpleName(), 1);
+                emitSuccessAndFailureMetrics(scope, false);
+                throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ", e);
+            }
+        }
+    }
+
+    private void completeMultipartUpload() {
+        if (multipartUpload == null) {
+            return;
+        }
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3FastLoader.writeToS3")) {
+            try {
+                partWriter.finish();
+                multipartUpload.complete();
+                emitSuccessAndFailureMetrics(scope, true);
+            } catch (AmazonClientException e) {
+                logger.error(e);
+                scope.addCounter(e.getClass().getSimpleName(), 1);
+                emitSuccessAndFailureMetrics(scope, false);
+                throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ", e);
+            } finally {
+                multipartUpload = null;
+                partWriter = null;
+            }
+        }
+
+        resetStringSerializer();
     }
 
     private void flushBuffer() {
+        if (partWriter != null && partWriter.getUncompressedBytesWritten() > 0) {
+            partWriter.finish();
+        } else {
+            // Nothing was loaded, so discard anything the compressor wrote when it was started
+            buffer.clear();
+        }
+
+        partWriter = null;
         buffer.flip();
 
-        if (buffer.limit() != 0) {
-            writeBufferToS3(buffer.array(), buffer.limit());
+        if (buffer.limit() != 0 && isAsynchronousFlush()) {
+            ByteBuffer bufferToWrite = buffer;
+            String s3Key = nextS3Key();
+            flushesInFlight.add(flushExecutor.submit(() -> {
+                try {
+                    writeBufferToS3(s3Key, bufferToWrite.array(), bufferToWrite.limit());
+                } finally {
+                    flushBufferPool.release(bufferToWrite);
+                }
+            }));
+
+            buffer = acquireFlushBuffer();
+        } else if (buffer.limit() != 0) {
+            writeBufferToS3(nextS3Key(), buffer.array(), buffer.limit());
         }
 
         buffer.clear();
-        stringSerializer = stringSerializerProvider.get();
+        resetStringSerializer();
+    }
+
+    private void resetStringSerializer() {
+        if (byteSerializer == null) {
+            stringSerializer = stringSerializerProvider.get();
+        }
+    }
+
+    private String nextS3Key() {
+        return s3PartFileKeyGenerator.apply(++fileSequenceNumber);
     }
 
     private int getMaxPartFileSizeInBytes() {
         return maxPartFileSizeInBytes == null ? DEFAULT_MAX_PARTFILE_SIZE_IN_BYTES : maxPartFileSizeInBytes;
     }
 
-    private void writeBufferToS3(byte[] toWrite, int limit) {
+    private void writeBufferToS3(String s3Key, byte[] toWrite, int limit) {
         try (EtlProfilingScope scope = new EtlProfilingScope(parentMetrics, "S3FastLoader.writeToS3")) {
             InputStream inputStream = new ByteArrayInputStream(toWrite, 0, limit);
-            String s3Key = s3PartFileKeyGenerator.apply(++fileSequenceNumber);
             ObjectMetadata metadata = new ObjectMetadata();
             metadata.setContentLength(limit);
+
+            if (compressionCodec.getContentEncoding() != null) {
+                metadata.setContentEncoding(compressionCodec.getContentEncoding());
+            }
+
             PutObjectRequest putObjectRequest = new PutObjectRequest(s3Bucket, s3Key, inputStream, metadata);
 
             if (sseKmsArn != null && !sseKmsArn.isEmpty()) {
@@ -201,6 +563,29 @@ public class S3FastLoader<T> implements Loader<T> {
         scope.addCounter(FAILURE_METRIC_KEY, isSuccess ? 0 : 1);
     }
 
+    // Writes into a fixed size buffer, which has always been checked to have room by the loader first
+    @RequiredArgsConstructor
+    private static class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer byteBuffer;
+
+        @Override
+        public void write(int b) {
+            byteBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) {
+            byteBuffer.put(b, off, len);
+        }
+    }
+
+    // Reused to serialize every record, exposing its internal array so records can be copied without another allocation
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
     /**
      * A class that supplies S3FastLoader objects on demand. The class keeps a sequence counter which increments each
      * time it constructs a new S3FastLoader and this sequence number can be referenced in the supplied S3 key generator
@@ -235,8 +620,17 @@ public class S3FastLoader<T> implements Loader<T> {
         private final String s3Bucket;
         private final S3PartFileKeyGenerator s3KeyGenerator;
         private final Supplier<StringSerializer<T>> stringSerializerSupplier;
+        private final ByteSerializer<T> byteSerializer;
+        private final Integer multipartPartSizeInBytes;
+        private final Integer multipartBufferPoolSize;
+        private final Integer maxFlushesInFlight;
+        private final S3CompressionCodec compressionCodec;
 
         private AtomicInteger sequenceCounter = new AtomicInteger(0);
+        private ByteBufferPool multipartBufferPool = null;
+        @Getter(AccessLevel.PACKAGE)
+        private ExecutorService multipartUploadExecutor = null;
+        private int openMultipartLoaders = 0;
 
         /**
          * Optional: Enables server-side-encryption on all the loaders supplied by this object using the referenced KMS
@@ -246,7 +640,8 @@ public class S3FastLoader<T> implements Loader<T> {
          */
         public S3FastLoaderSupplier<T> withSSEKmsArn(String awsKmsArn) {
             return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
-                    stringSerializerSupplier);
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
         }
 
         /**
@@ -257,7 +652,8 @@ public class S3FastLoader<T> implements Loader<T> {
          */
         public S3FastLoaderSupplier<T> withMaxPartFileSizeInBytes(Integer bufferSizeInBytes) {
             return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
-                    stringSerializerSupplier);
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
         }
 
         /**
@@ -268,7 +664,8 @@ public class S3FastLoader<T> implements Loader<T> {
          */
         public S3FastLoaderSupplier<T> withClient(AmazonS3 s3Client) {
             return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
-                    stringSerializerSupplier);
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
         }
 
         /**
@@ -280,7 +677,74 @@ public class S3FastLoader<T> implements Loader<T> {
          */
         public S3FastLoaderSupplier<T> withS3PartFileKeyGenerator(S3PartFileKeyGenerator s3KeyGenerator) {
             return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
-                    stringSerializerSupplier);
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
+        }
+
+        /**
+         * Optional: Writes each part file as an S3 multipart upload instead of buffering the entire part file in memory
+         * and writing it with a single request. Serialized data is copied into upload-part buffers taken from a pool
+         * that is shared by every loader supplied by this object, and each buffer is uploaded in the background as
+         * soon as it is full while the loader continues to serialize into the next one. A loader that finds the pool
+         * exhausted will wait until an upload in progress frees up a buffer, so the memory used by all the loaders is
+         * capped at partSizeInBytes * bufferPoolSize regardless of the maximum part file size.
+         *
+         * Each loader keeps its partly filled buffer until it is full or the part file is completed, so every loader
+         * reserves one buffer of the pool when it is opened. The pool must therefore hold at least one buffer per
+         * loader thread, and a loader opened once every buffer has been reserved fails the stream with an
+         * UnrecoverableStreamFailureException. To keep every loader busy while its previous part is uploading, the
+         * pool should hold at least two buffers per loader thread.
+         * @param partSizeInBytes The size of each upload part. S3 requires this to be at least 5 MiB.
+         * @param bufferPoolSize The maximum number of upload-part buffers shared across all the loaders supplied by
+         *                       this object. This must be at least the number of loader threads.
+         * @return A copy of the current S3FastLoaderSupplier with this property modified.
+         */
+        public S3FastLoaderSupplier<T> withMultipartUpload(int partSizeInBytes, int bufferPoolSize) {
+            if (partSizeInBytes < MIN_MULTIPART_PART_SIZE_IN_BYTES) {
+                throw new IllegalArgumentException("Multipart upload part size must be at least "
+                        + MIN_MULTIPART_PART_SIZE_IN_BYTES + " bytes");
+            }
+
+            if (bufferPoolSize < 1) {
+                throw new IllegalArgumentException("Multipart upload buffer pool size must be at least 1");
+            }
+
+            return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
+                    stringSerializerSupplier, byteSerializer, partSizeInBytes, bufferPoolSize, maxFlushesInFlight,
+                    compressionCodec);
+        }
+
+        /**
+         * Optional: Writes full buffers to S3 on a background thread so the loader can carry on serializing into
+         * another buffer instead of waiting for the write to complete. Each loader recycles its own buffers, so a
+         * loader uses up to maxFlushesInFlight + 1 buffers of the maximum part file size, and a loader that needs a new
+         * buffer while all of its writes are still in flight will wait for one to complete. A failed write is reported
+         * as an UnrecoverableStreamFailureException by the next call to load or close on the loader that made it.
+         * This has no effect in multipart upload mode, which always uploads in the background.
+         * @param maxFlushesInFlight The maximum number of buffers each loader can be writing to S3 at the same time.
+         * @return A copy of the current S3FastLoaderSupplier with this property modified.
+         */
+        public S3FastLoaderSupplier<T> withAsynchronousFlush(int maxFlushesInFlight) {
+            if (maxFlushesInFlight < 1) {
+                throw new IllegalArgumentException("Maximum flushes in flight must be at least 1");
+            }
+
+            return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
+        }
+
+        /**
+         * Optional: Compresses every part file as it is written. The codec's file extension (e.g. ".gz") is added to
+         * the end of every S3 key, a Content-Encoding is stored with every part file if the codec has one, and the
+         * maximum part file size is applied to the compressed size of each file. The default is NONE.
+         * @param compressionCodec The codec to compress part files with.
+         * @return A copy of the current S3FastLoaderSupplier with this property modified.
+         */
+        public S3FastLoaderSupplier<T> withCompression(@Nonnull S3CompressionCodec compressionCodec) {
+            return new S3FastLoaderSupplier<>(awsKmsArn, bufferSizeInBytes, s3Client, s3Bucket, s3KeyGenerator,
+                    stringSerializerSupplier, byteSerializer, multipartPartSizeInBytes, multipartBufferPoolSize,
+                    maxFlushesInFlight, compressionCodec);
         }
 
         /**
@@ -294,18 +758,64 @@ public class S3FastLoader<T> implements Loader<T> {
             final int sequenceNum = sequenceCounter.incrementAndGet();
             Function<Integer,String> keyGeneratorForThread;
 
+            String fileExtension = compressionCodec.getFileExtension();
+
             if (s3KeyGenerator == null) {
                 keyGeneratorForThread = (part) ->
-                        String.format("PocketETL/%02d/part-%05d", sequenceNum, part);
+                        String.format("PocketETL/%02d/part-%05d", sequenceNum, part) + fileExtension;
             }
             else {
-                keyGeneratorForThread = (part) -> s3KeyGenerator.generateS3Key(sequenceNum, part);
+                keyGeneratorForThread = (part) -> s3KeyGenerator.generateS3Key(sequenceNum, part) + fileExtension;
             }
 
             AmazonS3 effectiveS3Client = (s3Client == null) ? AmazonS3Client.builder().build() : s3Client;
 
+            if (multipartPartSizeInBytes == null) {
+                return new S3FastLoader<>(effectiveS3Client, s3Bucket, bufferSizeInBytes, awsKmsArn,
+                        keyGeneratorForThread, stringSerializerSupplier, byteSerializer, null, null,
+                        maxFlushesInFlight, compressionCodec, null);
+            }
+
+            ExecutorService uploadExecutor = acquireMultipartResources();
+
             return new S3FastLoader<>(effectiveS3Client, s3Bucket, bufferSizeInBytes, awsKmsArn, keyGeneratorForThread,
-                    stringSerializerSupplier);
+                    stringSerializerSupplier, byteSerializer, multipartBufferPool, uploadExecutor, null,
+                    compressionCodec, this::releaseMultipartResources);
+        }
+
+        // The buffer pool and upload threads are shared by every loader this object supplies. The upload threads are
+        // shut down when the last loader supplied is closed and started again if another loader is supplied after that.
+        private synchronized ExecutorService acquireMultipartResources() {
+            if (multipartBufferPool == null) {
+                multipartBufferPool = new ByteBufferPool(multipartPartSizeInBytes, multipartBufferPoolSize);
+            }
+
+            if (multipartUploadExecutor == null) {
+                multipartUploadExecutor = newMultipartUploadExecutor();
+            }
+
+            openMultipartLoaders++;
+            return multipartUploadExecutor;
+        }
+
+        private synchronized void releaseMultipartResources() {
+            openMultipartLoaders--;
+
+            if (openMultipartLoaders == 0) {
+                multipartUploadExecutor.shutdown();
+                multipartUploadExecutor = null;
+            }
+        }
+
+        private ExecutorService newMultipartUploadExecutor() {
+            ThreadPoolExecutor uploadExecutor = new ThreadPoolExecutor(multipartBufferPoolSize,
+                    multipartBufferPoolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "S3FastLoader-upload-" + s3Bucket);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            uploadExecutor.allowCoreThreadTimeOut(true);
+            return uploadExecutor;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlProfilingScope;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * A single S3 object being written as a multipart upload. Data written to it is copied into a part buffer taken from a
+ * shared ByteBufferPool and each time a part buffer fills up it is handed to a shared executor to be uploaded while the
+ * caller carries on writing into the next buffer. The buffer is returned to the pool as soon as its part has been
+ * uploaded.
+ *
+ * Like S3FastLoader this class is not thread-safe; only a single thread should write to an upload.
+ */
+class S3MultipartUpload {
+    private final static Logger logger = getLogger(S3MultipartUpload.class);
+
+    private final AmazonS3 amazonS3;
+    private final String s3Bucket;
+    private final String s3Key;
+    private final ByteBufferPool bufferPool;
+    private final ExecutorService uploadExecutor;
+    private final EtlMetrics parentMetrics;
+    private final String uploadId;
+    private final List<Future<PartETag>> partUploads = new ArrayList<>();
+
+    private ByteBuffer currentPart = null;
+    private int checkedPartUploads = 0;
+    private boolean isAborted = false;
+
+    /**
+     * Initiates a new multipart upload in S3.
+     * @throws AmazonClientException If S3 refused to start the upload.
+     */
+    S3MultipartUpload(AmazonS3 amazonS3, String s3Bucket, String s3Key, @Nullable String sseKmsArn,
+                      @Nullable String contentEncoding, ByteBufferPool bufferPool, ExecutorService uploadExecutor, @Nullable EtlMetrics parentMetrics) {
+        this.amazonS3 = amazonS3;
+        this.s3Bucket = s3Bucket;
+        this.s3Key = s3Key;
+        this.bufferPool = bufferPool;
+        this.uploadExecutor = uploadExecutor;
+        this.parentMetrics = parentMetrics;
+
+        ObjectMetadata metadata = new ObjectMetadata();
+
+        if (contentEncoding != null) {
+            metadata.setContentEncoding(contentEncoding);
+        }
+
+        InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(s3Bucket, s3Key, metadata);
+
+        if (sseKmsArn != null && !sseKmsArn.isEmpty()) {
+            initiateRequest.setSSEAwsKeyManagementParams(new SSEAwsKeyManagementParams(sseKmsArn));
+        }
+
+        uploadId = amazonS3.initiateMultipartUpload(initiateRequest).getUploadId();
+    }
+
+    /**
+     * Appends bytes to the object, uploading every part buffer that is filled in the process. Will block if the
+     * buffer pool is exhausted until an upload in progress completes and frees up its buffer.
+     * @param bytes An array containing the bytes to append.
+     * @param offset The offset of the first byte to append.
+     * @param length The number of bytes to append.
+     * @throws UnrecoverableStreamFailureException If a part that has already finished uploading failed, in which case
+     * the upload has been aborted.
+     */
+    void write(byte[] bytes, int offset, int length) {
+        checkForFailedPartUploads();
+
+        int end = offset + length;
+
+        while (offset < end) {
+            if (currentPart == null) {
+                currentPart = acquirePartBuffer();
+            }
+
+            int lengthToCopy = Math.min(currentPart.remaining(), end - offset);
+            currentPart.put(bytes, offset, lengthToCopy);
+            offset += lengthToCopy;
+
+            if (!currentPart.hasRemaining()) {
+                submitCurrentPart();
+            }
+        }
+    }
+
+    /**
+     * @return A stream that appends everything written to it to this upload. Closing the stream has no effect; the
+     * upload still has to be completed.
+     */
+    OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                S3MultipartUpload.this.write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(@Nonnull byte[] b, int off, int len) {
+                S3MultipartUpload.this.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Uploads whatever is left in the current part buffer, waits for every part to finish uploading and then
+     * completes the upload so the object becomes visible in S3. If anything has gone wrong the upload is aborted so
+     * the parts already stored are discarded.
+     * @throws AmazonClientException If any part failed to upload or the upload could not be completed.
+     */
+    void complete() {
+        if (currentPart != null) {
+            submitCurrentPart();
+        }
+
+        try {
+            List<PartETag> partETags = new ArrayList<>(partUploads.size());
+
+            for (Future<PartETag> partUpload : partUploads) {
+                partETags.add(partUpload.get());
+            }
+
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(s3Bucket, s3Key, uploadId, partETags));
+        } catch (ExecutionException e) {
+            abort();
+
+            if (e.getCause() instanceof AmazonClientException) {
+                throw (AmazonClientException) e.getCause();
+            }
+
+            throw new AmazonClientException("Failed to upload part of S3 object " + s3Bucket + "/" + s3Key,
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new UnrecoverableStreamFailureException("Interrupted waiting for S3 multipart upload to complete", e);
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Abandons the upload, discarding any parts that have already been stored in S3. Has no effect if the upload has
+     * already been aborted.
+     */
+    void abort() {
+        if (isAborted) {
+            return;
+        }
+
+        isAborted = true;
+
+        if (currentPart != null) {
+            bufferPool.release(currentPart);
+            currentPart = null;
+        }
+
+        // Let parts already in flight finish so their buffers are returned to the pool before the upload is aborted
+        partUploads.forEach(S3MultipartUpload::awaitQuietly);
+
+        try {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(s3Bucket, s3Key, uploadId));
+        } catch (AmazonClientException e) {
+            logger.warn("Failed to abort multipart upload " + uploadId + " for S3 object " + s3Bucket + "/" + s3Key, e);
+        }
+    }
+
+    // Surfaces the failure of any part upload that has already finished, without waiting for the others, so a broken
+    // upload fails the stream as soon as possible rather than when the part file is completed
+    private void checkForFailedPartUploads() {
+        while (checkedPartUploads < partUploads.size() && partUploads.get(checkedPartUploads).isDone()) {
+            try {
+                partUploads.get(checkedPartUploads).get();
+                checkedPartUploads++;
+            } catch (ExecutionException e) {
+                abort();
+                throw new UnrecoverableStreamFailureException("Exception caught trying to write object to S3: ",
+                        e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                throw new UnrecoverableStreamFailureException("Interrupted checking S3 multipart upload", e);
+            }
+        }
+    }
+
+    private static void awaitQuietly(Future<PartETag> partUpload) {
+        try {
+            partUpload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // The failure has already been reported by whoever is aborting the upload
+        }
+    }
+
+    private ByteBuffer acquirePartBuffer() {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3FastLoader.waitForBuffer")) {
+            return bufferPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnrecoverableStreamFailureException("Interrupted waiting for a free S3 part buffer", e);
+        }
+    }
+
+    private void submitCurrentPart() {
+        ByteBuffer part = currentPart;
+        int partNumber = partUploads.size() + 1;
+        currentPart = null;
+        part.flip();
+
+        partUploads.add(uploadExecutor.submit(() -> uploadPart(part, partNumber)));
+    }
+
+    private PartETag uploadPart(ByteBuffer part, int partNumber) {
+        try (EtlProfilingScope ignored = new EtlProfilingScope(parentMetrics, "S3FastLoader.uploadPart")) {
+            UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                    .withBucketName(s3Bucket)
+                    .withKey(s3Key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withInputStream(new ByteArrayInputStream(part.array(), 0, part.limit()))
+                    .withPartSize(part.limit());
+
+            return amazonS3.uploadPart(uploadPartRequest).getPartETag();
+        } finally {
+            bufferPool.release(part);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes data in the Zstandard format as a sequence of frames that each hold up to 1 MiB of data. Zstandard decoders,
+ * including the zstd command line tool and Redshift COPY, read concatenated frames as a single stream.
+ */
+class ZstdFramesOutputStream extends BlockCompressingOutputStream {
+    static final int FRAME_SIZE_IN_BYTES = 1024 * 1024;
+
+    private static final ZstdCompressor COMPRESSOR = new ZstdCompressor();
+
+    private final byte[] compressedFrame = new byte[maxCompressedFrameSizeInBytes(FRAME_SIZE_IN_BYTES)];
+    private boolean hasWrittenFrame = false;
+
+    ZstdFramesOutputStream(OutputStream destination) {
+        super(destination, FRAME_SIZE_IN_BYTES);
+    }
+
+    /**
+     * An upper bound on the size of a single frame holding the given number of bytes.
+     */
+    static int maxCompressedFrameSizeInBytes(int uncompressedSizeInBytes) {
+        return COMPRESSOR.maxCompressedLength(uncompressedSizeInBytes);
+    }
+
+    @Override
+    void writeBlock(OutputStream destination, byte[] block, int length) throws IOException {
+        int compressedLength = COMPRESSOR.compress(block, 0, length, compressedFrame, 0, compressedFrame.length);
+        destination.write(compressedFrame, 0, compressedLength);
+        hasWrittenFrame = true;
+    }
+
+    @Override
+    void writeEnd(OutputStream destination) throws IOException {
+        // An empty file is not valid Zstandard data, so empty input is written as a single empty frame
+        if (!hasWrittenFrame) {
+            writeBlock(destination, new byte[0], 0);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *   Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AggregatingEtlMetricsTest {
+    private static final String SCOPE_NAME = "scope-name";
+    private static final String COUNTER_NAME = "counter-name";
+
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    private AggregatingEtlMetrics aggregatingEtlMetrics;
+
+    @Before
+    public void createAggregatingMetrics() {
+        aggregatingEtlMetrics = AggregatingEtlMetrics.of(mockMetrics).withFlushIntervalMillis(0);
+    }
+
+    @Test
+    public void close_flushesCounterTotals() {
+        aggregatingEtlMetrics.addCount(COUNTER_NAME, 2);
+        aggregatingEtlMetrics.addCount(COUNTER_NAME, 3);
+        verify(mockMetrics, never()).addCount(anyString(), anyDouble());
+
+        aggregatingEtlMetrics.close();
+
+        verify(mockMetrics).addCount(COUNTER_NAME, 5.0);
+        verify(mockMetrics).close();
+    }
+
+    @Test
+    public void close_flushesMeanTimes() {
+        aggregatingEtlMetrics.addTime(SCOPE_NAME, 10);
+        aggregatingEtlMetrics.addTime(SCOPE_NAME, 30);
+
+        aggregatingEtlMetrics.close();
+
+        verify(mockMetrics).addTime(SCOPE_NAME, 20.0);
+    }
+
+    @Test
+    public void flush_onlyReportsValuesSinceLastFlush() {
+        aggregatingEtlMetrics.addCount(COUNTER_NAME, 2);
+        aggregatingEtlMetrics.flush();
+        Mockito.reset(mockMetrics);
+
+        aggregatingEtlMetrics.flush();
+        verify(mockMetrics, never()).addCount(anyString(), anyDouble());
+
+        aggregatingEtlMetrics.addCount(COUNTER_NAME, 7);
+        aggregatingEtlMetrics.flush();
+        verify(mockMetrics).addCount(COUNTER_NAME, 7.0);
+    }
+
+    @Test
+    public void createChildMetrics_returnsSharedChild() {
+        assertThat(aggregatingEtlMetrics.createChildMetrics(), sameInstance(aggregatingEtlMetrics.createChildMetrics()));
+    }
+
+    @Test
+    public void profilingScope_recordsIntoAggregates() {
+        try (EtlProfilingScope scope = new EtlProfilingScope(aggregatingEtlMetrics, SCOPE_NAME)) {
+            scope.addCounter(COUNTER_NAME, 1);
+        }
+
+        aggregatingEtlMetrics.flush();
+
+        verify(mockMetrics).addCount(COUNTER_NAME, 1.0);
+        verify(mockMetrics).addTime(eq(SCOPE_NAME), anyDouble());
+        verify(mockMetrics, never()).close();
+    }
+
+    @Test
+    public void zeroTimerSamplingRate_dropsTimersButKeepsCounters() {
+        aggregatingEtlMetrics = aggregatingEtlMetrics.withTimerSamplingRate(0.0);
+
+        try (EtlProfilingScope scope = new EtlProfilingScope(aggregatingEtlMetrics, SCOPE_NAME)) {
+            scope.addCounter(COUNTER_NAME, 1);
+        }
+
+        aggregatingEtlMetrics.flush();
+
+        verify(mockMetrics).addCount(COUNTER_NAME, 1.0);
+        verify(mockMetrics, never()).addTime(anyString(), anyDouble());
+    }
+
+    @Test
+    public void flushInterval_flushesWhenAMetricIsRecordedAfterTheIntervalElapses() throws Exception {
+        aggregatingEtlMetrics = AggregatingEtlMetrics.of(mockMetrics).withFlushIntervalMillis(1);
+
+        Thread.sleep(5);
+        aggregatingEtlMetrics.addCount(COUNTER_NAME, 1);
+
+        verify(mockMetrics).addCount(COUNTER_NAME, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withTimerSamplingRate_rejectsRatesAboveOne() {
+        aggregatingEtlMetrics.withTimerSamplingRate(1.5);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class BatchLoaderTest {
+    private final List<List<String>> loadedBatches = new ArrayList<>();
+
+    @Test
+    public void loadPassesObjectToLoadBatchAsBatchOfOne() {
+        BatchLoader<String> batchLoader = batch -> {
+            loadedBatches.add(new ArrayList<>(batch));
+            return Collections.emptyList();
+        };
+
+        batchLoader.load("one");
+
+        assertThat(loadedBatches, contains(contains("one")));
+    }
+
+    @Test
+    public void loadTreatsNullFailedListAsSuccess() {
+        BatchLoader<String> batchLoader = batch -> null;
+
+        batchLoader.load("one");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void loadThrowsIfObjectIsReturnedAsFailed() {
+        BatchLoader<String> batchLoader = batch -> batch;
+
+        batchLoader.load("one");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void loadPropagatesExceptionFromLoadBatch() {
+        BatchLoader<String> batchLoader = batch -> {
+            throw new IllegalStateException("test");
+        };
+
+        batchLoader.load("one");
+    }
+}
@@ -59,8 +59,8 @@ public class EtlCombineStageTest {
     public void constructEtlCombineStage() {
         when(mockEtlStream1.getStageChain()).thenReturn(mockEtlStageChain1);
         when(mockEtlStream2.getStageChain()).thenReturn(mockEtlStageChain2);
-        when(mockEtlStageChain1.constructComponentProducers(any())).thenReturn(ImmutableList.of(mockEtlProducer1));
-        when(mockEtlStageChain2.constructComponentProducers(any())).thenReturn(ImmutableList.of(mockEtlProducer2, mockEtlProducer3));
+        when(mockEtlStageChain1.constructComponentProducers(any(), any())).thenReturn(ImmutableList.of(mockEtlProducer1));
+        when(mockEtlStageChain2.constructComponentProducers(any(), any())).thenReturn(ImmutableList.of(mockEtlProducer2, mockEtlProducer3));
         etlCombineStage = EtlCombineStage.of(ImmutableList.of(mockEtlStream1, mockEtlStream2));
 
     }
@@ -18,8 +18,11 @@ package com.amazon.pocketEtl;
 import com.amazon.pocketEtl.core.DefaultLoggingStrategy;
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.consumer.TokenBucketRateLimiter;
 import com.amazon.pocketEtl.core.executor.EtlExecutor;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.ThreadBudgetScheduler;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,10 +35,13 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,6 +54,8 @@ public class EtlLoadStageTest {
     @Mock
     private Loader<Object> mockLoader;
     @Mock
+    private BatchLoader<Object> mockBatchLoader;
+    @Mock
     private Function<Object, String> mockObjectLogger;
     @Mock
     private Function<Object, String> mockObjectLogger2;
@@ -58,16 +66,21 @@ public class EtlLoadStageTest {
     @Mock
     private EtlExecutor mockEtlExecutor;
     @Mock
+    private TokenBucketRateLimiter mockRateLimiter;
+    @Mock
     private EtlConsumer mockErrorConsumer;
     @Mock
     private EtlConsumer mockConsumer;
+    @Mock
+    private ThreadBudgetScheduler mockThreadBudgetScheduler;
 
     private EtlLoadStage<Object> etlLoadStage;
 
     @Before
     public void constructEtlLoadStage() {
         etlLoadStage = new EtlLoadStage<>(Object.class, mockLoader, EXPECTED_DEFAULT_STAGE_NAME, 1, mockObjectLogger,
-                mockEtlExecutorFactory, mockEtlConsumerFactory);
+                EXPECTED_DEFAULT_QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING, 0, false, 0, 0.0, 1, 1, 0, mockEtlExecutorFactory,
+                mockEtlConsumerFactory);
     }
 
     @Test
@@ -79,6 +92,15 @@ public class EtlLoadStageTest {
         assertThat(testStage.getClassForStage(), equalTo(Object.class));
         assertThat(testStage.getNumberOfThreads(), is(1));
         assertThat(testStage.getObjectLogger(), equalTo(new DefaultLoggingStrategy<>()));
+        assertThat(testStage.getBatchSize(), is(1));
+        assertThat(testStage.getLingerMillis(), is(0));
+        assertThat(testStage.getQueueSize(), is(EXPECTED_DEFAULT_QUEUE_SIZE));
+        assertThat(testStage.getQueueStrategy(), is(WorkQueueStrategy.ARRAY_BLOCKING));
+        assertThat(testStage.getConcurrency(), is(0));
+        assertThat(testStage.getWorkStealing(), is(false));
+        assertThat(testStage.getMaxThreads(), is(0));
+        assertThat(testStage.getRateLimit(), is(0.0));
+        assertThat(testStage.getRateLimitBurst(), is(1));
     }
 
     @Test
@@ -102,22 +124,266 @@ public class EtlLoadStageTest {
         assertThat(testStage.getNumberOfThreads(), is(3));
     }
 
+    @Test
+    public void withQueueSizeUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withQueueSize(50);
+
+        assertThat(testStage.getQueueSize(), is(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withQueueSizeThrowsIfQueueSizeIsLessThanOne() {
+        etlLoadStage.withQueueSize(0);
+    }
+
+    @Test
+    public void withQueueStrategyUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withQueueStrategy(WorkQueueStrategy.RING_BUFFER);
+
+        assertThat(testStage.getQueueStrategy(), is(WorkQueueStrategy.RING_BUFFER));
+    }
+
+    @Test
+    public void withConcurrencyUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withConcurrency(200);
+
+        assertThat(testStage.getConcurrency(), is(200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfConcurrencyIsLessThanOne() {
+        etlLoadStage.withConcurrency(0);
+    }
+
+    @Test
+    public void constructConsumerForStageUsesVirtualThreadExecutorWhenConcurrencyIsSet() {
+        when(mockEtlExecutorFactory.newVirtualThreadEtlExecutor(anyInt())).thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withConcurrency(200).constructConsumerForStage(null);
+
+        verify(mockEtlExecutorFactory).newVirtualThreadEtlExecutor(200);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfBatching() {
+        EtlLoadStage.of(Object.class, mockBatchLoader).withBatchSize(25).withConcurrency(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withBatchSizeThrowsIfConcurrencyIsSet() {
+        EtlLoadStage.of(Object.class, mockBatchLoader).withConcurrency(200).withBatchSize(25);
+    }
+
+    @Test
+    public void withWorkStealingUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withWorkStealing(true);
+
+        assertThat(testStage.getWorkStealing(), is(true));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesSharedWorkStealingExecutorWhenWorkStealing() {
+        when(mockEtlExecutorFactory.newSharedWorkStealingEtlExecutor(anyInt())).thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withQueueSize(50).withWorkStealing(true).constructConsumerForStage(null);
+
+        verify(mockEtlExecutorFactory).newSharedWorkStealingEtlExecutor(50);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void withMaxThreadsUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withMaxThreads(8);
+
+        assertThat(testStage.getMaxThreads(), is(8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfMaxThreadsIsLessThanOne() {
+        etlLoadStage.withMaxThreads(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfConcurrencyIsSet() {
+        etlLoadStage.withConcurrency(200).withMaxThreads(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfWorkStealing() {
+        etlLoadStage.withWorkStealing(true).withMaxThreads(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfWorkStealing() {
+        etlLoadStage.withWorkStealing(true).withConcurrency(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfMaxThreadsIsSet() {
+        etlLoadStage.withMaxThreads(8).withConcurrency(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withWorkStealingThrowsIfConcurrencyIsSet() {
+        etlLoadStage.withConcurrency(200).withWorkStealing(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withWorkStealingThrowsIfMaxThreadsIsSet() {
+        etlLoadStage.withMaxThreads(8).withWorkStealing(true);
+    }
+
+    @Test
+    public void withWorkStealingFalseCanBeCombinedWithMaxThreads() {
+        assertThat(etlLoadStage.withMaxThreads(8).withWorkStealing(false).getMaxThreads(), is(8));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesAutoScalingExecutorWhenMaxThreadsExceedsThreads() {
+        when(mockEtlExecutorFactory.newAutoScalingEtlExecutor(anyString(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withThreads(2).withMaxThreads(8).withQueueSize(50).constructConsumerForStage(null);
+
+        verify(mockEtlExecutorFactory).newAutoScalingEtlExecutor(EXPECTED_DEFAULT_STAGE_NAME, 2, 8, 50,
+                WorkQueueStrategy.ARRAY_BLOCKING);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void withRateLimitUpdatesProperties() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withRateLimit(100, 10);
+
+        assertThat(testStage.getRateLimit(), is(100.0));
+        assertThat(testStage.getRateLimitBurst(), is(10));
+    }
+
+    @Test
+    public void withRateLimitKeepsExistingBurstCapacity() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withRateLimit(100, 10).withRateLimit(50);
+
+        assertThat(testStage.getRateLimit(), is(50.0));
+        assertThat(testStage.getRateLimitBurst(), is(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRateLimitThrowsIfRateIsNotPositive() {
+        etlLoadStage.withRateLimit(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRateLimitThrowsIfBurstCapacityIsLessThanOne() {
+        etlLoadStage.withRateLimit(100, 0);
+    }
+
+    @Test
+    public void constructConsumerForStagePassesRateLimiterWhenRateLimitIsSet() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+        when(mockEtlConsumerFactory.newTokenBucketRateLimiter(anyDouble(), anyInt())).thenReturn(mockRateLimiter);
+        when(mockEtlConsumerFactory.newLoader(anyString(), any(), any(), any(), any(), any())).thenReturn(mockConsumer);
+
+        etlLoadStage.withRateLimit(100, 10).constructConsumerForStage(null);
+
+        verify(mockEtlConsumerFactory).newTokenBucketRateLimiter(100.0, 10);
+        verify(mockEtlConsumerFactory).newLoader(eq(EXPECTED_DEFAULT_STAGE_NAME), eq(mockLoader), eq(Object.class), any(),
+                any(), eq(mockRateLimiter));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesFixedThreadsWhenMaxThreadsDoesNotExceedThreads() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withThreads(4).withMaxThreads(4).constructConsumerForStage(null);
+
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(4, EXPECTED_DEFAULT_QUEUE_SIZE,
+                WorkQueueStrategy.ARRAY_BLOCKING);
+        verify(mockEtlExecutorFactory, never()).newAutoScalingEtlExecutor(anyString(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void constructConsumerForStageUsesQueueSettings() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withQueueSize(50).withQueueStrategy(WorkQueueStrategy.LINKED_BLOCKING).constructConsumerForStage(null);
+
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, 50, WorkQueueStrategy.LINKED_BLOCKING);
+    }
+
+    @Test
+    public void constructConsumerForStagePassesQueueSettingsToThreadBudget() {
+        when(mockThreadBudgetScheduler.newEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+
+        etlLoadStage.withThreads(3).withQueueSize(50).withQueueStrategy(WorkQueueStrategy.RING_BUFFER)
+                .constructConsumerForStage(null, mockThreadBudgetScheduler);
+
+        verify(mockThreadBudgetScheduler).newEtlExecutor(3, 50, WorkQueueStrategy.RING_BUFFER);
+    }
+
+    @Test
+    public void withBatchSizeUpdatesProperty() {
+        EtlLoadStage<Object> testStage = EtlLoadStage.of(Object.class, mockBatchLoader).withBatchSize(25);
+
+        assertThat(testStage.getBatchSize(), is(25));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withBatchSizeThrowsIfLoaderIsNotABatchLoader() {
+        etlLoadStage.withBatchSize(25);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withBatchSizeThrowsIfBatchSizeIsLessThanOne() {
+        EtlLoadStage.of(Object.class, mockBatchLoader).withBatchSize(0);
+    }
+
+    @Test
+    public void withLingerUpdatesProperty() {
+        EtlLoadStage<Object> testStage = etlLoadStage.withLinger(100);
+
+        assertThat(testStage.getLingerMillis(), is(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withLingerThrowsIfLingerIsNegative() {
+        etlLoadStage.withLinger(-1);
+    }
+
+    @Test
+    public void constructConsumerForStageConstructsBatchingConsumer() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+        when(mockEtlConsumerFactory.newLogAsErrorConsumer(anyString(), any(), any(), any())).thenReturn(mockErrorConsumer);
+        when(mockEtlConsumerFactory.newBatchLoader(anyString(), any(), any(), anyInt(), anyLong(), any(), any(), any()))
+                .thenReturn(mockConsumer);
+
+        EtlLoadStage<Object> testStage = new EtlLoadStage<>(Object.class, mockBatchLoader, EXPECTED_DEFAULT_STAGE_NAME,
+                1, mockObjectLogger, EXPECTED_DEFAULT_QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING, 0, false, 0, 0.0, 1, 25, 100,
+                mockEtlExecutorFactory, mockEtlConsumerFactory);
+
+        EtlConsumer result = testStage.constructConsumerForStage(null);
+
+        assertThat(result, is(mockConsumer));
+        verify(mockEtlConsumerFactory).newBatchLoader(EXPECTED_DEFAULT_STAGE_NAME, mockBatchLoader, Object.class, 25,
+                100L, mockErrorConsumer, mockEtlExecutor, null);
+    }
+
     @Test
     public void constructConsumerForStageConstructsConsumer() {
-        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt())).thenReturn(mockEtlExecutor);
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
         when(mockEtlConsumerFactory.newLogAsErrorConsumer(anyString(), any(), any(), any())).thenReturn(mockErrorConsumer);
-        when(mockEtlConsumerFactory.newLoader(anyString(), any(), any(), any(), any())).thenReturn(mockConsumer);
+        when(mockEtlConsumerFactory.newLoader(anyString(), any(), any(), any(), any(), any())).thenReturn(mockConsumer);
 
         EtlConsumer result = etlLoadStage.constructConsumerForStage(null);
 
         assertThat(result, is(mockConsumer));
-        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, EXPECTED_DEFAULT_QUEUE_SIZE);
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, EXPECTED_DEFAULT_QUEUE_SIZE,
+                WorkQueueStrategy.ARRAY_BLOCKING);
         verify(mockEtlConsumerFactory).newLogAsErrorConsumer(
                 eq(EXPECTED_DEFAULT_STAGE_NAME),
                 argThat(logger -> EXPECTED_DEFAULT_STAGE_NAME.equals(logger.getName())),
                 eq(Object.class),
                 eq(mockObjectLogger));
         verify(mockEtlConsumerFactory).newLoader(EXPECTED_DEFAULT_STAGE_NAME, mockLoader, Object.class,
-                mockErrorConsumer, mockEtlExecutor);
+                mockErrorConsumer, mockEtlExecutor, null);
     }
 }
\ No newline at end of file
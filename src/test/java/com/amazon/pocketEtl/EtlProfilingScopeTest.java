@@ -80,4 +80,11 @@ public class EtlProfilingScopeTest {
 
         verify(mockChildMetrics, never()).addCount(anyString(), anyDouble());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void nullMetrics_canBeUsedAndClosed() {
+        try (EtlProfilingScope scope = new EtlProfilingScope(null, SCOPE_NAME)) {
+            scope.addCounter(COUNTER_NAME, 123);
+        }
+    }
+}
@@ -18,8 +18,10 @@ package com.amazon.pocketEtl;
 import com.amazon.pocketEtl.core.DefaultLoggingStrategy;
 import com.amazon.pocketEtl.core.consumer.EtlConsumer;
 import com.amazon.pocketEtl.core.consumer.EtlConsumerFactory;
+import com.amazon.pocketEtl.core.consumer.TokenBucketRateLimiter;
 import com.amazon.pocketEtl.core.executor.EtlExecutor;
 import com.amazon.pocketEtl.core.executor.EtlExecutorFactory;
+import com.amazon.pocketEtl.core.executor.WorkQueueStrategy;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,10 +34,12 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -57,6 +61,8 @@ public class EtlTransformStageTest {
     @Mock
     private EtlExecutor mockEtlExecutor;
     @Mock
+    private TokenBucketRateLimiter mockRateLimiter;
+    @Mock
     private EtlConsumer mockErrorConsumer;
     @Mock
     private EtlConsumer mockConsumer;
@@ -68,7 +74,8 @@ public class EtlTransformStageTest {
     @Before
     public void constructEtlLoadStage() {
         etlTransformStage = new EtlTransformStage<>(Object.class, mockTransformer, EXPECTED_DEFAULT_STAGE_NAME, 1, mockObjectLogger,
-                mockEtlExecutorFactory, mockEtlConsumerFactory);
+                EXPECTED_DEFAULT_QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING, 0, false, 0, 0.0, 1, mockEtlExecutorFactory,
+                mockEtlConsumerFactory);
     }
 
     @Test
@@ -80,6 +87,13 @@ public class EtlTransformStageTest {
         assertThat(testStage.getClassForStage(), equalTo(Object.class));
         assertThat(testStage.getNumberOfThreads(), is(1));
         assertThat(testStage.getObjectLogger(), equalTo(new DefaultLoggingStrategy<>()));
+        assertThat(testStage.getQueueSize(), is(EXPECTED_DEFAULT_QUEUE_SIZE));
+        assertThat(testStage.getQueueStrategy(), is(WorkQueueStrategy.ARRAY_BLOCKING));
+        assertThat(testStage.getConcurrency(), is(0));
+        assertThat(testStage.getWorkStealing(), is(false));
+        assertThat(testStage.getMaxThreads(), is(0));
+        assertThat(testStage.getRateLimit(), is(0.0));
+        assertThat(testStage.getRateLimitBurst(), is(1));
     }
 
     @Test
@@ -103,23 +117,211 @@ public class EtlTransformStageTest {
         assertThat(testStage.getNumberOfThreads(), is(3));
     }
 
+    @Test
+    public void withQueueSizeUpdatesProperty() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withQueueSize(50);
+
+        assertThat(testStage.getQueueSize(), is(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withQueueSizeThrowsIfQueueSizeIsLessThanOne() {
+        etlTransformStage.withQueueSize(0);
+    }
+
+    @Test
+    public void withQueueStrategyUpdatesProperty() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withQueueStrategy(WorkQueueStrategy.RING_BUFFER);
+
+        assertThat(testStage.getQueueStrategy(), is(WorkQueueStrategy.RING_BUFFER));
+    }
+
+    @Test
+    public void withConcurrencyUpdatesProperty() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withConcurrency(200);
+
+        assertThat(testStage.getConcurrency(), is(200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfConcurrencyIsLessThanOne() {
+        etlTransformStage.withConcurrency(0);
+    }
+
+    @Test
+    public void constructConsumerForStageUsesVirtualThreadExecutorWhenConcurrencyIsSet() {
+        when(mockEtlExecutorFactory.newVirtualThreadEtlExecutor(anyInt())).thenReturn(mockEtlExecutor);
+
+        etlTransformStage.withConcurrency(200).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlExecutorFactory).newVirtualThreadEtlExecutor(200);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void withWorkStealingUpdatesProperty() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withWorkStealing(true);
+
+        assertThat(testStage.getWorkStealing(), is(true));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesSharedWorkStealingExecutorWhenWorkStealing() {
+        when(mockEtlExecutorFactory.newSharedWorkStealingEtlExecutor(anyInt())).thenReturn(mockEtlExecutor);
+
+        etlTransformStage.withQueueSize(50).withWorkStealing(true).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlExecutorFactory).newSharedWorkStealingEtlExecutor(50);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void withMaxThreadsUpdatesProperty() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withMaxThreads(8);
+
+        assertThat(testStage.getMaxThreads(), is(8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfMaxThreadsIsLessThanOne() {
+        etlTransformStage.withMaxThreads(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfConcurrencyIsSet() {
+        etlTransformStage.withConcurrency(200).withMaxThreads(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMaxThreadsThrowsIfWorkStealing() {
+        etlTransformStage.withWorkStealing(true).withMaxThreads(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfWorkStealing() {
+        etlTransformStage.withWorkStealing(true).withConcurrency(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withConcurrencyThrowsIfMaxThreadsIsSet() {
+        etlTransformStage.withMaxThreads(8).withConcurrency(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withWorkStealingThrowsIfConcurrencyIsSet() {
+        etlTransformStage.withConcurrency(200).withWorkStealing(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withWorkStealingThrowsIfMaxThreadsIsSet() {
+        etlTransformStage.withMaxThreads(8).withWorkStealing(true);
+    }
+
+    @Test
+    public void withWorkStealingFalseCanBeCombinedWithMaxThreads() {
+        assertThat(etlTransformStage.withMaxThreads(8).withWorkStealing(false).getMaxThreads(), is(8));
+    }
+
+    @Test
+    public void isAutoScalingWhenMaxThreadsExceedsThreads() {
+        assertThat(etlTransformStage.withThreads(2).withMaxThreads(8).isAutoScaling(), is(true));
+    }
+
+    @Test
+    public void isNotAutoScalingWhenMaxThreadsEqualsThreads() {
+        assertThat(etlTransformStage.withThreads(4).withMaxThreads(4).isAutoScaling(), is(false));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesAutoScalingExecutorWhenMaxThreadsExceedsThreads() {
+        when(mockEtlExecutorFactory.newAutoScalingEtlExecutor(anyString(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(mockEtlExecutor);
+
+        etlTransformStage.withThreads(2).withMaxThreads(8).withQueueSize(50).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlExecutorFactory).newAutoScalingEtlExecutor(EXPECTED_DEFAULT_STAGE_NAME, 2, 8, 50,
+                WorkQueueStrategy.ARRAY_BLOCKING);
+        verify(mockEtlExecutorFactory, never()).newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void withRateLimitUpdatesProperties() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withRateLimit(100, 10);
+
+        assertThat(testStage.getRateLimit(), is(100.0));
+        assertThat(testStage.getRateLimitBurst(), is(10));
+    }
+
+    @Test
+    public void withRateLimitKeepsExistingBurstCapacity() {
+        EtlTransformStage<Object> testStage = etlTransformStage.withRateLimit(100, 10).withRateLimit(50);
+
+        assertThat(testStage.getRateLimit(), is(50.0));
+        assertThat(testStage.getRateLimitBurst(), is(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRateLimitThrowsIfRateIsNotPositive() {
+        etlTransformStage.withRateLimit(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRateLimitThrowsIfBurstCapacityIsLessThanOne() {
+        etlTransformStage.withRateLimit(100, 0);
+    }
+
+    @Test
+    public void constructConsumerForStagePassesRateLimiterWhenRateLimitIsSet() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+        when(mockEtlConsumerFactory.newTokenBucketRateLimiter(anyDouble(), anyInt())).thenReturn(mockRateLimiter);
+        when(mockEtlConsumerFactory.newTransformer(anyString(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(mockConsumer);
+
+        etlTransformStage.withRateLimit(100, 10).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlConsumerFactory).newTokenBucketRateLimiter(100.0, 10);
+        verify(mockEtlConsumerFactory).newTransformer(eq(EXPECTED_DEFAULT_STAGE_NAME), eq(mockTransformer),
+                eq(Object.class), eq(mockDownstreamConsumer), any(), any(), eq(mockRateLimiter));
+    }
+
+    @Test
+    public void constructConsumerForStageUsesFixedThreadsWhenMaxThreadsDoesNotExceedThreads() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+
+        etlTransformStage.withThreads(4).withMaxThreads(4).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(4, EXPECTED_DEFAULT_QUEUE_SIZE,
+                WorkQueueStrategy.ARRAY_BLOCKING);
+        verify(mockEtlExecutorFactory, never()).newAutoScalingEtlExecutor(anyString(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void constructConsumerForStageUsesQueueSettings() {
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
+
+        etlTransformStage.withQueueSize(50).withQueueStrategy(WorkQueueStrategy.LINKED_BLOCKING).constructConsumerForStage(mockDownstreamConsumer);
+
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, 50, WorkQueueStrategy.LINKED_BLOCKING);
+    }
+
     @Test
     public void constructConsumerForStageConstructsConsumer() {
-        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt())).thenReturn(mockEtlExecutor);
+        when(mockEtlExecutorFactory.newBlockingFixedThreadsEtlExecutor(anyInt(), anyInt(), any())).thenReturn(mockEtlExecutor);
         when(mockEtlConsumerFactory.newLogAsErrorConsumer(anyString(), any(), any(), any())).thenReturn(mockErrorConsumer);
-        when(mockEtlConsumerFactory.newTransformer(anyString(), any(), any(), any(), any(), any())).thenReturn(mockConsumer);
+        when(mockEtlConsumerFactory.newTransformer(anyString(), any(), any(), any(), any(), any(), any())).thenReturn(mockConsumer);
 
         EtlConsumer result = etlTransformStage.constructConsumerForStage(mockDownstreamConsumer);
 
         assertThat(result, is(mockConsumer));
-        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, EXPECTED_DEFAULT_QUEUE_SIZE);
+        verify(mockEtlExecutorFactory).newBlockingFixedThreadsEtlExecutor(1, EXPECTED_DEFAULT_QUEUE_SIZE,
+                WorkQueueStrategy.ARRAY_BLOCKING);
         verify(mockEtlConsumerFactory).newLogAsErrorConsumer(
                 eq(EXPECTED_DEFAULT_STAGE_NAME),
                 argThat(logger -> EXPECTED_DEFAULT_STAGE_NAME.equals(logger.getName())),
                 eq(Object.class),
                 eq(mockObjectLogger));
         verify(mockEtlConsumerFactory).newTransformer(EXPECTED_DEFAULT_STAGE_NAME, mockTransformer, Object.class,
-                mockDownstreamConsumer, mockErrorConsumer, mockEtlExecutor);
+                mockDownstreamConsumer, mockErrorConsumer, mockEtlExecutor, null);
     }
 
 }
\ No newline at end of file
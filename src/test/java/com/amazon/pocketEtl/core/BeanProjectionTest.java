@@ -0,0 +1,196 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BeanProjectionTest {
+    private final static ObjectMapper objectMapper = new ObjectMapper();
+
+    enum Color { RED, GREEN }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Wide {
+        private String name;
+        private int count;
+        private BigDecimal price;
+        private Color color;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Narrow {
+        private String name;
+        private int count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class NarrowWithDifferentType {
+        private String name;
+        private String count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class WithDate {
+        private String name;
+        private DateTime count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class WithCreated {
+        private String name;
+        private DateTime created;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Nested {
+        private Narrow count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Annotated {
+        @JsonProperty("renamed")
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class NoDefaultConstructor {
+        private String name;
+    }
+
+    @Test
+    public void projectCopiesSharedProperties() {
+        Wide source = new Wide("name", 7, BigDecimal.TEN, Color.GREEN);
+
+        Narrow result = (Narrow) BeanProjection.of(Wide.class, Narrow.class, objectMapper).project(source);
+
+        assertThat(result, equalTo(new Narrow("name", 7)));
+    }
+
+    @Test
+    public void projectLeavesPropertiesMissingFromTheSourceUnset() {
+        Narrow source = new Narrow("name", 7);
+
+        Wide result = (Wide) BeanProjection.of(Narrow.class, Wide.class, objectMapper).project(source);
+
+        assertThat(result, equalTo(new Wide("name", 7, null, null)));
+    }
+
+    @Test
+    public void projectToSameClassCreatesAnEqualButDistinctObject() {
+        Wide source = new Wide("name", 7, BigDecimal.TEN, Color.RED);
+
+        Object result = BeanProjection.of(Wide.class, Wide.class, objectMapper).project(source);
+
+        assertThat(result, equalTo(source));
+        assertThat(result, not(sameInstance(source)));
+    }
+
+    @Test
+    public void copyIntoOverwritesOnlySharedProperties() {
+        Wide target = new Wide("old-name", 1, BigDecimal.ONE, Color.RED);
+
+        BeanProjection.of(Narrow.class, Wide.class, objectMapper).copyInto(new Narrow(null, 2), target);
+
+        assertThat(target.getName(), is(nullValue()));
+        assertThat(target.getCount(), is(2));
+        assertThat(target.getPrice(), equalTo(BigDecimal.ONE));
+        assertThat(target.getColor(), is(Color.RED));
+    }
+
+    @Test
+    public void projectionIsLosslessWhenTargetCarriesEveryProperty() {
+        assertThat(BeanProjection.of(Narrow.class, Wide.class, objectMapper).isLossless(), is(true));
+        assertThat(BeanProjection.of(Wide.class, Narrow.class, objectMapper).isLossless(), is(false));
+    }
+
+    @Test
+    public void projectionIsCachedPerClassPair() {
+        assertThat(BeanProjection.of(Wide.class, Narrow.class, objectMapper),
+                sameInstance(BeanProjection.of(Wide.class, Narrow.class, objectMapper)));
+    }
+
+    @Test
+    public void sharedPropertiesOfDifferentTypesAreNotSupported() {
+        assertThat(BeanProjection.of(Narrow.class, NarrowWithDifferentType.class, objectMapper).isSupported(),
+                is(false));
+    }
+
+    @Test
+    public void sharedDateTypesAreNotSupported() {
+        assertThat(BeanProjection.of(WithDate.class, WithDate.class, objectMapper).isSupported(), is(false));
+    }
+
+    @Test
+    public void sharedNestedBeansAreNotSupported() {
+        assertThat(BeanProjection.of(Nested.class, Nested.class, objectMapper).isSupported(), is(false));
+    }
+
+    @Test
+    public void unsharedNonValuePropertiesDoNotPreventProjection() {
+        BeanProjection projection = BeanProjection.of(WithCreated.class, Narrow.class, objectMapper);
+
+        assertThat(projection.isSupported(), is(true));
+        assertThat(projection.isLossless(), is(false));
+        assertThat(projection.project(new WithCreated("name", DateTime.now())), equalTo(new Narrow("name", 0)));
+    }
+
+    @Test
+    public void jacksonAnnotatedClassesAreNotSupported() {
+        assertThat(BeanProjection.of(Annotated.class, Narrow.class, objectMapper).isSupported(), is(false));
+        assertThat(BeanProjection.of(Narrow.class, Annotated.class, objectMapper).isSupported(), is(false));
+    }
+
+    @Test
+    public void targetWithoutDefaultConstructorIsNotSupported() {
+        assertThat(BeanProjection.of(Narrow.class, NoDefaultConstructor.class, objectMapper).isSupported(), is(false));
+    }
+
+    @Test
+    public void nonBeanClassesAreNotSupported() {
+        assertThat(BeanProjection.of(String.class, Narrow.class, objectMapper).isSupported(), is(false));
+        assertThat(BeanProjection.of(Narrow.class, String.class, objectMapper).isSupported(), is(false));
+    }
+}
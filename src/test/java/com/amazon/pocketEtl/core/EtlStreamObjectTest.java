@@ -113,6 +113,16 @@ public class EtlStreamObjectTest {
         Map<String, String> outer;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    private static class TestDTO8 {
+        private String first;
+        private String second;
+        private int third;
+    }
+
     @Test
     public void settingAndThenGettingTheSameDTOProducesTwoEqualObjects() {
         TestDTO1 expectedDTO = TestDTO1.builder()
@@ -232,4 +242,64 @@ public class EtlStreamObjectTest {
 
         etlStreamObject.get(Object.class);
     }
+
+    @Test
+    public void valuesNotInViewAreTunneledWhenNewViewIsASuperset() {
+        EtlStreamObject etlStreamObject = EtlStreamObject.of(TestDTO1.builder().first("first-string").build());
+
+        etlStreamObject = etlStreamObject.with(TestDTO8.builder().second("second-string").third(3).build());
+        TestDTO2 result = etlStreamObject.get(TestDTO2.class);
+
+        assertThat(result.getFirst(), equalTo(null));
+        assertThat(result.getSecond(), equalTo("second-string"));
+    }
+
+    @Test
+    public void getProjectionDoesNotShareStateWithStream() {
+        TestDTO8 initialDTO = TestDTO8.builder().first("first-string").second("second-string").third(3).build();
+        EtlStreamObject etlStreamObject = EtlStreamObject.of(initialDTO);
+
+        TestDTO2 view = etlStreamObject.get(TestDTO2.class);
+        view.setFirst("updated-first-string");
+
+        assertThat(etlStreamObject.get(TestDTO8.class), equalTo(initialDTO));
+        assertThat(initialDTO.getFirst(), equalTo("first-string"));
+    }
+
+    @Test
+    public void createCopyProducesAnIndependentStreamObject() {
+        TestDTO8 initialDTO = TestDTO8.builder().first("first-string").second("second-string").third(3).build();
+        EtlStreamObject etlStreamObject = EtlStreamObject.of(initialDTO);
+
+        EtlStreamObject copy = etlStreamObject.createCopy();
+        copy.with(TestDTO1.builder().first("updated-first-string").build());
+
+        assertThat(etlStreamObject.get(TestDTO8.class), equalTo(initialDTO));
+        assertThat(copy.get(TestDTO8.class),
+                equalTo(TestDTO8.builder().first("updated-first-string").second("second-string").third(3).build()));
+    }
+
+    @Test
+    public void partialViewMergedIntoStreamDoesNotModifyOriginalObject() {
+        TestDTO8 initialDTO = TestDTO8.builder().first("first-string").second("second-string").third(3).build();
+        EtlStreamObject etlStreamObject = EtlStreamObject.of(initialDTO);
+
+        etlStreamObject.with(TestDTO1.builder().first("updated-first-string").build());
+
+        assertThat(initialDTO.getFirst(), equalTo("first-string"));
+        assertThat(etlStreamObject.get(TestDTO2.class),
+                equalTo(TestDTO2.builder().first("updated-first-string").second("second-string").build()));
+    }
+
+    @Test
+    public void valuesAreTunneledWhenNeitherViewCanCarryTheOther() {
+        EtlStreamObject etlStreamObject =
+            EtlStreamObject.of(TestDTO2.builder().first("first-string").second("second-string").build());
+
+        etlStreamObject = etlStreamObject.with(TestDTO3.builder().first(123).build());
+        TestDTO2 result = etlStreamObject.get(TestDTO2.class);
+
+        assertThat(result.getFirst(), equalTo("123"));
+        assertThat(result.getSecond(), equalTo("second-string"));
+    }
 }
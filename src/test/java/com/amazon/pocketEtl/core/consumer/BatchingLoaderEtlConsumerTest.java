@@ -0,0 +1,195 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.consumer;
+
+import com.amazon.pocketEtl.BatchLoader;
+import com.amazon.pocketEtl.EtlTestBase;
+import com.amazon.pocketEtl.core.EtlStreamObject;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingLoaderEtlConsumerTest extends EtlTestBase {
+    private static final String TEST_NAME = "TestName";
+
+    private final TestDTO dtoA = new TestDTO("A");
+    private final TestDTO dtoB = new TestDTO("B");
+    private final TestDTO dtoC = new TestDTO("C");
+
+    @Mock
+    private BatchLoader<TestDTO> mockLoader;
+
+    @Mock
+    private EtlConsumer mockErrorEtlConsumer;
+
+    @Mock
+    private EtlStreamObject mockEtlStreamObjectA;
+
+    @Mock
+    private EtlStreamObject mockEtlStreamObjectB;
+
+    @Mock
+    private EtlStreamObject mockEtlStreamObjectC;
+
+    private BatchingLoaderEtlConsumer<TestDTO> batchingLoaderConsumer;
+
+    @Before
+    public void constructWorker() {
+        when(mockEtlStreamObjectA.get(any())).thenReturn(dtoA);
+        when(mockEtlStreamObjectB.get(any())).thenReturn(dtoB);
+        when(mockEtlStreamObjectC.get(any())).thenReturn(dtoC);
+        batchingLoaderConsumer = new BatchingLoaderEtlConsumer<>(TEST_NAME, mockLoader, TestDTO.class, 2, 0,
+                mockErrorEtlConsumer);
+    }
+
+    @Test
+    public void consumeDoesNotLoadUntilBatchIsFull() {
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+
+        verify(mockLoader, never()).loadBatch(anyList());
+    }
+
+    @Test
+    public void consumeLoadsAFullBatch() {
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectB);
+
+        verify(mockLoader).loadBatch(eq(Arrays.asList(dtoA, dtoB)));
+    }
+
+    @Test
+    public void closeLoadsAPartialBatch() throws Exception {
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectB);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectC);
+        batchingLoaderConsumer.close();
+
+        verify(mockLoader).loadBatch(eq(Arrays.asList(dtoA, dtoB)));
+        verify(mockLoader).loadBatch(eq(Collections.singletonList(dtoC)));
+    }
+
+    @Test
+    public void lingerLoadsAPartialBatch() {
+        batchingLoaderConsumer = new BatchingLoaderEtlConsumer<>(TEST_NAME, mockLoader, TestDTO.class, 2, 10,
+                mockErrorEtlConsumer);
+
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+
+        verify(mockLoader, timeout(5000)).loadBatch(eq(Collections.singletonList(dtoA)));
+    }
+
+    @Test
+    public void eachThreadAccumulatesItsOwnBatch() throws Exception {
+        batchingLoaderConsumer.open(mockMetrics);
+
+        Thread threadA = new Thread(() -> batchingLoaderConsumer.consume(mockEtlStreamObjectA));
+        Thread threadB = new Thread(() -> batchingLoaderConsumer.consume(mockEtlStreamObjectB));
+        threadA.start();
+        threadB.start();
+        threadA.join();
+        threadB.join();
+
+        verify(mockLoader, never()).loadBatch(anyList());
+
+        batchingLoaderConsumer.close();
+
+        verify(mockLoader).loadBatch(eq(Collections.singletonList(dtoA)));
+        verify(mockLoader).loadBatch(eq(Collections.singletonList(dtoB)));
+    }
+
+    @Test
+    public void failedObjectsArePassedToTheErrorConsumer() {
+        when(mockLoader.loadBatch(anyList())).thenAnswer(invocation -> {
+            List<TestDTO> batch = invocation.getArgument(0);
+            return Collections.singletonList(batch.get(1));
+        });
+
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectB);
+
+        verify(mockErrorEtlConsumer, never()).consume(mockEtlStreamObjectA);
+        verify(mockErrorEtlConsumer).consume(mockEtlStreamObjectB);
+    }
+
+    @Test
+    public void consumePassesTheWholeBatchToTheErrorConsumerOnRuntimeException() {
+        when(mockLoader.loadBatch(anyList())).thenThrow(new RuntimeException("test"));
+
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectB);
+
+        verify(mockErrorEtlConsumer).consume(mockEtlStreamObjectA);
+        verify(mockErrorEtlConsumer).consume(mockEtlStreamObjectB);
+    }
+
+    @Test
+    public void consumePassesToTheErrorConsumerIfObjectCannotBeConverted() {
+        when(mockEtlStreamObjectA.get(any())).thenThrow(new RuntimeException("test"));
+
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+
+        verify(mockErrorEtlConsumer).consume(mockEtlStreamObjectA);
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void consumeRethrowsUnrecoverableStreamFailureException() {
+        when(mockLoader.loadBatch(anyList())).thenThrow(new UnrecoverableStreamFailureException("test"));
+
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectA);
+        batchingLoaderConsumer.consume(mockEtlStreamObjectB);
+    }
+
+    @Test
+    public void openOpensLoaderAndErrorConsumer() {
+        batchingLoaderConsumer.open(etlProfilingScope.getMetrics());
+
+        verify(mockLoader).open(eq(etlProfilingScope.getMetrics()));
+        verify(mockErrorEtlConsumer).open(eq(etlProfilingScope.getMetrics()));
+    }
+
+    @Test
+    public void closeClosesLoaderAndErrorConsumer() throws Exception {
+        batchingLoaderConsumer.open(mockMetrics);
+        batchingLoaderConsumer.close();
+
+        verify(mockLoader).close();
+        verify(mockErrorEtlConsumer).close();
+    }
+}
@@ -15,6 +15,7 @@
 
 package com.amazon.pocketEtl.core.consumer;
 
+import com.amazon.pocketEtl.BatchLoader;
 import com.amazon.pocketEtl.Loader;
 import com.amazon.pocketEtl.Transformer;
 import com.amazon.pocketEtl.core.DefaultLoggingStrategy;
@@ -28,6 +29,8 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +41,8 @@ public class EtlConsumerFactoryTest {
     @Mock
     private Loader<Object> mockLoader;
     @Mock
+    private BatchLoader<Object> mockBatchLoader;
+    @Mock
     private Transformer<Object, Object> mockTransformer;
     @Mock
     private EtlConsumer mockErrorConsumer;
@@ -64,6 +69,13 @@ public class EtlConsumerFactoryTest {
         verifyWrappedConsumerStack(consumer, LoaderEtlConsumer.class);
     }
 
+    @Test
+    public void newBatchLoaderCreatesAWrappedBatchingLoaderConsumer() {
+        EtlConsumer consumer = etlConsumerFactory.newBatchLoader(STAGE_NAME, mockBatchLoader, Object.class, 25, 100,
+                mockErrorConsumer, mockEtlExecutor);
+        verifyWrappedConsumerStack(consumer, BatchingLoaderEtlConsumer.class);
+    }
+
     @Test
     public void newTransformerCreatesAWrappedTransformerConsumer() {
         EtlConsumer consumer = etlConsumerFactory.newTransformer(STAGE_NAME, mockTransformer, Object.class, mockDownstreamConsumer,
@@ -72,6 +84,19 @@ public class EtlConsumerFactoryTest {
         verifyWrappedConsumerStack(consumer, TransformerEtlConsumer.class);
     }
 
+    @Test
+    public void newLoaderWithRateLimiterPassesRateLimiterToExecutorConsumer() {
+        TokenBucketRateLimiter rateLimiter = etlConsumerFactory.newTokenBucketRateLimiter(100, 10);
+
+        EtlConsumer consumer = etlConsumerFactory.newLoader(STAGE_NAME, mockLoader, Object.class, mockErrorConsumer,
+                mockEtlExecutor, rateLimiter);
+
+        verifyWrappedConsumerStack(consumer, LoaderEtlConsumer.class);
+        consumer = ((MetricsEmissionEtlConsumer) ((SmartEtlConsumer) consumer).getWrappedEtlConsumer())
+                .getDownstreamEtlConsumer();
+        assertThat(((ExecutorEtlConsumer) consumer).getRateLimiter(), is(sameInstance(rateLimiter)));
+    }
+
     @Test
     public void newLogAsErrorCreatesAWrappedLogAsErrorConsumer() {
         EtlConsumer consumer = etlConsumerFactory.newLogAsErrorConsumer(STAGE_NAME, mockLogger, Object.class, new DefaultLoggingStrategy<>());
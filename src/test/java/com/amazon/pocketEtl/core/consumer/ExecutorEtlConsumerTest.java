@@ -22,12 +22,15 @@ import com.amazon.pocketEtl.core.executor.EtlExecutor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -45,6 +48,9 @@ public class ExecutorEtlConsumerTest extends EtlTestBase {
     @Mock
     private EtlConsumer mockEtlConsumer;
 
+    @Mock
+    private TokenBucketRateLimiter mockRateLimiter;
+
     private ExecutorEtlConsumer executorConsumer;
 
     @Before
@@ -72,6 +78,25 @@ public class ExecutorEtlConsumerTest extends EtlTestBase {
         verify(mockEtlConsumer, times(1)).consume(eq(mockEtlStreamObject));
     }
 
+    @Test
+    public void consumeAcquiresRateLimiterPermitBeforeWritingToConsumer() {
+        doAnswer(invocation -> {
+            Runnable runnable = (Runnable) invocation.getArguments()[0];
+            runnable.run();
+            return null;
+        }).when(mockEtlExecutor).submit(any(Runnable.class), any(EtlMetrics.class));
+
+        ExecutorEtlConsumer rateLimitedConsumer =
+                new ExecutorEtlConsumer(TEST_NAME, mockEtlConsumer, mockEtlExecutor, mockRateLimiter);
+        rateLimitedConsumer.open(mockMetrics);
+        rateLimitedConsumer.consume(mockEtlStreamObject);
+
+        InOrder inOrder = inOrder(mockRateLimiter, mockEtlConsumer);
+        inOrder.verify(mockRateLimiter).acquire();
+        inOrder.verify(mockEtlConsumer).consume(eq(mockEtlStreamObject));
+        verify(mockMetrics).addTime(eq("ExecutorConsumer." + TEST_NAME + ".rateLimitWait"), anyDouble());
+    }
+
     @Test
     public void closeShutsDownExecutor() throws Exception {
         executorConsumer.open(mockMetrics);
@@ -0,0 +1,124 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.consumer;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TokenBucketRateLimiterTest {
+    private final static long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong fakeClock = new AtomicLong(0);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void permitsPerSecondMustBePositive() {
+        new TokenBucketRateLimiter(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void permitsPerSecondMustBeANumber() {
+        new TokenBucketRateLimiter(Double.NaN, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstCapacityMustBeAtLeastOne() {
+        new TokenBucketRateLimiter(10, 0);
+    }
+
+    @Test
+    public void firstPermitIsAvailableImmediately() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 1, fakeClock::get);
+
+        assertThat(rateLimiter.reserve(), is(0L));
+    }
+
+    @Test
+    public void permitsAreSpacedByTheRateWhenBucketIsEmpty() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 1, fakeClock::get);
+
+        rateLimiter.reserve();
+
+        assertThat(rateLimiter.reserve(), is(ONE_SECOND_NANOS / 10));
+        assertThat(rateLimiter.reserve(), is(2 * ONE_SECOND_NANOS / 10));
+    }
+
+    @Test
+    public void burstCapacityIsAvailableWithoutWaiting() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, fakeClock::get);
+
+        IntStream.range(0, 5).forEach(i -> assertThat(rateLimiter.reserve(), is(0L)));
+        assertThat(rateLimiter.reserve(), is(ONE_SECOND_NANOS / 10));
+    }
+
+    @Test
+    public void bucketRefillsAtTheRateWhileIdle() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, fakeClock::get);
+
+        IntStream.range(0, 5).forEach(i -> rateLimiter.reserve());
+        fakeClock.addAndGet(2 * ONE_SECOND_NANOS / 10);
+
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(ONE_SECOND_NANOS / 10));
+    }
+
+    @Test
+    public void bucketNeverHoldsMoreThanItsBurstCapacity() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 2, fakeClock::get);
+
+        fakeClock.addAndGet(60 * ONE_SECOND_NANOS);
+
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(ONE_SECOND_NANOS / 10));
+    }
+
+    @Test
+    public void acquireBlocksUntilPermitIsAvailable() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(100, 1);
+        long startNanos = System.nanoTime();
+
+        IntStream.range(0, 11).forEach(i -> rateLimiter.acquire());
+
+        assertThat(System.nanoTime() - startNanos, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void acquireHasAnOverallRateAcrossThreads() throws Exception {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(200, 1);
+        Thread[] threads = new Thread[4];
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> IntStream.range(0, 10).forEach(j -> rateLimiter.acquire()));
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 40 permits at 200 per second, less the one that is available immediately
+        assertThat(System.nanoTime() - startNanos, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(195)));
+    }
+}
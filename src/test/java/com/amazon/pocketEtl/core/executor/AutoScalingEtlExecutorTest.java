@@ -0,0 +1,223 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import com.amazon.pocketEtl.EtlTestBase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AutoScalingEtlExecutorTest extends EtlTestBase {
+    private final static String EXECUTOR_NAME = "TestExecutor";
+    private final static int MIN_THREADS = 2;
+    private final static int MAX_THREADS = 4;
+    private final static int QUEUE_CAPACITY = 100;
+    private final static long DECISION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private ThreadPoolExecutor mockThreadPoolExecutor;
+
+    @Mock
+    private BlockingQueue<Runnable> mockQueue;
+
+    private final AtomicLong fakeClock = new AtomicLong(0);
+    private AutoScalingEtlExecutor etlExecutor;
+
+    @Before
+    public void constructEtlExecutor() {
+        etlExecutor = new AutoScalingEtlExecutor(EXECUTOR_NAME, mockThreadPoolExecutor, MIN_THREADS, MAX_THREADS,
+                DECISION_INTERVAL_NANOS, fakeClock::get);
+    }
+
+    private void stubPoolState(int corePoolSize, int queueSize, long completedTaskCount) {
+        when(mockThreadPoolExecutor.getCorePoolSize()).thenReturn(corePoolSize);
+        when(mockThreadPoolExecutor.getCompletedTaskCount()).thenReturn(completedTaskCount);
+        when(mockThreadPoolExecutor.getQueue()).thenReturn(mockQueue);
+        when(mockQueue.size()).thenReturn(queueSize);
+        when(mockQueue.remainingCapacity()).thenReturn(QUEUE_CAPACITY - queueSize);
+    }
+
+    private void advanceClockAndRescale() {
+        fakeClock.addAndGet(DECISION_INTERVAL_NANOS);
+        etlExecutor.maybeRescale();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minThreadsMustBeAtLeastOne() {
+        new AutoScalingEtlExecutor(EXECUTOR_NAME, mockThreadPoolExecutor, 0, MAX_THREADS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxThreadsMustNotBeLessThanMinThreads() {
+        new AutoScalingEtlExecutor(EXECUTOR_NAME, mockThreadPoolExecutor, MAX_THREADS, MIN_THREADS);
+    }
+
+    @Test
+    public void noDecisionIsMadeBeforeTheIntervalElapses() {
+        fakeClock.addAndGet(DECISION_INTERVAL_NANOS - 1);
+        etlExecutor.maybeRescale();
+
+        verify(mockThreadPoolExecutor, never()).getCorePoolSize();
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(anyInt());
+    }
+
+    @Test
+    public void starvedStageRemovesAThread() {
+        stubPoolState(3, 0, 100);
+
+        advanceClockAndRescale();
+
+        InOrder inOrder = inOrder(mockThreadPoolExecutor);
+        inOrder.verify(mockThreadPoolExecutor).setCorePoolSize(2);
+        inOrder.verify(mockThreadPoolExecutor).setMaximumPoolSize(2);
+    }
+
+    @Test
+    public void starvedStageNeverDropsBelowMinThreads() {
+        stubPoolState(MIN_THREADS, 0, 100);
+
+        advanceClockAndRescale();
+
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(anyInt());
+        verify(mockThreadPoolExecutor, never()).setMaximumPoolSize(anyInt());
+    }
+
+    @Test
+    public void backedUpStageAddsAThread() {
+        stubPoolState(MIN_THREADS, 95, 100);
+
+        advanceClockAndRescale();
+
+        InOrder inOrder = inOrder(mockThreadPoolExecutor);
+        inOrder.verify(mockThreadPoolExecutor).setMaximumPoolSize(3);
+        inOrder.verify(mockThreadPoolExecutor).setCorePoolSize(3);
+    }
+
+    @Test
+    public void backedUpStageNeverExceedsMaxThreads() {
+        stubPoolState(MAX_THREADS, 95, 100);
+
+        advanceClockAndRescale();
+
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(anyInt());
+        verify(mockThreadPoolExecutor, never()).setMaximumPoolSize(anyInt());
+    }
+
+    @Test
+    public void partiallyFilledQueueKeepsTheSameNumberOfThreads() {
+        stubPoolState(3, 50, 100);
+
+        advanceClockAndRescale();
+
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(anyInt());
+        verify(mockThreadPoolExecutor, never()).setMaximumPoolSize(anyInt());
+    }
+
+    @Test
+    public void improvedThroughputRepeatsTheLastChange() {
+        stubPoolState(MIN_THREADS, 95, 100);
+        advanceClockAndRescale();
+
+        stubPoolState(3, 50, 300);
+        advanceClockAndRescale();
+
+        verify(mockThreadPoolExecutor).setCorePoolSize(3);
+        verify(mockThreadPoolExecutor).setCorePoolSize(4);
+    }
+
+    @Test
+    public void worseThroughputReversesTheLastChange() {
+        stubPoolState(MIN_THREADS, 95, 100);
+        advanceClockAndRescale();
+
+        stubPoolState(3, 95, 150);
+        advanceClockAndRescale();
+
+        InOrder inOrder = inOrder(mockThreadPoolExecutor);
+        inOrder.verify(mockThreadPoolExecutor).setCorePoolSize(3);
+        inOrder.verify(mockThreadPoolExecutor).setCorePoolSize(2);
+        inOrder.verify(mockThreadPoolExecutor).setMaximumPoolSize(2);
+    }
+
+    @Test
+    public void unchangedThroughputAfterAChangeKeepsTheSameNumberOfThreads() {
+        stubPoolState(MIN_THREADS, 95, 100);
+        advanceClockAndRescale();
+
+        stubPoolState(3, 95, 200);
+        advanceClockAndRescale();
+
+        verify(mockThreadPoolExecutor).setCorePoolSize(3);
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(4);
+        verify(mockThreadPoolExecutor, never()).setCorePoolSize(MIN_THREADS);
+    }
+
+    @Test
+    public void decisionIsReportedToTheMetricsWorkWasSubmittedWith() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(mockThreadPoolExecutor).submit(any(Runnable.class));
+
+        etlExecutor.submit(() -> { }, mockMetrics);
+        stubPoolState(3, 50, 1);
+        advanceClockAndRescale();
+
+        verify(mockMetrics).addCount(eq("AutoScalingEtlExecutor." + EXECUTOR_NAME + ".threads"), eq(3.0));
+        verify(mockMetrics).addCount(eq("AutoScalingEtlExecutor." + EXECUTOR_NAME + ".tasksPerSecond"), eq(1.0));
+        verify(mockMetrics).addTime(eq("AutoScalingEtlExecutor." + EXECUTOR_NAME + ".serviceTime"), anyDouble());
+    }
+
+    @Test
+    public void executorFromFactoryCanDoRealWork() throws Exception {
+        EtlExecutor realEtlExecutor = new EtlExecutorFactory().newAutoScalingEtlExecutor(EXECUTOR_NAME, MIN_THREADS,
+                MAX_THREADS, QUEUE_CAPACITY, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        assertThat(realEtlExecutor, instanceOf(AutoScalingEtlExecutor.class));
+
+        IntStream.range(0, 1000).forEach(i -> realEtlExecutor.submit(workCounter::incrementAndGet, null));
+        realEtlExecutor.shutdown();
+
+        assertThat(realEtlExecutor.isShutdown(), is(true));
+        assertThat(workCounter.get(), equalTo(1000));
+    }
+}
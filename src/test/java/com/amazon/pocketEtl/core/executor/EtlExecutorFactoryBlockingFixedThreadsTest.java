@@ -24,6 +24,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -124,4 +125,42 @@ public class EtlExecutorFactoryBlockingFixedThreadsTest {
 
         assertThat(workCounter.get(), equalTo(100));
     }
+
+    @Test
+    public void linkedBlockingStrategyUsesLinkedBlockingQueue() throws Exception {
+        EtlExecutor linkedExecutor = etlExecutorFactory.newBlockingFixedThreadsEtlExecutor(NUMBER_OF_WORKERS,
+                QUEUE_SIZE, WorkQueueStrategy.LINKED_BLOCKING);
+        BlockingQueue<Runnable> queue =
+                ((ThreadPoolExecutor) ((ExecutorServiceEtlExecutor) linkedExecutor).getExecutorService()).getQueue();
+        linkedExecutor.shutdown();
+
+        assertThat(queue, instanceOf(LinkedBlockingQueue.class));
+        assertThat(queue.remainingCapacity(), is(QUEUE_SIZE));
+    }
+
+    @Test
+    public void ringBufferStrategyUsesRingBufferQueue() throws Exception {
+        EtlExecutor ringBufferExecutor = etlExecutorFactory.newBlockingFixedThreadsEtlExecutor(NUMBER_OF_WORKERS,
+                QUEUE_SIZE, WorkQueueStrategy.RING_BUFFER);
+        BlockingQueue<Runnable> queue =
+                ((ThreadPoolExecutor) ((ExecutorServiceEtlExecutor) ringBufferExecutor).getExecutorService()).getQueue();
+        ringBufferExecutor.shutdown();
+
+        assertThat(queue, instanceOf(RingBufferBlockingQueue.class));
+        assertThat(queue.remainingCapacity(), is(QUEUE_SIZE));
+    }
+
+    @Test
+    public void executorWithEachStrategyCanDoRealWork() throws Exception {
+        for (WorkQueueStrategy strategy : WorkQueueStrategy.values()) {
+            EtlExecutor strategyExecutor = etlExecutorFactory.newBlockingFixedThreadsEtlExecutor(NUMBER_OF_WORKERS,
+                    QUEUE_SIZE, strategy);
+            AtomicInteger workCounter = new AtomicInteger(0);
+
+            IntStream.range(0, 1000).forEach(i -> strategyExecutor.submit(workCounter::incrementAndGet, null));
+            strategyExecutor.shutdown();
+
+            assertThat(strategy.name(), workCounter.get(), equalTo(1000));
+        }
+    }
 }
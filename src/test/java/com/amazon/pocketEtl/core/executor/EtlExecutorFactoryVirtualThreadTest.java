@@ -0,0 +1,129 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class EtlExecutorFactoryVirtualThreadTest {
+    private final static int MAX_CONCURRENCY = 4;
+
+    private EtlExecutorFactory etlExecutorFactory = new EtlExecutorFactory();
+    private EtlExecutor etlExecutor;
+
+    @Before
+    public void constructEtlExecutor() {
+        etlExecutor = etlExecutorFactory.newVirtualThreadEtlExecutor(MAX_CONCURRENCY);
+    }
+
+    @After
+    public void teardownEtlExecutor() throws Exception {
+        etlExecutor.shutdown();
+    }
+
+    @Test
+    public void executorIsConcurrencyLimited() {
+        assertThat(etlExecutor, instanceOf(ConcurrencyLimitedEtlExecutor.class));
+    }
+
+    @Test
+    public void executorCanDoRealWork() throws Exception {
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 100).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(100));
+    }
+
+    @Test(timeout = 10000)
+    public void executorNeverRunsMoreTasksThanTheConcurrencyLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+
+        IntStream.range(0, 50).forEach(i -> etlExecutor.submit(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException ignored) {
+            }
+
+            running.decrementAndGet();
+        }, null));
+        etlExecutor.shutdown();
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(MAX_CONCURRENCY));
+    }
+
+    @Test(timeout = 10000)
+    public void submitBlocksUntilARunningTaskCompletes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+
+        IntStream.range(0, MAX_CONCURRENCY).forEach(i -> etlExecutor.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, null));
+
+        Thread submitter = new Thread(() -> {
+            etlExecutor.submit(() -> { }, null);
+            submitted.countDown();
+        });
+        submitter.start();
+
+        assertThat(submitted.await(50, TimeUnit.MILLISECONDS), is(false));
+
+        release.countDown();
+
+        assertThat(submitted.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void submitAfterShutdownThrowsRejectedExecutionException() throws Exception {
+        etlExecutor.shutdown();
+
+        etlExecutor.submit(() -> { }, null);
+    }
+
+    @Test
+    public void workStillCompletesWhenATaskThrows() throws Exception {
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, MAX_CONCURRENCY * 2).forEach(i -> etlExecutor.submit(() -> {
+            throw new RuntimeException("Test exception");
+        }, null));
+        IntStream.range(0, 10).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(10));
+    }
+}
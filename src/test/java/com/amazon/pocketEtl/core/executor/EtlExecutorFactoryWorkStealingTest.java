@@ -0,0 +1,162 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EtlExecutorFactoryWorkStealingTest {
+    private final static int PARALLELISM = 3;
+    private final static int MAX_QUEUED_TASKS = 5;
+
+    private EtlExecutorFactory etlExecutorFactory = new EtlExecutorFactory();
+
+    @Test
+    public void workStealingExecutorHasAsyncPoolWithCorrectParallelism() throws Exception {
+        ForkJoinEtlExecutor etlExecutor =
+                (ForkJoinEtlExecutor) etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        ForkJoinPool forkJoinPool = etlExecutor.getForkJoinPool();
+        etlExecutor.shutdown();
+
+        assertThat(forkJoinPool.getParallelism(), is(PARALLELISM));
+        assertThat(forkJoinPool.getAsyncMode(), is(true));
+    }
+
+    @Test
+    public void workStealingExecutorShutsDownItsOwnPool() throws Exception {
+        ForkJoinEtlExecutor etlExecutor =
+                (ForkJoinEtlExecutor) etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        etlExecutor.shutdown();
+
+        assertThat(etlExecutor.isShutdown(), is(true));
+        assertThat(etlExecutor.getForkJoinPool().isShutdown(), is(true));
+    }
+
+    @Test
+    public void sharedWorkStealingExecutorsShareOnePoolSizedToProcessors() throws Exception {
+        EtlExecutor first = etlExecutorFactory.newSharedWorkStealingEtlExecutor(MAX_QUEUED_TASKS);
+        EtlExecutor second = etlExecutorFactory.newSharedWorkStealingEtlExecutor(MAX_QUEUED_TASKS);
+
+        assertThat(first, instanceOf(ForkJoinEtlExecutor.class));
+        ForkJoinPool sharedPool = ((ForkJoinEtlExecutor) first).getForkJoinPool();
+        assertThat(((ForkJoinEtlExecutor) second).getForkJoinPool(), sameInstance(sharedPool));
+        assertThat(sharedPool.getParallelism(), is(Runtime.getRuntime().availableProcessors()));
+
+        first.shutdown();
+
+        assertThat(first.isShutdown(), is(true));
+        assertThat(second.isShutdown(), is(false));
+        assertThat(sharedPool.isShutdown(), is(false));
+        second.shutdown();
+    }
+
+    @Test
+    public void executorCanDoRealWork() throws Exception {
+        EtlExecutor etlExecutor = etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 1000).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(1000));
+    }
+
+    @Test
+    public void shutdownOfSharedExecutorWaitsForItsOwnTasks() throws Exception {
+        EtlExecutor etlExecutor = etlExecutorFactory.newSharedWorkStealingEtlExecutor(MAX_QUEUED_TASKS);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 100).forEach(i -> etlExecutor.submit(() -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ignored) {
+            }
+
+            workCounter.incrementAndGet();
+        }, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(100));
+    }
+
+    @Test(timeout = 10000)
+    public void executorNeverHasMoreOutstandingTasksThanTheLimit() throws Exception {
+        EtlExecutor etlExecutor = etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        AtomicInteger outstanding = new AtomicInteger(0);
+        AtomicInteger maxOutstanding = new AtomicInteger(0);
+
+        IntStream.range(0, 200).forEach(i -> {
+            maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+            etlExecutor.submit(outstanding::decrementAndGet, null);
+        });
+        etlExecutor.shutdown();
+
+        assertThat(maxOutstanding.get(), lessThanOrEqualTo(MAX_QUEUED_TASKS + 1));
+    }
+
+    @Test(timeout = 10000)
+    public void chainedExecutorsOnTheSharedPoolDoNotDeadlock() throws Exception {
+        EtlExecutor downstream = etlExecutorFactory.newSharedWorkStealingEtlExecutor(1);
+        EtlExecutor upstream = etlExecutorFactory.newSharedWorkStealingEtlExecutor(MAX_QUEUED_TASKS);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 500).forEach(i -> upstream.submit(() -> downstream.submit(() -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ignored) {
+            }
+
+            workCounter.incrementAndGet();
+        }, null), null));
+        upstream.shutdown();
+        downstream.shutdown();
+
+        assertThat(workCounter.get(), equalTo(500));
+    }
+
+    @Test
+    public void exceptionsThrownByTasksAreSwallowed() throws Exception {
+        EtlExecutor etlExecutor = etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 10).forEach(i -> etlExecutor.submit(() -> {
+            throw new RuntimeException("Test exception");
+        }, null));
+        IntStream.range(0, 10).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(10));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void submitAfterShutdownThrowsRejectedExecutionException() throws Exception {
+        EtlExecutor etlExecutor = etlExecutorFactory.newWorkStealingEtlExecutor(PARALLELISM, MAX_QUEUED_TASKS);
+        etlExecutor.shutdown();
+
+        etlExecutor.submit(() -> { }, null);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RingBufferBlockingQueueTest {
+    private final static int CAPACITY = 3;
+
+    private final RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<>(CAPACITY);
+
+    @Test
+    public void elementsArePolledInTheOrderTheyWereOffered() {
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertThat(queue.poll(), is(1));
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.poll(), is(3));
+    }
+
+    @Test
+    public void offerReturnsFalseWhenFull() {
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertThat(queue.offer(4), is(false));
+        assertThat(queue.remainingCapacity(), is(0));
+    }
+
+    @Test
+    public void pollReturnsNullWhenEmpty() {
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.peek(), is(nullValue()));
+    }
+
+    @Test
+    public void queueWrapsAroundTheRingBuffer() {
+        for (int i = 0; i < CAPACITY * 4; i++) {
+            queue.offer(i);
+            assertThat(queue.peek(), is(i));
+            assertThat(queue.poll(), is(i));
+        }
+
+        assertThat(queue.size(), is(0));
+        assertThat(queue.remainingCapacity(), is(CAPACITY));
+    }
+
+    @Test
+    public void sizeAndIteratorReflectQueueContents() {
+        queue.offer(1);
+        queue.offer(2);
+
+        assertThat(queue.size(), is(2));
+        assertThat(queue, contains(1, 2));
+    }
+
+    @Test
+    public void drainToMovesAllElements() {
+        List<Integer> drained = new ArrayList<>();
+        queue.offer(1);
+        queue.offer(2);
+
+        assertThat(queue.drainTo(drained), is(2));
+        assertThat(drained, contains(1, 2));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void timedOfferAndPollTimeOut() throws Exception {
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertThat(queue.offer(4, 10, TimeUnit.MILLISECONDS), is(false));
+
+        queue.clear();
+
+        assertThat(queue.poll(10, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void removeTakesTheElementOutOfTheQueue() {
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertThat(queue.remove(2), is(true));
+        assertThat(queue.remove(2), is(false));
+        assertThat(queue, contains(1, 3));
+        assertThat(queue.poll(), is(1));
+        assertThat(queue.poll(), is(3));
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.remainingCapacity(), is(CAPACITY));
+    }
+
+    @Test
+    public void queueWithOnlyRemovedElementsIsEmpty() {
+        queue.offer(1);
+
+        assertThat(queue.remove(1), is(true));
+        assertThat(queue.isEmpty(), is(true));
+        assertThat(queue.peek(), is(nullValue()));
+        assertThat(queue.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void removeReturnsFalseForAnElementThatIsNotQueued() {
+        queue.offer(1);
+
+        assertThat(queue.remove(2), is(false));
+        assertThat(queue.remove(null), is(false));
+        assertThat(queue, contains(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void offerNullThrowsNullPointerException() {
+        queue.offer(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorThrowsIfCapacityIsLessThanOne() {
+        new RingBufferBlockingQueue<Integer>(0);
+    }
+
+    @Test(timeout = 10000)
+    public void putBlocksUntilThereIsRoom() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            queue.put(1);
+            queue.put(2);
+            queue.put(3);
+
+            Future<?> blockedPut = executorService.submit(() -> {
+                queue.put(4);
+                return null;
+            });
+
+            Thread.sleep(50);
+            assertThat(blockedPut.isDone(), is(false));
+
+            assertThat(queue.take(), is(1));
+            blockedPut.get();
+            assertThat(queue, contains(2, 3, 4));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void takeBlocksUntilAnElementIsOffered() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Integer> blockedTake = executorService.submit(() -> queue.take());
+
+            Thread.sleep(50);
+            assertThat(blockedTake.isDone(), is(false));
+
+            queue.offer(1);
+            assertThat(blockedTake.get(), is(1));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void takeIsInterruptible() throws Exception {
+        Thread taker = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        taker.start();
+        taker.interrupt();
+        taker.join();
+    }
+
+    @Test(timeout = 30000)
+    public void multipleProducersAndConsumersTransferEveryElementExactlyOnce() throws Exception {
+        final int producers = 4;
+        final int consumers = 4;
+        final int elementsPerProducer = 25000;
+        ExecutorService executorService = Executors.newFixedThreadPool(producers + consumers);
+        AtomicLong sum = new AtomicLong(0);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int p = 0; p < producers; p++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 1; i <= elementsPerProducer; i++) {
+                        queue.put(i);
+                    }
+                    return null;
+                }));
+            }
+
+            for (int c = 0; c < consumers; c++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < elementsPerProducer; i++) {
+                        sum.addAndGet(queue.take());
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        long expectedSum = (long) producers * elementsPerProducer * (elementsPerProducer + 1) / 2;
+        assertThat(sum.get(), equalTo(expectedSum));
+        assertThat(queue.isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.core.executor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class ThreadBudgetSchedulerTest {
+    private final static int THREAD_BUDGET = 4;
+    private final static int QUEUE_SIZE = 5;
+
+    private final ThreadBudgetScheduler threadBudgetScheduler =
+            new EtlExecutorFactory().newThreadBudgetScheduler(THREAD_BUDGET);
+
+    @After
+    public void shutdownScheduler() throws Exception {
+        threadBudgetScheduler.shutdown();
+    }
+
+    @Test
+    public void executorCanDoRealWork() throws Exception {
+        EtlExecutor etlExecutor = threadBudgetScheduler.newEtlExecutor(2, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 1000).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(1000));
+        assertThat(etlExecutor.isShutdown(), is(true));
+    }
+
+    @Test(timeout = 10000)
+    public void executorNeverUsesMoreThreadsThanItsLimit() throws Exception {
+        EtlExecutor etlExecutor = threadBudgetScheduler.newEtlExecutor(2, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+
+        IntStream.range(0, 50).forEach(i -> etlExecutor.submit(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(1);
+            running.decrementAndGet();
+        }, null));
+        etlExecutor.shutdown();
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test(timeout = 10000)
+    public void executorsNeverUseMoreThreadsThanTheBudget() throws Exception {
+        EtlExecutor first = threadBudgetScheduler.newEtlExecutor(THREAD_BUDGET, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        EtlExecutor second = threadBudgetScheduler.newEtlExecutor(THREAD_BUDGET, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+        Runnable task = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(1);
+            running.decrementAndGet();
+        };
+
+        IntStream.range(0, 50).forEach(i -> {
+            first.submit(task, null);
+            second.submit(task, null);
+        });
+        first.shutdown();
+        second.shutdown();
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(THREAD_BUDGET));
+    }
+
+    @Test(timeout = 10000)
+    public void idleThreadsMoveToTheExecutorWithABacklog() throws Exception {
+        EtlExecutor slowExecutor = threadBudgetScheduler.newEtlExecutor(THREAD_BUDGET, 100, WorkQueueStrategy.ARRAY_BLOCKING);
+        EtlExecutor idleExecutor = threadBudgetScheduler.newEtlExecutor(THREAD_BUDGET, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+
+        IntStream.range(0, 100).forEach(i -> slowExecutor.submit(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+        }, null));
+        slowExecutor.shutdown();
+        idleExecutor.shutdown();
+
+        assertThat(maxRunning.get(), greaterThan(1));
+    }
+
+    @Test(timeout = 10000)
+    public void chainedExecutorsWithFullQueuesDoNotDeadlock() throws Exception {
+        ThreadBudgetScheduler singleThreadScheduler = new EtlExecutorFactory().newThreadBudgetScheduler(1);
+
+        try {
+            EtlExecutor downstream = singleThreadScheduler.newEtlExecutor(1, 1, WorkQueueStrategy.ARRAY_BLOCKING);
+            EtlExecutor upstream = singleThreadScheduler.newEtlExecutor(1, 1, WorkQueueStrategy.ARRAY_BLOCKING);
+            AtomicInteger workCounter = new AtomicInteger(0);
+
+            IntStream.range(0, 200).forEach(i ->
+                    upstream.submit(() -> downstream.submit(workCounter::incrementAndGet, null), null));
+            upstream.shutdown();
+            downstream.shutdown();
+
+            assertThat(workCounter.get(), equalTo(200));
+        } finally {
+            singleThreadScheduler.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void submitBlocksWhenQueueIsFull() throws Exception {
+        EtlExecutor etlExecutor = threadBudgetScheduler.newEtlExecutor(1, 1, WorkQueueStrategy.ARRAY_BLOCKING);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+
+        etlExecutor.submit(() -> await(release), null);
+        etlExecutor.submit(() -> { }, null);
+
+        Thread submitter = new Thread(() -> {
+            etlExecutor.submit(() -> { }, null);
+            etlExecutor.submit(() -> { }, null);
+            submitted.countDown();
+        });
+        submitter.start();
+
+        assertThat(submitted.await(50, TimeUnit.MILLISECONDS), is(false));
+
+        release.countDown();
+
+        assertThat(submitted.await(5, TimeUnit.SECONDS), is(true));
+        etlExecutor.shutdown();
+    }
+
+    @Test
+    public void workStillCompletesWhenATaskThrows() throws Exception {
+        EtlExecutor etlExecutor = threadBudgetScheduler.newEtlExecutor(2, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        AtomicInteger workCounter = new AtomicInteger(0);
+
+        IntStream.range(0, 10).forEach(i -> etlExecutor.submit(() -> {
+            throw new RuntimeException("Test exception");
+        }, null));
+        IntStream.range(0, 10).forEach(i -> etlExecutor.submit(workCounter::incrementAndGet, null));
+        etlExecutor.shutdown();
+
+        assertThat(workCounter.get(), equalTo(10));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void submitAfterShutdownThrowsRejectedExecutionException() throws Exception {
+        EtlExecutor etlExecutor = threadBudgetScheduler.newEtlExecutor(2, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+        etlExecutor.shutdown();
+
+        etlExecutor.submit(() -> { }, null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void newEtlExecutorAfterShutdownThrowsIllegalStateException() throws Exception {
+        threadBudgetScheduler.shutdown();
+
+        threadBudgetScheduler.newEtlExecutor(2, QUEUE_SIZE, WorkQueueStrategy.ARRAY_BLOCKING);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void budgetMustBeAtLeastOneThread() {
+        new EtlExecutorFactory().newThreadBudgetScheduler(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeysetSqlExtractorTest {
+    private final static String EXTRACT_SQL = "SELECT * FROM atable";
+    private final static String KEY_COLUMN = "id";
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withPageSizeThrowsIllegalArgumentExceptionIfLessThanOne() {
+        KeysetSqlExtractor.of(mockDataSource, EXTRACT_SQL, KEY_COLUMN, Object.class).withPageSize(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextThrowsIllegalStateExceptionIfExtractorHasNotBeenOpened() {
+        KeysetSqlExtractor.of(mockDataSource, EXTRACT_SQL, KEY_COLUMN, Object.class).next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextThrowsIllegalStateExceptionIfExtractorHasBeenClosed() throws Exception {
+        KeysetSqlExtractor<Object> keysetSqlExtractor =
+                KeysetSqlExtractor.of(mockDataSource, EXTRACT_SQL, KEY_COLUMN, Object.class);
+        keysetSqlExtractor.open(null);
+        keysetSqlExtractor.close();
+
+        keysetSqlExtractor.next();
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void nextThrowsUnrecoverableStreamFailureExceptionIfPageQueryFails() throws Exception {
+        when(mockDataSource.getConnection()).thenThrow(new SQLException("test"));
+        KeysetSqlExtractor<Object> keysetSqlExtractor =
+                KeysetSqlExtractor.of(mockDataSource, EXTRACT_SQL, KEY_COLUMN, Object.class);
+        keysetSqlExtractor.open(null);
+
+        try {
+            keysetSqlExtractor.next();
+        } finally {
+            keysetSqlExtractor.close();
+        }
+    }
+}
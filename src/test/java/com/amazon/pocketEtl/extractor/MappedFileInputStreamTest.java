@@ -0,0 +1,118 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazonaws.util.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedFileInputStreamTest {
+    private final static byte[] FILE_CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path testFile;
+
+    @Before
+    public void createTestFile() throws IOException {
+        testFile = temporaryFolder.newFile().toPath();
+        Files.write(testFile, FILE_CONTENT);
+    }
+
+    private MappedFileInputStream openTestFile(long regionSize) throws IOException {
+        return new MappedFileInputStream(FileChannel.open(testFile, StandardOpenOption.READ), regionSize);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void regionSizeMustBeAtLeastOne() throws IOException {
+        openTestFile(0);
+    }
+
+    @Test
+    public void readsWholeFileInOneRegion() throws IOException {
+        try (InputStream inputStream = new MappedFileInputStream(FileChannel.open(testFile, StandardOpenOption.READ))) {
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(FILE_CONTENT));
+        }
+    }
+
+    @Test
+    public void readsWholeFileAcrossManyRegions() throws IOException {
+        try (InputStream inputStream = openTestFile(7)) {
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(FILE_CONTENT));
+        }
+    }
+
+    @Test
+    public void singleByteReadsReturnUnsignedValues() throws IOException {
+        Files.write(testFile, new byte[] { (byte) 0xFF, 1 });
+
+        try (InputStream inputStream = openTestFile(1)) {
+            assertThat(inputStream.read(), is(255));
+            assertThat(inputStream.read(), is(1));
+            assertThat(inputStream.read(), is(-1));
+        }
+    }
+
+    @Test
+    public void emptyFileIsAtEndOfStream() throws IOException {
+        Files.write(testFile, new byte[0]);
+
+        try (InputStream inputStream = openTestFile(10)) {
+            assertThat(inputStream.read(), is(-1));
+        }
+    }
+
+    @Test
+    public void skipMovesAcrossRegions() throws IOException {
+        try (InputStream inputStream = openTestFile(5)) {
+            assertThat(inputStream.skip(12), is(12L));
+            assertThat(inputStream.read(), is((int) 'c'));
+            assertThat(inputStream.skip(100), is(23L));
+            assertThat(inputStream.read(), is(-1));
+        }
+    }
+
+    @Test
+    public void availableIsTheRemainingLengthOfTheFile() throws IOException {
+        try (InputStream inputStream = openTestFile(5)) {
+            assertThat(inputStream.available(), is(FILE_CONTENT.length));
+            inputStream.read(new byte[7]);
+            assertThat(inputStream.available(), is(FILE_CONTENT.length - 5));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readAfterCloseThrowsIOException() throws IOException {
+        InputStream inputStream = openTestFile(10);
+        inputStream.close();
+
+        inputStream.read();
+    }
+}
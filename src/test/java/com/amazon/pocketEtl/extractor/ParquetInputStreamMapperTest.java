@@ -0,0 +1,121 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.integration.parquet.ParquetCompressionCodec;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileWriter;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter;
+import com.amazon.pocketEtl.integration.parquet.ParquetSchema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class ParquetInputStreamMapperTest {
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TestDTO {
+        private String testData;
+        private int testNumber;
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ParquetInputStreamMapper<TestDTO> parquetInputStreamMapper =
+            ParquetInputStreamMapper.of(TestDTO.class);
+
+    private byte[] fileContent;
+    private Path testFile;
+
+    @Before
+    public void createTestFile() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParquetFileWriter<TestDTO> writer = new ParquetFileWriter<>(ParquetSchema.of(TestDTO.class),
+                ParquetCompressionCodec.GZIP, outputStream);
+        writer.write(new TestDTO("WORKERID1", 123));
+        writer.write(new TestDTO("WORKERID2", 234));
+        writer.finish();
+
+        fileContent = outputStream.toByteArray();
+        testFile = temporaryFolder.newFile().toPath();
+        Files.write(testFile, fileContent);
+    }
+
+    @Test
+    public void mapsRowsOfParquetFileInInputStream() {
+        Iterator<TestDTO> iterator = parquetInputStreamMapper.apply(new ByteArrayInputStream(fileContent));
+
+        assertThat(toList(iterator), contains(new TestDTO("WORKERID1", 123), new TestDTO("WORKERID2", 234)));
+    }
+
+    @Test
+    public void mapsRowsOfParquetFileInFileInputStream() throws IOException {
+        try (InputStream inputStream = new FileInputStream(testFile.toFile())) {
+            Iterator<TestDTO> iterator = parquetInputStreamMapper.apply(inputStream);
+
+            assertThat(toList(iterator), contains(new TestDTO("WORKERID1", 123), new TestDTO("WORKERID2", 234)));
+        }
+    }
+
+    @Test
+    public void mapsRowsOfParquetFileInMappedFileInputStream() throws IOException {
+        try (InputStream inputStream = new MappedFileInputStream(FileChannel.open(testFile, StandardOpenOption.READ))) {
+            Iterator<TestDTO> iterator = parquetInputStreamMapper.apply(inputStream);
+
+            assertThat(toList(iterator), contains(new TestDTO("WORKERID1", 123), new TestDTO("WORKERID2", 234)));
+        }
+    }
+
+    @Test
+    public void withFilterOnlyMapsMatchingRows() {
+        Iterator<TestDTO> iterator = parquetInputStreamMapper.withFilter(ParquetFilter.greaterThan("testNumber", 200))
+                .apply(new ByteArrayInputStream(fileContent));
+
+        assertThat(toList(iterator), contains(new TestDTO("WORKERID2", 234)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void applyThrowsRuntimeExceptionIfInputStreamIsNotAParquetFile() {
+        parquetInputStreamMapper.apply(new ByteArrayInputStream("not a parquet file".getBytes()));
+    }
+
+    private static List<TestDTO> toList(Iterator<TestDTO> iterator) {
+        List<TestDTO> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PartitionedSqlExtractorTest {
+    private final static String EXTRACT_SQL = "SELECT * FROM atable";
+    private final static String SPLIT_COLUMN = "id";
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Test
+    public void divideRangeDividesIntegralRangeEvenly() {
+        assertThat(PartitionedSqlExtractor.divideRange(0, 100, 4), contains(25L, 50L, 75L));
+    }
+
+    @Test
+    public void divideRangeRoundsIntegralBoundariesDown() {
+        assertThat(PartitionedSqlExtractor.divideRange(1L, 10L, 4), contains(3L, 5L, 7L));
+    }
+
+    @Test
+    public void divideRangeLeavesOutBoundariesThatWouldMakeEmptyPartitions() {
+        assertThat(PartitionedSqlExtractor.divideRange(1, 3, 8), contains(2L));
+    }
+
+    @Test
+    public void divideRangeReturnsNoBoundariesIfRangeIsOneValue() {
+        assertThat(PartitionedSqlExtractor.divideRange(5, 5, 4), empty());
+    }
+
+    @Test
+    public void divideRangeReturnsNoBoundariesIfThereAreNoRows() {
+        assertThat(PartitionedSqlExtractor.divideRange(null, null, 4), empty());
+    }
+
+    @Test
+    public void divideRangeDoesNotOverflowLongRange() {
+        assertThat(PartitionedSqlExtractor.divideRange(Long.MIN_VALUE, Long.MAX_VALUE, 2), contains(-1L));
+    }
+
+    @Test
+    public void divideRangeDividesDecimalRange() {
+        assertThat(PartitionedSqlExtractor.divideRange(new BigDecimal("0.0"), new BigDecimal("1.0"), 4),
+                contains(new BigDecimal("0.25"), new BigDecimal("0.5"), new BigDecimal("0.75")));
+    }
+
+    @Test
+    public void divideRangeDividesTimestampRange() {
+        assertThat(PartitionedSqlExtractor.divideRange(new Timestamp(1000), new Timestamp(3000), 2),
+                contains(new Timestamp(2000)));
+    }
+
+    @Test
+    public void divideRangeDividesDateRange() {
+        assertThat(PartitionedSqlExtractor.divideRange(new java.sql.Date(0), new java.sql.Date(4000), 2),
+                contains(new java.sql.Date(2000)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void divideRangeThrowsIllegalArgumentExceptionIfSplitColumnIsNotNumericOrTime() {
+        PartitionedSqlExtractor.divideRange("a", "z", 2);
+    }
+
+    @Test
+    public void getExtractorsReturnsOneExtractorPerPartition() {
+        PartitionedSqlExtractor<Object> partitionedSqlExtractor =
+                PartitionedSqlExtractor.of(mockDataSource, EXTRACT_SQL, SPLIT_COLUMN, Object.class).withPartitions(6);
+
+        assertThat(partitionedSqlExtractor.getExtractors(), hasSize(6));
+        verifyZeroInteractions(mockDataSource);
+    }
+
+    @Test
+    public void getExtractorsWithBoundariesReturnsOneMoreExtractorThanBoundaries() {
+        PartitionedSqlExtractor<Object> partitionedSqlExtractor =
+                PartitionedSqlExtractor.of(mockDataSource, EXTRACT_SQL, SPLIT_COLUMN, Object.class)
+                        .withBoundaries(ImmutableList.of(10L, 20L));
+
+        assertThat(partitionedSqlExtractor.getExtractors(), hasSize(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withPartitionsThrowsIllegalArgumentExceptionIfLessThanOne() {
+        PartitionedSqlExtractor.of(mockDataSource, EXTRACT_SQL, SPLIT_COLUMN, Object.class).withPartitions(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextThrowsIllegalStateExceptionIfExtractorHasNotBeenOpened() {
+        PartitionedSqlExtractor.of(mockDataSource, EXTRACT_SQL, SPLIT_COLUMN, Object.class)
+                .withBoundaries(Collections.emptyList())
+                .getExtractors()
+                .iterator()
+                .next()
+                .next();
+    }
+}
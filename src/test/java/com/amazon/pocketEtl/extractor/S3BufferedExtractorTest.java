@@ -16,8 +16,10 @@
 package com.amazon.pocketEtl.extractor;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.IOUtils;
 import com.google.common.collect.ImmutableList;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,6 +27,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Iterator;
 import java.util.Optional;
 
@@ -32,6 +36,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -94,4 +99,51 @@ public class S3BufferedExtractorTest {
 
         verify(mockS3ObjectInputStream).read(any());
     }
+
+    @Test
+    public void supplierWithParallelRangedDownloadReadsFileInRangedParts() throws Exception {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(0);
+        when(mockAmazonS3.getObjectMetadata(anyString(), anyString())).thenReturn(objectMetadata);
+        when(mockInputStreamMapper.apply(any())).thenAnswer(invocation -> {
+            ((InputStream) invocation.getArguments()[0]).read();
+            return testIterator;
+        });
+
+        S3BufferedExtractor<String> rangedExtractor = S3BufferedExtractor.supplierOf(S3_BUCKET, S3_KEY,
+                mockInputStreamMapper).withClient(mockAmazonS3).withParallelRangedDownload(1024, 4).get();
+
+        rangedExtractor.open(null);
+        assertThat(rangedExtractor.next(), equalTo(Optional.of("one")));
+        rangedExtractor.close();
+
+        verify(mockAmazonS3).getObjectMetadata(S3_BUCKET, S3_KEY);
+        verify(mockAmazonS3, never()).getObject(anyString(), anyString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void supplierWithParallelRangedDownloadThrowsIfPartSizeIsLessThanOne() {
+        S3BufferedExtractor.supplierOf(S3_BUCKET, S3_KEY, mockInputStreamMapper).withParallelRangedDownload(0, 4);
+    }
+
+    @Test
+    public void supplierWithBufferingStrategyBuffersFileWithThatStrategy() throws Exception {
+        when(mockS3Object.getObjectContent()).thenReturn(new S3ObjectInputStream(
+                new ByteArrayInputStream("test".getBytes()), null));
+        when(mockInputStreamMapper.apply(any())).thenAnswer(invocation -> {
+            InputStream inputStream = (InputStream) invocation.getArguments()[0];
+            assertThat(IOUtils.toString(inputStream), equalTo("test"));
+            return testIterator;
+        });
+
+        S3BufferedExtractor<String> tempFileExtractor = S3BufferedExtractor.supplierOf(S3_BUCKET, S3_KEY,
+                mockInputStreamMapper).withClient(mockAmazonS3)
+                .withBufferingStrategy(S3BufferingStrategy.MEMORY_MAPPED_TEMP_FILE).get();
+
+        tempFileExtractor.open(null);
+        assertThat(tempFileExtractor.next(), equalTo(Optional.of("one")));
+        tempFileExtractor.close();
+
+        verify(mockAmazonS3).getObject(S3_BUCKET, S3_KEY);
+    }
 }
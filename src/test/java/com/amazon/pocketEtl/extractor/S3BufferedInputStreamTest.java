@@ -17,6 +17,7 @@ package com.amazon.pocketEtl.extractor;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import org.junit.Before;
@@ -37,6 +38,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -96,6 +98,25 @@ public class S3BufferedInputStreamTest {
         verify(mockS3ObjectInputStream).read(any());
     }
 
+    @Test
+    public void supplierWithParallelRangedDownloadReadsFileInRangedParts() throws Exception {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(0);
+        when(mockAmazonS3.getObjectMetadata(anyString(), anyString())).thenReturn(objectMetadata);
+
+        S3BufferedInputStream supplierConstructedObject = S3BufferedInputStream.supplierOf(S3_BUCKET, S3_KEY)
+                .withClient(mockAmazonS3).withParallelRangedDownload(1024, 4).get();
+
+        assertThat(supplierConstructedObject.read(), is(-1));
+        verify(mockAmazonS3).getObjectMetadata(S3_BUCKET, S3_KEY);
+        verify(mockAmazonS3, never()).getObject(anyString(), anyString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void supplierWithParallelRangedDownloadThrowsIfConcurrencyIsLessThanOne() {
+        S3BufferedInputStream.supplierOf(S3_BUCKET, S3_KEY).withParallelRangedDownload(1024, 0);
+    }
+
     @Test
     public void doingNothingDoesNotLoadFileFromS3() {
         verifyNoMoreInteractions(mockAmazonS3);
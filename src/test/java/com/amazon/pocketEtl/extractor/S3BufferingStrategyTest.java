@@ -0,0 +1,99 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazonaws.util.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+public class S3BufferingStrategyTest {
+    private final static byte[] OBJECT_CONTENT = "one,two,three\nfour,five,six\n".getBytes();
+
+    private static Set<Path> listTempBufferFiles() throws IOException {
+        Set<Path> tempBufferFiles = new HashSet<>();
+
+        try (DirectoryStream<Path> directoryStream =
+                     Files.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")), "pocket-etl-s3-*")) {
+            directoryStream.forEach(tempBufferFiles::add);
+        }
+
+        return tempBufferFiles;
+    }
+
+    @Test
+    public void heapBuffersContentsInMemory() throws IOException {
+        try (InputStream inputStream = S3BufferingStrategy.HEAP.buffer(new ByteArrayInputStream(OBJECT_CONTENT))) {
+            assertThat(inputStream, instanceOf(ByteArrayInputStream.class));
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(OBJECT_CONTENT));
+        }
+    }
+
+    @Test
+    public void memoryMappedTempFileBuffersContentsThroughAFile() throws IOException {
+        try (InputStream inputStream =
+                     S3BufferingStrategy.MEMORY_MAPPED_TEMP_FILE.buffer(new ByteArrayInputStream(OBJECT_CONTENT))) {
+            assertThat(inputStream, instanceOf(MappedFileInputStream.class));
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(OBJECT_CONTENT));
+        }
+    }
+
+    @Test
+    public void memoryMappedTempFileIsDeletedWhenStreamIsClosed() throws IOException {
+        Set<Path> existingFiles = listTempBufferFiles();
+
+        InputStream inputStream =
+                S3BufferingStrategy.MEMORY_MAPPED_TEMP_FILE.buffer(new ByteArrayInputStream(OBJECT_CONTENT));
+        inputStream.close();
+        Set<Path> remainingFiles = listTempBufferFiles();
+        remainingFiles.removeAll(existingFiles);
+        assertThat(remainingFiles, empty());
+    }
+
+    @Test
+    public void memoryMappedTempFileIsDeletedWhenReadingFromS3Fails() throws IOException {
+        Set<Path> existingFiles = listTempBufferFiles();
+        InputStream failingInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Test exception");
+            }
+        };
+
+        try {
+            S3BufferingStrategy.MEMORY_MAPPED_TEMP_FILE.buffer(failingInputStream);
+        } catch (IOException ignored) {
+            // expected
+        }
+
+        Set<Path> remainingFiles = listTempBufferFiles();
+        remainingFiles.removeAll(existingFiles);
+        assertThat(remainingFiles, empty());
+    }
+}
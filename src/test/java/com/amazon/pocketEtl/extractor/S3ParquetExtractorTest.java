@@ -0,0 +1,185 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.parquet.ParquetCompressionCodec;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileWriter;
+import com.amazon.pocketEtl.integration.parquet.ParquetFilter;
+import com.amazon.pocketEtl.integration.parquet.ParquetSchema;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3ParquetExtractorTest {
+    private final static String S3_BUCKET = "s3-bucket";
+    private final static String S3_KEY = "s3-key";
+    private final static String ETAG = "etag";
+    private final static int ROW_COUNT = 20000;
+    private final static int ROWS_PER_ROW_GROUP = 1000;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TestDTO {
+        private int id;
+        private String name;
+    }
+
+    @Mock
+    private AmazonS3 mockAmazonS3;
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    private byte[] fileContent;
+    private final List<GetObjectRequest> getObjectRequests = new ArrayList<>();
+
+    @Before
+    public void createFileContent() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParquetFileWriter<TestDTO> writer = new ParquetFileWriter<>(ParquetSchema.of(TestDTO.class),
+                ParquetCompressionCodec.UNCOMPRESSED, outputStream);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            writer.write(new TestDTO(i, "name" + i));
+
+            if ((i + 1) % ROWS_PER_ROW_GROUP == 0) {
+                writer.flushRowGroup();
+            }
+        }
+
+        writer.finish();
+        fileContent = outputStream.toByteArray();
+    }
+
+    private void stubAmazonS3() {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(fileContent.length);
+        objectMetadata.setHeader("ETag", ETAG);
+        when(mockAmazonS3.getObjectMetadata(anyString(), anyString())).thenReturn(objectMetadata);
+        when(mockAmazonS3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest getObjectRequest = invocation.getArgument(0);
+            getObjectRequests.add(getObjectRequest);
+            long[] range = getObjectRequest.getRange();
+
+            S3Object s3Object = new S3Object();
+            s3Object.setObjectContent(new ByteArrayInputStream(
+                    Arrays.copyOfRange(fileContent, (int) range[0], (int) range[1] + 1)));
+            return s3Object;
+        });
+    }
+
+    @Test
+    public void extractorExtractsEveryRowOfFile() {
+        stubAmazonS3();
+        S3ParquetExtractor<TestDTO> extractor = S3ParquetExtractor.supplierOf(S3_BUCKET, S3_KEY, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        extractor.open(null);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertThat(extractor.next(), equalTo(Optional.of(new TestDTO(i, "name" + i))));
+        }
+
+        assertThat(extractor.next(), equalTo(Optional.empty()));
+        extractor.close();
+
+        verify(mockAmazonS3).getObjectMetadata(S3_BUCKET, S3_KEY);
+        getObjectRequests.forEach(request -> {
+            assertThat(request.getBucketName(), equalTo(S3_BUCKET));
+            assertThat(request.getKey(), equalTo(S3_KEY));
+            assertThat(request.getMatchingETagConstraints(), equalTo(Arrays.asList(ETAG)));
+        });
+    }
+
+    @Test
+    public void extractorWithFilterDoesNotDownloadSkippedRowGroups() {
+        stubAmazonS3();
+        when(mockMetrics.createChildMetrics()).thenReturn(mockMetrics);
+        S3ParquetExtractor<TestDTO> extractor = S3ParquetExtractor.supplierOf(S3_BUCKET, S3_KEY, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withFilter(ParquetFilter.lessThan("id", 2))
+                .get();
+
+        extractor.open(mockMetrics);
+
+        assertThat(extractor.next(), equalTo(Optional.of(new TestDTO(0, "name0"))));
+        assertThat(extractor.next(), equalTo(Optional.of(new TestDTO(1, "name1"))));
+        assertThat(extractor.next(), equalTo(Optional.empty()));
+        extractor.close();
+
+        long bytesDownloaded = getObjectRequests.stream().mapToLong(request -> request.getRange()[1] -
+                request.getRange()[0] + 1).sum();
+        assertThat(bytesDownloaded, lessThan((long) fileContent.length / 2));
+        verify(mockMetrics).addCount(eq("S3ParquetExtractor.skippedRowGroups"), eq((double) 19));
+        verify(mockMetrics, atLeastOnce()).addCount(eq("S3ParquetExtractor.bytesRead"),
+                anyDouble());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextThrowsIllegalStateExceptionIfExtractorHasNotBeenOpened() {
+        S3ParquetExtractor.supplierOf(S3_BUCKET, S3_KEY, TestDTO.class).withClient(mockAmazonS3).get().next();
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void openThrowsUnrecoverableStreamFailureExceptionIfS3Fails() {
+        when(mockAmazonS3.getObjectMetadata(anyString(), anyString())).thenThrow(new AmazonClientException("test"));
+
+        S3ParquetExtractor.supplierOf(S3_BUCKET, S3_KEY, TestDTO.class).withClient(mockAmazonS3).get().open(null);
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void openThrowsUnrecoverableStreamFailureExceptionIfObjectIsModified() {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(fileContent.length);
+        when(mockAmazonS3.getObjectMetadata(anyString(), anyString())).thenReturn(objectMetadata);
+        when(mockAmazonS3.getObject(any(GetObjectRequest.class))).thenReturn(null);
+
+        S3ParquetExtractor.supplierOf(S3_BUCKET, S3_KEY, TestDTO.class).withClient(mockAmazonS3).get().open(null);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3PrefixExtractorTest {
+    private final static String S3_BUCKET = "s3-bucket";
+    private final static String S3_PREFIX = "output/";
+
+    @Mock
+    private AmazonS3 mockAmazonS3;
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    private final InputStreamMapper<String> lineMapper = inputStream -> {
+        try {
+            return Arrays.asList(IOUtils.toString(inputStream).split("\n")).iterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    };
+
+    private S3PrefixExtractor<String> s3PrefixExtractor;
+
+    @Before
+    public void stubListing() {
+        when(mockAmazonS3.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(listing("token", "output/", "output/part-0", "output/part-1"))
+                .thenReturn(listing(null, "output/part-2"));
+    }
+
+    @Before
+    public void stubObjects() {
+        when(mockAmazonS3.getObject(eq(S3_BUCKET), anyString())).thenAnswer(invocation -> {
+            String s3Key = invocation.getArgument(1);
+            return s3Object(s3Key + "-a\n" + s3Key + "-b");
+        });
+    }
+
+    @After
+    public void closeExtractor() throws Exception {
+        if (s3PrefixExtractor != null) {
+            s3PrefixExtractor.close();
+        }
+    }
+
+    @Test
+    public void extractsEveryObjectUnderThePrefixInKeyOrder() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .withParallelism(3)
+                .get();
+        s3PrefixExtractor.open(null);
+
+        assertThat(extractAll(), contains("output/part-0-a", "output/part-0-b", "output/part-1-a",
+                "output/part-1-b", "output/part-2-a", "output/part-2-b"));
+    }
+
+    @Test
+    public void orderedExtractionDoesNotRetainCompletedDownloads() {
+        when(mockAmazonS3.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(listing(null, "output/part-0", "output/part-1", "output/part-2", "output/part-3",
+                        "output/part-4", "output/part-5", "output/part-6", "output/part-7"));
+
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .withParallelism(3)
+                .withPrefetch(2)
+                .get();
+        s3PrefixExtractor.open(null);
+
+        assertThat(extractAll().size(), equalTo(16));
+        assertThat(s3PrefixExtractor.getCompletedDownloadsQueued(), equalTo(0));
+    }
+
+    @Test
+    public void unorderedExtractionDoesNotRetainCompletedDownloads() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .withParallelism(3)
+                .withOrdered(false)
+                .get();
+        s3PrefixExtractor.open(null);
+
+        assertThat(extractAll().size(), equalTo(6));
+        assertThat(s3PrefixExtractor.getCompletedDownloadsQueued(), equalTo(0));
+    }
+
+    @Test
+    public void listingIsPaginatedWithTheContinuationToken() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .get();
+        s3PrefixExtractor.open(null);
+        extractAll();
+
+        ArgumentCaptor<ListObjectsV2Request> requestCaptor = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(mockAmazonS3, times(2)).listObjectsV2(requestCaptor.capture());
+
+        assertThat(requestCaptor.getAllValues().get(0).getBucketName(), equalTo(S3_BUCKET));
+        assertThat(requestCaptor.getAllValues().get(0).getPrefix(), equalTo(S3_PREFIX));
+        assertThat(requestCaptor.getAllValues().get(0).getContinuationToken(), nullValue());
+        assertThat(requestCaptor.getAllValues().get(1).getContinuationToken(), equalTo("token"));
+    }
+
+    @Test
+    public void folderPlaceholderObjectsAreNotRead() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .get();
+        s3PrefixExtractor.open(null);
+        extractAll();
+
+        verify(mockAmazonS3, never()).getObject(S3_BUCKET, "output/");
+    }
+
+    @Test
+    public void prefetchLimitsTheNumberOfObjectsListedAhead() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .withPrefetch(1)
+                .get();
+        s3PrefixExtractor.open(null);
+
+        assertThat(s3PrefixExtractor.next(), equalTo(Optional.of("output/part-0-a")));
+        verify(mockAmazonS3, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+    }
+
+    @Test(timeout = 10000)
+    public void unorderedExtractionDoesNotWaitForASlowObject() throws Exception {
+        CountDownLatch slowObjectLatch = new CountDownLatch(1);
+        when(mockAmazonS3.getObject(eq(S3_BUCKET), anyString())).thenAnswer(invocation -> {
+            String s3Key = invocation.getArgument(1);
+
+            if (s3Key.equals("output/part-0")) {
+                slowObjectLatch.await();
+            }
+
+            return s3Object(s3Key + "-a\n" + s3Key + "-b");
+        });
+
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .withParallelism(3)
+                .withOrdered(false)
+                .get();
+        s3PrefixExtractor.open(null);
+
+        List<String> results = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            results.add(s3PrefixExtractor.next().orElse(null));
+        }
+
+        slowObjectLatch.countDown();
+        results.addAll(extractAll());
+
+        assertThat(results.subList(0, 4), containsInAnyOrder("output/part-1-a", "output/part-1-b",
+                "output/part-2-a", "output/part-2-b"));
+        assertThat(results.subList(4, 6), contains("output/part-0-a", "output/part-0-b"));
+    }
+
+    @Test
+    public void metricsAreRecordedForEachObject() {
+        when(mockMetrics.createChildMetrics()).thenReturn(mockMetrics);
+
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .get();
+        s3PrefixExtractor.open(mockMetrics);
+        extractAll();
+
+        verify(mockMetrics, times(3)).addCount("S3PrefixExtractor.objectsExtracted", 1);
+        verify(mockMetrics, times(3)).addCount("S3PrefixExtractor.recordsPerObject", 2);
+        verify(mockMetrics, times(3)).addTime(eq("S3PrefixExtractor.getObject"), anyDouble());
+        verify(mockMetrics, times(3)).addCount(eq("S3PrefixExtractor.objectBytes"), anyDouble());
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void failedDownloadThrowsUnrecoverableStreamFailureException() {
+        when(mockAmazonS3.getObject(eq(S3_BUCKET), anyString())).thenThrow(new RuntimeException("Test exception"));
+
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .get();
+        s3PrefixExtractor.open(null);
+        s3PrefixExtractor.next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextBeforeOpenThrowsIllegalStateException() {
+        s3PrefixExtractor = S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper)
+                .withClient(mockAmazonS3)
+                .get();
+        s3PrefixExtractor.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withParallelismZeroThrowsIllegalArgumentException() {
+        S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper).withParallelism(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withPrefetchZeroThrowsIllegalArgumentException() {
+        S3PrefixExtractor.supplierOf(S3_BUCKET, S3_PREFIX, lineMapper).withPrefetch(0);
+    }
+
+    private List<String> extractAll() {
+        List<String> results = new ArrayList<>();
+        Optional<String> next = s3PrefixExtractor.next();
+
+        while (next.isPresent()) {
+            results.add(next.get());
+            next = s3PrefixExtractor.next();
+        }
+
+        return results;
+    }
+
+    private static ListObjectsV2Result listing(String nextContinuationToken, String... s3Keys) {
+        ListObjectsV2Result listObjectsResult = new ListObjectsV2Result();
+
+        for (String s3Key : s3Keys) {
+            S3ObjectSummary objectSummary = new S3ObjectSummary();
+            objectSummary.setKey(s3Key);
+            objectSummary.setSize(s3Key.endsWith("/") ? 0 : 100);
+            listObjectsResult.getObjectSummaries().add(objectSummary);
+        }
+
+        listObjectsResult.setNextContinuationToken(nextContinuationToken);
+        listObjectsResult.setTruncated(nextContinuationToken != null);
+        return listObjectsResult;
+    }
+
+    private static S3Object s3Object(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(new ByteArrayInputStream(bytes));
+        s3Object.getObjectMetadata().setContentLength(bytes.length);
+        return s3Object;
+    }
+}
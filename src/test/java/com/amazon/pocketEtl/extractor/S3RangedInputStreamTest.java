@@ -0,0 +1,205 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.extractor;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3RangedInputStreamTest {
+    private final static String S3_BUCKET = "s3Bucket";
+    private final static String S3_KEY = "s3Key";
+    private final static String E_TAG = "test-etag";
+    private final static byte[] OBJECT_CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+
+    @Mock
+    private AmazonS3 mockAmazonS3;
+
+    private byte[] objectContent = OBJECT_CONTENT;
+
+    @Before
+    public void stubAmazonS3() {
+        when(mockAmazonS3.getObjectMetadata(S3_BUCKET, S3_KEY)).thenAnswer(invocation -> {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            objectMetadata.setContentLength(objectContent.length);
+            objectMetadata.setHeader(Headers.ETAG, E_TAG);
+            return objectMetadata;
+        });
+
+        when(mockAmazonS3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = (GetObjectRequest) invocation.getArguments()[0];
+            long[] range = request.getRange();
+            S3Object s3Object = new S3Object();
+            s3Object.setObjectContent(new ByteArrayInputStream(
+                    Arrays.copyOfRange(objectContent, (int) range[0], (int) range[1] + 1)));
+            return s3Object;
+        });
+    }
+
+    private List<String> capturedRanges() {
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(mockAmazonS3, atLeastOnce()).getObject(requestCaptor.capture());
+
+        return requestCaptor.getAllValues().stream()
+                .map(request -> request.getRange()[0] + "-" + request.getRange()[1])
+                .collect(Collectors.toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void partSizeMustBeAtLeastOne() {
+        new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concurrencyMustBeAtLeastOne() {
+        new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 1, 0);
+    }
+
+    @Test
+    public void constructingDoesNotReadFromS3() {
+        new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2);
+
+        verify(mockAmazonS3, never()).getObjectMetadata(any(), any());
+        verify(mockAmazonS3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void readsWholeObjectInOrderAcrossParts() throws Exception {
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 5, 3)) {
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(OBJECT_CONTENT));
+        }
+    }
+
+    @Test
+    public void requestsEachRangeOnceWithTheOriginalETag() throws Exception {
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2)) {
+            IOUtils.toByteArray(inputStream);
+        }
+
+        assertThat(capturedRanges(), containsInAnyOrder("0-9", "10-19", "20-29", "30-35"));
+
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(mockAmazonS3, atLeastOnce()).getObject(requestCaptor.capture());
+        requestCaptor.getAllValues().forEach(request ->
+                assertThat(request.getMatchingETagConstraints(), contains(E_TAG)));
+    }
+
+    @Test
+    public void partLargerThanObjectIsReadInOneRequest() throws Exception {
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 1000, 4)) {
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(OBJECT_CONTENT));
+        }
+
+        assertThat(capturedRanges(), contains("0-35"));
+    }
+
+    @Test
+    public void emptyObjectIsReadWithoutRequestingAnyParts() throws Exception {
+        objectContent = new byte[0];
+
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2)) {
+            assertThat(inputStream.read(), is(-1));
+        }
+
+        verify(mockAmazonS3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void singleByteReadsReturnUnsignedValues() throws Exception {
+        objectContent = new byte[] { (byte) 0xFF, 1 };
+
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 1, 1)) {
+            assertThat(inputStream.read(), is(255));
+            assertThat(inputStream.read(), is(1));
+            assertThat(inputStream.read(), is(-1));
+        }
+    }
+
+    @Test
+    public void skipMovesAcrossParts() throws Exception {
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 5, 2)) {
+            assertThat(inputStream.skip(12), is(12L));
+            assertThat(inputStream.read(), is((int) 'c'));
+            assertThat(inputStream.skip(100), is(23L));
+            assertThat(inputStream.read(), is(-1));
+        }
+    }
+
+    @Test
+    public void modifiedObjectThrowsIOException() throws Exception {
+        when(mockAmazonS3.getObject(any(GetObjectRequest.class))).thenReturn(null);
+
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2)) {
+            inputStream.read();
+            fail("Exception should have been thrown");
+        } catch (IOException e) {
+            assertThat(e.getMessage().contains("modified"), is(true));
+        }
+    }
+
+    @Test
+    public void exceptionFromS3ClientIsRethrown() throws Exception {
+        AmazonServiceException expectedException = new AmazonServiceException("Fake AWS exception");
+        when(mockAmazonS3.getObject(any(GetObjectRequest.class))).thenThrow(expectedException);
+
+        try (InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2)) {
+            inputStream.read();
+            fail("Exception should have been thrown");
+        } catch (AmazonServiceException caughtException) {
+            assertThat(caughtException, sameInstance(expectedException));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readAfterCloseThrowsIOException() throws Exception {
+        InputStream inputStream = new S3RangedInputStream(S3_BUCKET, S3_KEY, mockAmazonS3, 10, 2);
+        inputStream.read();
+        inputStream.close();
+
+        inputStream.read();
+    }
+}
@@ -33,6 +33,7 @@ import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import javax.sql.DataSource;
 import java.sql.Array;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -53,7 +54,9 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -481,4 +484,148 @@ public class SqlExtractorTest extends EtlTestBase {
         verify(mockConnection).prepareStatement(eq(EXPECTED_SQL_WITH_WITH));
         verify(mockPreparedStatement).setInt(eq(1), eq((Integer) SQL_PARAMETERS.get("one")));
     }
-}
\ No newline at end of file
+
+    private void stubDatabaseMetaData(String productName, String driverName, String url) throws SQLException {
+        DatabaseMetaData mockDatabaseMetaData = mock(DatabaseMetaData.class);
+        when(mockConnection.getMetaData()).thenReturn(mockDatabaseMetaData);
+        when(mockDatabaseMetaData.getDatabaseProductName()).thenReturn(productName);
+        when(mockDatabaseMetaData.getDriverName()).thenReturn(driverName);
+        when(mockDatabaseMetaData.getURL()).thenReturn(url);
+    }
+
+    @Test
+    public void withFetchSizeSetsFetchSizeOfStatement() throws Exception {
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(500);
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(500);
+        verify(mockConnection, never()).setAutoCommit(false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withFetchSizeThrowsIllegalArgumentExceptionIfLessThanOne() {
+        SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class).withFetchSize(0);
+    }
+
+    @Test
+    public void withStreamingTurnsOffAutoCommitAndSetsDefaultFetchSize() throws Exception {
+        stubDatabaseMetaData("PostgreSQL", "PostgreSQL JDBC Driver", "jdbc:postgresql://localhost/test");
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+
+        verify(mockConnection).setAutoCommit(false);
+        verify(mockPreparedStatement).setFetchSize(1000);
+
+        sqlExtractor.close();
+
+        verify(mockConnection).rollback();
+    }
+
+    @Test
+    public void closeClosesConnectionIfRollbackFails() throws Exception {
+        stubDatabaseMetaData("PostgreSQL", "PostgreSQL JDBC Driver", "jdbc:postgresql://localhost/test");
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+        doThrow(new SQLException("Connection reset")).when(mockConnection).rollback();
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockConnection).rollback();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void withStreamingUsesFetchSize() throws Exception {
+        stubDatabaseMetaData("Redshift", "Redshift JDBC Driver", "jdbc:redshift://localhost:5439/test");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(250);
+    }
+
+    @Test
+    public void withStreamingStreamsRowsOneAtATimeFromMySql() throws Exception {
+        stubDatabaseMetaData("MySQL", "MySQL Connector/J", "jdbc:mysql://localhost/test");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void withStreamingUsesFetchSizeForMySqlWithCursorFetch() throws Exception {
+        stubDatabaseMetaData("MySQL", "MySQL Connector/J", "jdbc:mysql://localhost/test?useCursorFetch=true");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(250);
+    }
+
+    @Test
+    public void withStreamingStreamsRowsOneAtATimeFromMariaDb() throws Exception {
+        stubDatabaseMetaData("MariaDB", "MariaDB Connector/J", "jdbc:mariadb://localhost/test");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void withStreamingStreamsRowsOneAtATimeFromMySqlDriverWithAnyUrl() throws Exception {
+        stubDatabaseMetaData(null, "MySQL Connector/J", "jdbc:aws-wrapper:mysql://localhost/test");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void withStreamingMatchesUseCursorFetchIgnoringCase() throws Exception {
+        stubDatabaseMetaData("MySQL", "MySQL Connector/J", "jdbc:mysql://localhost/test?usecursorfetch=TRUE");
+        SqlExtractor<BasicDTO> sqlExtractor = SqlExtractor.of(mockDatasource, EXTRACT_SQL, BasicDTO.class)
+                .withSqlParameters(SQL_PARAMETERS)
+                .withFetchSize(250)
+                .withStreaming();
+
+        sqlExtractor.open(mockMetrics);
+        sqlExtractor.close();
+
+        verify(mockPreparedStatement).setFetchSize(250);
+    }
+}
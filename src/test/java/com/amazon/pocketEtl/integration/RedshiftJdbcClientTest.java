@@ -88,6 +88,18 @@ public class RedshiftJdbcClientTest extends EtlTestBase {
                     "region 's3Region' " +
                     "removequotes";
 
+    private static final String COPY_PARQUET_SQL =
+            "copy stage_1234(filecol1,filecol2,filecol3) " +
+                    "from 's3://s3bucket/a/prefix/' " +
+                    "iam_role 'iamRole' " +
+                    "format as parquet";
+
+    private static final String DELETE_AND_COPY_PARQUET_SQL =
+            "copy dest_table(filecol1,filecol2,filecol3) " +
+                    "from 's3://s3bucket/a/prefix/' " +
+                    "iam_role 'iamRole' " +
+                    "format as parquet";
+
     private static final String TRUNCATE_SQL =
             "truncate dest_table";
 
@@ -220,6 +232,48 @@ public class RedshiftJdbcClientTest extends EtlTestBase {
         inOrder.verify(mockRedshiftConnection).close();
     }
 
+    @Test
+    public void copyAndMergeWithCompressionAddsCompressionToCopySql() throws Exception {
+        redshiftJdbcClient.copyAndMerge(FILE_COLUMN_NAMES, KEY_COLUMN_NAMES, DESTINATION_TABLE, S3_BUCKET, S3_PREFIX,
+                S3_REGION, IAM_ROLE, RedshiftCopyFormat.DELIMITED, "gzip", mockMetrics);
+
+        verify(mockRedshiftConnection).prepareStatement(eq(COPY_AND_MERGE_SQL_3 + " gzip"));
+    }
+
+    @Test
+    public void copyAndMergeWithZstdCompressionAddsZstdToCopySql() throws Exception {
+        redshiftJdbcClient.copyAndMerge(FILE_COLUMN_NAMES, KEY_COLUMN_NAMES, DESTINATION_TABLE, S3_BUCKET, S3_PREFIX,
+                S3_REGION, IAM_ROLE, RedshiftCopyFormat.DELIMITED, "zstd", mockMetrics);
+
+        verify(mockRedshiftConnection).prepareStatement(eq(COPY_AND_MERGE_SQL_3 + " zstd"));
+    }
+
+    @Test
+    public void deleteAndCopyWithCompressionAddsCompressionToCopySql() throws Exception {
+        redshiftJdbcClient.deleteAndCopy(FILE_COLUMN_NAMES, DESTINATION_TABLE, S3_BUCKET, S3_PREFIX,
+                S3_REGION, IAM_ROLE, RedshiftCopyFormat.DELIMITED, "gzip", mockMetrics);
+
+        verify(mockRedshiftConnection).prepareStatement(eq(DELETE_AND_COPY_SQL_2 + " gzip"));
+    }
+
+    @Test
+    public void copyAndMergeWithParquetFormatCopiesAsParquet() throws Exception {
+        redshiftJdbcClient.copyAndMerge(FILE_COLUMN_NAMES, KEY_COLUMN_NAMES, DESTINATION_TABLE, S3_BUCKET, S3_PREFIX,
+                S3_REGION, IAM_ROLE, RedshiftCopyFormat.PARQUET, null, mockMetrics);
+
+        verify(mockRedshiftConnection).prepareStatement(eq(COPY_PARQUET_SQL));
+        verify(mockRedshiftConnection).prepareStatement(eq(COPY_AND_MERGE_SQL_4));
+    }
+
+    @Test
+    public void deleteAndCopyWithParquetFormatCopiesAsParquet() throws Exception {
+        redshiftJdbcClient.deleteAndCopy(FILE_COLUMN_NAMES, DESTINATION_TABLE, S3_BUCKET, S3_PREFIX,
+                S3_REGION, IAM_ROLE, RedshiftCopyFormat.PARQUET, null, mockMetrics);
+
+        verify(mockRedshiftConnection).prepareStatement(eq(DELETE_AND_COPY_SQL_1));
+        verify(mockRedshiftConnection).prepareStatement(eq(DELETE_AND_COPY_PARQUET_SQL));
+    }
+
     @Test
     public void deleteAndCopyRollsbackOnSQLException() throws Exception {
         when(mockPreparedStatement.execute()).thenThrow(new SQLException("Redshift hates you"));
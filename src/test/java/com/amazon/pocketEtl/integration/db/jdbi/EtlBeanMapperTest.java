@@ -40,6 +40,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -89,6 +91,26 @@ public class EtlBeanMapperTest {
         private Map<String, String> otherInformation = new LinkedHashMap<>();
     }
 
+    public static class ThrowingSetterDTO {
+        public void setTestString(String testString) {
+            throw new IllegalStateException("test");
+        }
+    }
+
+    public static class NoDefaultConstructorDTO {
+        public NoDefaultConstructorDTO(String testString) {
+        }
+
+        public void setTestString(String testString) {
+        }
+    }
+
+    public static class ReadOnlyDTO {
+        public String getTestString() {
+            return TEST_STRING;
+        }
+    }
+
     @Before
     public void initializeResultSet() throws Exception {
         when(mockResultSet.getMetaData()).thenReturn(mockMetadata);
@@ -306,4 +328,83 @@ public class EtlBeanMapperTest {
 
         assertThat(result.getOtherInformation(), equalTo(ImmutableMap.of()));
     }
+
+    @Test
+    public void columnsAreOnlyResolvedOncePerResultSet() throws Exception {
+        when(mockMetadata.getColumnCount()).thenReturn(2);
+        when(mockMetadata.getColumnLabel(1)).thenReturn("testInt");
+        when(mockMetadata.getColumnLabel(2)).thenReturn("testString");
+
+        for (int row = 0; row < 3; row++) {
+            TestDTO result = etlBeanMapper.map(row, mockResultSet, null);
+
+            assertThat(result.getTestInt(), equalTo(TEST_INT));
+            assertThat(result.getTestString(), equalTo(TEST_STRING));
+        }
+
+        verify(mockResultSet, times(1)).getMetaData();
+        verify(mockResultSet, times(3)).getInt(1);
+        verify(mockResultSet, times(3)).getString(2);
+    }
+
+    @Test
+    public void columnsAreResolvedAgainForResultSetWithDifferentColumns() throws Exception {
+        when(mockMetadata.getColumnCount()).thenReturn(1);
+        when(mockMetadata.getColumnLabel(1)).thenReturn("testInt");
+        ResultSet otherResultSet = mock(ResultSet.class);
+        ResultSetMetaData otherMetadata = mock(ResultSetMetaData.class);
+        when(otherResultSet.getMetaData()).thenReturn(otherMetadata);
+        when(otherResultSet.getLong(1)).thenReturn(TEST_LONG);
+        when(otherMetadata.getColumnCount()).thenReturn(1);
+        when(otherMetadata.getColumnLabel(1)).thenReturn("testLong");
+
+        TestDTO firstResult = etlBeanMapper.map(0, mockResultSet, null);
+        TestDTO secondResult = etlBeanMapper.map(0, otherResultSet, null);
+
+        assertThat(firstResult.getTestInt(), equalTo(TEST_INT));
+        assertThat(secondResult.getTestLong(), equalTo(TEST_LONG));
+        assertThat(secondResult.getTestInt(), equalTo(0));
+    }
+
+    @Test
+    public void columnsAreResolvedAgainAtTheFirstRowOfEachResultSet() throws Exception {
+        when(mockMetadata.getColumnCount()).thenReturn(1);
+        when(mockMetadata.getColumnLabel(1)).thenReturn("testInt");
+        ResultSet otherResultSet = mock(ResultSet.class);
+        ResultSetMetaData otherMetadata = mock(ResultSetMetaData.class);
+        when(otherResultSet.getMetaData()).thenReturn(otherMetadata);
+        when(otherResultSet.getLong(1)).thenReturn(TEST_LONG);
+        when(otherMetadata.getColumnCount()).thenReturn(1);
+        when(otherMetadata.getColumnLabel(1)).thenReturn("testLong");
+
+        etlBeanMapper.map(0, mockResultSet, null);
+        etlBeanMapper.map(1, mockResultSet, null);
+        etlBeanMapper.map(0, otherResultSet, null);
+        TestDTO result = etlBeanMapper.map(1, otherResultSet, null);
+
+        assertThat(result.getTestLong(), equalTo(TEST_LONG));
+        verify(mockResultSet, times(1)).getMetaData();
+        verify(otherResultSet, times(1)).getMetaData();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exceptionThrownBySetterIsWrappedInIllegalArgumentException() throws Exception {
+        when(mockMetadata.getColumnCount()).thenReturn(1);
+        when(mockMetadata.getColumnLabel(1)).thenReturn("testString");
+
+        new EtlBeanMapper<>(ThrowingSetterDTO.class, null).map(0, mockResultSet, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void propertyWithoutSetterThrowsIllegalArgumentException() throws Exception {
+        when(mockMetadata.getColumnCount()).thenReturn(1);
+        when(mockMetadata.getColumnLabel(1)).thenReturn("testString");
+
+        new EtlBeanMapper<>(ReadOnlyDTO.class, null).map(0, mockResultSet, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void beanWithoutDefaultConstructorThrowsIllegalArgumentException() throws Exception {
+        new EtlBeanMapper<>(NoDefaultConstructorDTO.class, null).map(0, mockResultSet, null);
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.column.values.delta.DeltaBinaryPackingValuesWriterForLong;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class DeltaBinaryPackedDecoderTest {
+    @Test
+    public void decodeReadsConstantDeltas() throws Exception {
+        byte[] encoded = new byte[] { (byte) 0x80, 0x01, 0x04, 0x05, 0x02, 0x02, 0x00, 0x00, 0x00, 0x00 };
+
+        assertThat(DeltaBinaryPackedDecoder.decode(ByteBuffer.wrap(encoded), 5),
+                equalTo(new long[] { 1, 2, 3, 4, 5 }));
+    }
+
+    @Test
+    public void decodeReadsBitPackedDeltas() throws Exception {
+        byte[] encoded = new byte[] { (byte) 0x80, 0x01, 0x04, 0x08, 0x0E, 0x03, 0x02, 0x00, 0x00, 0x00,
+                (byte) 0xC0, 0x3F, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 };
+
+        assertThat(DeltaBinaryPackedDecoder.decode(ByteBuffer.wrap(encoded), 8),
+                equalTo(new long[] { 7, 5, 3, 1, 2, 3, 4, 5 }));
+    }
+
+    @Test
+    public void decodeAdvancesBufferPastLastMiniblock() throws Exception {
+        byte[] encoded = new byte[] { (byte) 0x80, 0x01, 0x04, 0x05, 0x02, 0x02, 0x00, 0x00, 0x00, 0x00, 0x7F };
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+
+        DeltaBinaryPackedDecoder.decode(in, 5);
+
+        assertThat(in.get(), equalTo((byte) 0x7F));
+    }
+
+    @Test
+    public void decodeReadsWhatParquetMrWrites() throws Exception {
+        Random random = new Random(1234);
+        long[] values = new long[1000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 100 == 0 ? random.nextLong() : random.nextInt(1 << (i % 20));
+        }
+
+        DeltaBinaryPackingValuesWriterForLong writer =
+                new DeltaBinaryPackingValuesWriterForLong(64, 1024 * 1024, new HeapByteBufferAllocator());
+
+        for (long value : values) {
+            writer.writeLong(value);
+        }
+
+        byte[] encoded = writer.getBytes().toByteArray();
+
+        assertThat(DeltaBinaryPackedDecoder.decode(ByteBuffer.wrap(encoded), values.length), equalTo(values));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeThrowsIOExceptionIfCountDoesNotMatch() throws Exception {
+        byte[] encoded = new byte[] { (byte) 0x80, 0x01, 0x04, 0x05, 0x02, 0x02, 0x00, 0x00, 0x00, 0x00 };
+
+        DeltaBinaryPackedDecoder.decode(ByteBuffer.wrap(encoded), 6);
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeThrowsIOExceptionIfBlockSizeIsInvalid() throws Exception {
+        byte[] encoded = new byte[] { 0x64, 0x04, 0x05, 0x02, 0x02, 0x00, 0x00, 0x00, 0x00 };
+
+        DeltaBinaryPackedDecoder.decode(ByteBuffer.wrap(encoded), 5);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ParquetFileReaderTest {
+    enum Colour { RED, GREEN, BLUE }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class TestDTO {
+        private int id;
+        private Long count;
+        private String name;
+        private Colour colour;
+        private Boolean enabled;
+        private double score;
+        private Float ratio;
+        private DateTime created;
+        private LocalDate day;
+        private java.time.LocalDate javaDay;
+        private Instant instant;
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class ProjectedDTO {
+        private int id;
+        private String name;
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class IdDTO {
+        private int id;
+    }
+
+    private static TestDTO createTestDTO(int id) {
+        boolean hasNulls = id % 3 == 0;
+
+        return new TestDTO(id, hasNulls ? null : (long) id * 1000, hasNulls ? null : "name" + id,
+                Colour.values()[id % 3], hasNulls ? null : id % 2 == 0, id / 4.0, hasNulls ? null : id / 8.0f,
+                new DateTime(1500000000000L + id, DateTimeZone.UTC), new LocalDate(2018, 1, 1).plusDays(id),
+                java.time.LocalDate.of(2018, 1, 1).plusDays(id), Instant.ofEpochMilli(1500000000000L + id));
+    }
+
+    @Test
+    public void readerReadsEveryTypeWrittenByWriter() throws Exception {
+        List<TestDTO> expected = IntStream.range(0, 100).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, expected, ParquetCompressionCodec.UNCOMPRESSED, 0);
+
+        assertThat(readAll(file, TestDTO.class, null), equalTo(expected));
+    }
+
+    @Test
+    public void readerReadsGzipCompressedFiles() throws Exception {
+        List<TestDTO> expected = IntStream.range(0, 100).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, expected, ParquetCompressionCodec.GZIP, 0);
+
+        assertThat(readAll(file, TestDTO.class, null), equalTo(expected));
+    }
+
+    @Test
+    public void readerReadsMultiplePagesAndRowGroups() throws Exception {
+        List<TestDTO> expected = IntStream.range(0, 50000).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, expected, ParquetCompressionCodec.GZIP, 20000);
+
+        assertThat(readAll(file, TestDTO.class, null), equalTo(expected));
+    }
+
+    @Test
+    public void readerReadsFileWithNoRows() throws Exception {
+        byte[] file = writeFile(TestDTO.class, ImmutableList.of(), ParquetCompressionCodec.GZIP, 0);
+
+        assertThat(readAll(file, TestDTO.class, null), empty());
+    }
+
+    @Test
+    public void readerOnlyReadsColumnsOfProjectedProperties() throws Exception {
+        List<TestDTO> written = IntStream.range(0, 20000).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 0);
+        RecordingParquetSource source = new RecordingParquetSource(file);
+
+        List<ProjectedDTO> result = readAll(source, ProjectedDTO.class, null);
+
+        assertThat(result.stream().map(ProjectedDTO::getId).collect(Collectors.toList()),
+                equalTo(written.stream().map(TestDTO::getId).collect(Collectors.toList())));
+        assertThat(result.stream().map(ProjectedDTO::getName).collect(Collectors.toList()),
+                equalTo(written.stream().map(TestDTO::getName).collect(Collectors.toList())));
+        assertThat(source.bytesRead, lessThan((long) file.length / 2));
+    }
+
+    @Test
+    public void readerSkipsRowGroupsThatCannotMatchFilter() throws Exception {
+        List<IdDTO> written = IntStream.range(0, 1000).mapToObj(idDTO()).collect(Collectors.toList());
+        byte[] file = writeFile(IdDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 100);
+        ParquetFileReader<IdDTO> reader = new ParquetFileReader<>(ParquetSource.of(file), IdDTO.class,
+                ParquetFilter.and(ParquetFilter.greaterThanOrEqualTo("id", 250), ParquetFilter.lessThan("id", 260)));
+
+        List<Integer> ids = new ArrayList<>();
+        reader.forEachRemaining(idDTO -> ids.add(idDTO.getId()));
+
+        assertThat(ids, equalTo(IntStream.range(250, 260).boxed().collect(Collectors.toList())));
+        assertThat(reader.getSkippedRowGroupCount(), equalTo(9));
+    }
+
+    @Test
+    public void readerAppliesOrFilterToRowGroupsAndRows() throws Exception {
+        List<IdDTO> written = IntStream.range(0, 1000).mapToObj(idDTO()).collect(Collectors.toList());
+        byte[] file = writeFile(IdDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 100);
+        ParquetFileReader<IdDTO> reader = new ParquetFileReader<>(ParquetSource.of(file), IdDTO.class,
+                ParquetFilter.or(ParquetFilter.equalTo("id", 5), ParquetFilter.greaterThan("id", 997)));
+
+        List<Integer> ids = new ArrayList<>();
+        reader.forEachRemaining(idDTO -> ids.add(idDTO.getId()));
+
+        assertThat(ids, contains(5, 998, 999));
+        assertThat(reader.getSkippedRowGroupCount(), equalTo(8));
+    }
+
+    @Test
+    public void filterOnColumnThatIsNotProjectedIsApplied() throws Exception {
+        List<TestDTO> written = IntStream.range(0, 100).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 0);
+
+        List<IdDTO> result = readAll(ParquetSource.of(file), IdDTO.class,
+                ParquetFilter.equalTo("colour", Colour.GREEN));
+
+        assertThat(result.stream().map(IdDTO::getId).collect(Collectors.toList()),
+                everyItem(equalToModulo(3, 1)));
+        assertThat(result.size(), equalTo(33));
+    }
+
+    @Test
+    public void filtersConvertValuesToColumnType() throws Exception {
+        List<TestDTO> written = IntStream.range(0, 100).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 0);
+
+        assertThat(readIds(file, ParquetFilter.lessThan("created", new DateTime(1500000000002L))), contains(0, 1));
+        assertThat(readIds(file, ParquetFilter.equalTo("day", new LocalDate(2018, 1, 3))), contains(2));
+        assertThat(readIds(file, ParquetFilter.equalTo("javaDay", java.time.LocalDate.of(2018, 1, 4))), contains(3));
+        assertThat(readIds(file, ParquetFilter.equalTo("name", "name10")), contains(10));
+        assertThat(readIds(file, ParquetFilter.lessThanOrEqualTo("score", 0.5)), contains(0, 1, 2));
+    }
+
+    @Test
+    public void nullValuesNeverMatchFilters() throws Exception {
+        List<TestDTO> written = IntStream.range(0, 10).mapToObj(ParquetFileReaderTest::createTestDTO)
+                .collect(Collectors.toList());
+        byte[] file = writeFile(TestDTO.class, written, ParquetCompressionCodec.UNCOMPRESSED, 0);
+
+        assertThat(readIds(file, ParquetFilter.lessThan("count", 5000L)), contains(1, 2, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filterOnMissingColumnThrowsIllegalArgumentException() throws Exception {
+        byte[] file = writeFile(IdDTO.class, ImmutableList.of(new IdDTO()), ParquetCompressionCodec.UNCOMPRESSED, 0);
+
+        new ParquetFileReader<>(ParquetSource.of(file), IdDTO.class, ParquetFilter.equalTo("missing", 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void readerOfFileThatIsNotParquetThrowsIOException() throws Exception {
+        new ParquetFileReader<>(ParquetSource.of("this is not a parquet file".getBytes()), IdDTO.class, null);
+    }
+
+    @Test(expected = IOException.class)
+    public void readerOfFileWithInvalidFooterLengthThrowsIOException() throws Exception {
+        byte[] file = writeFile(IdDTO.class, ImmutableList.of(new IdDTO()), ParquetCompressionCodec.UNCOMPRESSED, 0);
+        file[file.length - 5] = 0x7F;
+
+        new ParquetFileReader<>(ParquetSource.of(file), IdDTO.class, null);
+    }
+
+    private static IntFunction<IdDTO> idDTO() {
+        return id -> {
+            IdDTO idDTO = new IdDTO();
+            idDTO.setId(id);
+            return idDTO;
+        };
+    }
+
+    private static Matcher<Integer> equalToModulo(int divisor, int remainder) {
+        return new TypeSafeMatcher<Integer>() {
+            @Override
+            protected boolean matchesSafely(Integer value) {
+                return value % divisor == remainder;
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("a value equal to " + remainder + " modulo " + divisor);
+            }
+        };
+    }
+
+    private static List<Integer> readIds(byte[] file, ParquetFilter filter) throws Exception {
+        return readAll(ParquetSource.of(file), IdDTO.class, filter).stream().map(IdDTO::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static <T> byte[] writeFile(Class<T> objectClass, List<T> objects, ParquetCompressionCodec codec,
+                                        int rowsPerRowGroup) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParquetFileWriter<T> writer = new ParquetFileWriter<>(ParquetSchema.of(objectClass), codec, outputStream);
+
+        for (int i = 0; i < objects.size(); i++) {
+            writer.write(objects.get(i));
+
+            if (rowsPerRowGroup > 0 && (i + 1) % rowsPerRowGroup == 0) {
+                writer.flushRowGroup();
+            }
+        }
+
+        writer.finish();
+        return outputStream.toByteArray();
+    }
+
+    private static <T> List<T> readAll(byte[] file, Class<T> objectClass, ParquetFilter filter) throws Exception {
+        return readAll(ParquetSource.of(file), objectClass, filter);
+    }
+
+    private static <T> List<T> readAll(ParquetSource source, Class<T> objectClass, ParquetFilter filter)
+            throws Exception {
+        List<T> result = new ArrayList<>();
+        new ParquetFileReader<>(source, objectClass, filter).forEachRemaining(result::add);
+        return result;
+    }
+
+    private static class RecordingParquetSource implements ParquetSource {
+        private final ParquetSource wrappedSource;
+        private long bytesRead = 0;
+
+        RecordingParquetSource(byte[] bytes) {
+            wrappedSource = ParquetSource.of(bytes);
+        }
+
+        @Override
+        public long getLength() throws IOException {
+            return wrappedSource.getLength();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+            bytesRead += length;
+            wrappedSource.readFully(position, buffer, offset, length);
+        }
+    }
+}
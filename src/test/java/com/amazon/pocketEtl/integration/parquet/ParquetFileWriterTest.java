@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ParquetFileWriterTest {
+    private static final byte[] MAGIC = new byte[] { 'P', 'A', 'R', '1' };
+
+    @Data
+    @AllArgsConstructor
+    static class TestDTO {
+        private int id;
+        private String name;
+    }
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Test
+    public void constructorWritesMagicNumber() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+
+        assertThat(outputStream.toByteArray(), equalTo(MAGIC));
+        assertThat(writer.getBytesWritten(), equalTo(4L));
+    }
+
+    @Test
+    public void finishWritesFooterLengthAndMagicNumber() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+        writer.write(new TestDTO(1, "one"));
+        writer.finish();
+
+        byte[] file = outputStream.toByteArray();
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+        assertThat(Arrays.copyOfRange(file, file.length - 4, file.length), equalTo(MAGIC));
+        assertThat(footerLength, greaterThan(0));
+        assertThat(footerLength, lessThan(file.length - 12));
+
+        // The footer starts with the format version
+        assertThat(Arrays.copyOfRange(file, file.length - 8 - footerLength, file.length - 6 - footerLength),
+                equalTo(new byte[] { 0x15, 0x02 }));
+    }
+
+    @Test
+    public void bytesWrittenMatchesTheLengthOfTheFile() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.GZIP);
+        writer.write(new TestDTO(1, "one"));
+        writer.flushRowGroup();
+        writer.write(new TestDTO(2, null));
+        writer.finish();
+
+        assertThat(writer.getBytesWritten(), equalTo((long) outputStream.size()));
+    }
+
+    @Test
+    public void flushRowGroupWritesBufferedRows() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+        writer.write(new TestDTO(1, "one"));
+
+        assertThat(writer.getBufferedSizeInBytes(), greaterThan(0L));
+
+        writer.flushRowGroup();
+
+        assertThat(writer.getBufferedSizeInBytes(), equalTo(0L));
+        assertThat(writer.getBytesWritten(), greaterThan(4L));
+        assertThat(writer.getRowCount(), equalTo(1L));
+    }
+
+    @Test
+    public void flushRowGroupWithNoBufferedRowsWritesNothing() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+        writer.flushRowGroup();
+
+        assertThat(writer.getBytesWritten(), equalTo(4L));
+    }
+
+    @Test
+    public void repeatedValuesAreDictionaryEncoded() throws Exception {
+        ParquetFileWriter<TestDTO> writer = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+        String name = "a fairly long string that is repeated on every row";
+
+        for (int i = 0; i < 1000; i++) {
+            writer.write(new TestDTO(i % 2, name));
+        }
+
+        writer.finish();
+
+        // Plain encoding would need more than 50 bytes for every row
+        assertThat(outputStream.size(), lessThan(1000));
+    }
+
+    @Test
+    public void gzipCompressionMakesRepetitiveFilesSmaller() throws Exception {
+        ParquetFileWriter<TestDTO> uncompressedWriter = createWriter(ParquetCompressionCodec.UNCOMPRESSED);
+        ByteArrayOutputStream compressedOutputStream = new ByteArrayOutputStream();
+        ParquetFileWriter<TestDTO> compressedWriter = new ParquetFileWriter<>(ParquetSchema.of(TestDTO.class),
+                ParquetCompressionCodec.GZIP, compressedOutputStream);
+
+        for (int i = 0; i < 1000; i++) {
+            uncompressedWriter.write(new TestDTO(i, "name" + i));
+            compressedWriter.write(new TestDTO(i, "name" + i));
+        }
+
+        uncompressedWriter.finish();
+        compressedWriter.finish();
+
+        assertThat(compressedOutputStream.size(), lessThan(outputStream.size()));
+    }
+
+    private ParquetFileWriter<TestDTO> createWriter(ParquetCompressionCodec codec) throws Exception {
+        return new ParquetFileWriter<>(ParquetSchema.of(TestDTO.class), codec, outputStream);
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+
+/**
+ * Checks that files written by ParquetFileWriter can be read by parquet-mr, the reference implementation of Parquet,
+ * and that ParquetFileReader can read files written by parquet-mr with every codec, with either writer version, and
+ * with or without dictionary encoding.
+ */
+public class ParquetMrInteroperabilityTest {
+    // Enough rows for the first row group to be split into several pages
+    private static final int ROW_COUNT = 30000;
+    private static final int FIRST_ROW_GROUP_ROW_COUNT = 25000;
+
+    // Small enough for parquet-mr to split the file into several row groups and pages, and to fall back from
+    // dictionary encoding for the columns with many distinct values
+    private static final int PARQUET_MR_ROW_GROUP_SIZE_IN_BYTES = 256 * 1024;
+    private static final int PARQUET_MR_PAGE_SIZE_IN_BYTES = 8 * 1024;
+    private static final int PARQUET_MR_DICTIONARY_PAGE_SIZE_IN_BYTES = 4 * 1024;
+
+    private static final MessageType PARQUET_MR_SCHEMA = MessageTypeParser.parseMessageType("message TestDTO {"
+            + " required int32 id;"
+            + " optional int64 count;"
+            + " optional binary name (UTF8);"
+            + " optional boolean enabled;"
+            + " required double score;"
+            + " optional float ratio;"
+            + " optional int32 day (DATE);"
+            + " optional int64 instant (TIMESTAMP_MILLIS);"
+            + " }");
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class TestDTO {
+        private int id;
+        private Long count;
+        private String name;
+        private Boolean enabled;
+        private double score;
+        private Float ratio;
+        private LocalDate day;
+        private Instant instant;
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static TestDTO createTestDTO(int id) {
+        boolean hasNulls = id % 7 == 0;
+
+        return new TestDTO(id,
+                hasNulls ? null : id * 1000L,
+                hasNulls ? null : "name" + id % 100,
+                hasNulls ? null : id % 2 == 0,
+                id / 4.0,
+                hasNulls ? null : id / 8.0f,
+                hasNulls ? null : LocalDate.ofEpochDay(id % 1000),
+                hasNulls ? null : Instant.ofEpochMilli(1500000000000L + id));
+    }
+
+    private static List<TestDTO> createTestDTOs() {
+        return IntStream.range(0, ROW_COUNT).mapToObj(ParquetMrInteroperabilityTest::createTestDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void uncompressedFileCanBeReadByParquetMr() throws Exception {
+        assertThat(readWithParquetMr(writeFile(ParquetCompressionCodec.UNCOMPRESSED)), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void gzipFileCanBeReadByParquetMr() throws Exception {
+        assertThat(readWithParquetMr(writeFile(ParquetCompressionCodec.GZIP)), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void snappyFileCanBeReadByParquetMr() throws Exception {
+        assertThat(readWithParquetMr(writeFile(ParquetCompressionCodec.SNAPPY)), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void zstdFileCanBeReadByParquetMr() throws Exception {
+        assertThat(readWithParquetMr(writeFile(ParquetCompressionCodec.ZSTD)), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void lz4RawFileCanBeReadByParquetMr() throws Exception {
+        assertThat(readWithParquetMr(writeFile(ParquetCompressionCodec.LZ4_RAW)), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void statisticsCanBeReadByParquetMr() throws Exception {
+        List<BlockMetaData> rowGroups = readFooterWithParquetMr(writeFile(ParquetCompressionCodec.SNAPPY));
+
+        assertThat(rowGroups.size(), equalTo(2));
+        assertThat(rowGroups.get(0).getRowCount(), equalTo((long) FIRST_ROW_GROUP_ROW_COUNT));
+
+        Statistics<?> idStatistics = getColumn(rowGroups.get(1), "id").getStatistics();
+        assertThat(idStatistics.genericGetMin(), equalTo(FIRST_ROW_GROUP_ROW_COUNT));
+        assertThat(idStatistics.genericGetMax(), equalTo(ROW_COUNT - 1));
+        assertThat(idStatistics.getNumNulls(), equalTo(0L));
+
+        Statistics<?> nameStatistics = getColumn(rowGroups.get(0), "name").getStatistics();
+        assertThat(((Binary) nameStatistics.genericGetMin()).toStringUsingUTF8(), equalTo("name0"));
+        assertThat(((Binary) nameStatistics.genericGetMax()).toStringUsingUTF8(), equalTo("name99"));
+
+        // Every seventh row of the first row group has no name
+        assertThat(nameStatistics.getNumNulls(), equalTo((long) (FIRST_ROW_GROUP_ROW_COUNT + 6) / 7));
+    }
+
+    @Test
+    public void uncompressedParquetMrFileCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.UNCOMPRESSED, WriterVersion.PARQUET_1_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void gzipParquetMrFileCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.GZIP, WriterVersion.PARQUET_1_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void snappyParquetMrFileCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.SNAPPY, WriterVersion.PARQUET_1_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void zstdParquetMrFileCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.ZSTD, WriterVersion.PARQUET_1_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void lz4RawParquetMrFileCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.LZ4_RAW, WriterVersion.PARQUET_1_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void parquetMrFileWithoutDictionaryEncodingCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.SNAPPY, WriterVersion.PARQUET_1_0, false);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void uncompressedParquetMrFileWithVersion2PagesCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.UNCOMPRESSED, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void gzipParquetMrFileWithVersion2PagesCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.GZIP, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void snappyParquetMrFileWithVersion2PagesCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.SNAPPY, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void zstdParquetMrFileWithVersion2PagesCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.ZSTD, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void lz4RawParquetMrFileWithVersion2PagesCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.LZ4_RAW, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void parquetMrFileWithVersion2PagesWithoutDictionaryEncodingCanBeRead() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.SNAPPY, WriterVersion.PARQUET_2_0, false);
+
+        assertThat(readFile(file), equalTo(createTestDTOs()));
+    }
+
+    @Test
+    public void parquetMrFileIsSplitIntoSeveralRowGroups() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.UNCOMPRESSED, WriterVersion.PARQUET_2_0, true);
+
+        assertThat(readFooterWithParquetMr(file).size() > 1, equalTo(true));
+    }
+
+    @Test
+    public void parquetMrFileWithVersion2PagesUsesDeltaAndRleEncodings() throws Exception {
+        File file = writeFileWithParquetMr(CompressionCodecName.UNCOMPRESSED, WriterVersion.PARQUET_2_0, false);
+        BlockMetaData rowGroup = readFooterWithParquetMr(file).get(0);
+
+        assertThat(getColumn(rowGroup, "count").getEncodings(), hasItem(Encoding.DELTA_BINARY_PACKED));
+        assertThat(getColumn(rowGroup, "name").getEncodings(), hasItem(Encoding.DELTA_BYTE_ARRAY));
+        assertThat(getColumn(rowGroup, "enabled").getEncodings(), hasItem(Encoding.RLE));
+    }
+
+    private File writeFile(ParquetCompressionCodec codec) throws IOException {
+        File file = temporaryFolder.newFile();
+
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            ParquetFileWriter<TestDTO> writer = new ParquetFileWriter<>(ParquetSchema.of(TestDTO.class), codec,
+                    outputStream);
+
+            for (TestDTO testDTO : createTestDTOs()) {
+                writer.write(testDTO);
+
+                if (writer.getRowCount() == FIRST_ROW_GROUP_ROW_COUNT) {
+                    writer.flushRowGroup();
+                }
+            }
+
+            writer.finish();
+        }
+
+        return file;
+    }
+
+    private File writeFileWithParquetMr(CompressionCodecName codec, WriterVersion writerVersion,
+                                        boolean enableDictionary) throws IOException {
+        File file = new File(temporaryFolder.newFolder(), "part.parquet");
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(PARQUET_MR_SCHEMA);
+
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(file.toURI()))
+                .withConf(new Configuration())
+                .withType(PARQUET_MR_SCHEMA)
+                .withCompressionCodec(codec)
+                .withWriterVersion(writerVersion)
+                .withDictionaryEncoding(enableDictionary)
+                .withRowGroupSize(PARQUET_MR_ROW_GROUP_SIZE_IN_BYTES)
+                .withPageSize(PARQUET_MR_PAGE_SIZE_IN_BYTES)
+                .withDictionaryPageSize(PARQUET_MR_DICTIONARY_PAGE_SIZE_IN_BYTES)
+                .build()) {
+            for (TestDTO testDTO : createTestDTOs()) {
+                Group row = groupFactory.newGroup()
+                        .append("id", testDTO.getId())
+                        .append("score", testDTO.getScore());
+
+                if (testDTO.getCount() != null) {
+                    row.append("count", testDTO.getCount());
+                }
+
+                if (testDTO.getName() != null) {
+                    row.append("name", testDTO.getName());
+                }
+
+                if (testDTO.getEnabled() != null) {
+                    row.append("enabled", testDTO.getEnabled());
+                }
+
+                if (testDTO.getRatio() != null) {
+                    row.append("ratio", testDTO.getRatio());
+                }
+
+                if (testDTO.getDay() != null) {
+                    row.append("day", (int) testDTO.getDay().toEpochDay());
+                }
+
+                if (testDTO.getInstant() != null) {
+                    row.append("instant", testDTO.getInstant().toEpochMilli());
+                }
+
+                writer.write(row);
+            }
+        }
+
+        return file;
+    }
+
+    private static List<TestDTO> readFile(File file) throws IOException {
+        List<TestDTO> rows = new ArrayList<>();
+        ParquetFileReader<TestDTO> reader =
+                new ParquetFileReader<>(ParquetSource.of(Files.readAllBytes(file.toPath())), TestDTO.class, null);
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+
+    private static List<TestDTO> readWithParquetMr(File file) throws IOException {
+        List<TestDTO> rows = new ArrayList<>();
+
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(file.toURI()))
+                .build()) {
+            for (Group row = reader.read(); row != null; row = reader.read()) {
+                rows.add(new TestDTO(row.getInteger("id", 0),
+                        isNull(row, "count") ? null : row.getLong("count", 0),
+                        isNull(row, "name") ? null : row.getString("name", 0),
+                        isNull(row, "enabled") ? null : row.getBoolean("enabled", 0),
+                        row.getDouble("score", 0),
+                        isNull(row, "ratio") ? null : row.getFloat("ratio", 0),
+                        isNull(row, "day") ? null : LocalDate.ofEpochDay(row.getInteger("day", 0)),
+                        isNull(row, "instant") ? null : Instant.ofEpochMilli(row.getLong("instant", 0))));
+            }
+        }
+
+        return rows;
+    }
+
+    private static boolean isNull(Group row, String field) {
+        return row.getFieldRepetitionCount(field) == 0;
+    }
+
+    private static List<BlockMetaData> readFooterWithParquetMr(File file) throws IOException {
+        HadoopInputFile inputFile = HadoopInputFile.fromPath(new Path(file.toURI()), new Configuration());
+
+        try (org.apache.parquet.hadoop.ParquetFileReader reader =
+                     org.apache.parquet.hadoop.ParquetFileReader.open(inputFile)) {
+            return reader.getFooter().getBlocks();
+        }
+    }
+
+    private static ColumnChunkMetaData getColumn(BlockMetaData rowGroup, String name) {
+        return rowGroup.getColumns().stream()
+                .filter(column -> column.getPath().toDotString().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No column named " + name));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ParquetSchemaTest {
+    enum Colour { RED, GREEN }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({ "id", "count", "name", "colour", "enabled", "created", "day" })
+    static class TestDTO {
+        private long id;
+        private Integer count;
+        private String name;
+        private Colour colour;
+        private boolean enabled;
+        private DateTime created;
+        private LocalDate day;
+    }
+
+    @Data
+    static class DTOWithUnsupportedType {
+        private final List<String> values;
+    }
+
+    static class DTOWithNoProperties {
+    }
+
+    @Test
+    public void schemaHasAColumnForEachProperty() {
+        List<ParquetColumn> columns = ParquetSchema.of(TestDTO.class).getColumns();
+
+        assertThat(columns.stream().map(ParquetColumn::getName).collect(Collectors.toList()),
+                contains("id", "count", "name", "colour", "enabled", "created", "day"));
+        assertThat(columns.stream().map(ParquetColumn::getType).collect(Collectors.toList()),
+                contains(ParquetColumnType.INT64, ParquetColumnType.INT32, ParquetColumnType.STRING,
+                        ParquetColumnType.STRING, ParquetColumnType.BOOLEAN, ParquetColumnType.TIMESTAMP_MILLIS,
+                        ParquetColumnType.DATE));
+    }
+
+    @Test
+    public void onlyPrimitivePropertiesAreRequired() {
+        List<ParquetColumn> columns = ParquetSchema.of(TestDTO.class).getColumns();
+
+        assertThat(columns.stream().map(ParquetColumn::isRequired).collect(Collectors.toList()),
+                contains(true, false, false, false, true, false, false));
+    }
+
+    @Test
+    public void columnsConvertValuesToTheirParquetForm() {
+        TestDTO testDTO = new TestDTO(1L, 2, "foo", Colour.GREEN, true,
+                new DateTime(1234L, DateTimeZone.UTC), new LocalDate(1970, 1, 11));
+        List<ParquetColumn> columns = ParquetSchema.of(TestDTO.class).getColumns();
+
+        assertThat(columns.get(0).getValue(testDTO), equalTo(1L));
+        assertThat(columns.get(1).getValue(testDTO), equalTo(2));
+        assertThat(columns.get(2).getValue(testDTO), equalTo("foo".getBytes()));
+        assertThat(columns.get(3).getValue(testDTO), equalTo("GREEN".getBytes()));
+        assertThat(columns.get(4).getValue(testDTO), equalTo(true));
+        assertThat(columns.get(5).getValue(testDTO), equalTo(1234L));
+        assertThat(columns.get(6).getValue(testDTO), equalTo(10));
+    }
+
+    @Test
+    public void nullValuesAreNotConverted() {
+        List<ParquetColumn> columns = ParquetSchema.of(TestDTO.class).getColumns();
+
+        assertThat(columns.get(2).getValue(new TestDTO()), equalTo(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schemaOfClassWithUnsupportedPropertyTypeThrowsIllegalArgumentException() {
+        ParquetSchema.of(DTOWithUnsupportedType.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schemaOfClassWithNoPropertiesThrowsIllegalArgumentException() {
+        ParquetSchema.of(DTOWithNoProperties.class);
+    }
+}
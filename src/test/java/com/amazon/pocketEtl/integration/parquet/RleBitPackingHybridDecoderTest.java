@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RleBitPackingHybridDecoderTest {
+    @Test
+    public void decodeReadsBitPackedRun() throws Exception {
+        byte[] encoded = new byte[] { 0x03, (byte) 0x88, (byte) 0xC6, (byte) 0xFA };
+
+        assertThat(decode(encoded, 3, 8), equalTo(new int[] { 0, 1, 2, 3, 4, 5, 6, 7 }));
+    }
+
+    @Test
+    public void decodeReadsRunLengthEncodedRun() throws Exception {
+        byte[] encoded = new byte[] { 0x14, 0x05 };
+
+        assertThat(decode(encoded, 3, 10), equalTo(new int[] { 5, 5, 5, 5, 5, 5, 5, 5, 5, 5 }));
+    }
+
+    @Test
+    public void decodeIgnoresPaddingOfLastBitPackedGroup() throws Exception {
+        byte[] encoded = new byte[] { 0x03, 0x05 };
+
+        assertThat(decode(encoded, 1, 3), equalTo(new int[] { 1, 0, 1 }));
+    }
+
+    @Test
+    public void decodeReadsZeroBitWidth() throws Exception {
+        byte[] encoded = new byte[] { 0x08 };
+
+        assertThat(decode(encoded, 0, 4), equalTo(new int[] { 0, 0, 0, 0 }));
+    }
+
+    @Test
+    public void decodeReadsWhatEncoderWrites() throws Exception {
+        Random random = new Random(1234);
+        int[] values = new int[1000];
+
+        for (int i = 0; i < values.length; i++) {
+            // Mix of runs and distinct values
+            values[i] = i % 100 < 50 ? 7 : random.nextInt(1000);
+        }
+
+        int bitWidth = RleBitPackingHybridEncoder.bitWidth(999);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RleBitPackingHybridEncoder.encode(values, values.length, bitWidth, out);
+
+        assertThat(decode(out.toByteArray(), bitWidth, values.length), equalTo(values));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeThrowsIOExceptionIfValuesEndEarly() throws Exception {
+        decode(new byte[] { 0x04, 0x01 }, 1, 4);
+    }
+
+    private static int[] decode(byte[] encoded, int bitWidth, int count) throws IOException {
+        int[] values = new int[count];
+        RleBitPackingHybridDecoder.decode(ByteBuffer.wrap(encoded), bitWidth, count, values);
+        return values;
+    }
+}
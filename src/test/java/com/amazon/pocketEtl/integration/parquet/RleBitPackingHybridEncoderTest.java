@@ -0,0 +1,83 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RleBitPackingHybridEncoderTest {
+    @Test
+    public void encodeBitPacksDistinctValues() {
+        int[] values = new int[] { 0, 1, 2, 3, 4, 5, 6, 7 };
+
+        assertThat(encode(values, 3), equalTo(new byte[] { 0x03, (byte) 0x88, (byte) 0xC6, (byte) 0xFA }));
+    }
+
+    @Test
+    public void encodePadsTheLastBitPackedGroup() {
+        int[] values = new int[] { 1, 0, 1 };
+
+        assertThat(encode(values, 1), equalTo(new byte[] { 0x03, 0x05 }));
+    }
+
+    @Test
+    public void encodeRunLengthEncodesLongRuns() {
+        int[] values = new int[] { 5, 5, 5, 5, 5, 5, 5, 5, 5, 5 };
+
+        assertThat(encode(values, 3), equalTo(new byte[] { 0x14, 0x05 }));
+    }
+
+    @Test
+    public void encodeCompletesBitPackedGroupBeforeRunLengthEncoding() {
+        int[] values = new int[18];
+        values[0] = 1;
+        values[1] = 2;
+
+        for (int i = 2; i < values.length; i++) {
+            values[i] = 3;
+        }
+
+        assertThat(encode(values, 2), equalTo(new byte[] { 0x03, (byte) 0xF9, (byte) 0xFF, 0x14, 0x03 }));
+    }
+
+    @Test
+    public void encodeOnlyEncodesTheRequestedCount() {
+        int[] values = new int[] { 1, 1, 1, 1, 1, 1, 1, 1, 0, 0 };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RleBitPackingHybridEncoder.encode(values, 8, 1, out);
+
+        assertThat(out.toByteArray(), equalTo(new byte[] { 0x10, 0x01 }));
+    }
+
+    @Test
+    public void bitWidthIsAtLeastOne() {
+        assertThat(RleBitPackingHybridEncoder.bitWidth(0), equalTo(1));
+        assertThat(RleBitPackingHybridEncoder.bitWidth(1), equalTo(1));
+        assertThat(RleBitPackingHybridEncoder.bitWidth(7), equalTo(3));
+        assertThat(RleBitPackingHybridEncoder.bitWidth(8), equalTo(4));
+    }
+
+    private static byte[] encode(int[] values, int bitWidth) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RleBitPackingHybridEncoder.encode(values, values.length, bitWidth, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ThriftCompactReaderTest {
+    @Test
+    public void readerReadsWhatWriterWrites() throws Exception {
+        ThriftCompactWriter writer = new ThriftCompactWriter();
+        writer.writeStructBegin();
+        writer.writeI32Field(1, -300);
+        writer.writeI64Field(2, 1L << 40);
+        writer.writeStringField(20, "name");
+        writer.writeBooleanField(3, true);
+        writer.writeListFieldBegin(4, ThriftCompactWriter.TYPE_I32, 20);
+
+        for (int i = 0; i < 20; i++) {
+            writer.writeI32(i);
+        }
+
+        writer.writeStructEnd();
+        byte[] bytes = writer.toByteArray();
+
+        ThriftCompactReader reader = new ThriftCompactReader(bytes, 0, bytes.length);
+        reader.readStructBegin();
+
+        assertThat(reader.readFieldBegin(), equalTo(1));
+        assertThat(reader.readI32(), equalTo(-300));
+        assertThat(reader.readFieldBegin(), equalTo(2));
+        assertThat(reader.readI64(), equalTo(1L << 40));
+        assertThat(reader.readFieldBegin(), equalTo(20));
+        assertThat(reader.readString(), equalTo("name"));
+        assertThat(reader.readFieldBegin(), equalTo(3));
+        assertThat(reader.readBooleanField(), equalTo(true));
+        assertThat(reader.readFieldBegin(), equalTo(4));
+        assertThat(reader.readListBegin(), equalTo(20));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(reader.readI32(), equalTo(i));
+        }
+
+        assertThat(reader.readFieldBegin(), equalTo(0));
+        assertThat(reader.getPosition(), equalTo(bytes.length));
+    }
+
+    @Test
+    public void readerSkipsFieldsOfEveryType() throws Exception {
+        ThriftCompactWriter writer = new ThriftCompactWriter();
+        writer.writeStructBegin();
+        writer.writeStructFieldBegin(1);
+        writer.writeStringField(1, "skipped");
+        writer.writeListFieldBegin(2, ThriftCompactWriter.TYPE_STRUCT, 1);
+        writer.writeStructBegin();
+        writer.writeI64Field(1, 5L);
+        writer.writeStructEnd();
+        writer.writeBooleanField(3, false);
+        writer.writeStructEnd();
+        writer.writeI32Field(2, 42);
+        writer.writeStructEnd();
+        byte[] bytes = writer.toByteArray();
+
+        ThriftCompactReader reader = new ThriftCompactReader(bytes, 0, bytes.length);
+        reader.readStructBegin();
+
+        assertThat(reader.readFieldBegin(), equalTo(1));
+        reader.skipField();
+        assertThat(reader.readFieldBegin(), equalTo(2));
+        assertThat(reader.readI32(), equalTo(42));
+        assertThat(reader.readFieldBegin(), equalTo(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void readerThrowsIOExceptionAtEndOfData() throws Exception {
+        byte[] bytes = new byte[] { 0x18, 0x10, 'a' };
+        ThriftCompactReader reader = new ThriftCompactReader(bytes, 0, bytes.length);
+        reader.readStructBegin();
+        reader.readFieldBegin();
+
+        reader.readBinary();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.integration.parquet;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ThriftCompactWriterTest {
+    private final ThriftCompactWriter writer = new ThriftCompactWriter();
+
+    @Test
+    public void fieldHeadersUseShortFormForSmallIncreasingDeltas() {
+        writer.writeStructBegin();
+        writer.writeI32Field(1, 1);
+        writer.writeI64Field(3, -1L);
+        writer.writeStructEnd();
+
+        assertThat(writer.toByteArray(), equalTo(new byte[] { 0x15, 0x02, 0x26, 0x01, 0x00 }));
+    }
+
+    @Test
+    public void fieldHeadersUseLongFormForDecreasingOrLargeDeltas() {
+        writer.writeStructBegin();
+        writer.writeI32Field(3, 0);
+        writer.writeStringField(2, "ab");
+        writer.writeBooleanField(20, true);
+        writer.writeStructEnd();
+
+        assertThat(writer.toByteArray(),
+                equalTo(new byte[] { 0x35, 0x00, 0x08, 0x04, 0x02, 'a', 'b', 0x01, 0x28, 0x00 }));
+    }
+
+    @Test
+    public void integersAreZigZagVarints() {
+        writer.writeStructBegin();
+        writer.writeListFieldBegin(1, ThriftCompactWriter.TYPE_I32, 2);
+        writer.writeI32(300);
+        writer.writeI32(-2);
+        writer.writeStructEnd();
+
+        assertThat(writer.toByteArray(), equalTo(new byte[] { 0x19, 0x25, (byte) 0xD8, 0x04, 0x03, 0x00 }));
+    }
+
+    @Test
+    public void longListsWriteTheirSizeAsAVarint() {
+        writer.writeStructBegin();
+        writer.writeListFieldBegin(1, ThriftCompactWriter.TYPE_BINARY, 20);
+
+        assertThat(writer.toByteArray(), equalTo(new byte[] { 0x19, (byte) 0xF8, 0x14 }));
+    }
+
+    @Test
+    public void nestedStructsTrackFieldIdsSeparately() {
+        writer.writeStructBegin();
+        writer.writeStructFieldBegin(5);
+        writer.writeI32Field(1, 0);
+        writer.writeStructEnd();
+        writer.writeI32Field(6, 0);
+        writer.writeStructEnd();
+
+        assertThat(writer.toByteArray(), equalTo(new byte[] { 0x5C, 0x15, 0x00, 0x00, 0x15, 0x00, 0x00 }));
+    }
+}
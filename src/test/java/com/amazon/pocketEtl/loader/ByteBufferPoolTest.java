@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ByteBufferPoolTest {
+    private final ByteBufferPool byteBufferPool = new ByteBufferPool(16, 2);
+
+    @Test
+    public void acquiredBuffersHaveTheConfiguredSize() throws Exception {
+        assertThat(byteBufferPool.acquire().capacity(), equalTo(16));
+    }
+
+    @Test
+    public void acquireAllocatesNewBuffersUpToTheLimit() throws Exception {
+        ByteBuffer first = byteBufferPool.acquire();
+        ByteBuffer second = byteBufferPool.acquire();
+
+        assertThat(first, not(sameInstance(second)));
+    }
+
+    @Test
+    public void releasedBuffersAreReusedAndCleared() throws Exception {
+        ByteBuffer buffer = byteBufferPool.acquire();
+        buffer.put(new byte[10]);
+        byteBufferPool.release(buffer);
+
+        ByteBuffer reusedBuffer = byteBufferPool.acquire();
+
+        assertThat(reusedBuffer, sameInstance(buffer));
+        assertThat(reusedBuffer.remaining(), equalTo(16));
+    }
+
+    @Test
+    public void everyBufferCanBeReserved() {
+        byteBufferPool.reserve();
+        byteBufferPool.reserve();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void reservingMoreBuffersThanThePoolHoldsThrowsIllegalStateException() {
+        byteBufferPool.reserve();
+        byteBufferPool.reserve();
+        byteBufferPool.reserve();
+    }
+
+    @Test
+    public void cancelledReservationCanBeReservedAgain() {
+        byteBufferPool.reserve();
+        byteBufferPool.reserve();
+        byteBufferPool.cancelReservation();
+        byteBufferPool.reserve();
+    }
+
+    @Test(timeout = 10000)
+    public void acquireBlocksWhenThePoolIsExhaustedUntilABufferIsReleased() throws Exception {
+        ByteBuffer first = byteBufferPool.acquire();
+        byteBufferPool.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicReference<ByteBuffer> acquiredBuffer = new AtomicReference<>();
+
+        Thread acquirer = new Thread(() -> {
+            try {
+                acquiredBuffer.set(byteBufferPool.acquire());
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        acquirer.start();
+
+        assertThat(acquired.await(50, TimeUnit.MILLISECONDS), is(false));
+
+        byteBufferPool.release(first);
+
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(acquiredBuffer.get(), sameInstance(first));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Records the key and content of every object written to a mock AmazonS3 client with putObject, in the order they
+ * were written. Objects may be written from background threads.
+ */
+class CapturedS3Objects {
+    private final List<String> keys = new ArrayList<>();
+    private final List<byte[]> contents = new ArrayList<>();
+
+    void stubPutObjectToCapture(AmazonS3 s3Client) {
+        when(s3Client.putObject(any(PutObjectRequest.class)))
+                .thenAnswer(invocation -> capture(invocation.getArgument(0)));
+    }
+
+    PutObjectResult capture(PutObjectRequest putObjectRequest) throws IOException {
+        byte[] content = IOUtils.toByteArray(putObjectRequest.getInputStream());
+
+        synchronized (this) {
+            keys.add(putObjectRequest.getKey());
+            contents.add(content);
+        }
+
+        return new PutObjectResult();
+    }
+
+    synchronized int size() {
+        return keys.size();
+    }
+
+    synchronized List<String> getKeys() {
+        return new ArrayList<>(keys);
+    }
+
+    synchronized List<byte[]> getContents() {
+        return new ArrayList<>(contents);
+    }
+
+    synchronized List<String> getContentsAsStrings() {
+        List<String> strings = new ArrayList<>(contents.size());
+        contents.forEach(content -> strings.add(new String(content, StandardCharsets.UTF_8)));
+        return strings;
+    }
+
+    synchronized Map<String, String> getContentsAsStringsByKey() {
+        Map<String, String> stringsByKey = new LinkedHashMap<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            stringsByKey.put(keys.get(i), new String(contents.get(i), StandardCharsets.UTF_8));
+        }
+
+        return stringsByKey;
+    }
+}
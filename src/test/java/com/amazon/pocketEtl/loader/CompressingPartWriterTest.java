@@ -0,0 +1,257 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import com.amazonaws.util.IOUtils;
+import com.github.luben.zstd.ZstdInputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class CompressingPartWriterTest {
+    private final ByteArrayOutputStream destination = new ByteArrayOutputStream();
+
+    @Test
+    public void uncompressedRecordFitsExactlyUpToTheLimit() {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.NONE, destination);
+        partWriter.write(new byte[6]);
+
+        assertThat(partWriter.fits(4, 10), is(true));
+        assertThat(partWriter.fits(5, 10), is(false));
+    }
+
+    @Test
+    public void uncompressedBytesArePassedThroughUnchanged() {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.NONE, destination);
+        partWriter.write("abc".getBytes());
+        partWriter.write("def".getBytes());
+        partWriter.finish();
+
+        assertThat(destination.toString(), equalTo("abcdef"));
+    }
+
+    @Test
+    public void gzipOutputCanBeDecompressed() throws Exception {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.GZIP, destination);
+        partWriter.write("abc".getBytes());
+        partWriter.write("def".getBytes());
+        partWriter.finish();
+
+        assertThat(new String(gunzip(destination.toByteArray())), equalTo("abcdef"));
+    }
+
+    @Test
+    public void compressibleDataFitsFarMoreThanTheLimit() {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.GZIP, destination);
+        byte[] record = "the same record again and again\n".getBytes();
+
+        while (partWriter.fits(record.length, 1000)) {
+            partWriter.write(record);
+        }
+
+        partWriter.finish();
+
+        assertThat((long) destination.size(), lessThanOrEqualTo(1000L));
+        assertThat(partWriter.getUncompressedBytesWritten() > 10000L, is(true));
+    }
+
+    @Test
+    public void incompressibleDataNeverExceedsTheLimit() throws Exception {
+        assertIncompressibleDataNeverExceedsTheLimit(S3CompressionCodec.GZIP, 100000);
+    }
+
+    @Test
+    public void zstdOutputCanBeDecompressed() throws Exception {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.ZSTD, destination);
+        partWriter.write("abc".getBytes());
+        partWriter.write("def".getBytes());
+        partWriter.finish();
+
+        assertThat(new String(decompress(S3CompressionCodec.ZSTD, destination.toByteArray())), equalTo("abcdef"));
+    }
+
+    @Test
+    public void zstdOutputSpanningSeveralFramesCanBeDecompressed() throws Exception {
+        assertLargeOutputCanBeDecompressed(S3CompressionCodec.ZSTD);
+    }
+
+    @Test
+    public void emptyZstdOutputCanBeDecompressed() throws Exception {
+        new CompressingPartWriter(S3CompressionCodec.ZSTD, destination).finish();
+
+        assertThat(decompress(S3CompressionCodec.ZSTD, destination.toByteArray()).length, equalTo(0));
+    }
+
+    @Test
+    public void compressibleZstdDataFitsFarMoreThanTheLimit() {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.ZSTD, destination);
+        byte[] record = "the same record again and again\n".getBytes();
+
+        while (partWriter.fits(record.length, 10000)) {
+            partWriter.write(record);
+        }
+
+        partWriter.finish();
+
+        assertThat((long) destination.size(), lessThanOrEqualTo(10000L));
+        assertThat(partWriter.getUncompressedBytesWritten() > 100000L, is(true));
+    }
+
+    @Test
+    public void incompressibleZstdDataNeverExceedsTheLimit() throws Exception {
+        assertIncompressibleDataNeverExceedsTheLimit(S3CompressionCodec.ZSTD, 3000000);
+    }
+
+    @Test
+    public void lz4OutputCanBeDecompressed() throws Exception {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.LZ4, destination);
+        partWriter.write("abc".getBytes());
+        partWriter.write("def".getBytes());
+        partWriter.finish();
+
+        assertThat(new String(decompress(S3CompressionCodec.LZ4, destination.toByteArray())), equalTo("abcdef"));
+    }
+
+    @Test
+    public void lz4OutputSpanningSeveralBlocksCanBeDecompressed() throws Exception {
+        assertLargeOutputCanBeDecompressed(S3CompressionCodec.LZ4);
+    }
+
+    @Test
+    public void emptyLz4OutputCanBeDecompressed() throws Exception {
+        new CompressingPartWriter(S3CompressionCodec.LZ4, destination).finish();
+
+        assertThat(decompress(S3CompressionCodec.LZ4, destination.toByteArray()).length, equalTo(0));
+    }
+
+    @Test
+    public void incompressibleLz4DataNeverExceedsTheLimit() throws Exception {
+        assertIncompressibleDataNeverExceedsTheLimit(S3CompressionCodec.LZ4, 300000);
+    }
+
+    @Test
+    public void recordThatCanNeverFitDoesNotFit() {
+        CompressingPartWriter partWriter = new CompressingPartWriter(S3CompressionCodec.GZIP, destination);
+
+        assertThat(partWriter.fits(1000, 100), is(false));
+    }
+
+    @Test
+    public void compressToByteArrayWithNoCompressionReturnsTheSameBytes() {
+        byte[] bytes = "abc".getBytes();
+
+        assertThat(CompressingPartWriter.compressToByteArray(S3CompressionCodec.NONE, bytes), is(bytes));
+    }
+
+    @Test
+    public void compressToByteArrayWithGzipCanBeDecompressed() throws Exception {
+        byte[] compressedBytes = CompressingPartWriter.compressToByteArray(S3CompressionCodec.GZIP, "abc".getBytes());
+
+        assertThat(new String(gunzip(compressedBytes)), equalTo("abc"));
+    }
+
+    @Test
+    public void compressToByteArrayWithZstdCanBeDecompressed() throws Exception {
+        byte[] compressedBytes = CompressingPartWriter.compressToByteArray(S3CompressionCodec.ZSTD, "abc".getBytes());
+
+        assertThat(new String(decompress(S3CompressionCodec.ZSTD, compressedBytes)), equalTo("abc"));
+    }
+
+    @Test
+    public void compressToByteArrayWithLz4CanBeDecompressed() throws Exception {
+        byte[] compressedBytes = CompressingPartWriter.compressToByteArray(S3CompressionCodec.LZ4, "abc".getBytes());
+
+        assertThat(new String(decompress(S3CompressionCodec.LZ4, compressedBytes)), equalTo("abc"));
+    }
+
+    static byte[] gunzip(byte[] compressedBytes) throws Exception {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressedBytes)));
+    }
+
+    // Decompresses with the reference implementation of each format rather than the library that compressed it
+    static byte[] decompress(S3CompressionCodec codec, byte[] compressedBytes) throws Exception {
+        InputStream compressedStream = new ByteArrayInputStream(compressedBytes);
+
+        switch (codec) {
+            case GZIP:
+                return gunzip(compressedBytes);
+            case ZSTD:
+                return IOUtils.toByteArray(new ZstdInputStream(compressedStream));
+            case LZ4:
+                return IOUtils.toByteArray(new LZ4FrameInputStream(compressedStream));
+            default:
+                return compressedBytes;
+        }
+    }
+
+    // Writes compressible records with a flush part way through a block, so that blocks of every size are written
+    private void assertLargeOutputCanBeDecompressed(S3CompressionCodec codec) throws Exception {
+        CompressingPartWriter partWriter = new CompressingPartWriter(codec, destination);
+        ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+
+        for (int i = 0; i < 200000; i++) {
+            byte[] record = ("record number " + i + "\n").getBytes();
+
+            // A record can never fit within a limit of 0, so this always flushes the compressor
+            if (i == 1000) {
+                partWriter.fits(record.length, 0);
+            }
+
+            partWriter.write(record);
+            expectedBytes.write(record);
+        }
+
+        partWriter.finish();
+
+        assertThat(decompress(codec, destination.toByteArray()), equalTo(expectedBytes.toByteArray()));
+        assertThat(destination.size() < expectedBytes.size() / 2, is(true));
+    }
+
+    private void assertIncompressibleDataNeverExceedsTheLimit(S3CompressionCodec codec, long maxCompressedSizeInBytes)
+            throws Exception {
+        CompressingPartWriter partWriter = new CompressingPartWriter(codec, destination);
+        Random random = new Random(1234);
+        byte[] record = new byte[100];
+        int recordsWritten = 0;
+
+        while (true) {
+            random.nextBytes(record);
+
+            if (!partWriter.fits(record.length, maxCompressedSizeInBytes)) {
+                break;
+            }
+
+            partWriter.write(record);
+            recordsWritten++;
+        }
+
+        partWriter.finish();
+
+        assertThat((long) destination.size(), lessThanOrEqualTo(maxCompressedSizeInBytes));
+        assertThat(decompress(codec, destination.toByteArray()).length, equalTo(recordsWritten * record.length));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.loader.CsvStringSerializerTest.TestDTO;
+import com.amazon.pocketEtl.loader.CsvStringSerializerTest.TestDTO2;
+import com.google.common.collect.ImmutableList;
+import lombok.Data;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class CsvByteSerializerTest {
+    private static final DateTime SAMPLE_DATE_TIME = DateTime.parse("2017-09-29T00:00:00.000Z");
+    private static final TestDTO TEST_DTO = new TestDTO("Foo", 7, 1.5, ImmutableList.of("first", "second"),
+            SAMPLE_DATE_TIME);
+    private static final TestDTO2 TEST_DTO2 = new TestDTO2("Foo", 7);
+
+    @Data
+    static class DTOWithBadDataType {
+        private final String name;
+        private final TestDTO testDTO;
+    }
+
+    @Test
+    public void serializerWritesDTOWithDelimiterPSV() throws Exception {
+        CsvByteSerializer<TestDTO> serializerForPSV = CsvByteSerializer.of(TestDTO.class).withColumnSeparator('|');
+
+        // Need to change timezone to UTC for assertion as jackson serializes datetime to UTC time zone.
+        String expectedUTCDateTimeString = SAMPLE_DATE_TIME.toDateTime(DateTimeZone.UTC).toString();
+        String expectedResult = "Foo|7|1.5|first;second|" + expectedUTCDateTimeString + "\n";
+
+        assertThat(serialize(serializerForPSV, TEST_DTO), equalTo(expectedResult));
+    }
+
+    @Test
+    public void serializerWritesSameBytesAsStringSerializer() throws Exception {
+        CsvByteSerializer<TestDTO> byteSerializer = CsvByteSerializer.of(TestDTO.class);
+        CsvStringSerializer<TestDTO> stringSerializer = CsvStringSerializer.of(TestDTO.class);
+
+        assertThat(serialize(byteSerializer, TEST_DTO), equalTo(stringSerializer.apply(TEST_DTO)));
+    }
+
+    @Test
+    public void serializerAppendsToOutputStream() throws Exception {
+        CsvByteSerializer<TestDTO2> serializer = CsvByteSerializer.of(TestDTO2.class);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        serializer.serialize(TEST_DTO2, outputStream);
+        serializer.serialize(TEST_DTO2, outputStream);
+
+        assertThat(outputStream.toString("UTF-8"), equalTo("7,Foo\n7,Foo\n"));
+    }
+
+    @Test
+    public void serializerDoesNotCloseOutputStream() throws Exception {
+        OutputStream mockOutputStream = mock(OutputStream.class);
+
+        CsvByteSerializer.of(TestDTO2.class).serialize(TEST_DTO2, mockOutputStream);
+
+        verify(mockOutputStream, never()).close();
+    }
+
+    @Test
+    public void serializerDoesNotWriteHeaderRowByDefault() throws Exception {
+        assertThat(header(CsvByteSerializer.of(TestDTO.class)), equalTo(""));
+    }
+
+    @Test
+    public void serializerWritesSameHeaderRowAsStringSerializer() throws Exception {
+        CsvByteSerializer<TestDTO> byteSerializer = CsvByteSerializer.of(TestDTO.class).withHeaderRow(true);
+        CsvStringSerializer<TestDTO> stringSerializer = CsvStringSerializer.of(TestDTO.class).withHeaderRow(true);
+
+        assertThat(header(byteSerializer) + serialize(byteSerializer, TEST_DTO),
+                equalTo(stringSerializer.apply(TEST_DTO)));
+    }
+
+    @Test
+    public void serializerWritesHeaderRowWithCustomNames() throws Exception {
+        CsvByteSerializer<TestDTO2> serializer = CsvByteSerializer.of(TestDTO2.class)
+                .withColumnSeparator('|')
+                .withHeaderRow(true);
+
+        assertThat(header(serializer), equalTo("Test two|Test one\n"));
+        assertThat(serialize(serializer, TEST_DTO2), equalTo("7|Foo\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void serializeThrowsIOExceptionForUnsupportedDataTypeInDTO() throws Exception {
+        CsvByteSerializer<DTOWithBadDataType> serializer = CsvByteSerializer.of(DTOWithBadDataType.class);
+
+        serialize(serializer, new DTOWithBadDataType("Foo", TEST_DTO));
+    }
+
+    private static <T> String serialize(ByteSerializer<T> serializer, T object) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.serialize(object, outputStream);
+        return outputStream.toString("UTF-8");
+    }
+
+    private static String header(ByteSerializer<?> serializer) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.writeHeader(outputStream);
+        return outputStream.toString("UTF-8");
+    }
+}
@@ -16,6 +16,13 @@
 package com.amazon.pocketEtl.loader;
 
 import com.amazon.pocketEtl.EtlMetrics;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.Table;
@@ -31,17 +38,23 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.collection.IsMapContaining.hasEntry;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
 import static org.hamcrest.core.IsCollectionContaining.hasItems;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -59,9 +72,18 @@ public class DynamoDbLoaderTest {
     @Mock
     private ObjectWriter writerMock;
 
+    @Mock
+    private AmazonDynamoDB ddbClientMock;
+
     @Captor
     private ArgumentCaptor<Item> tablePutItemCaptor;
 
+    @Captor
+    private ArgumentCaptor<BatchWriteItemRequest> batchWriteItemRequestCaptor;
+
+    private final static String TABLE_NAME = "itsatableyo";
+    private final static String TABLE_HASH_KEY = "id";
+
     @Before
     public void initializeMetrics() {
         when(metricsMock.createChildMetrics()).thenReturn(metricsMock);
@@ -153,6 +175,179 @@ public class DynamoDbLoaderTest {
         verify(metricsMock).addCount(eq("DynamoDbLoader.failure"), eq(1d));
     }
 
+    @Test
+    public void openCachesTheTable() throws Exception {
+        when(ddbMock.getTable(TABLE_NAME)).thenReturn(tableMock);
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withDynamoDb(ddbMock);
+
+        loader.open(metricsMock);
+        loader.load(new Thing("a", "2001", Lists.newArrayList()));
+        loader.load(new Thing("b", "2001", Lists.newArrayList()));
+        loader.close();
+
+        verify(ddbMock, times(1)).getTable(TABLE_NAME);
+        verify(tableMock, times(2)).putItem(any(Item.class));
+    }
+
+    @Test
+    public void loadBatchWritesItemsInGroupsOfTwentyFive() throws Exception {
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(new BatchWriteItemResult());
+        List<Thing> things = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            things.add(new Thing("id-" + i, "2001", Lists.newArrayList(i)));
+        }
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(things);
+        loader.close();
+
+        assertThat(failedThings, is(empty()));
+        verify(ddbClientMock, times(2)).batchWriteItem(batchWriteItemRequestCaptor.capture());
+        List<BatchWriteItemRequest> requests = batchWriteItemRequestCaptor.getAllValues();
+        assertThat(requests.get(0).getRequestItems().get(TABLE_NAME), hasSize(25));
+        assertThat(requests.get(1).getRequestItems().get(TABLE_NAME), hasSize(5));
+        assertThat(requests.get(1).getRequestItems().get(TABLE_NAME).get(4).getPutRequest().getItem().get(TABLE_HASH_KEY),
+                is(new AttributeValue("id-29")));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.success"), eq(25d));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.success"), eq(5d));
+    }
+
+    @Test
+    public void loadBatchCollapsesDuplicateKeys() throws Exception {
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(new BatchWriteItemResult());
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        loader.loadBatch(Lists.newArrayList(new Thing("a", "2001", Lists.newArrayList()),
+                new Thing("a", "2002", Lists.newArrayList())));
+        loader.close();
+
+        verify(ddbClientMock).batchWriteItem(batchWriteItemRequestCaptor.capture());
+        List<WriteRequest> writeRequests = batchWriteItemRequestCaptor.getValue().getRequestItems().get(TABLE_NAME);
+        assertThat(writeRequests, hasSize(1));
+        assertThat(writeRequests.get(0).getPutRequest().getItem().get("document").getM().get("year"),
+                is(new AttributeValue("2002")));
+    }
+
+    @Test
+    public void loadBatchRetriesUnprocessedItems() throws Exception {
+        Thing thingA = new Thing("a", "2001", Lists.newArrayList());
+        Thing thingB = new Thing("b", "2001", Lists.newArrayList());
+
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(unprocessedResult("b"))
+                .thenReturn(new BatchWriteItemResult());
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(Lists.newArrayList(thingA, thingB));
+        loader.close();
+
+        assertThat(failedThings, is(empty()));
+        verify(ddbClientMock, times(2)).batchWriteItem(batchWriteItemRequestCaptor.capture());
+        assertThat(batchWriteItemRequestCaptor.getAllValues().get(1).getRequestItems().get(TABLE_NAME), hasSize(1));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.unprocessedItems"), eq(1d));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.batchWriteRetries"), eq(1d));
+    }
+
+    @Test
+    public void loadBatchReturnsItemsStillUnprocessedAfterRetries() throws Exception {
+        Thing thingA = new Thing("a", "2001", Lists.newArrayList());
+        Thing thingB = new Thing("b", "2001", Lists.newArrayList());
+
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(unprocessedResult("b"));
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId)
+                .withClient(ddbClientMock)
+                .withMaxBatchWriteRetries(2);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(Lists.newArrayList(thingA, thingB));
+        loader.close();
+
+        assertThat(failedThings, contains(thingB));
+        verify(ddbClientMock, times(3)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.success"), eq(1d));
+    }
+
+    @Test
+    public void loadBatchReturnsTheWholeBatchIfTheWriteFails() throws Exception {
+        Thing thingA = new Thing("a", "2001", Lists.newArrayList());
+        Thing thingB = new Thing("b", "2001", Lists.newArrayList());
+
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(Lists.newArrayList(thingA, thingB));
+        loader.close();
+
+        assertThat(failedThings, contains(thingA, thingB));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.failure"), eq(2d));
+    }
+
+    @Test
+    public void loadBatchReturnsOnlyUnprocessedItemsIfARetryFails() throws Exception {
+        Thing thingA = new Thing("a", "2001", Lists.newArrayList());
+        Thing thingB = new Thing("b", "2001", Lists.newArrayList());
+
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(unprocessedResult("b"))
+                .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, Thing::getId).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(Lists.newArrayList(thingA, thingB));
+        loader.close();
+
+        assertThat(failedThings, contains(thingB));
+        verify(ddbClientMock, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.success"), eq(1d));
+        verify(metricsMock).addCount(eq("DynamoDbLoader.failure"), eq(1d));
+    }
+
+    @Test
+    public void loadBatchReturnsRecordsThatCannotBePrepared() throws Exception {
+        when(ddbClientMock.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(new BatchWriteItemResult());
+        Thing badThing = new Thing(null, "2001", Lists.newArrayList());
+        Thing goodThing = new Thing("a", "2001", Lists.newArrayList());
+
+        DynamoDbLoader<Thing> loader = DynamoDbLoader.of(TABLE_NAME, TABLE_HASH_KEY, (Thing thing) -> {
+            if (thing.getId() == null) {
+                throw new RuntimeException("Problem extracting");
+            }
+            return thing.getId();
+        }).withClient(ddbClientMock);
+
+        loader.open(metricsMock);
+        List<Thing> failedThings = loader.loadBatch(Lists.newArrayList(badThing, goodThing));
+        loader.close();
+
+        assertThat(failedThings, contains(badThing));
+        verify(ddbClientMock).batchWriteItem(batchWriteItemRequestCaptor.capture());
+        assertThat(batchWriteItemRequestCaptor.getValue().getRequestItems().get(TABLE_NAME), hasSize(1));
+    }
+
+    private static BatchWriteItemResult unprocessedResult(String... keys) {
+        List<WriteRequest> writeRequests = new ArrayList<>();
+
+        for (String key : keys) {
+            writeRequests.add(new WriteRequest(new PutRequest(
+                    Collections.singletonMap(TABLE_HASH_KEY, new AttributeValue(key)))));
+        }
+
+        return new BatchWriteItemResult().withUnprocessedItems(Collections.singletonMap(TABLE_NAME, writeRequests));
+    }
+
     static class Thing {
         public String id;
         public String year;
@@ -0,0 +1,462 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.google.common.collect.ImmutableList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JdbcBatchLoaderTest {
+    private static final String TABLE_NAME = "test_table";
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "name", "value");
+
+    private static final String TWO_ROW_INSERT_SQL =
+            "INSERT INTO test_table (id, name) VALUES (?, ?), (?, ?)";
+    private static final String ONE_ROW_INSERT_SQL =
+            "INSERT INTO test_table (id, name) VALUES (?, ?)";
+
+    @Data
+    @AllArgsConstructor
+    static class TestDTO {
+        private int id;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BinaryKeyDTO {
+        private byte[] id;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class UnsupportedDTO {
+        private Object anything;
+    }
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockStatement;
+
+    @Mock
+    private DatabaseMetaData mockMetaData;
+
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    @Before
+    public void initializeMocks() throws Exception {
+        when(mockMetrics.createChildMetrics()).thenReturn(mockMetrics);
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+    }
+
+    private JdbcBatchLoader<TestDTO> openLoader(JdbcBatchLoader.JdbcBatchLoaderSupplier<TestDTO> supplier) {
+        JdbcBatchLoader<TestDTO> loader = supplier.get();
+        loader.open(mockMetrics);
+        return loader;
+    }
+
+    private JdbcBatchLoader.JdbcBatchLoaderSupplier<TestDTO> supplier() {
+        return JdbcBatchLoader.supplierOf(mockDataSource, TABLE_NAME, TestDTO.class);
+    }
+
+    @Test
+    public void buildInsertSqlWritesAMultiRowInsert() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 2, ImmutableList.of(),
+                JdbcBatchLoader.UpsertSyntax.ON_CONFLICT);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?), (?, ?, ?)"));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnConflictUpsert() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 1, ImmutableList.of("id"),
+                JdbcBatchLoader.UpsertSyntax.ON_CONFLICT);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, value = EXCLUDED.value"));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnConflictDoNothingWhenEveryColumnIsAKey() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 1, COLUMN_NAMES,
+                JdbcBatchLoader.UpsertSyntax.ON_CONFLICT);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?) " +
+                "ON CONFLICT (id, name, value) DO NOTHING"));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnDuplicateKeyUpsert() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 1, ImmutableList.of("id", "name"),
+                JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE value = VALUES(value)"));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnDuplicateKeyUpsertWithARowAlias() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 2, ImmutableList.of("id"),
+                JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?), (?, ?, ?) AS new_row " +
+                "ON DUPLICATE KEY UPDATE name = new_row.name, value = new_row.value"));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnDuplicateKeyNoOpWithARowAliasWhenEveryColumnIsAKey() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 1, COLUMN_NAMES,
+                JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?) AS new_row " +
+                "ON DUPLICATE KEY UPDATE id = id"));
+    }
+
+    @Test
+    public void getUpsertSyntaxUsesRowAliasesFromMySql8019() {
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "8.0.19"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS));
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "8.4.0"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS));
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "9.0.1-commercial"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_ROW_ALIAS));
+    }
+
+    @Test
+    public void getUpsertSyntaxUsesValuesFunctionBeforeMySql8019() {
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "8.0.18"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES));
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "5.7.44-log"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES));
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", null),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES));
+    }
+
+    @Test
+    public void getUpsertSyntaxUsesValuesFunctionForMariaDb() {
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MariaDB", "11.4.2-MariaDB"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES));
+        assertThat(JdbcBatchLoader.getUpsertSyntax("MySQL", "5.5.5-10.11.8-MariaDB"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES));
+    }
+
+    @Test
+    public void getUpsertSyntaxUsesOnConflictForOtherDatabases() {
+        assertThat(JdbcBatchLoader.getUpsertSyntax("PostgreSQL", "16.3"),
+                equalTo(JdbcBatchLoader.UpsertSyntax.ON_CONFLICT));
+    }
+
+    @Test
+    public void buildInsertSqlWritesAnOnDuplicateKeyNoOpWhenEveryColumnIsAKey() {
+        String sql = JdbcBatchLoader.buildInsertSql(TABLE_NAME, COLUMN_NAMES, 1, COLUMN_NAMES,
+                JdbcBatchLoader.UpsertSyntax.ON_DUPLICATE_KEY_UPDATE_VALUES);
+
+        assertThat(sql, equalTo("INSERT INTO test_table (id, name, value) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE id = id"));
+    }
+
+    @Test
+    public void loadDoesNotWriteAnythingUntilTheBatchIsFull() {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(3));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.load(new TestDTO(2, "two"));
+
+        verifyZeroInteractions(mockDataSource);
+    }
+
+    @Test
+    public void loadWritesAFullBatchAsMultiRowStatementsAndCommits() throws Exception {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(4).withRowsPerStatement(2));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.load(new TestDTO(2, "two"));
+        loader.load(new TestDTO(3, "three"));
+        loader.load(new TestDTO(4, null));
+
+        InOrder inOrder = inOrder(mockConnection, mockStatement);
+        inOrder.verify(mockConnection).setAutoCommit(false);
+        inOrder.verify(mockConnection).prepareStatement(TWO_ROW_INSERT_SQL);
+        inOrder.verify(mockStatement).setObject(1, 1);
+        inOrder.verify(mockStatement).setObject(2, "one");
+        inOrder.verify(mockStatement).setObject(3, 2);
+        inOrder.verify(mockStatement).setObject(4, "two");
+        inOrder.verify(mockStatement).addBatch();
+        inOrder.verify(mockStatement).setObject(1, 3);
+        inOrder.verify(mockStatement).setObject(2, "three");
+        inOrder.verify(mockStatement).setObject(3, 4);
+        inOrder.verify(mockStatement).setNull(4, Types.VARCHAR);
+        inOrder.verify(mockStatement).addBatch();
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).commit();
+        verify(mockMetrics).addCount("JdbcBatchLoader.success", 4);
+    }
+
+    @Test
+    public void statementIsPreparedOnceAndReusedForEveryBatch() throws Exception {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(2).withRowsPerStatement(2));
+
+        for (int i = 0; i < 6; i++) {
+            loader.load(new TestDTO(i, "test"));
+        }
+
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).prepareStatement(TWO_ROW_INSERT_SQL);
+        verify(mockStatement, times(3)).executeBatch();
+        verify(mockConnection, times(3)).commit();
+    }
+
+    @Test
+    public void closeWritesTheRemainingRowsAndReleasesTheConnection() throws Exception {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(4).withRowsPerStatement(2));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.load(new TestDTO(2, "two"));
+        loader.load(new TestDTO(3, "three"));
+        loader.close();
+
+        InOrder inOrder = inOrder(mockConnection, mockStatement);
+        inOrder.verify(mockConnection).prepareStatement(TWO_ROW_INSERT_SQL);
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).prepareStatement(ONE_ROW_INSERT_SQL);
+        inOrder.verify(mockStatement).setObject(1, 3);
+        inOrder.verify(mockStatement).setObject(2, "three");
+        inOrder.verify(mockStatement).executeUpdate();
+        inOrder.verify(mockConnection).commit();
+        inOrder.verify(mockConnection).setAutoCommit(true);
+        inOrder.verify(mockConnection).close();
+    }
+
+    @Test
+    public void closeWithNothingLoadedDoesNotBorrowAConnection() throws Exception {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier());
+
+        loader.close();
+
+        verifyZeroInteractions(mockDataSource);
+    }
+
+    @Test
+    public void closeDoesNotChangeAutoCommitIfItWasAlreadyOff() throws Exception {
+        when(mockConnection.getAutoCommit()).thenReturn(false);
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier());
+
+        loader.load(new TestDTO(1, "one"));
+        loader.close();
+
+        verify(mockConnection, never()).setAutoCommit(false);
+        verify(mockConnection, never()).setAutoCommit(true);
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void failedBatchIsRolledBackAndFailsTheStream() throws Exception {
+        when(mockStatement.executeBatch()).thenThrow(new SQLException("Test exception"));
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(2).withRowsPerStatement(2));
+
+        loader.load(new TestDTO(1, "one"));
+
+        try {
+            loader.load(new TestDTO(2, "two"));
+            throw new AssertionError("Expected UnrecoverableStreamFailureException");
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause().getMessage(), equalTo("Test exception"));
+        }
+
+        verify(mockConnection).rollback();
+        verify(mockConnection, never()).commit();
+        verify(mockMetrics).addCount("JdbcBatchLoader.failure", 2);
+    }
+
+    @Test
+    public void rowsBoundBeforeAFailureAreNotWrittenWithTheNextBatch() throws Exception {
+        doThrow(new SQLException("Test exception")).when(mockStatement).setObject(1, 3);
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(4).withRowsPerStatement(2));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.load(new TestDTO(2, "two"));
+        loader.load(new TestDTO(3, "three"));
+
+        try {
+            loader.load(new TestDTO(4, "four"));
+            throw new AssertionError("Expected UnrecoverableStreamFailureException");
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause().getMessage(), equalTo("Test exception"));
+        }
+
+        for (int i = 5; i <= 8; i++) {
+            loader.load(new TestDTO(i, "test"));
+        }
+
+        InOrder inOrder = inOrder(mockConnection, mockStatement);
+        inOrder.verify(mockStatement).addBatch();
+        inOrder.verify(mockStatement).clearBatch();
+        inOrder.verify(mockConnection).rollback();
+        inOrder.verify(mockStatement, times(2)).addBatch();
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).commit();
+        verify(mockStatement, times(1)).executeBatch();
+    }
+
+    @Test
+    public void upsertUsesOnConflictForPostgres() throws Exception {
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withUpsert(ImmutableList.of("id")));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.close();
+
+        verify(mockConnection).prepareStatement(
+                "INSERT INTO test_table (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+    }
+
+    @Test
+    public void upsertUsesOnDuplicateKeyUpdateForMySql() throws Exception {
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getDatabaseProductName()).thenReturn("MySQL");
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withUpsert(ImmutableList.of("id")));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.close();
+
+        verify(mockConnection).prepareStatement(
+                "INSERT INTO test_table (id, name) VALUES (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)");
+    }
+
+    @Test
+    public void upsertUsesOnDuplicateKeyUpdateWithARowAliasForMySql8() throws Exception {
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(mockMetaData.getDatabaseProductVersion()).thenReturn("8.0.36");
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withUpsert(ImmutableList.of("id")));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.close();
+
+        verify(mockConnection).prepareStatement("INSERT INTO test_table (id, name) VALUES (?, ?) AS new_row " +
+                "ON DUPLICATE KEY UPDATE name = new_row.name");
+    }
+
+    @Test
+    public void upsertComparesBinaryKeysByContent() throws Exception {
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        JdbcBatchLoader<BinaryKeyDTO> loader = JdbcBatchLoader.supplierOf(mockDataSource, TABLE_NAME,
+                BinaryKeyDTO.class).withUpsert(ImmutableList.of("id")).withBatchSize(2).get();
+        loader.open(mockMetrics);
+
+        loader.load(new BinaryKeyDTO(new byte[] { 1, 2 }, "first"));
+        loader.load(new BinaryKeyDTO(new byte[] { 1, 2 }, "second"));
+
+        verify(mockConnection).prepareStatement(
+                "INSERT INTO test_table (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+        verify(mockStatement).setObject(2, "second");
+        verify(mockMetrics).addCount("JdbcBatchLoader.success", 2);
+    }
+
+    @Test
+    public void upsertKeepsOnlyTheLastRowForEachKeyInABatch() throws Exception {
+        when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withUpsert(ImmutableList.of("id")).withBatchSize(3));
+
+        loader.load(new TestDTO(1, "first"));
+        loader.load(new TestDTO(2, "two"));
+        loader.load(new TestDTO(1, "second"));
+
+        verify(mockConnection).prepareStatement("INSERT INTO test_table (id, name) VALUES (?, ?), (?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+        verify(mockStatement).setObject(1, 2);
+        verify(mockStatement).setObject(2, "two");
+        verify(mockStatement).setObject(3, 1);
+        verify(mockStatement).setObject(4, "second");
+        verify(mockMetrics).addCount("JdbcBatchLoader.success", 3);
+    }
+
+    @Test
+    public void rowsPerStatementIsLimitedToTheBatchSize() throws Exception {
+        JdbcBatchLoader<TestDTO> loader = openLoader(supplier().withBatchSize(2).withRowsPerStatement(100));
+
+        loader.load(new TestDTO(1, "one"));
+        loader.load(new TestDTO(2, "two"));
+
+        verify(mockConnection).prepareStatement(TWO_ROW_INSERT_SQL);
+        verify(mockStatement).executeBatch();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withBatchSizeThrowsIllegalArgumentExceptionIfLessThanOne() {
+        supplier().withBatchSize(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRowsPerStatementThrowsIllegalArgumentExceptionIfLessThanOne() {
+        supplier().withRowsPerStatement(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withUpsertThrowsIllegalArgumentExceptionForAnUnknownColumn() {
+        supplier().withUpsert(ImmutableList.of("unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withUpsertThrowsIllegalArgumentExceptionForNoColumns() {
+        supplier().withUpsert(ImmutableList.of());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void supplierOfThrowsIllegalArgumentExceptionForAnUnsupportedPropertyType() {
+        JdbcBatchLoader.supplierOf(mockDataSource, TABLE_NAME, UnsupportedDTO.class);
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.parquet.ParquetCompressionCodec;
+import com.amazon.pocketEtl.integration.parquet.ParquetFileReader;
+import com.amazon.pocketEtl.integration.parquet.ParquetSource;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ParquetS3LoaderTest {
+    private static final byte[] MAGIC = new byte[] { 'P', 'A', 'R', '1' };
+    private static final String S3_BUCKET = "aS3Bucket";
+    private static final String KMS_KEY = "KmsKey";
+    private static final int ONE_MIB = 1024 * 1024;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class TestDTO {
+        private int id;
+        private String name;
+    }
+
+    @Mock
+    private AmazonS3 mockAmazonS3;
+
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    private final List<InitiateMultipartUploadRequest> initiateRequests = new ArrayList<>();
+    private final Map<String, byte[]> uploadedParts = new ConcurrentHashMap<>();
+    private final List<byte[]> partFiles = new ArrayList<>();
+
+    @Before
+    public void initializeMetrics() {
+        when(mockMetrics.createChildMetrics()).thenReturn(mockMetrics);
+    }
+
+    // Each upload is given its key as its id, and its parts are joined back together into a part file when it completes
+    private void captureS3Writes() {
+        when(mockAmazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadRequest request = invocation.getArgument(0);
+            initiateRequests.add(request);
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId(request.getKey());
+            return result;
+        });
+
+        when(mockAmazonS3.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedParts.put(request.getUploadId() + "#" + request.getPartNumber(),
+                    ByteStreams.toByteArray(request.getInputStream()));
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+
+        when(mockAmazonS3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            CompleteMultipartUploadRequest request = invocation.getArgument(0);
+            ByteArrayOutputStream partFile = new ByteArrayOutputStream();
+
+            for (PartETag partETag : request.getPartETags()) {
+                partFile.write(uploadedParts.get(request.getUploadId() + "#" + partETag.getPartNumber()));
+            }
+
+            partFiles.add(partFile.toByteArray());
+            return new CompleteMultipartUploadResult();
+        });
+    }
+
+    @Test
+    public void closeWritesBufferedRowsAsParquetPartFile() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        loadAndClose(loader, 3);
+
+        assertThat(partFiles, hasSize(1));
+        assertThat(initiateRequests.get(0).getBucketName(), equalTo(S3_BUCKET));
+        assertThat(initiateRequests.get(0).getKey(), equalTo("PocketETL/01/part-00001.parquet"));
+        assertThat(readPartFile(0), equalTo(ImmutableList.of(new TestDTO(0, "name0"), new TestDTO(1, "name1"),
+                new TestDTO(2, "name2"))));
+        assertThat(Arrays.copyOfRange(partFiles.get(0), 0, 4), equalTo(MAGIC));
+        assertThat(Arrays.copyOfRange(partFiles.get(0), partFiles.get(0).length - 4, partFiles.get(0).length),
+                equalTo(MAGIC));
+    }
+
+    @Test
+    public void loaderStartsNewPartFileWhenMaxSizeIsReached() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withMaxPartFileSizeInBytes(1)
+                .withS3PartFileKeyGenerator((sequence, part) -> sequence + "/" + part)
+                .get();
+
+        loadAndClose(loader, 3);
+
+        assertThat(initiateRequests.stream().map(InitiateMultipartUploadRequest::getKey).toArray(),
+                equalTo(new Object[] { "1/1", "1/2", "1/3" }));
+        assertThat(partFiles, hasSize(3));
+    }
+
+    @Test
+    public void smallRowGroupsAreWrittenToTheSamePartFile() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withRowGroupSizeInBytes(1)
+                .withCompression(ParquetCompressionCodec.UNCOMPRESSED)
+                .get();
+
+        loadAndClose(loader, 3);
+
+        assertThat(partFiles, hasSize(1));
+    }
+
+    @Test
+    public void suppliedLoadersWriteToDifferentKeys() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader.ParquetS3LoaderSupplier<TestDTO> supplier = ParquetS3Loader.supplierOf(S3_BUCKET,
+                TestDTO.class).withClient(mockAmazonS3);
+
+        loadAndClose(supplier.get(), 1);
+        loadAndClose(supplier.get(), 1);
+
+        assertThat(initiateRequests.stream().map(InitiateMultipartUploadRequest::getKey).toArray(),
+                equalTo(new Object[] { "PocketETL/01/part-00001.parquet", "PocketETL/02/part-00001.parquet" }));
+    }
+
+    @Test
+    public void loaderWithSSEKmsArnEncryptsPartFiles() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withSSEKmsArn(KMS_KEY)
+                .get();
+
+        loadAndClose(loader, 1);
+
+        assertThat(initiateRequests.get(0).getSSEAwsKeyManagementParams().getAwsKmsKeyId(), equalTo(KMS_KEY));
+    }
+
+    @Test
+    public void closeWithNothingLoadedWritesNothing() throws Exception {
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        loadAndClose(loader, 0);
+
+        verify(mockAmazonS3, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+        assertThat(partFiles, empty());
+    }
+
+    @Test
+    public void rowGroupsAreUploadedBeforeThePartFileIsComplete() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withCompression(ParquetCompressionCodec.UNCOMPRESSED)
+                .withRowGroupSizeInBytes(ONE_MIB)
+                .withMultipartPartSizeInBytes(ONE_MIB * 5)
+                .get();
+        List<TestDTO> rows = new ArrayList<>();
+
+        // Unique names of 1 KiB that neither dictionary encoding nor compression can shrink
+        for (int i = 0; i < 12 * 1024; i++) {
+            rows.add(new TestDTO(i, Strings.padStart(Integer.toString(i), 1024, 'x')));
+        }
+
+        loader.open(mockMetrics);
+        rows.forEach(loader::load);
+
+        verify(mockAmazonS3, timeout(5000).times(2)).uploadPart(any(UploadPartRequest.class));
+        verify(mockAmazonS3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+
+        loader.close();
+
+        assertThat(partFiles, hasSize(1));
+        assertThat(readPartFile(0), equalTo(rows));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMultipartPartSizeInBytesSmallerThanS3AllowsThrowsIllegalArgumentException() {
+        ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class).withMultipartPartSizeInBytes(ONE_MIB * 5 - 1);
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void loadThrowsUnrecoverableStreamFailureExceptionIfUploadCannotBeStarted() throws Exception {
+        when(mockAmazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class)))
+                .thenThrow(new AmazonClientException("error"));
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        loadAndClose(loader, 1);
+    }
+
+    @Test(expected = UnrecoverableStreamFailureException.class)
+    public void closeThrowsUnrecoverableStreamFailureExceptionIfS3WriteFails() throws Exception {
+        captureS3Writes();
+        when(mockAmazonS3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenThrow(new AmazonClientException("error"));
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        loadAndClose(loader, 1);
+    }
+
+    @Test
+    public void s3WriteEmitsSuccessMetric() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .get();
+
+        loadAndClose(loader, 1);
+
+        verify(mockMetrics).addCount("ParquetS3Loader.success", 1);
+        verify(mockMetrics).addCount("ParquetS3Loader.failure", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withRowGroupSizeInBytesOfZeroThrowsIllegalArgumentException() {
+        ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class).withRowGroupSizeInBytes(0);
+    }
+
+    @Test
+    public void withRowGroupSizeInBytesOfNullUsesTheDefault() throws Exception {
+        captureS3Writes();
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withRowGroupSizeInBytes(null)
+                .get();
+
+        loadAndClose(loader, 3);
+
+        assertThat(partFiles, hasSize(1));
+    }
+
+    @Test
+    public void loadAbortsThePartFileUploadIfAPartFailsToUpload() throws Exception {
+        when(mockAmazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class)))
+                .thenReturn(new InitiateMultipartUploadResult());
+        when(mockAmazonS3.uploadPart(any(UploadPartRequest.class))).thenThrow(new AmazonClientException("error"));
+        ParquetS3Loader<TestDTO> loader = ParquetS3Loader.supplierOf(S3_BUCKET, TestDTO.class)
+                .withClient(mockAmazonS3)
+                .withCompression(ParquetCompressionCodec.UNCOMPRESSED)
+                .withRowGroupSizeInBytes(ONE_MIB)
+                .withMultipartPartSizeInBytes(ONE_MIB * 5)
+                .get();
+        UnrecoverableStreamFailureException loadException = null;
+
+        loader.open(mockMetrics);
+
+        // The failed part is reported by the first row group written after it has finished uploading
+        for (int i = 0; i < 64 * 1024 && loadException == null; i++) {
+            try {
+                loader.load(new TestDTO(i, Strings.padStart(Integer.toString(i), 1024, 'x')));
+            } catch (UnrecoverableStreamFailureException e) {
+                loadException = e;
+            }
+        }
+
+        loader.close();
+
+        assertThat(loadException, notNullValue());
+        verify(mockAmazonS3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(mockAmazonS3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    private List<TestDTO> readPartFile(int index) throws Exception {
+        List<TestDTO> rows = new ArrayList<>();
+        new ParquetFileReader<>(ParquetSource.of(partFiles.get(index)), TestDTO.class, null)
+                .forEachRemaining(rows::add);
+        return rows;
+    }
+
+    private void loadAndClose(ParquetS3Loader<TestDTO> loader, int rows) throws Exception {
+        loader.open(mockMetrics);
+
+        for (int i = 0; i < rows; i++) {
+            loader.load(new TestDTO(i, "name" + i));
+        }
+
+        loader.close();
+    }
+}
@@ -15,13 +15,17 @@
 
 package com.amazon.pocketEtl.loader;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 import java.util.List;
 
@@ -31,6 +35,7 @@ import com.google.common.collect.ImmutableList;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -38,9 +43,17 @@ import com.amazon.pocketEtl.EtlMetrics;
 import com.amazon.pocketEtl.EtlTestBase;
 import com.amazon.pocketEtl.Loader;
 import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+import com.amazon.pocketEtl.integration.RedshiftCopyFormat;
 import com.amazon.pocketEtl.integration.RedshiftJdbcClient;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RedshiftBulkLoaderTest extends EtlTestBase {
@@ -127,7 +140,8 @@ public class RedshiftBulkLoaderTest extends EtlTestBase {
         redshiftLoader.close();
 
         verify(mockRedshiftJdbcClient).copyAndMerge(eq(EXTRACT_COLUMN_NAMES), eq(KEY_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
-                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(mockMetrics));
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.DELIMITED), isNull(),
+                eq(mockMetrics));
     }
 
     @Test(expected = UnrecoverableStreamFailureException.class)
@@ -135,7 +149,8 @@ public class RedshiftBulkLoaderTest extends EtlTestBase {
         doThrow(new RuntimeException("Something went wrong")).when(mockRedshiftJdbcClient)
                                                              .copyAndMerge(anyList(), anyList(), anyString(),
                                                                            anyString(), anyString(), anyString(),
-                                                                           anyString(), any(EtlMetrics.class));
+                                                                           anyString(), any(RedshiftCopyFormat.class),
+                                                                          isNull(), any(EtlMetrics.class));
 
         Loader<TestDTO> redshiftLoader = getMinimalLoaderSupplier()
             .withAmazonS3(mockAmazonS3)
@@ -165,7 +180,8 @@ public class RedshiftBulkLoaderTest extends EtlTestBase {
         redshiftLoader.close();
 
         verify(mockRedshiftJdbcClient).copyAndMerge(eq(EXTRACT_COLUMN_NAMES), eq(KEY_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
-                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(mockMetrics));
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.DELIMITED), isNull(),
+                eq(mockMetrics));
     }
 
     @Test
@@ -181,7 +197,8 @@ public class RedshiftBulkLoaderTest extends EtlTestBase {
         redshiftLoader.close();
 
         verify(mockRedshiftJdbcClient).deleteAndCopy(eq(EXTRACT_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
-                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(mockMetrics));
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.DELIMITED), isNull(),
+                eq(mockMetrics));
     }
 
     @Test
@@ -224,6 +241,109 @@ public class RedshiftBulkLoaderTest extends EtlTestBase {
         verifyNoMoreInteractions(mockRedshiftJdbcClient);
     }
 
+    @Test
+    public void loaderWithCompressionWritesCompressedFilesAndCopiesWithCompression() throws Exception {
+        Loader<TestDTO> redshiftLoader = getMinimalLoaderSupplier()
+                .withAmazonS3(mockAmazonS3)
+                .withCompression(S3CompressionCodec.GZIP)
+                .withRedshiftJdbcClient(mockRedshiftJdbcClient)
+                .get();
+
+        redshiftLoader.open(etlProfilingScope.getMetrics());
+        redshiftLoader.load(OBJECT_TO_WRITE);
+        redshiftLoader.close();
+
+        ArgumentCaptor<PutObjectRequest> putObjectRequestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(mockAmazonS3).putObject(putObjectRequestCaptor.capture());
+        assertThat(putObjectRequestCaptor.getValue().getKey(), endsWith(".csv.gz"));
+        verify(mockRedshiftJdbcClient).copyAndMerge(eq(EXTRACT_COLUMN_NAMES), eq(KEY_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.DELIMITED),
+                eq("gzip"), eq(mockMetrics));
+    }
+
+    @Test
+    public void loaderWithZstdCompressionWritesZstdFilesAndCopiesWithZstd() throws Exception {
+        Loader<TestDTO> redshiftLoader = getMinimalLoaderSupplier()
+                .withAmazonS3(mockAmazonS3)
+                .withCompression(S3CompressionCodec.ZSTD)
+                .withRedshiftJdbcClient(mockRedshiftJdbcClient)
+                .get();
+
+        redshiftLoader.open(etlProfilingScope.getMetrics());
+        redshiftLoader.load(OBJECT_TO_WRITE);
+        redshiftLoader.close();
+
+        ArgumentCaptor<PutObjectRequest> putObjectRequestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(mockAmazonS3).putObject(putObjectRequestCaptor.capture());
+        assertThat(putObjectRequestCaptor.getValue().getKey(), endsWith(".csv.zst"));
+        verify(mockRedshiftJdbcClient).copyAndMerge(eq(EXTRACT_COLUMN_NAMES), eq(KEY_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.DELIMITED),
+                eq("zstd"), eq(mockMetrics));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void loaderWithCompressionThatRedshiftCannotLoadThrowsIllegalArgumentException() {
+        getMinimalLoaderSupplier()
+                .withCompression(S3CompressionCodec.LZ4)
+                .get();
+    }
+
+    @Test
+    public void loaderWithParquetCopyFormatWritesParquetFilesAndCopiesAsParquet() throws Exception {
+        stubMultipartUploads();
+        Loader<TestDTO> redshiftLoader = getMinimalLoaderSupplier()
+                .withAmazonS3(mockAmazonS3)
+                .withCopyFormat(RedshiftCopyFormat.PARQUET)
+                .withCompression(S3CompressionCodec.GZIP)
+                .withRedshiftJdbcClient(mockRedshiftJdbcClient)
+                .get();
+
+        redshiftLoader.open(etlProfilingScope.getMetrics());
+        redshiftLoader.load(OBJECT_TO_WRITE);
+        redshiftLoader.close();
+
+        ArgumentCaptor<InitiateMultipartUploadRequest> initiateRequestCaptor =
+                ArgumentCaptor.forClass(InitiateMultipartUploadRequest.class);
+        verify(mockAmazonS3).initiateMultipartUpload(initiateRequestCaptor.capture());
+        assertThat(initiateRequestCaptor.getValue().getKey(), endsWith(".parquet"));
+        verify(mockRedshiftJdbcClient).copyAndMerge(eq(EXTRACT_COLUMN_NAMES), eq(KEY_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.PARQUET), isNull(),
+                eq(mockMetrics));
+    }
+
+    @Test
+    public void loaderWithParquetCopyFormatDeletesAndCopiesAsParquet() throws Exception {
+        stubMultipartUploads();
+        Loader<TestDTO> redshiftLoader = getMinimalLoaderSupplier()
+                .withAmazonS3(mockAmazonS3)
+                .withCopyFormat(RedshiftCopyFormat.PARQUET)
+                .withLoadStrategy(RedshiftLoadStrategy.CLOBBER_EXISTING_DATA)
+                .withRedshiftJdbcClient(mockRedshiftJdbcClient)
+                .get();
+
+        redshiftLoader.open(etlProfilingScope.getMetrics());
+        redshiftLoader.load(OBJECT_TO_WRITE);
+        redshiftLoader.close();
+
+        verify(mockRedshiftJdbcClient).deleteAndCopy(eq(EXTRACT_COLUMN_NAMES), eq(DESTINATION_TABLE_NAME),
+                eq(S3_BUCKET), anyString(), eq(S3_REGION), eq(IAM_ROLE), eq(RedshiftCopyFormat.PARQUET), isNull(),
+                eq(mockMetrics));
+    }
+
+    private void stubMultipartUploads() {
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("anUploadId");
+        when(mockAmazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiateResult);
+
+        UploadPartResult uploadPartResult = new UploadPartResult();
+        uploadPartResult.setPartNumber(1);
+        uploadPartResult.setETag("anETag");
+        when(mockAmazonS3.uploadPart(any(UploadPartRequest.class))).thenReturn(uploadPartResult);
+
+        when(mockAmazonS3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+    }
+
     private RedshiftBulkLoader.RedshiftBulkLoaderSupplier<TestDTO> getMinimalLoaderSupplier() {
         return RedshiftBulkLoader.supplierOf(TestDTO.class)
                 .withS3Bucket(S3_BUCKET)
@@ -0,0 +1,157 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlTestBase;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3FastLoaderAsynchronousFlushTest extends EtlTestBase {
+    private static final String S3_BUCKET = "aS3Bucket";
+    private static final String S3_PREFIX = "aGoodPrefix";
+    private static final int BUFFER_SIZE = 10;
+
+    private final CapturedS3Objects writtenObjects = new CapturedS3Objects();
+    private S3FastLoader<Object> s3FastLoader;
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    @Mock
+    private Supplier<StringSerializer<Object>> mockStringSerializerProvider;
+
+    @Mock
+    private StringSerializer<Object> mockStringSerializer;
+
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    @Before
+    public void buildS3Loader() {
+        s3FastLoader = S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider)
+                .withClient(s3Client)
+                .withS3PartFileKeyGenerator(($, partNum) -> S3_PREFIX + "/" + partNum)
+                .withMaxPartFileSizeInBytes(BUFFER_SIZE)
+                .withAsynchronousFlush(2)
+                .get();
+    }
+
+    @Before
+    public void initializeSerializer() {
+        when(mockStringSerializerProvider.get()).thenReturn(mockStringSerializer);
+    }
+
+    @Test
+    public void closeWaitsForEveryBufferToBeWritten() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadStrings("12345", "67890A", "BCDEF", "GHIJKLM");
+        s3FastLoader.close();
+
+        assertThat(writtenObjects.getContentsAsStringsByKey(), equalTo(ImmutableMap.of(
+                S3_PREFIX + "/1", "12345",
+                S3_PREFIX + "/2", "67890A",
+                S3_PREFIX + "/3", "BCDEF",
+                S3_PREFIX + "/4", "GHIJKLM")));
+    }
+
+    @Test(timeout = 10000)
+    public void loadDoesNotWaitForBuffersBeingWritten() throws Exception {
+        CountDownLatch putObjectLatch = new CountDownLatch(1);
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            putObjectLatch.await();
+            return writtenObjects.capture(invocation.getArgument(0));
+        });
+
+        // Two buffers are flushed while the writes are blocked
+        loadStrings("12345", "67890A", "BCDEF");
+
+        putObjectLatch.countDown();
+        s3FastLoader.close();
+
+        assertThat(writtenObjects.size(), equalTo(3));
+    }
+
+    @Test
+    public void writeFailureIsThrownByClose() throws Exception {
+        AmazonClientException s3Exception = new AmazonClientException("oh no!");
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenThrow(s3Exception);
+        loadStrings("12345", "67890A");
+
+        try {
+            s3FastLoader.close();
+            fail("Expected UnrecoverableStreamFailureException");
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause(), is(s3Exception));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void writeFailureIsThrownByNextLoad() throws Exception {
+        AmazonClientException s3Exception = new AmazonClientException("oh no!");
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenThrow(s3Exception);
+        when(mockStringSerializer.apply(any())).thenReturn("123456789");
+        s3FastLoader.open(mockMetrics);
+        s3FastLoader.load(new Object());
+        s3FastLoader.load(new Object());
+        verify(s3Client, timeout(5000)).putObject(any(PutObjectRequest.class));
+
+        try {
+            while (true) {
+                s3FastLoader.load(new Object());
+                Thread.sleep(10);
+            }
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause(), is(s3Exception));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxFlushesInFlightOfZeroThrowsIllegalArgumentException() {
+        S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider).withAsynchronousFlush(0);
+    }
+
+    private void loadStrings(String... strings) {
+        when(mockStringSerializer.apply(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        s3FastLoader.open(mockMetrics);
+
+        for (String string : strings) {
+            s3FastLoader.load(string);
+        }
+    }
+}
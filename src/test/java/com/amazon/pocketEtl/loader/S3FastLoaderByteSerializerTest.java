@@ -0,0 +1,188 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlTestBase;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3FastLoaderByteSerializerTest extends EtlTestBase {
+    private static final String S3_BUCKET = "aS3Bucket";
+    private static final String HEADER = "header\n";
+    private static final int MAX_FILE_SIZE = 100;
+    private static final int NUMBER_OF_RECORDS = 50;
+
+    private final CapturedS3Objects writtenObjects = new CapturedS3Objects();
+    private final AtomicInteger serializeCount = new AtomicInteger(0);
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    private final ByteSerializer<Object> byteSerializer = new ByteSerializer<Object>() {
+        @Override
+        public void serialize(Object objectToSerialize, OutputStream outputStream) throws IOException {
+            serializeCount.incrementAndGet();
+            outputStream.write(toRecord(objectToSerialize).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeHeader(OutputStream outputStream) throws IOException {
+            outputStream.write(HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    private S3FastLoader.S3FastLoaderSupplier<Object> getLoaderSupplier() {
+        return S3FastLoader.supplierOf(S3_BUCKET, byteSerializer)
+                .withClient(s3Client)
+                .withMaxPartFileSizeInBytes(MAX_FILE_SIZE);
+    }
+
+    @Test
+    public void everyPartFileStartsWithTheHeader() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        assertThat(writtenObjects.size(), greaterThan(1));
+
+        for (String writtenFile : writtenObjects.getContentsAsStrings()) {
+            assertThat(writtenFile, startsWith(HEADER));
+            assertThat(writtenFile.length(), lessThanOrEqualTo(MAX_FILE_SIZE));
+        }
+    }
+
+    @Test
+    public void partFilesContainEverythingLoaded() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        String loadedRecords = writtenObjects.getContentsAsStrings().stream()
+                .map(writtenFile -> writtenFile.substring(HEADER.length()))
+                .collect(Collectors.joining());
+
+        assertThat(loadedRecords, equalTo(expectedRecords()));
+    }
+
+    @Test
+    public void eachObjectIsOnlySerializedOnce() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        assertThat(serializeCount.get(), equalTo(NUMBER_OF_RECORDS));
+    }
+
+    @Test
+    public void objectTooLargeForAPartFileIsWrittenToItsOwnPartFile() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        S3FastLoader<Object> s3FastLoader = getLoaderSupplier().get();
+        String largeObject = IntStream.range(0, MAX_FILE_SIZE).mapToObj(i -> "x").collect(Collectors.joining());
+
+        s3FastLoader.open(null);
+        s3FastLoader.load(1);
+        s3FastLoader.load(largeObject);
+        s3FastLoader.load(2);
+        s3FastLoader.close();
+
+        List<String> writtenFiles = writtenObjects.getContentsAsStrings();
+        assertThat(writtenFiles.size(), equalTo(3));
+        assertThat(writtenFiles.get(0), equalTo(HEADER + toRecord(1)));
+        assertThat(writtenFiles.get(1), equalTo(HEADER + toRecord(largeObject)));
+        assertThat(writtenFiles.get(2), equalTo(HEADER + toRecord(2)));
+    }
+
+    @Test
+    public void nothingIsWrittenIfNothingIsLoaded() throws Exception {
+        S3FastLoader<Object> s3FastLoader = getLoaderSupplier().get();
+
+        s3FastLoader.open(null);
+        s3FastLoader.close();
+
+        assertThat(writtenObjects.size(), equalTo(0));
+    }
+
+    @Test
+    public void multipartUploadStartsWithTheHeader() throws Exception {
+        List<String> uploadedParts = new ArrayList<>();
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("anUploadId");
+            return result;
+        });
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedParts.add(new String(IOUtils.toByteArray(request.getInputStream()), StandardCharsets.UTF_8));
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag");
+            return result;
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+
+        loadRecords(getLoaderSupplier()
+                .withMaxPartFileSizeInBytes(S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES)
+                .withMultipartUpload(S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES, 2)
+                .get());
+
+        assertThat(uploadedParts.size(), equalTo(1));
+        assertThat(uploadedParts.get(0), equalTo(HEADER + expectedRecords()));
+        assertThat(serializeCount.get(), equalTo(NUMBER_OF_RECORDS));
+    }
+
+    private void loadRecords(S3FastLoader<Object> s3FastLoader) throws Exception {
+        s3FastLoader.open(null);
+        IntStream.range(0, NUMBER_OF_RECORDS).forEach(s3FastLoader::load);
+        s3FastLoader.close();
+    }
+
+    private static String toRecord(Object object) {
+        return "record " + object + "\n";
+    }
+
+    private String expectedRecords() {
+        return IntStream.range(0, NUMBER_OF_RECORDS)
+                .mapToObj(S3FastLoaderByteSerializerTest::toRecord)
+                .collect(Collectors.joining());
+    }
+}
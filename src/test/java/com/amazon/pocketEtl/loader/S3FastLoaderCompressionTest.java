@@ -0,0 +1,162 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlTestBase;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3FastLoaderCompressionTest extends EtlTestBase {
+    private static final String S3_BUCKET = "aS3Bucket";
+    private static final String S3_PREFIX = "aGoodPrefix";
+    private static final int MAX_FILE_SIZE = 200;
+    private static final int NUMBER_OF_RECORDS = 200;
+
+    private final CapturedS3Objects writtenObjects = new CapturedS3Objects();
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    private final StringSerializer<Object> stringSerializer = object -> "record number " + object + "\n";
+
+    private S3FastLoader.S3FastLoaderSupplier<Object> getLoaderSupplier() {
+        return S3FastLoader.supplierOf(S3_BUCKET, () -> stringSerializer)
+                .withClient(s3Client)
+                .withS3PartFileKeyGenerator(($, partNum) -> S3_PREFIX + "/" + partNum + ".csv")
+                .withMaxPartFileSizeInBytes(MAX_FILE_SIZE)
+                .withCompression(S3CompressionCodec.GZIP);
+    }
+
+    @Test
+    public void partFilesDecompressToEverythingLoaded() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        StringBuilder decompressedFiles = new StringBuilder();
+
+        for (byte[] writtenFile : writtenObjects.getContents()) {
+            decompressedFiles.append(new String(CompressingPartWriterTest.gunzip(writtenFile)));
+        }
+
+        assertThat(decompressedFiles.toString(), equalTo(expectedContent()));
+    }
+
+    @Test
+    public void maxPartFileSizeAppliesToCompressedSize() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        for (byte[] writtenFile : writtenObjects.getContents()) {
+            assertThat(writtenFile.length, lessThanOrEqualTo(MAX_FILE_SIZE));
+        }
+
+        assertThat(writtenObjects.size(), lessThan(expectedContent().length() / MAX_FILE_SIZE));
+    }
+
+    @Test
+    public void partFileKeysHaveTheCodecExtension() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        assertThat(writtenObjects.getKeys().get(0), equalTo(S3_PREFIX + "/1.csv.gz"));
+        assertThat(writtenObjects.getKeys().get(1), equalTo(S3_PREFIX + "/2.csv.gz"));
+    }
+
+    @Test
+    public void partFilesHaveTheCodecContentEncoding() throws Exception {
+        writtenObjects.stubPutObjectToCapture(s3Client);
+        loadRecords(getLoaderSupplier().get());
+
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client, atLeastOnce()).putObject(requestCaptor.capture());
+
+        assertThat(requestCaptor.getValue().getMetadata().getContentEncoding(), equalTo("gzip"));
+    }
+
+    @Test
+    public void multipartUploadIsCompressed() throws Exception {
+        List<byte[]> uploadedParts = new ArrayList<>();
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("anUploadId");
+            return result;
+        });
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedParts.add(IOUtils.toByteArray(request.getInputStream()));
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag");
+            return result;
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+
+        loadRecords(getLoaderSupplier()
+                .withMaxPartFileSizeInBytes(S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES)
+                .withMultipartUpload(S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES, 2)
+                .get());
+
+        ArgumentCaptor<InitiateMultipartUploadRequest> requestCaptor =
+                ArgumentCaptor.forClass(InitiateMultipartUploadRequest.class);
+        verify(s3Client).initiateMultipartUpload(requestCaptor.capture());
+
+        assertThat(requestCaptor.getValue().getKey(), equalTo(S3_PREFIX + "/1.csv.gz"));
+        assertThat(requestCaptor.getValue().getObjectMetadata().getContentEncoding(), equalTo("gzip"));
+        assertThat(uploadedParts.size(), equalTo(1));
+        assertThat(new String(CompressingPartWriterTest.gunzip(uploadedParts.get(0))), equalTo(expectedContent()));
+    }
+
+    private void loadRecords(S3FastLoader<Object> s3FastLoader) throws Exception {
+        s3FastLoader.open(null);
+        IntStream.range(0, NUMBER_OF_RECORDS).forEach(s3FastLoader::load);
+        s3FastLoader.close();
+    }
+
+    private String expectedContent() {
+        return IntStream.range(0, NUMBER_OF_RECORDS)
+                .mapToObj(stringSerializer::apply)
+                .collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package com.amazon.pocketEtl.loader;
+
+import com.amazon.pocketEtl.EtlMetrics;
+import com.amazon.pocketEtl.EtlTestBase;
+import com.amazon.pocketEtl.Loader;
+import com.amazon.pocketEtl.exception.UnrecoverableStreamFailureException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3FastLoaderMultipartTest extends EtlTestBase {
+    private static final String S3_BUCKET = "aS3Bucket";
+    private static final String S3_PREFIX = "aGoodPrefix";
+    private static final String KMS_KEY = "KmsKey";
+    private static final String UPLOAD_ID = "anUploadId";
+    private static final int ONE_MIB = 1024 * 1024;
+    private static final int PART_SIZE = ONE_MIB * 5;
+    private static final int MAX_FILE_SIZE = ONE_MIB * 12;
+    private static final String ONE_MIB_STRING = Strings.repeat("a", ONE_MIB);
+
+    private final Map<String, Long> uploadedPartSizes = new ConcurrentHashMap<>();
+    private S3FastLoader<Object> s3FastLoader;
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    @Mock
+    private Supplier<StringSerializer<Object>> mockStringSerializerProvider;
+
+    @Mock
+    private StringSerializer<Object> mockStringSerializer;
+
+    @Mock
+    private EtlMetrics mockMetrics;
+
+    @Captor
+    private ArgumentCaptor<InitiateMultipartUploadRequest> initiateRequestCaptor;
+
+    @Captor
+    private ArgumentCaptor<CompleteMultipartUploadRequest> completeRequestCaptor;
+
+    @Before
+    public void buildS3Loader() {
+        s3FastLoader = S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider)
+                .withClient(s3Client)
+                .withS3PartFileKeyGenerator(($, partNum) -> S3_PREFIX + "/" + partNum)
+                .withMaxPartFileSizeInBytes(MAX_FILE_SIZE)
+                .withSSEKmsArn(KMS_KEY)
+                .withMultipartUpload(PART_SIZE, 3)
+                .get();
+    }
+
+    @Before
+    public void initializeMetrics() {
+        when(mockMetrics.createChildMetrics()).thenReturn(mockMetrics);
+    }
+
+    @Before
+    public void initializeSerializer() {
+        when(mockStringSerializerProvider.get()).thenReturn(mockStringSerializer);
+        when(mockStringSerializer.apply(any())).thenReturn(ONE_MIB_STRING);
+    }
+
+    @Before
+    public void initializeS3Client() {
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId(UPLOAD_ID);
+            return result;
+        });
+
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedPartSizes.put(request.getKey() + "#" + request.getPartNumber(), request.getPartSize());
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+    }
+
+    @Test
+    public void closeCompletesUploadWithEveryPart() throws Exception {
+        loadRecords(7);
+        s3FastLoader.close();
+
+        verify(s3Client).completeMultipartUpload(completeRequestCaptor.capture());
+        CompleteMultipartUploadRequest request = completeRequestCaptor.getValue();
+
+        assertThat(request.getBucketName(), equalTo(S3_BUCKET));
+        assertThat(request.getKey(), equalTo(S3_PREFIX + "/1"));
+        assertThat(request.getUploadId(), equalTo(UPLOAD_ID));
+        assertThat(request.getPartETags().stream().map(PartETag::getPartNumber).collect(Collectors.toList()),
+                equalTo(ImmutableList.of(1, 2)));
+        assertThat(uploadedPartSizes.get(S3_PREFIX + "/1#1"), equalTo((long) PART_SIZE));
+        assertThat(uploadedPartSizes.get(S3_PREFIX + "/1#2"), equalTo((long) ONE_MIB * 2));
+    }
+
+    @Test
+    public void partsAreUploadedBeforeTheFileIsComplete() {
+        loadRecords(11);
+
+        verify(s3Client, timeout(5000).times(2)).uploadPart(any(UploadPartRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void newFileIsStartedWhenMaxFileSizeIsReached() throws Exception {
+        loadRecords(13);
+        s3FastLoader.close();
+
+        verify(s3Client, times(2)).initiateMultipartUpload(initiateRequestCaptor.capture());
+        verify(s3Client, times(2)).completeMultipartUpload(completeRequestCaptor.capture());
+        List<CompleteMultipartUploadRequest> requests = completeRequestCaptor.getAllValues();
+
+        assertThat(initiateRequestCaptor.getAllValues().get(0).getKey(), equalTo(S3_PREFIX + "/1"));
+        assertThat(initiateRequestCaptor.getAllValues().get(1).getKey(), equalTo(S3_PREFIX + "/2"));
+        assertThat(requests.get(0).getPartETags().size(), equalTo(3));
+        assertThat(uploadedPartSizes.get(S3_PREFIX + "/1#3"), equalTo((long) ONE_MIB * 2));
+        assertThat(uploadedPartSizes.get(S3_PREFIX + "/2#1"), equalTo((long) ONE_MIB));
+        verify(mockStringSerializerProvider, times(3)).get();
+    }
+
+    @Test
+    public void uploadIsInitiatedWithKmsSseEncryption() {
+        loadRecords(1);
+
+        verify(s3Client).initiateMultipartUpload(initiateRequestCaptor.capture());
+        assertThat(initiateRequestCaptor.getValue().getSSEAwsKeyManagementParams().getAwsKmsKeyId(), equalTo(KMS_KEY));
+    }
+
+    @Test
+    public void closeWithNothingLoadedDoesNotWriteToS3() throws Exception {
+        s3FastLoader.open(mockMetrics);
+        s3FastLoader.close();
+
+        verifyZeroInteractions(s3Client);
+    }
+
+    @Test
+    public void partUploadFailureAbortsUploadAndThrowsUnrecoverableStreamFailureException() throws Exception {
+        AmazonClientException s3Exception = new AmazonClientException("oh no!");
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(s3Exception);
+        loadRecords(5);
+
+        try {
+            s3FastLoader.close();
+            fail("Expected UnrecoverableStreamFailureException");
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause(), is(s3Exception));
+        }
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(mockMetrics).addCount("S3FastLoader.failure", 1.0);
+    }
+
+    @Test(timeout = 30000)
+    public void failedPartUploadIsReportedByTheNextLoad() throws Exception {
+        AmazonClientException s3Exception = new AmazonClientException("oh no!");
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(s3Exception);
+        S3FastLoader.S3FastLoaderSupplier<Object> supplier = S3FastLoader.supplierOf(S3_BUCKET,
+                mockStringSerializerProvider)
+                .withClient(s3Client)
+                .withMultipartUpload(PART_SIZE, 3);
+        Loader<Object> loader = supplier.get();
+        loader.open(mockMetrics);
+        IntStream.range(0, 5).forEach(loader::load);
+
+        try {
+            // The part file is far from its maximum size, so only the failed part can stop these loads
+            for (int i = 0; i < 50; i++) {
+                Thread.sleep(10);
+                loader.load(i);
+            }
+
+            fail("Expected UnrecoverableStreamFailureException");
+        } catch (UnrecoverableStreamFailureException e) {
+            assertThat(e.getCause(), is(s3Exception));
+        }
+
+        loader.close();
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void uploadThreadsAreShutDownWhenTheLastLoaderIsClosed() throws Exception {
+        S3FastLoader.S3FastLoaderSupplier<Object> supplier = multipartSupplier(2);
+        Loader<Object> firstLoader = supplier.get();
+        Loader<Object> secondLoader = supplier.get();
+        ExecutorService uploadExecutor = supplier.getMultipartUploadExecutor();
+        firstLoader.open(mockMetrics);
+        secondLoader.open(mockMetrics);
+
+        firstLoader.load(1);
+        firstLoader.close();
+        assertThat(uploadExecutor.isShutdown(), is(false));
+
+        secondLoader.load(1);
+        secondLoader.close();
+        assertThat(uploadExecutor.isShutdown(), is(true));
+        verify(s3Client, times(2)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void completedUploadEmitsSuccessMetrics() throws Exception {
+        loadRecords(1);
+        s3FastLoader.close();
+
+        verify(mockMetrics).addCount("S3FastLoader.success", 1.0);
+        verify(mockMetrics).addCount("S3FastLoader.failure", 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void partSizeSmallerThanS3MinimumThrowsIllegalArgumentException() {
+        S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider)
+                .withMultipartUpload(S3FastLoader.MIN_MULTIPART_PART_SIZE_IN_BYTES - 1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferPoolSizeOfZeroThrowsIllegalArgumentException() {
+        S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider).withMultipartUpload(PART_SIZE, 0);
+    }
+
+    @Test(timeout = 30000)
+    public void moreLoaderThreadsThanBuffersFailsTheStreamInsteadOfHanging() throws Exception {
+        ParallelLoader<Object> parallelLoader = ParallelLoader.of(multipartSupplier(2));
+        parallelLoader.open(mockMetrics);
+        CyclicBarrier everyThreadHasLoaded = new CyclicBarrier(3);
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        List<Future<?>> loaderThreads = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            loaderThreads.add(executorService.submit(() -> {
+                try {
+                    parallelLoader.load(1);
+                } finally {
+                    everyThreadHasLoaded.await();
+                }
+
+                // Keep writing into the partly filled buffer so the parts have to be uploaded
+                IntStream.range(0, 20).forEach(parallelLoader::load);
+                return null;
+            }));
+        }
+
+        int failedThreads = 0;
+
+        for (Future<?> loaderThread : loaderThreads) {
+            try {
+                loaderThread.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(UnrecoverableStreamFailureException.class));
+                failedThreads++;
+            }
+        }
+
+        executorService.shutdown();
+        parallelLoader.close();
+
+        assertThat(failedThreads, equalTo(1));
+    }
+
+    @Test(timeout = 30000)
+    public void loaderIsNotStarvedByIdleLoadersHoldingPartlyFilledBuffers() throws Exception {
+        S3FastLoader.S3FastLoaderSupplier<Object> supplier = multipartSupplier(2);
+        Loader<Object> idleLoader = supplier.get();
+        Loader<Object> busyLoader = supplier.get();
+        idleLoader.open(mockMetrics);
+        busyLoader.open(mockMetrics);
+
+        idleLoader.load(1);
+        IntStream.range(0, 40).forEach(busyLoader::load);
+        busyLoader.close();
+        idleLoader.close();
+
+        verify(s3Client, times(5)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void closingALoaderReleasesItsBufferForAnotherLoader() throws Exception {
+        S3FastLoader.S3FastLoaderSupplier<Object> supplier = multipartSupplier(1);
+        Loader<Object> firstLoader = supplier.get();
+        firstLoader.open(mockMetrics);
+        firstLoader.close();
+
+        Loader<Object> secondLoader = supplier.get();
+        secondLoader.open(mockMetrics);
+        secondLoader.load(1);
+        secondLoader.close();
+
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    private S3FastLoader.S3FastLoaderSupplier<Object> multipartSupplier(int bufferPoolSize) {
+        return S3FastLoader.supplierOf(S3_BUCKET, mockStringSerializerProvider)
+                .withClient(s3Client)
+                .withMaxPartFileSizeInBytes(MAX_FILE_SIZE)
+                .withMultipartUpload(PART_SIZE, bufferPoolSize);
+    }
+
+    private void loadRecords(int numberOfRecords) {
+        s3FastLoader.open(mockMetrics);
+        IntStream.range(0, numberOfRecords).forEach(s3FastLoader::load);
+    }
+}
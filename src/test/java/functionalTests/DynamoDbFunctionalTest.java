@@ -28,10 +28,13 @@ import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class DynamoDbFunctionalTest {
@@ -84,6 +87,30 @@ public class DynamoDbFunctionalTest {
         }
     }
 
+    @Test
+    public void testBatchLoading() throws Exception {
+        final DynamoDbLoader<Thing> loader = DynamoDbLoader.of(tableName, "pk", Thing::getSomeUniqueId).withClient(ddb);
+        final List<Thing> things = new ArrayList<>();
+
+        for (int i = 0; i < 60; i++) {
+            Thing thing = new Thing();
+            thing.someUniqueId = "lith-" + i;
+            thing.year = Integer.toString(2000 + i);
+            things.add(thing);
+        }
+
+        loader.open(null);
+        List<Thing> failedThings = loader.loadBatch(things);
+        loader.close();
+
+        assertThat(failedThings, is(empty()));
+
+        for (int i = 0; i < 60; i++) {
+            assertThat(getThingFromDdb("lith-" + i).getItem().get("document").getM().get("year").getS(),
+                    is(Integer.toString(2000 + i)));
+        }
+    }
+
     private GetItemResult getThingFromDdb(String key) {
         final HashMap<String, AttributeValue> requestItems = new HashMap<>();
         requestItems.put("pk", new AttributeValue(key));
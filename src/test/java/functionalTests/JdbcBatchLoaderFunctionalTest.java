@@ -0,0 +1,118 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package functionalTests;
+
+import com.amazon.pocketEtl.EtlStream;
+import com.amazon.pocketEtl.extractor.IterableExtractor;
+import com.amazon.pocketEtl.loader.JdbcBatchLoader;
+import com.amazon.pocketEtl.loader.ParallelLoader;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.amazon.pocketEtl.EtlConsumerStage.load;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class JdbcBatchLoaderFunctionalTest {
+    private final static int ROW_COUNT = 1005;
+    private final static DateTime BASE_DATE_TIME = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static ComboPooledDataSource dataSource;
+    private Connection connection;
+
+    private final static String DROP_SQL = "DROP TABLE IF EXISTS batch_loader_test_data";
+
+    private final static String CREATE_SQL =
+            "CREATE TABLE batch_loader_test_data (" +
+            " id INT NOT NULL," +
+            " aString VARCHAR(20)," +
+            " aNumber INT," +
+            " aDateTime TIMESTAMP," +
+            " aBoolean BOOLEAN," +
+            " PRIMARY KEY (id))";
+
+    @BeforeClass
+    public static void startDatabase() throws Exception {
+        dataSource = new ComboPooledDataSource();
+        dataSource.setDriverClass("org.hsqldb.jdbc.JDBCDriver");
+        dataSource.setJdbcUrl("jdbc:hsqldb:mem:pocketETLBatchLoader");
+    }
+
+    @Before
+    public void initializeDatabase() throws Exception {
+        connection = dataSource.getConnection();
+        connection.createStatement().execute(DROP_SQL);
+        connection.createStatement().execute(CREATE_SQL);
+    }
+
+    private static List<TestDTO2> testRows() {
+        return IntStream.range(0, ROW_COUNT)
+                .mapToObj(id -> new TestDTO2(id, "test" + id, id % 3 == 0 ? null : id * 2,
+                        BASE_DATE_TIME.plusMinutes(id), id % 2 == 0))
+                .collect(Collectors.toList());
+    }
+
+    private void assertRowsWereLoaded() throws Exception {
+        ResultSet count = connection.createStatement().executeQuery("SELECT COUNT(*) FROM batch_loader_test_data");
+        count.next();
+        assertThat(count.getInt(1), equalTo(ROW_COUNT));
+
+        ResultSet rows = connection.createStatement().executeQuery(
+                "SELECT id, aString, aNumber, aDateTime, aBoolean FROM batch_loader_test_data ORDER BY id");
+
+        while (rows.next()) {
+            int id = rows.getInt(1);
+            assertThat(rows.getString(2), equalTo("test" + id));
+            assertThat(rows.getObject(3), equalTo(id % 3 == 0 ? null : id * 2));
+            assertThat(rows.getTimestamp(4).getTime(), equalTo(BASE_DATE_TIME.plusMinutes(id).getMillis()));
+            assertThat(rows.getBoolean(5), equalTo(id % 2 == 0));
+        }
+    }
+
+    @Test
+    public void loadsEveryRowFromParallelLoaders() throws Exception {
+        EtlStream.extract(IterableExtractor.of(testRows()))
+                .then(load(TestDTO2.class, ParallelLoader.of(
+                        JdbcBatchLoader.supplierOf(dataSource, "batch_loader_test_data", TestDTO2.class)
+                                .withBatchSize(100)
+                                .withRowsPerStatement(30)))
+                        .withThreads(4))
+                .run();
+
+        assertRowsWereLoaded();
+    }
+
+    @Test
+    public void loadsEveryRowWithOneStatementPerRow() throws Exception {
+        EtlStream.extract(IterableExtractor.of(testRows()))
+                .load(TestDTO2.class, ParallelLoader.of(
+                        JdbcBatchLoader.supplierOf(dataSource, "batch_loader_test_data", TestDTO2.class)
+                                .withRowsPerStatement(1)))
+                .run();
+
+        assertRowsWereLoaded();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package functionalTests;
+
+import com.amazon.pocketEtl.EtlStream;
+import com.amazon.pocketEtl.extractor.IterableExtractor;
+import com.amazon.pocketEtl.loader.JdbcBatchLoader;
+import com.amazon.pocketEtl.loader.ParallelLoader;
+import com.google.common.collect.ImmutableList;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Upserts into H2 running in MySQL compatibility mode. H2 reports itself as H2, so the DataSource the loader is given
+ * reports the database as MySQL 5.7, which makes the loader use ON DUPLICATE KEY UPDATE with the VALUES() function.
+ * H2 does not accept the row alias syntax of MySQL 8.0.19 or the ON CONFLICT ... DO UPDATE syntax of Postgres, so
+ * those are only covered by the unit tests of JdbcBatchLoader.
+ */
+public class JdbcBatchLoaderUpsertFunctionalTest {
+    private final static int ROW_COUNT = 1005;
+    private final static int UPDATED_ROW_START = 500;
+    private final static DateTime BASE_DATE_TIME = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static ComboPooledDataSource h2DataSource;
+    private static DataSource mySqlDataSource;
+    private Connection connection;
+
+    private final static String CREATE_SQL =
+            "CREATE TABLE upsert_test_data (" +
+            " id INT NOT NULL," +
+            " aString VARCHAR(20)," +
+            " aNumber INT," +
+            " aDateTime TIMESTAMP," +
+            " aBoolean BOOLEAN," +
+            " PRIMARY KEY (id))";
+
+    private final static String CREATE_BINARY_KEY_SQL =
+            "CREATE TABLE binary_key_test_data (" +
+            " id VARBINARY(16) NOT NULL," +
+            " name VARCHAR(20)," +
+            " PRIMARY KEY (id))";
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BinaryKeyDTO {
+        private byte[] id;
+        private String name;
+    }
+
+    @BeforeClass
+    public static void startDatabase() throws Exception {
+        h2DataSource = new ComboPooledDataSource();
+        h2DataSource.setDriverClass("org.h2.Driver");
+        h2DataSource.setJdbcUrl("jdbc:h2:mem:pocketETLUpsert;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        mySqlDataSource = reportingAsMySql57(DataSource.class, h2DataSource);
+    }
+
+    @AfterClass
+    public static void stopDatabase() {
+        h2DataSource.close();
+    }
+
+    @Before
+    public void initializeDatabase() throws Exception {
+        connection = h2DataSource.getConnection();
+        connection.createStatement().execute("DROP TABLE IF EXISTS upsert_test_data");
+        connection.createStatement().execute("DROP TABLE IF EXISTS binary_key_test_data");
+        connection.createStatement().execute(CREATE_SQL);
+        connection.createStatement().execute(CREATE_BINARY_KEY_SQL);
+    }
+
+    private static TestDTO2 testRow(int id, String prefix) {
+        return new TestDTO2(id, prefix + id, id % 3 == 0 ? null : id * 2, BASE_DATE_TIME.plusMinutes(id),
+                id % 2 == 0);
+    }
+
+    private static void load(List<TestDTO2> rows, List<String> keyColumns) throws Exception {
+        EtlStream.extract(IterableExtractor.of(rows))
+                .load(TestDTO2.class, ParallelLoader.of(
+                        JdbcBatchLoader.supplierOf(mySqlDataSource, "upsert_test_data", TestDTO2.class)
+                                .withUpsert(keyColumns)
+                                .withBatchSize(100)
+                                .withRowsPerStatement(30)))
+                .run();
+    }
+
+    private static void loadBinaryKeyRows(List<BinaryKeyDTO> rows, List<String> keyColumns) throws Exception {
+        EtlStream.extract(IterableExtractor.of(rows))
+                .load(BinaryKeyDTO.class, JdbcBatchLoader.supplierOf(mySqlDataSource, "binary_key_test_data",
+                        BinaryKeyDTO.class).withUpsert(keyColumns).get())
+                .run();
+    }
+
+    @Test
+    public void upsertInsertsNewRowsAndUpdatesExistingRows() throws Exception {
+        load(IntStream.range(0, ROW_COUNT).mapToObj(id -> testRow(id, "old")).collect(Collectors.toList()),
+                ImmutableList.of("id"));
+
+        // Every updated row appears twice, so most batches update the same row more than once
+        List<TestDTO2> updates = new ArrayList<>();
+        IntStream.range(UPDATED_ROW_START, ROW_COUNT + UPDATED_ROW_START).forEach(id -> {
+            updates.add(testRow(id, "stale"));
+            updates.add(testRow(id, "new"));
+        });
+        load(updates, ImmutableList.of("id"));
+
+        ResultSet count = connection.createStatement().executeQuery("SELECT COUNT(*) FROM upsert_test_data");
+        count.next();
+        assertThat(count.getInt(1), equalTo(ROW_COUNT + UPDATED_ROW_START));
+
+        ResultSet rows = connection.createStatement().executeQuery(
+                "SELECT id, aString, aNumber, aDateTime, aBoolean FROM upsert_test_data ORDER BY id");
+
+        while (rows.next()) {
+            int id = rows.getInt(1);
+            assertThat(rows.getString(2), equalTo((id < UPDATED_ROW_START ? "old" : "new") + id));
+            assertThat(rows.getObject(3), equalTo(id % 3 == 0 ? null : id * 2));
+            assertThat(rows.getTimestamp(4).getTime(), equalTo(BASE_DATE_TIME.plusMinutes(id).getMillis()));
+            assertThat(rows.getBoolean(5), equalTo(id % 2 == 0));
+        }
+    }
+
+    @Test
+    public void upsertLeavesExistingRowsUntouchedWhenEveryColumnIsAKey() throws Exception {
+        List<String> everyColumn = ImmutableList.of("id", "name");
+
+        loadBinaryKeyRows(ImmutableList.of(new BinaryKeyDTO(new byte[] { 1 }, "first")), everyColumn);
+        loadBinaryKeyRows(ImmutableList.of(new BinaryKeyDTO(new byte[] { 1 }, "second")), everyColumn);
+
+        ResultSet rows = connection.createStatement().executeQuery("SELECT id, name FROM binary_key_test_data");
+
+        rows.next();
+        assertThat(rows.getBytes(1), equalTo(new byte[] { 1 }));
+        assertThat(rows.getString(2), equalTo("first"));
+        assertThat(rows.next(), equalTo(false));
+    }
+
+    @Test
+    public void upsertMatchesBinaryKeysByContent() throws Exception {
+        loadBinaryKeyRows(ImmutableList.of(
+                new BinaryKeyDTO(new byte[] { 1, 2 }, "first"),
+                new BinaryKeyDTO(new byte[] { 3 }, "other"),
+                new BinaryKeyDTO(new byte[] { 1, 2 }, "second")), ImmutableList.of("id"));
+
+        ResultSet rows = connection.createStatement().executeQuery(
+                "SELECT id, name FROM binary_key_test_data ORDER BY name");
+
+        rows.next();
+        assertThat(rows.getBytes(1), equalTo(new byte[] { 3 }));
+        assertThat(rows.getString(2), equalTo("other"));
+        rows.next();
+        assertThat(rows.getBytes(1), equalTo(new byte[] { 1, 2 }));
+        assertThat(rows.getString(2), equalTo("second"));
+        assertThat(rows.next(), equalTo(false));
+    }
+
+    // Reports the database as MySQL 5.7 through every Connection and DatabaseMetaData obtained from the target
+    @SuppressWarnings("unchecked")
+    private static <T> T reportingAsMySql57(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getDatabaseProductName":
+                    return "MySQL";
+                case "getDatabaseProductVersion":
+                    return "5.7.44";
+                default:
+                    break;
+            }
+
+            Object result;
+
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof Connection) {
+                return reportingAsMySql57(Connection.class, (Connection) result);
+            }
+
+            if (result instanceof DatabaseMetaData) {
+                return reportingAsMySql57(DatabaseMetaData.class, (DatabaseMetaData) result);
+            }
+
+            return result;
+        };
+
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package functionalTests;
+
+import com.amazon.pocketEtl.extractor.KeysetSqlExtractor;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class KeysetSqlExtractorFunctionalTest {
+    private final static int ROW_COUNT = 250;
+
+    private static ComboPooledDataSource dataSource;
+    private Connection connection;
+
+    private final static String DROP_SQL = "DROP TABLE IF EXISTS keyset_test_data";
+
+    private final static String CREATE_SQL =
+            "CREATE TABLE keyset_test_data (" +
+            " id INT NOT NULL," +
+            " aString VARCHAR(20)," +
+            " aNumber BIGINT," +
+            " aDateTime TIMESTAMP," +
+            " aBoolean BOOLEAN," +
+            " PRIMARY KEY (id))";
+
+    private final static String INSERT_SQL = "INSERT INTO keyset_test_data (id, aString, aBoolean) VALUES (?, ?, ?)";
+
+    private final static String EXTRACT_SQL = "SELECT * FROM keyset_test_data";
+
+    @BeforeClass
+    public static void startDatabase() throws Exception {
+        dataSource = new ComboPooledDataSource();
+        dataSource.setDriverClass("org.hsqldb.jdbc.JDBCDriver");
+        dataSource.setJdbcUrl("jdbc:hsqldb:mem:pocketETLKeyset");
+    }
+
+    @Before
+    public void initializeDatabase() throws Exception {
+        connection = dataSource.getConnection();
+        connection.createStatement().execute(DROP_SQL);
+        connection.createStatement().execute(CREATE_SQL);
+    }
+
+    // Inserts the rows in reverse order so that they are not returned in key order by accident
+    private void insertRows() throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int id = ROW_COUNT - 1; id >= 0; id--) {
+                statement.setInt(1, id);
+                statement.setString(2, "test" + id);
+                statement.setBoolean(3, id % 2 == 0);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    private static List<Integer> extractIds(KeysetSqlExtractor<TestDTO2> keysetSqlExtractor, int limit)
+            throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        keysetSqlExtractor.open(null);
+
+        try {
+            Optional<TestDTO2> next;
+
+            while (ids.size() < limit && (next = keysetSqlExtractor.next()).isPresent()) {
+                assertThat(next.get().getAString(), equalTo("test" + next.get().getId()));
+                ids.add(next.get().getId());
+            }
+        } finally {
+            keysetSqlExtractor.close();
+        }
+
+        return ids;
+    }
+
+    private static List<Integer> range(int startInclusive, int endExclusive) {
+        return IntStream.range(startInclusive, endExclusive).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void extractsEveryRowInKeyOrderAcrossPages() throws Exception {
+        insertRows();
+        List<Object> checkpoints = new ArrayList<>();
+
+        List<Integer> ids = extractIds(KeysetSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class)
+                .withPageSize(100)
+                .withCheckpointListener(checkpoints::add), Integer.MAX_VALUE);
+
+        assertThat(ids, equalTo(range(0, ROW_COUNT)));
+        assertThat(checkpoints, equalTo(ImmutableList.of(99, 199, 249)));
+    }
+
+    @Test
+    public void extractsEveryRowWhenLastPageIsFull() throws Exception {
+        insertRows();
+        List<Object> checkpoints = new ArrayList<>();
+
+        List<Integer> ids = extractIds(KeysetSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class)
+                .withPageSize(125)
+                .withCheckpointListener(checkpoints::add), Integer.MAX_VALUE);
+
+        assertThat(ids, equalTo(range(0, ROW_COUNT)));
+        assertThat(checkpoints, equalTo(ImmutableList.of(124, 249)));
+    }
+
+    @Test
+    public void resumesFromCheckpointAfterFailure() throws Exception {
+        insertRows();
+        List<Object> checkpoints = new ArrayList<>();
+        KeysetSqlExtractor<TestDTO2> keysetSqlExtractor =
+                KeysetSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class).withPageSize(100);
+
+        // Stop part way through the second page as if the stream had failed
+        List<Integer> idsBeforeFailure =
+                extractIds(keysetSqlExtractor.withCheckpointListener(checkpoints::add), 150);
+        Object lastCheckpoint = checkpoints.get(checkpoints.size() - 1);
+        List<Integer> idsAfterResuming =
+                extractIds(keysetSqlExtractor.withResumeAfterKey(lastCheckpoint), Integer.MAX_VALUE);
+
+        assertThat(idsBeforeFailure, equalTo(range(0, 150)));
+        assertThat(lastCheckpoint, equalTo(99));
+        assertThat(idsAfterResuming, equalTo(range(100, ROW_COUNT)));
+    }
+
+    @Test
+    public void bindsSqlParameters() throws Exception {
+        insertRows();
+
+        List<Integer> ids = extractIds(KeysetSqlExtractor.of(dataSource, EXTRACT_SQL + " WHERE aBoolean = #aBoolean",
+                "id", TestDTO2.class)
+                .withSqlParameters(ImmutableMap.of("aBoolean", false))
+                .withPageSize(10), Integer.MAX_VALUE);
+
+        assertThat(ids, equalTo(range(0, ROW_COUNT).stream().filter(id -> id % 2 == 1).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void extractsNothingFromEmptyTable() throws Exception {
+        List<Object> checkpoints = new ArrayList<>();
+
+        List<Integer> ids = extractIds(KeysetSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class)
+                .withCheckpointListener(checkpoints::add), Integer.MAX_VALUE);
+
+        assertThat(ids, empty());
+        assertThat(checkpoints, empty());
+    }
+}
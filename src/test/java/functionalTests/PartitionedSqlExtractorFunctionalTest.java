@@ -0,0 +1,192 @@
+/*
+ *   Copyright 2018-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package functionalTests;
+
+import com.amazon.pocketEtl.EtlStream;
+import com.amazon.pocketEtl.Extractor;
+import com.amazon.pocketEtl.extractor.PartitionedSqlExtractor;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class PartitionedSqlExtractorFunctionalTest {
+    private final static int ROW_COUNT = 1000;
+
+    private static ComboPooledDataSource dataSource;
+    private Connection connection;
+
+    private final static String DROP_SQL = "DROP TABLE IF EXISTS partitioned_test_data";
+
+    private final static String CREATE_SQL =
+            "CREATE TABLE partitioned_test_data (" +
+            " id INT NOT NULL," +
+            " aString VARCHAR(20)," +
+            " aNumber BIGINT," +
+            " aDateTime TIMESTAMP," +
+            " aBoolean BOOLEAN," +
+            " PRIMARY KEY (id))";
+
+    private final static String INSERT_SQL = "INSERT INTO partitioned_test_data VALUES (?, ?, ?, ?, ?)";
+
+    private final static String EXTRACT_SQL = "SELECT * FROM partitioned_test_data";
+
+    @BeforeClass
+    public static void startDatabase() throws Exception {
+        dataSource = new ComboPooledDataSource();
+        dataSource.setDriverClass("org.hsqldb.jdbc.JDBCDriver");
+        dataSource.setJdbcUrl("jdbc:hsqldb:mem:pocketETLPartitioned");
+    }
+
+    @Before
+    public void initializeDatabase() throws Exception {
+        connection = dataSource.getConnection();
+        connection.createStatement().execute(DROP_SQL);
+        connection.createStatement().execute(CREATE_SQL);
+    }
+
+    private void insertRows() throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int id = 0; id < ROW_COUNT; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, "test" + id);
+                statement.setLong(3, id * 10L);
+                // Leave the time of some rows null
+                statement.setTimestamp(4, id % 10 == 0 ? null : new Timestamp(createDateTime(id).getMillis()));
+                statement.setBoolean(5, id % 2 == 0);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    private static DateTime createDateTime(int id) {
+        return new DateTime(2017, 1, 1, 0, 0).plusMinutes(id);
+    }
+
+    private static List<TestDTO2> expectedRows() {
+        return IntStream.range(0, ROW_COUNT)
+                .mapToObj(id -> new TestDTO2(id, "test" + id, id * 10, id % 10 == 0 ? null : createDateTime(id),
+                        id % 2 == 0))
+                .collect(Collectors.toList());
+    }
+
+    private static List<List<TestDTO2>> extractEachPartition(Collection<Extractor<?>> extractors) throws Exception {
+        List<List<TestDTO2>> partitions = new ArrayList<>();
+
+        for (Extractor<?> extractor : extractors) {
+            List<TestDTO2> partition = new ArrayList<>();
+            extractor.open(null);
+            Optional<?> next = extractor.next();
+
+            while (next.isPresent()) {
+                partition.add((TestDTO2) next.get());
+                next = extractor.next();
+            }
+
+            extractor.close();
+            partitions.add(partition);
+        }
+
+        return partitions;
+    }
+
+    @Test
+    public void partitionsTogetherExtractEveryRowOnce() throws Exception {
+        insertRows();
+        Collection<Extractor<?>> extractors =
+                PartitionedSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class).withPartitions(4)
+                        .getExtractors();
+
+        List<List<TestDTO2>> partitions = extractEachPartition(extractors);
+
+        // Boundaries are 249, 499 and 749
+        assertThat(partitions.stream().map(List::size).collect(Collectors.toList()),
+                equalTo(ImmutableList.of(249, 250, 250, 251)));
+        assertThat(partitions.stream().flatMap(List::stream).collect(Collectors.toList()),
+                containsInAnyOrder(expectedRows().toArray()));
+    }
+
+    @Test
+    public void partitionsOnTimestampColumnIncludeRowsWithNullValues() throws Exception {
+        insertRows();
+        Collection<Extractor<?>> extractors =
+                PartitionedSqlExtractor.of(dataSource, EXTRACT_SQL, "aDateTime", TestDTO2.class).withPartitions(3)
+                        .getExtractors();
+
+        List<TestDTO2> extracted = extractEachPartition(extractors).stream().flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        assertThat(extracted, containsInAnyOrder(expectedRows().toArray()));
+    }
+
+    @Test
+    public void partitionsWithSuppliedBoundariesAndSqlParameters() throws Exception {
+        insertRows();
+        Collection<Extractor<?>> extractors = PartitionedSqlExtractor.of(dataSource,
+                EXTRACT_SQL + " WHERE aBoolean = #aBoolean", "aNumber", TestDTO2.class)
+                .withSqlParameters(ImmutableMap.of("aBoolean", true))
+                .withBoundaries(ImmutableList.of(1000L, 5000L))
+                .getExtractors();
+
+        List<List<TestDTO2>> partitions = extractEachPartition(extractors);
+
+        assertThat(partitions.stream().map(List::size).collect(Collectors.toList()),
+                equalTo(ImmutableList.of(50, 200, 250)));
+    }
+
+    @Test
+    public void partitionsOfEmptyTableExtractNothing() throws Exception {
+        Collection<Extractor<?>> extractors =
+                PartitionedSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class).getExtractors();
+
+        assertThat(extractEachPartition(extractors).stream().flatMap(List::stream).collect(Collectors.toList()),
+                empty());
+    }
+
+    @Test
+    public void partitionsRunInParallelInEtlStream() throws Exception {
+        insertRows();
+        BufferLoader<TestDTO2> bufferLoader = new BufferLoader<>();
+
+        EtlStream.extract(PartitionedSqlExtractor.of(dataSource, EXTRACT_SQL, "id", TestDTO2.class)
+                .withPartitions(8)
+                .getExtractors())
+                .load(TestDTO2.class, bufferLoader)
+                .run();
+
+        assertThat(bufferLoader.getBuffer(), containsInAnyOrder(expectedRows().toArray()));
+    }
+}
@@ -85,6 +85,24 @@ public class SqlExtractorFunctionalTest {
         assertThat(actualDTO, equalTo(expectedDTO));
     }
 
+    @Test
+    public void canReadRecordsWhenStreaming() throws Exception {
+        connection.createStatement().execute("INSERT INTO test_data VALUES (1, 'test', 123, '2017-01-02 03:04:05', TRUE)");
+        connection.createStatement().execute("INSERT INTO test_data VALUES (2, null, null, null, null)");
+        SqlExtractor<TestDTO2> streamingSqlExtractor =
+                SqlExtractor.of(dataSource, "SELECT * FROM test_data ORDER BY id", TestDTO2.class)
+                        .withFetchSize(1)
+                        .withStreaming();
+        streamingSqlExtractor.open(null);
+
+        assertThat(streamingSqlExtractor.next(),
+                equalTo(Optional.of(new TestDTO2(1, "test", 123, new DateTime(2017, 1, 2, 3, 4, 5), true))));
+        assertThat(streamingSqlExtractor.next(), equalTo(Optional.of(new TestDTO2(2, null, null, null, null))));
+        assertThat(streamingSqlExtractor.next(), equalTo(Optional.empty()));
+
+        streamingSqlExtractor.close();
+    }
+
     @Test
     public void sqlBatchedStatementInjectionAttemptFails() throws Exception {
         connection.createStatement().execute("INSERT INTO test_data VALUES (1, null, null, null, null)");
@@ -0,0 +1,106 @@
+/*
+ *   Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License").
+ *   You may not use this file except in compliance with the License.
+ *   A copy of the License is located at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   or in the "license" file accompanying this file. This file is distributed
+ *   on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *   express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+
+package functionalTests;
+
+import com.amazon.pocketEtl.EtlStream;
+import com.amazon.pocketEtl.extractor.IterableExtractor;
+import com.amazon.pocketEtl.transformer.MapTransformer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.amazon.pocketEtl.EtlConsumerStage.load;
+import static com.amazon.pocketEtl.EtlConsumerStage.transform;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class ThreadBudgetFunctionalTest {
+    private final static int RECORDS_PER_STREAM = 1000;
+
+    private final Set<String> workerThreadNames = ConcurrentHashMap.newKeySet();
+
+    private EtlStream newComponentStream(String prefix) {
+        List<TestDTO> inputData = IntStream.range(0, RECORDS_PER_STREAM)
+                .mapToObj(i -> new TestDTO(prefix + i))
+                .collect(Collectors.toList());
+
+        return EtlStream.extract(IterableExtractor.of(inputData))
+                .then(transform(TestDTO.class, MapTransformer.of((TestDTO obj) -> {
+                    workerThreadNames.add(Thread.currentThread().getName());
+                    return new TestDTO(obj.getValue().toLowerCase());
+                })).withThreads(8).withQueueSize(4));
+    }
+
+    private void runCombinedStreamsWithThreadBudget(int threadBudget) throws Exception {
+        List<TestDTO> outputData = new ArrayList<>();
+
+        EtlStream.combine(newComponentStream("A"), newComponentStream("B"), newComponentStream("C"))
+                .then(load(TestDTO.class, outputData::add).withQueueSize(4))
+                .withThreadBudget(threadBudget)
+                .run();
+
+        assertThat(outputData.size(), is(RECORDS_PER_STREAM * 3));
+        assertThat(workerThreadNames, everyItem(startsWith("ThreadBudgetScheduler-worker")));
+        assertThat(workerThreadNames.size(), lessThanOrEqualTo(threadBudget));
+    }
+
+    @Test(timeout = 30000)
+    public void combinedStreamsShareTheThreadBudget() throws Exception {
+        runCombinedStreamsWithThreadBudget(3);
+    }
+
+    @Test(timeout = 30000)
+    public void combinedStreamsCompleteWithASingleThreadBudget() throws Exception {
+        runCombinedStreamsWithThreadBudget(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threadBudgetMustBeAtLeastOne() {
+        EtlStream.extract(IterableExtractor.of(new ArrayList<TestDTO>())).withThreadBudget(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threadBudgetCannotBeAppliedToACombinedStreamWithAnAutoScalingStage() {
+        EtlStream autoScalingStream = EtlStream.extract(IterableExtractor.of(new ArrayList<TestDTO>()))
+                .then(transform(TestDTO.class, MapTransformer.of((TestDTO obj) -> obj)).withMaxThreads(4));
+
+        EtlStream.combine(autoScalingStream, newComponentStream("A")).withThreadBudget(4);
+    }
+
+    @Test
+    public void stageWithMaxThreadsEqualToThreadsCanBeAddedToAStreamWithAThreadBudget() {
+        EtlStream.extract(IterableExtractor.of(new ArrayList<TestDTO>()))
+                .withThreadBudget(4)
+                .then(transform(TestDTO.class, MapTransformer.of((TestDTO obj) -> obj))
+                        .withThreads(4)
+                        .withMaxThreads(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void autoScalingStageCannotBeAddedToAStreamWithAThreadBudget() {
+        EtlStream.extract(IterableExtractor.of(new ArrayList<TestDTO>()))
+                .withThreadBudget(4)
+                .then(transform(TestDTO.class, MapTransformer.of((TestDTO obj) -> obj)).withMaxThreads(4));
+    }
+}